@@ -1,6 +1,10 @@
 package com.revature.registrar.exceptions;
 
 public class DataSourceException extends RuntimeException {
+    public DataSourceException(String message) {
+        super(message);
+    }
+
     public DataSourceException(String message, Throwable cause) {
         super(message, cause);
     }
@@ -2,4 +2,6 @@ package com.revature.registrar.exceptions;
 
 public class ResourcePersistenceException extends RuntimeException {
     public ResourcePersistenceException(String message) { super(message); }
+
+    public ResourcePersistenceException(String message, Throwable cause) { super(message, cause); }
 }
@@ -0,0 +1,10 @@
+package com.revature.registrar.exceptions;
+
+/**
+ * A bounded resource is saturated and the request was turned away instead of queued, the client may retry
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
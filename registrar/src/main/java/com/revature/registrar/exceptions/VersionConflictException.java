@@ -0,0 +1,9 @@
+package com.revature.registrar.exceptions;
+
+/**
+ * Thrown when an update was made against a stale copy of a document,
+ * ie. the stored version no longer matches the version the caller read
+ */
+public class VersionConflictException extends RuntimeException {
+    public VersionConflictException(String message) { super(message); }
+}
@@ -0,0 +1,23 @@
+package com.revature.registrar.jobs;
+
+import com.revature.registrar.repository.MongoClassModelRepo;
+import com.revature.registrar.repository.MongoUserRepository;
+import com.revature.registrar.util.MongoClientFactory;
+
+/**
+ * One-shot job which rewrites the embedded rosters and class lists written before the snapshot layout:
+ * class rosters down to {id, firstName, lastName} and user classes down to {id, name}.
+ * Safe to run more than once.
+ */
+public class NormalizeEmbeddedRefsJob {
+
+    public static void main(String[] args) {
+        try {
+            long classes = new MongoClassModelRepo().normalizeRosters();
+            long users = new MongoUserRepository().normalizeClassRefs();
+            System.out.println("Normalized " + classes + " classes and " + users + " users");
+        } finally {
+            MongoClientFactory.getInstance().cleanUp();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.revature.registrar.jobs;
+
+import com.revature.registrar.repository.MongoClassModelRepo;
+import com.revature.registrar.util.MongoClientFactory;
+
+/**
+ * One-shot job which rebuilds the denormalized enrolledCount of every class from its students roster.
+ * Run once after deploying the counter, and again any time the counters are suspected to have drifted.
+ */
+public class RecomputeEnrolledCountsJob {
+
+    public static void main(String[] args) {
+        try {
+            long modified = new MongoClassModelRepo().recomputeEnrolledCounts();
+            System.out.println("Recomputed enrolledCount for " + modified + " classes");
+        } finally {
+            MongoClientFactory.getInstance().cleanUp();
+        }
+    }
+}
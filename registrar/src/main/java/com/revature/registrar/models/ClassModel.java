@@ -5,7 +5,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.revature.registrar.exceptions.CapacityReachedException;
 import com.revature.registrar.exceptions.InvalidUserTypesException;
 
-import java.util.Calendar;
 import java.util.HashSet;
 import java.util.Set;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -23,14 +22,18 @@ public class ClassModel {
     private int id;
     private String name; //id based on name
     private int capacity;
+    private int enrolledCount; //denormalized students.size(), kept in step by the repository with $inc
+    private int version; //bumped by every write, updates are conditional on it
     private String description;
-    private Calendar openWindow;
-    private Calendar closeWindow;
+    private long openWindow; //epoch millis, 0 when not set
+    private long closeWindow; //epoch millis, 0 when not set
 
     private Set<Student> students;
     private Set<Faculty> faculty; //Could have multiple faculty members per class
 
-    public ClassModel(String name, String description, int capacity, Calendar open, Calendar close, Set<Faculty> faculty) {
+    private Persisted persisted; //field values as of the last read or write, updates are diffed against it
+
+    public ClassModel(String name, String description, int capacity, long open, long close, Set<Faculty> faculty) {
         this.name = name;
         this.description = description;
         this.id = name.hashCode();
@@ -38,6 +41,7 @@ public class ClassModel {
         this.openWindow = open;
         this.closeWindow = close;
         this.students = new HashSet<>();
+        this.enrolledCount = 0;
         this.faculty = faculty;
     }
 
@@ -53,22 +57,50 @@ public class ClassModel {
         this.capacity = capacity;
     }
 
+    public int getEnrolledCount() {
+        return enrolledCount;
+    }
+
+    public void setEnrolledCount(int enrolledCount) {
+        this.enrolledCount = enrolledCount;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public int getId() {
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
 
+    public void setName(String name) {
+        this.name = name;
+    }
+
     public Set<Student> getStudents() {
         return students;
     }
 
+    public void setStudents(Set<Student> students) {
+        this.students = students;
+    }
+
     public Set<Document> getStudentsAsDoc() {
         Set<Document> docs = new HashSet<>();
         for(Student stu : students) {
-            Document doc = stu.getAsDoc();
+            Document doc = stu.getSnapshotDoc();
             docs.add(doc);
         }
         return docs;
@@ -77,7 +109,7 @@ public class ClassModel {
     public Set<Document> getFacultyAsDoc() {
         Set<Document> docs = new HashSet<>();
         for(Faculty fac : faculty) {
-            Document doc = fac.getAsDoc();
+            Document doc = fac.getSnapshotDoc();
             docs.add(doc);
         }
         return docs;
@@ -88,32 +120,54 @@ public class ClassModel {
                 .append("id", getId())
                 .append("description", getDescription())
                 .append("capacity", getCapacity())
-                .append("openWindow", getOpenWindow().getTimeInMillis())
-                .append("closeWindow", getCloseWindow().getTimeInMillis());
+                .append("openWindow", getOpenWindow())
+                .append("closeWindow", getCloseWindow());
         return doc;
     }
 
+    /**
+     * The minimal snapshot embedded in a user's classes. Everything else is hydrated from the classes collection.
+     * @return
+     */
+    public Document getSnapshotDoc() {
+        Document doc = new Document("id", getId())
+                .append("name", getName());
+        return doc;
+    }
 
     public Set<Faculty> getFaculty() {
         return faculty;
     }
 
-    public Calendar getOpenWindow() {
+    public void setFaculty(Set<Faculty> faculty) {
+        this.faculty = faculty;
+    }
+
+    public long getOpenWindow() {
         return openWindow;
     }
 
-    public void setOpenWindow(Calendar openWindow) {
+    public void setOpenWindow(long openWindow) {
         this.openWindow = openWindow;
     }
 
-    public Calendar getCloseWindow() {
+    public long getCloseWindow() {
         return closeWindow;
     }
 
-    public void setCloseWindow(Calendar closeWindow) {
+    public void setCloseWindow(long closeWindow) {
         this.closeWindow = closeWindow;
     }
 
+    /**
+     * Returns true if now (epoch millis) lies strictly between the openWindow and closeWindow
+     * @param now
+     * @return
+     */
+    public boolean isOpenAt(long now) {
+        return openWindow < now && closeWindow > now;
+    }
+
     public String getDescription() {
         return description;
     }
@@ -122,6 +176,23 @@ public class ClassModel {
         this.description = description;
     }
 
+    /**
+     * Records the current field values as what the database holds. The codec calls this after decoding and the
+     * repositories after every write, so the next update only has to send what changed since.
+     */
+    public void markPersisted() {
+        persisted = new Persisted(this);
+    }
+
+    /**
+     * Field values as of the last markPersisted, or null if this instance was never read from or written to
+     * the database, in which case an update writes every field
+     * @return
+     */
+    public Persisted persistedState() {
+        return persisted;
+    }
+
     public void addUser(User user) {
         if(user.isFaculty()) {
             Faculty fac = (Faculty)user;
@@ -137,14 +208,25 @@ public class ClassModel {
     }
 
     public void addStudent(Student stu) {
-        if(students.size() < capacity) {
-            students.add(stu);
+        if(enrolledCount < capacity) {
+            if(students.add(stu)) {
+                enrolledCount++;
+            }
         } else {
             //No more room in the class! Throw an exception
             throw new CapacityReachedException("Class capacity for " + this.name + " is reached");
         }
     }
 
+    public boolean isEnrolled(Student stu) {
+        for(Student s : students) {
+            if(s.getId() == stu.getId()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     //Remove the user from the class. There must be at least 1 faculty member per class.
     public void removeUser(User user) {
         if(user.isFaculty()) {
@@ -171,6 +253,7 @@ public class ClassModel {
         for(Student s : students) {
             if(s.getId() == stu.getId()) {
                 students.remove(s);
+                enrolledCount--;
                 return;
             }
         }
@@ -183,12 +266,60 @@ public class ClassModel {
         }
     }
 
+    /**
+     * Updatable fields of a ClassModel as stored. Rosters are kept as ids, so a roster edit is a $push or $pull
+     * of the members that came or went.
+     */
+    public static final class Persisted {
+        private final int capacity;
+        private final String description;
+        private final long openWindow;
+        private final long closeWindow;
+        private final Set<Integer> studentIds;
+        private final Set<Integer> facultyIds;
+
+        private Persisted(ClassModel classModel) {
+            this.capacity = classModel.capacity;
+            this.description = classModel.description;
+            this.openWindow = classModel.openWindow;
+            this.closeWindow = classModel.closeWindow;
+            this.studentIds = User.idsOf(classModel.students);
+            this.facultyIds = User.idsOf(classModel.faculty);
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public long getOpenWindow() {
+            return openWindow;
+        }
+
+        public long getCloseWindow() {
+            return closeWindow;
+        }
+
+        public Set<Integer> getStudentIds() {
+            return studentIds;
+        }
+
+        public Set<Integer> getFacultyIds() {
+            return facultyIds;
+        }
+    }
+
     @Override
     public String toString() {
         return "ClassModel{" +
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", capacity=" + capacity +
+                ", enrolledCount=" + enrolledCount +
+                ", version=" + version +
                 ", description='" + description + '\'' +
                 ", openWindow=" + openWindow +
                 ", closeWindow=" + closeWindow +
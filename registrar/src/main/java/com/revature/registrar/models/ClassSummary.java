@@ -0,0 +1,91 @@
+package com.revature.registrar.models;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Read-only view of a class for listings. Holds only what the catalog and "my classes" screens display,
+ * so the repository can project away both rosters (and the user documents embedded in them).
+ */
+public class ClassSummary {
+    private int id;
+    private String name;
+    private int capacity;
+    private int enrolledCount;
+    private long openWindow; //epoch millis
+    private long closeWindow; //epoch millis
+    private Set<String> facultyLastNames = new HashSet<>();
+
+    public ClassSummary() {
+        super();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getEnrolledCount() {
+        return enrolledCount;
+    }
+
+    public void setEnrolledCount(int enrolledCount) {
+        this.enrolledCount = enrolledCount;
+    }
+
+    public long getOpenWindow() {
+        return openWindow;
+    }
+
+    public void setOpenWindow(long openWindow) {
+        this.openWindow = openWindow;
+    }
+
+    public long getCloseWindow() {
+        return closeWindow;
+    }
+
+    public void setCloseWindow(long closeWindow) {
+        this.closeWindow = closeWindow;
+    }
+
+    public Set<String> getFacultyLastNames() {
+        return facultyLastNames;
+    }
+
+    public void setFacultyLastNames(Set<String> facultyLastNames) {
+        this.facultyLastNames = facultyLastNames;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassSummary{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", capacity=" + capacity +
+                ", enrolledCount=" + enrolledCount +
+                ", openWindow=" + openWindow +
+                ", closeWindow=" + closeWindow +
+                ", facultyLastNames=" + facultyLastNames +
+                '}';
+    }
+}
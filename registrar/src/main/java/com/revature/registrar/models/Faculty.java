@@ -1,5 +1,6 @@
 package com.revature.registrar.models;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -31,14 +32,23 @@ public class Faculty extends User{
         return false;
     }
 
+    @Override
+    Collection<ClassModel> trackedClasses() {
+        return classes;
+    }
+
     public Set<ClassModel> getClasses() {
         return classes;
     }
 
+    public void setClasses(Set<ClassModel> classes) {
+        this.classes = classes;
+    }
+
     public Set<Document> getClassesAsDoc() {
         Set<Document> docs = new HashSet<>();
         for(ClassModel classModel : classes) {
-            Document doc = classModel.getAsDoc();
+            Document doc = classModel.getSnapshotDoc();
             docs.add(doc);
         }
         return docs;
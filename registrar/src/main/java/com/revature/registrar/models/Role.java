@@ -0,0 +1,15 @@
+package com.revature.registrar.models;
+
+/**
+ * What a logged in user may do, carried in their Principal.
+ * ADMIN is given at login to the usernames listed in the roles.admin setting.
+ */
+public enum Role {
+    STUDENT,
+    FACULTY,
+    ADMIN;
+
+    public static Role of(boolean isFaculty) {
+        return isFaculty ? FACULTY : STUDENT;
+    }
+}
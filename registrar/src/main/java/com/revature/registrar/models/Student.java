@@ -1,5 +1,6 @@
 package com.revature.registrar.models;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
@@ -22,22 +23,35 @@ public class Student extends User{
         super(firstName, lastName, email, username, password, false);
     }
 
+    @Override
+    Collection<ClassModel> trackedClasses() {
+        return classes;
+    }
+
     public Set<ClassModel> getClasses() {
         return classes;
     }
 
+    public void setClasses(Set<ClassModel> classes) {
+        this.classes = classes;
+    }
+
     public Set<Document> getClassesAsDoc() {
         Set<Document> docs = new HashSet<>();
         for(ClassModel classModel : classes) {
-            Document doc = classModel.getAsDoc();
+            Document doc = classModel.getSnapshotDoc();
             docs.add(doc);
         }
         return docs;
     }
 
     public boolean isInClasses(ClassModel classModel) {
+        return isInClasses(classModel.getId());
+    }
+
+    public boolean isInClasses(int classId) {
         for(ClassModel c : classes) {
-            if(c.getId() == classModel.getId()) {
+            if(c.getId() == classId) {
                 return true;
             }
         }
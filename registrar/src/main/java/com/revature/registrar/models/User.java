@@ -1,5 +1,9 @@
 package com.revature.registrar.models;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.bson.Document;
@@ -17,6 +21,9 @@ public class User {
     private String username;
     private String password;
     private boolean isFaculty;
+    private int version; //bumped by every write, updates are conditional on it
+
+    private Persisted persisted; //field values as of the last read or write, updates are diffed against it
 
     public User() {
         super();
@@ -38,6 +45,18 @@ public class User {
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -66,6 +85,10 @@ public class User {
         return username;
     }
 
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
     public String getPassword() {
         return password;
     }
@@ -93,6 +116,103 @@ public class User {
         return doc;
     }
 
+    /**
+     * The minimal snapshot embedded in class rosters. Everything else is hydrated from the users collection.
+     * @return
+     */
+    public Document getSnapshotDoc() {
+        Document doc = new Document("id", getId())
+                .append("firstName", getFirstName())
+                .append("lastName", getLastName());
+        return doc;
+    }
+
+    /**
+     * Records the current field values as what the database holds. The codec calls this after decoding and the
+     * repositories after every write, so the next update only has to send what changed since.
+     */
+    public void markPersisted() {
+        persisted = new Persisted(firstName, lastName, password, idsOf(trackedClasses()));
+    }
+
+    /**
+     * Field values as of the last markPersisted, or null if this instance was never read from or written to
+     * the database, in which case an update writes every field
+     * @return
+     */
+    public Persisted persistedState() {
+        return persisted;
+    }
+
+    /**
+     * Records that a targeted write, like UserRepository.addClassRef or removeClassRef, already added or removed
+     * classId in the database, so the next update does not send it again
+     * @param classId
+     * @param present
+     */
+    public void markClassRefPersisted(int classId, boolean present) {
+        if (persisted == null) {
+            return;
+        }
+        Set<Integer> classIds = new HashSet<>(persisted.classIds);
+        if (present) {
+            classIds.add(classId);
+        } else {
+            classIds.remove(classId);
+        }
+        persisted = new Persisted(persisted.firstName, persisted.lastName, persisted.password, classIds);
+    }
+
+    //Classes held by Students and Faculty, none for a plain User
+    Collection<ClassModel> trackedClasses() {
+        return Collections.emptySet();
+    }
+
+    static Set<Integer> idsOf(Collection<?> models) {
+        Set<Integer> ids = new HashSet<>();
+        if (models == null) {
+            return ids;
+        }
+        for (Object model : models) {
+            ids.add(model instanceof User ? ((User) model).getId() : ((ClassModel) model).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Updatable fields of a User as stored. classes are kept as ids, so enrolling or dropping a class
+     * is a $push or $pull of that one class.
+     */
+    public static final class Persisted {
+        private final String firstName;
+        private final String lastName;
+        private final String password;
+        private final Set<Integer> classIds;
+
+        private Persisted(String firstName, String lastName, String password, Set<Integer> classIds) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.password = password;
+            this.classIds = classIds;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public Set<Integer> getClassIds() {
+            return classIds;
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -116,6 +236,7 @@ public class User {
                 ", username='" + username + '\'' +
                 ", password='" + password + '\'' +
                 ", isFaculty=" + isFaculty +
+                ", version=" + version +
                 '}';
     }
 }
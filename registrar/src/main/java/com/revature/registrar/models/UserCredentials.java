@@ -0,0 +1,58 @@
+package com.revature.registrar.models;
+
+/**
+ * Read-only view of a user for logins: the id, the username, whether they are faculty and the stored password,
+ * which is either a PasswordUtils hash or, for accounts that have not logged in since hashing was introduced, the plaintext.
+ * The repository projects everything else away, so a login never pulls the classes array.
+ */
+public class UserCredentials {
+    private int id;
+    private String username;
+    private String password;
+    private boolean isFaculty;
+
+    public UserCredentials() {
+        super();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public boolean isFaculty() {
+        return isFaculty;
+    }
+
+    public void setFaculty(boolean faculty) {
+        isFaculty = faculty;
+    }
+
+    @Override
+    public String toString() {
+        return "UserCredentials{" +
+                "id=" + id +
+                ", username='" + username + '\'' +
+                ", isFaculty=" + isFaculty +
+                '}';
+    }
+}
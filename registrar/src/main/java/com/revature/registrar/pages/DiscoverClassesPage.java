@@ -1,7 +1,8 @@
 package com.revature.registrar.pages;
 
 import com.revature.registrar.exceptions.CapacityReachedException;
-import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.exceptions.InvalidRequestException;
+import com.revature.registrar.models.ClassSummary;
 import com.revature.registrar.models.Student;
 import com.revature.registrar.services.ClassService;
 import com.revature.registrar.services.UserService;
@@ -11,10 +12,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.BufferedReader;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class DiscoverClassesPage extends Page {
     private ClassService classService;
@@ -39,21 +38,20 @@ public class DiscoverClassesPage extends Page {
         System.out.println("--------------------");
         System.out.println("Welcome to the Discovery Page");
         System.out.println("Listing Open Courses:");
-        List<ClassModel> classes = new ArrayList<>();
-        classes = classService.getOpenClasses();
-        if(classes == null) {
+        List<ClassSummary> classes = classService.getOpenClassSummaries();
+        if(classes.isEmpty()) {
             System.out.println("***No Open Courses***");
             router.switchPage("/dash");
             return;
         }
 
         int count = 0;
-        for(ClassModel c : classes) {
+        for(ClassSummary c : classes) {
             Student currUser = (Student) userService.getCurrUser();
-            if(!currUser.isInClasses(c)) {
-                Set<String> facLastNames = c.getFaculty().stream().map(faculty -> faculty.getLastName()).collect(Collectors.toSet());
+            if(!currUser.isInClasses(c.getId())) {
+                Set<String> facLastNames = c.getFacultyLastNames();
                 String unsigned = Integer.toUnsignedString(c.getId()); //Conversion for readability (no negatives)
-                System.out.println(unsigned + " | " + c.getName() + " | " + facLastNames + " | " + "(" + c.getStudents().size() + "/" + c.getCapacity() + ")");
+                System.out.println(unsigned + " | " + c.getName() + " | " + facLastNames + " | " + "(" + c.getEnrolledCount() + "/" + c.getCapacity() + ")");
                 count++;
             }
         }
@@ -99,26 +97,15 @@ public class DiscoverClassesPage extends Page {
         }
 
 
-        ClassModel classModel = null;
+        Student curr = (Student)userService.getCurrUser();
+
+        //Single conditional update, capacity and duplicate checks happen in the database
         try {
-            classModel = classService.getClassWithId(id);
-        } catch (Exception e) {
-            System.out.println("Invalid Class ID");
+            classService.enrollAndRecord(id, curr);
+        } catch (InvalidRequestException ire) {
+            System.out.println(ire.getMessage());
             router.switchPage("/discover");
             return;
         }
-
-        Student curr = (Student)userService.getCurrUser();
-        if(curr.isInClasses(classModel)) {
-            System.out.println("ALREADY ENROLLED");
-            return;
-        }
-
-        classModel.addStudent((Student)userService.getCurrUser());
-        ((Student) userService.getCurrUser()).addClass(classModel);
-
-        //Need to persist these changes to the db with UPDATE
-        classService.update(classModel);
-        userService.update(userService.getCurrUser());
     }
 }
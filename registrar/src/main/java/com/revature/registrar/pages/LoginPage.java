@@ -1,6 +1,6 @@
 package com.revature.registrar.pages;
 
-import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
 import com.revature.registrar.services.UserService;
 import com.revature.registrar.util.AppState;
 import com.revature.registrar.util.PageRouter;
@@ -34,8 +34,8 @@ public class LoginPage extends Page {
         System.out.print("Enter Password: \n" + "> ");
         String password = consoleReader.readLine();
 
-        User user = userService.login(username, password);
-        if(user == null) {
+        UserCredentials credentials = userService.login(username, password);
+        if(credentials == null) {
             System.out.println("Login Failed");
             router.switchPage("/home");
         } else {
@@ -1,6 +1,8 @@
 package com.revature.registrar.pages;
 
+import com.revature.registrar.exceptions.VersionConflictException;
 import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
 import com.revature.registrar.models.Faculty;
 import com.revature.registrar.models.Student;
 import com.revature.registrar.models.User;
@@ -15,7 +17,7 @@ import org.apache.logging.log4j.Logger;
 import java.io.BufferedReader;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 public class MyClassesPage extends Page {
     private UserService userService;
@@ -63,11 +65,11 @@ public class MyClassesPage extends Page {
             router.switchPage("/dash");
             return;
         }
-        for(ClassModel c : fac.getClasses()) {
-            c = classService.refresh(c); //Go fill out with most recent data
-            Set<String> facLastNames = c.getFaculty().stream().map(faculty -> faculty.getLastName()).collect(Collectors.toSet());
+        //One projected query for every class, most recent data without the rosters
+        for(ClassSummary c : classService.getClassSummaries(fac.getClasses())) {
+            Set<String> facLastNames = c.getFacultyLastNames();
             String unsigned = Integer.toUnsignedString(c.getId()); //Conversion fo readability (no negatives)
-            System.out.println(unsigned + " | " + c.getName() + " | " + facLastNames + " | " + "(" + c.getStudents().size() + "/" + c.getCapacity() + ")");
+            System.out.println(unsigned + " | " + c.getName() + " | " + facLastNames + " | " + "(" + c.getEnrolledCount() + "/" + c.getCapacity() + ")");
         }
 
         System.out.print("1) Update Class \n2) Delete Class\n3) Dashboard\n4) Logout\n> ");
@@ -103,13 +105,12 @@ public class MyClassesPage extends Page {
         try {
             classModel = classService.getClassWithId(id);
         } catch (Exception e) {
-            e.printStackTrace();
+            System.out.println("Invalid ID");
+            return;
         }
 
-        //Delete class from db
-        classService.delete(classModel);
-        //Delete class from all Users in DB
-        userService.deleteClassFromAll(classModel);
+        //Delete class from db and from all Users in DB
+        classService.deleteAndDetach(classModel);
 
     }
 
@@ -123,10 +124,9 @@ public class MyClassesPage extends Page {
         System.out.println("Enter Course Id To Update: ");
         String unsigned = consoleReader.readLine();
         int id = 0;
-        ClassModel classModel = null;
         try {
             id = Integer.parseUnsignedInt(unsigned);
-            classModel = classService.getClassWithId(id);
+            classService.getClassWithId(id);
         } catch (Exception e) {
             System.out.println("Invalid ID");
             return;
@@ -138,27 +138,36 @@ public class MyClassesPage extends Page {
                 "5) Return To My Classes\n> ");
         String response = consoleReader.readLine();
 
+        //Changes are applied to a fresh copy, and re-applied if an enrollment lands in between
+        Consumer<ClassModel> changes;
         if(response.equals("1")) {
             System.out.print("Enter New Description\n> ");
-            response = consoleReader.readLine();
-            classModel.setDescription(response);
+            String description = consoleReader.readLine();
+            changes = c -> c.setDescription(description);
         } else if(response.equals("2")) {
             CalendarBuilder cb = new CalendarBuilder(consoleReader);
-            classModel.setOpenWindow(cb.build());
+            long open = cb.buildMillis();
+            changes = c -> c.setOpenWindow(open);
         } else if(response.equals("3")) {
             CalendarBuilder cb = new CalendarBuilder(consoleReader);
-            classModel.setCloseWindow(cb.build());
+            long close = cb.buildMillis();
+            changes = c -> c.setCloseWindow(close);
         } else if(response.equals("4")) {
             System.out.print("Enter New Capacity: \n> ");
             int capacity = Integer.parseInt(consoleReader.readLine());
-            classModel.setCapacity(capacity);
+            changes = c -> c.setCapacity(capacity);
         } else if(response.equals("5")) {
             return;
         } else {
             System.out.println("Invalid Input");
             return;
         }
-        classService.update(classModel);
+
+        try {
+            classService.updateWithRetry(id, changes);
+        } catch (VersionConflictException vce) {
+            System.out.println(vce.getMessage());
+        }
     }
 
     /**
@@ -177,12 +186,10 @@ public class MyClassesPage extends Page {
         }
         //List stu.classes
         System.out.println("Enrolled Classes");
-        for(ClassModel c : stu.getClasses()) {
-            //Get the full class with Students and Faculty data.
-            c = classService.getClassWithId(c.getId());
-            Set<String> facLastNames = c.getFaculty().stream().map(faculty -> faculty.getLastName()).collect(Collectors.toSet());
+        for(ClassSummary c : classService.getClassSummaries(stu.getClasses())) {
+            Set<String> facLastNames = c.getFacultyLastNames();
             String unsigned = Integer.toUnsignedString(c.getId()); //Conversion fo readability (no negatives)
-            System.out.println(unsigned + " | " + c.getName() + " | " + facLastNames + " | " + "(" + c.getStudents().size() + "/" + c.getCapacity() + ")");
+            System.out.println(unsigned + " | " + c.getName() + " | " + facLastNames + " | " + "(" + c.getEnrolledCount() + "/" + c.getCapacity() + ")");
         }
 
         System.out.print("1) Unenroll \n2) Return to Dashboard\n3) Logout\n> ");
@@ -221,8 +228,8 @@ public class MyClassesPage extends Page {
         Student curr = (Student)userService.getCurrUser();
 
         try{
-            classModel = userService.unenrollClass(classModel);
-            classService.update(classModel);
+            //Roster $pull and user $pull, together in one transaction when configured
+            classService.unenrollAndRecord(classModel.getId(), curr);
             return;
         } catch (Exception e) {
             System.out.println(e.getMessage());
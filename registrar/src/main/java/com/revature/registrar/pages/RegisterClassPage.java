@@ -9,14 +9,12 @@ import com.revature.registrar.services.UserService;
 import com.revature.registrar.util.AppState;
 import com.revature.registrar.util.CalendarBuilder;
 import com.revature.registrar.util.PageRouter;
-import jdk.nashorn.internal.runtime.Context;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.Calendar;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -71,17 +69,19 @@ public class RegisterClassPage extends Page {
         CalendarBuilder cb = new CalendarBuilder(consoleReader);
         System.out.println("Configuring Registration Window: \n");
         System.out.println("Open Window: \n");
-        Calendar openDate = cb.build();
+        long openDate = cb.buildMillis();
         System.out.println("Close Window");
-        Calendar closeDate = cb.build();
+        long closeDate = cb.buildMillis();
 
         Set<Faculty> facultySet = new HashSet<>();
         facultySet.add((Faculty) userService.getCurrUser());
         ClassModel classModel = new ClassModel(name, description, capacity, openDate, closeDate, facultySet);
         try {
             classService.register(classModel);
-            ((Faculty) userService.getCurrUser()).addClass(classModel);
-            userService.update(userService.getCurrUser());
+            //Re-read the faculty member so a stale session copy cannot clobber concurrent changes
+            User updated = userService.updateWithRetry(userService.getCurrUser().getId(),
+                    user -> ((Faculty) user).addClass(classModel));
+            userService.setCurrUser(updated);
             router.switchPage("/dash");
             //logger.info("New user created!\n" + newUser.toString());
         } catch(Exception e) {
@@ -0,0 +1,53 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of ClassModelRepo
+ */
+public interface AsyncClassModelRepo extends AsyncCrudRepository<ClassModel> {
+
+    /**
+     * Streams the open-class summaries into consumer, ordered by (name, id)
+     * @param consumer
+     * @return completes with the number of summaries streamed
+     */
+    CompletableFuture<Integer> streamOpenClassSummaries(Consumer<ClassSummary> consumer);
+
+    /**
+     * Keyset paginated open-class summaries, ordered by (name, id)
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    CompletableFuture<KeysetPage<ClassSummary>> findOpenClassSummaries(String cursor, int limit);
+
+    /**
+     * Summaries for every class whose id is in ids, in the order of ids. Ids with no matching class are skipped.
+     * @param ids
+     * @return
+     */
+    CompletableFuture<List<ClassSummary>> findSummariesByIds(List<Integer> ids);
+
+    /**
+     * Same conditional update as ClassModelRepo.enroll
+     * @param classId
+     * @param student
+     * @return completes with the updated class, or null
+     */
+    CompletableFuture<ClassModel> enroll(int classId, Student student);
+
+    /**
+     * Same conditional update as ClassModelRepo.unenroll
+     * @param classId
+     * @param student
+     * @return completes with the updated class, or null
+     */
+    CompletableFuture<ClassModel> unenroll(int classId, Student student);
+}
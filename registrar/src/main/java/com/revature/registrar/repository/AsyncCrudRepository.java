@@ -0,0 +1,19 @@
+package com.revature.registrar.repository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ *  Non-blocking counterpart of CrudRepository. Every call returns immediately and the future completes
+ *  on a driver thread once the database answers, failing with a DataSourceException if the driver does.
+ * @param <E>
+ */
+public interface AsyncCrudRepository<E> {
+
+    CompletableFuture<E> findById(int id);
+    CompletableFuture<E> save(E newResource);
+    CompletableFuture<Boolean> update(E updatedResource);
+    CompletableFuture<Boolean> deleteById(int id);
+
+    CompletableFuture<BatchResult<E>> findAllById(List<Integer> ids);
+}
@@ -0,0 +1,61 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of UserRepository
+ */
+public interface AsyncUserRepository extends AsyncCrudRepository<User> {
+
+    /**
+     * Streams every User into consumer, ordered by (username, id)
+     * @param consumer
+     * @return completes with the number of users streamed
+     */
+    CompletableFuture<Integer> streamAll(Consumer<User> consumer);
+
+    /**
+     * Keyset paginated Users, ordered by (username, id)
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    CompletableFuture<KeysetPage<User>> findAll(String cursor, int limit);
+
+    /**
+     * Same as UserRepository.findCredentialsByUsername
+     * @param username
+     * @return completes with null if there is no such user
+     */
+    CompletableFuture<UserCredentials> findCredentialsByUsername(String username);
+
+    /**
+     * Same as UserRepository.replacePassword
+     * @param id
+     * @param expected
+     * @param replacement
+     * @return completes with true if the password was replaced
+     */
+    CompletableFuture<Boolean> replacePassword(int id, String expected, String replacement);
+
+    /**
+     * Same as UserRepository.addClassRef
+     * @param userId
+     * @param classModel
+     * @return completes with true if the user was found
+     */
+    CompletableFuture<Boolean> addClassRef(int userId, ClassModel classModel);
+
+    /**
+     * Same as UserRepository.removeClassRef
+     * @param userId
+     * @param classId
+     * @return completes with true if the user held the class
+     */
+    CompletableFuture<Boolean> removeClassRef(int userId, int classId);
+}
@@ -0,0 +1,85 @@
+package com.revature.registrar.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Result of a batch repository call. results are in the same order as the ids or resources passed in,
+ * and missingIds lists, also in input order, every id that did not match a stored document.
+ * A batch update also lists in conflictingIds the ids whose stored version no longer matched, those were not written.
+ * @param <E>
+ */
+public class BatchResult<E> {
+
+    private final List<E> results;
+    private final List<Integer> missingIds;
+    private final List<Integer> conflictingIds;
+
+    public BatchResult(List<E> results, List<Integer> missingIds) {
+        this(results, missingIds, new ArrayList<>());
+    }
+
+    public BatchResult(List<E> results, List<Integer> missingIds, List<Integer> conflictingIds) {
+        this.results = results;
+        this.missingIds = missingIds;
+        this.conflictingIds = conflictingIds;
+    }
+
+    public List<E> getResults() {
+        return results;
+    }
+
+    public List<Integer> getMissingIds() {
+        return missingIds;
+    }
+
+    public boolean hasMissing() {
+        return !missingIds.isEmpty();
+    }
+
+    public List<Integer> getConflictingIds() {
+        return conflictingIds;
+    }
+
+    public boolean hasConflicts() {
+        return !conflictingIds.isEmpty();
+    }
+
+    /**
+     * Lines unordered query results back up with the requested ids
+     * @param ids ids in the order the caller asked for them
+     * @param found documents returned by a single $in query, in any order
+     * @param idOf
+     * @param <E>
+     * @return
+     */
+    static <E> BatchResult<E> inOrder(List<Integer> ids, Iterable<E> found, Function<E, Integer> idOf) {
+        Map<Integer, E> byId = new HashMap<>();
+        for (E e : found) {
+            byId.put(idOf.apply(e), e);
+        }
+        List<E> results = new ArrayList<>(ids.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : ids) {
+            E e = byId.get(id);
+            if (e == null) {
+                missing.add(id);
+            } else {
+                results.add(e);
+            }
+        }
+        return new BatchResult<>(results, missing);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "results=" + results +
+                ", missingIds=" + missingIds +
+                ", conflictingIds=" + conflictingIds +
+                '}';
+    }
+}
@@ -0,0 +1,113 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of CachingClassModelRepo. A hit completes right away without touching the driver.
+ * Writes invalidate once the delegate's future completes, whether it succeeded or not.
+ */
+public class CachingAsyncClassModelRepo implements AsyncClassModelRepo {
+
+    private final AsyncClassModelRepo classRepo;
+    private final ClassModelCache cache;
+
+    public CachingAsyncClassModelRepo(AsyncClassModelRepo classRepo, ClassModelCache cache) {
+        this.classRepo = classRepo;
+        this.cache = cache;
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> findById(int id) {
+        ClassModel cached = cache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long stamp = cache.stamp(id);
+        return classRepo.findById(id).thenApply(classModel -> {
+            if (classModel != null) {
+                cache.putIfCurrent(classModel, stamp);
+            }
+            return classModel;
+        });
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<ClassModel>> findAllById(List<Integer> ids) {
+        List<ClassModel> found = new ArrayList<>(ids.size());
+        List<Integer> missing = new ArrayList<>();
+        Map<Integer, Long> stamps = new HashMap<>();
+        for (Integer id : ids) {
+            ClassModel cached = cache.get(id);
+            if (cached != null) {
+                found.add(cached);
+            } else {
+                missing.add(id);
+                stamps.put(id, cache.stamp(id));
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(BatchResult.inOrder(ids, found, ClassModel::getId));
+        }
+        return classRepo.findAllById(missing).thenApply(result -> {
+            for (ClassModel classModel : result.getResults()) {
+                cache.putIfCurrent(classModel, stamps.get(classModel.getId()));
+            }
+            found.addAll(result.getResults());
+            return BatchResult.inOrder(ids, found, ClassModel::getId);
+        });
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> save(ClassModel newResource) {
+        return invalidating(newResource.getId(), classRepo.save(newResource));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(ClassModel updatedResource) {
+        return invalidating(updatedResource.getId(), classRepo.update(updatedResource));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteById(int id) {
+        return invalidating(id, classRepo.deleteById(id));
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> enroll(int classId, Student student) {
+        return invalidating(classId, classRepo.enroll(classId, student));
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> unenroll(int classId, Student student) {
+        return invalidating(classId, classRepo.unenroll(classId, student));
+    }
+
+    @Override
+    public CompletableFuture<Integer> streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        return classRepo.streamOpenClassSummaries(consumer);
+    }
+
+    @Override
+    public CompletableFuture<KeysetPage<ClassSummary>> findOpenClassSummaries(String cursor, int limit) {
+        return classRepo.findOpenClassSummaries(cursor, limit);
+    }
+
+    @Override
+    public CompletableFuture<List<ClassSummary>> findSummariesByIds(List<Integer> ids) {
+        return classRepo.findSummariesByIds(ids);
+    }
+
+    //Invalidates before the future completes, so whatever runs next on it cannot read the old class
+    private <T> CompletableFuture<T> invalidating(int id, CompletableFuture<T> write) {
+        return write.whenComplete((result, error) -> cache.invalidate(id));
+    }
+}
@@ -0,0 +1,119 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Read-through UserCache in front of an AsyncUserRepository. findById and findAllById are served from the cache,
+ * every write to a user, update included, invalidates it once the delegate's future completes, whether it
+ * succeeded or not. Listings and logins always go to the delegate.
+ */
+public class CachingAsyncUserRepository implements AsyncUserRepository {
+
+    private final AsyncUserRepository userRepo;
+    private final UserCache cache;
+
+    public CachingAsyncUserRepository(AsyncUserRepository userRepo, UserCache cache) {
+        this.userRepo = userRepo;
+        this.cache = cache;
+    }
+
+    @Override
+    public CompletableFuture<User> findById(int id) {
+        User cached = cache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long stamp = cache.stamp(id);
+        return userRepo.findById(id).thenApply(user -> {
+            if (user != null) {
+                cache.putIfCurrent(user, stamp);
+            }
+            return user;
+        });
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<User>> findAllById(List<Integer> ids) {
+        List<User> found = new ArrayList<>(ids.size());
+        List<Integer> missing = new ArrayList<>();
+        Map<Integer, Long> stamps = new HashMap<>();
+        for (Integer id : ids) {
+            User cached = cache.get(id);
+            if (cached != null) {
+                found.add(cached);
+            } else {
+                missing.add(id);
+                stamps.put(id, cache.stamp(id));
+            }
+        }
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(BatchResult.inOrder(ids, found, User::getId));
+        }
+        return userRepo.findAllById(missing).thenApply(result -> {
+            for (User user : result.getResults()) {
+                cache.putIfCurrent(user, stamps.get(user.getId()));
+            }
+            found.addAll(result.getResults());
+            return BatchResult.inOrder(ids, found, User::getId);
+        });
+    }
+
+    @Override
+    public CompletableFuture<User> save(User newResource) {
+        return invalidating(newResource.getId(), userRepo.save(newResource));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(User updatedResource) {
+        return invalidating(updatedResource.getId(), userRepo.update(updatedResource));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteById(int id) {
+        return invalidating(id, userRepo.deleteById(id));
+    }
+
+    @Override
+    public CompletableFuture<Integer> streamAll(Consumer<User> consumer) {
+        return userRepo.streamAll(consumer);
+    }
+
+    @Override
+    public CompletableFuture<KeysetPage<User>> findAll(String cursor, int limit) {
+        return userRepo.findAll(cursor, limit);
+    }
+
+    @Override
+    public CompletableFuture<UserCredentials> findCredentialsByUsername(String username) {
+        return userRepo.findCredentialsByUsername(username);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replacePassword(int id, String expected, String replacement) {
+        return invalidating(id, userRepo.replacePassword(id, expected, replacement));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addClassRef(int userId, ClassModel classModel) {
+        return invalidating(userId, userRepo.addClassRef(userId, classModel));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> removeClassRef(int userId, int classId) {
+        return invalidating(userId, userRepo.removeClassRef(userId, classId));
+    }
+
+    //Invalidates before the future completes, so whatever runs next on it cannot read the old user
+    private <T> CompletableFuture<T> invalidating(int id, CompletableFuture<T> write) {
+        return write.whenComplete((result, error) -> cache.invalidate(id));
+    }
+}
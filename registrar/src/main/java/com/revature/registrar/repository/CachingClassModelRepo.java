@@ -0,0 +1,201 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read-through ClassModelCache in front of another ClassModelRepo. findById and findAllById are served from the
+ * cache where possible, every write through this repo invalidates the classes it touched, even when it fails,
+ * and writes inside a transaction invalidate again once it completes.
+ * Open-class queries depend on the current time rather than on ids, so they always go to the delegate.
+ */
+public class CachingClassModelRepo implements ClassModelRepo {
+
+    private final ClassModelRepo classRepo;
+    private final ClassModelCache cache;
+
+    public CachingClassModelRepo(ClassModelRepo classRepo, ClassModelCache cache) {
+        this.classRepo = classRepo;
+        this.cache = cache;
+    }
+
+    @Override
+    public ClassModel findById(int id) {
+        ClassModel cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.stamp(id);
+        ClassModel classModel = classRepo.findById(id);
+        if (classModel != null) {
+            cache.putIfCurrent(classModel, stamp);
+        }
+        return classModel;
+    }
+
+    /**
+     * Serves the cached classes and fetches only the rest, still in a single query
+     * @param ids
+     * @return
+     */
+    @Override
+    public BatchResult<ClassModel> findAllById(List<Integer> ids) {
+        List<ClassModel> found = new ArrayList<>(ids.size());
+        List<Integer> missing = new ArrayList<>();
+        Map<Integer, Long> stamps = new HashMap<>();
+        for (Integer id : ids) {
+            ClassModel cached = cache.get(id);
+            if (cached != null) {
+                found.add(cached);
+            } else {
+                missing.add(id);
+                stamps.put(id, cache.stamp(id));
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<ClassModel> loaded = classRepo.findAllById(missing).getResults();
+            for (ClassModel classModel : loaded) {
+                cache.putIfCurrent(classModel, stamps.get(classModel.getId()));
+            }
+            found.addAll(loaded);
+        }
+        return BatchResult.inOrder(ids, found, ClassModel::getId);
+    }
+
+    @Override
+    public ClassModel save(ClassModel newResource) {
+        try {
+            return classRepo.save(newResource);
+        } finally {
+            invalidate(newResource.getId());
+        }
+    }
+
+    @Override
+    public List<ClassModel> saveAll(List<ClassModel> newResources) {
+        try {
+            return classRepo.saveAll(newResources);
+        } finally {
+            for (ClassModel classModel : newResources) {
+                invalidate(classModel.getId());
+            }
+        }
+    }
+
+    /**
+     * Also invalidates on a VersionConflictException, which means the cached class was stale,
+     * so a retry reads the current one
+     * @param updatedResource
+     * @return
+     */
+    @Override
+    public boolean update(ClassModel updatedResource) {
+        try {
+            return classRepo.update(updatedResource);
+        } finally {
+            invalidate(updatedResource.getId());
+        }
+    }
+
+    @Override
+    public BatchResult<ClassModel> updateAll(List<ClassModel> updatedResources) {
+        try {
+            return classRepo.updateAll(updatedResources);
+        } finally {
+            for (ClassModel classModel : updatedResources) {
+                invalidate(classModel.getId());
+            }
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return classRepo.deleteById(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public BatchResult<Integer> deleteAllById(List<Integer> ids) {
+        try {
+            return classRepo.deleteAllById(ids);
+        } finally {
+            for (Integer id : ids) {
+                invalidate(id);
+            }
+        }
+    }
+
+    @Override
+    public ClassModel enroll(int classId, Student student) {
+        return enroll(null, classId, student);
+    }
+
+    @Override
+    public ClassModel enroll(Transaction tx, int classId, Student student) {
+        try {
+            return classRepo.enroll(tx, classId, student);
+        } finally {
+            invalidate(classId);
+        }
+    }
+
+    @Override
+    public ClassModel unenroll(int classId, Student student) {
+        return unenroll(null, classId, student);
+    }
+
+    @Override
+    public ClassModel unenroll(Transaction tx, int classId, Student student) {
+        try {
+            return classRepo.unenroll(tx, classId, student);
+        } finally {
+            invalidate(classId);
+        }
+    }
+
+    @Override
+    public List<ClassModel> findOpenClasses() {
+        return classRepo.findOpenClasses();
+    }
+
+    @Override
+    public List<ClassSummary> findOpenClassSummaries() {
+        return classRepo.findOpenClassSummaries();
+    }
+
+    @Override
+    public KeysetPage<ClassSummary> findOpenClassSummaries(String cursor, int limit) {
+        return classRepo.findOpenClassSummaries(cursor, limit);
+    }
+
+    @Override
+    public int streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        return classRepo.streamOpenClassSummaries(consumer);
+    }
+
+    @Override
+    public int streamAllClassSummaries(Consumer<ClassSummary> consumer) {
+        return classRepo.streamAllClassSummaries(consumer);
+    }
+
+    @Override
+    public List<ClassSummary> findSummariesByIds(List<Integer> ids) {
+        return classRepo.findSummariesByIds(ids);
+    }
+
+    //A read between an uncommitted write and its commit would cache the old class again, so drop it once more after
+    private void invalidate(int id) {
+        cache.invalidate(id);
+        TransactionRunner.runAfterCompletion(() -> cache.invalidate(id));
+    }
+}
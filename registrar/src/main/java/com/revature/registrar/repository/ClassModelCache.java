@@ -0,0 +1,71 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import com.revature.registrar.util.BoundedCache;
+import com.revature.registrar.util.CacheStats;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassModels by id, shared by CachingClassModelRepo and CachingAsyncClassModelRepo.
+ * Classes are kept as the BSON the ClassModelCodec writes, so callers get their own copy to modify
+ * and the maximum weight is the number of bytes held.
+ */
+public class ClassModelCache {
+
+    public static final long DEFAULT_MAXIMUM_BYTES = 32L * 1024 * 1024;
+    public static final long DEFAULT_TTL_SECONDS = 300;
+
+    private final BoundedCache<Integer, RawBsonDocument> cache;
+    private final Codec<ClassModel> codec = RegistrarCodecProvider.getCodecRegistry().get(ClassModel.class);
+
+    public ClassModelCache() {
+        this(DEFAULT_MAXIMUM_BYTES, DEFAULT_TTL_SECONDS);
+    }
+
+    /**
+     * @param maximumBytes
+     * @param ttlSeconds bounds how long a write made around the cache, by a job or another instance, stays unseen
+     */
+    public ClassModelCache(long maximumBytes, long ttlSeconds) {
+        this.cache = new BoundedCache<>(maximumBytes, ttlSeconds, TimeUnit.SECONDS,
+                (id, doc) -> doc.getByteBuffer().remaining());
+    }
+
+    /**
+     * @param id
+     * @return a fresh copy of the cached class, or null on a miss
+     */
+    ClassModel get(int id) {
+        RawBsonDocument doc = cache.getIfPresent(id);
+        return doc == null ? null : doc.decode(codec);
+    }
+
+    long stamp(int id) {
+        return cache.stamp(id);
+    }
+
+    /**
+     * Caches classModel, loaded after stamp(id) was taken, unless id was invalidated since
+     * @param classModel
+     * @param stamp
+     */
+    void putIfCurrent(ClassModel classModel, long stamp) {
+        cache.putIfCurrent(classModel.getId(), new RawBsonDocument(classModel, codec), stamp);
+    }
+
+    public void invalidate(int id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -1,8 +1,13 @@
 package com.revature.registrar.repository;
 
 
+import java.util.List;
+
 /**
  *  Basic interface that exposes simple CRUD operations
+ *  Batch variants run in a constant number of round trips regardless of how many ids are passed,
+ *  preserve input order, and report ids that did not match anything in a BatchResult.
+ *  updateAll writes what still matches its version and reports the rest as conflicting instead of throwing
  * @param <E>
  */
 public interface CrudRepository<E> {
@@ -11,4 +16,9 @@ public interface CrudRepository<E> {
     E save(E newResource);
     boolean update(E updatedResource);
     boolean deleteById(int id);
+
+    BatchResult<E> findAllById(List<Integer> ids);
+    List<E> saveAll(List<E> newResources);
+    BatchResult<E> updateAll(List<E> updatedResources);
+    BatchResult<Integer> deleteAllById(List<Integer> ids);
 }
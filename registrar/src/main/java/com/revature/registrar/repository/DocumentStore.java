@@ -0,0 +1,457 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.exceptions.DataSourceException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One collection of the InMemoryEngine. Documents are held as immutable RawBsonDocuments, in the same layout the
+ * codecs write to MongoDB, in a ConcurrentHashMap keyed by their id field. Every write replaces a whole document
+ * inside ConcurrentHashMap.compute, so writes to one id are atomic and ordered while writes to different ids run
+ * in parallel. SecondaryIndexes are maintained inside the same compute.
+ *
+ * When a directory is given, every write is also appended to name.log as a {op, id, doc} record holding the full
+ * new document, so replaying the log is idempotent. Once the log reaches checkpointEvery records the whole map is
+ * written to name.snapshot (through a temporary file and an atomic rename) and the log is truncated.
+ * On open the snapshot is loaded and the log replayed over it, a torn record at the end of the log is dropped.
+ */
+final class DocumentStore implements Closeable {
+    static final int DEFAULT_CHECKPOINT_EVERY = 10_000;
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+
+    private final Logger logger = LogManager.getLogger(DocumentStore.class);
+    private final String name;
+    private final ConcurrentHashMap<Integer, RawBsonDocument> documents = new ConcurrentHashMap<>();
+    private final List<SecondaryIndex<?>> indexes = new ArrayList<>();
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final boolean syncWrites;
+    private final int checkpointEvery;
+    private FileChannel log;
+    private final AtomicInteger logRecords = new AtomicInteger();
+    private final AtomicBoolean checkpointing = new AtomicBoolean();
+    //Writers share the read side, a checkpoint takes the write side so it sees no half applied write
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    /**
+     * @param name collection name, also the file name prefix
+     * @param dir directory holding the snapshot and log, or null to keep nothing across restarts
+     * @param syncWrites force every log append to disk before the write returns
+     * @param checkpointEvery number of log records after which a snapshot is written
+     */
+    DocumentStore(String name, Path dir, boolean syncWrites, int checkpointEvery) {
+        this.name = name;
+        this.snapshotFile = dir == null ? null : dir.resolve(name + ".snapshot");
+        this.logFile = dir == null ? null : dir.resolve(name + ".log");
+        this.syncWrites = syncWrites;
+        this.checkpointEvery = checkpointEvery;
+    }
+
+    /**
+     * Registers an index. All indexes must be added before open(), unique ones are checked first.
+     * @param index
+     * @param <K>
+     * @return index
+     */
+    <K extends Comparable<K>> SecondaryIndex<K> addIndex(SecondaryIndex<K> index) {
+        if (index.isUnique()) {
+            indexes.add(0, index);
+        } else {
+            indexes.add(index);
+        }
+        return index;
+    }
+
+    /**
+     * Loads the snapshot, replays the log and builds the indexes
+     */
+    void open() {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(snapshotFile.getParent());
+            if (Files.exists(snapshotFile)) {
+                long length = readDocuments(snapshotFile, doc -> documents.put(idOf(doc), doc));
+                if (length != Files.size(snapshotFile)) {
+                    throw new IOException(snapshotFile + " is truncated");
+                }
+            }
+
+            int replayed = 0;
+            if (Files.exists(logFile)) {
+                long length = readDocuments(logFile, this::replay);
+                replayed = logRecords.get();
+                if (length != Files.size(logFile)) {
+                    logger.warn("Dropping torn record at the end of " + logFile + "\n");
+                    try (FileChannel torn = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                        torn.truncate(length);
+                    }
+                }
+            }
+
+            for (RawBsonDocument doc : documents.values()) {
+                for (SecondaryIndex<?> index : indexes) {
+                    index.update(idOf(doc), null, doc);
+                }
+            }
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            logger.info("Opened " + name + " with " + documents.size() + " documents, " + replayed + " replayed from the log\n");
+
+        } catch (IOException e) {
+            throw new DataSourceException("Unable to open the " + name + " store.", e);
+        }
+    }
+
+    RawBsonDocument get(int id) {
+        return documents.get(id);
+    }
+
+    Collection<RawBsonDocument> values() {
+        return documents.values();
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    /**
+     * Stores doc under its id field
+     * @param doc
+     * @return false, leaving the store untouched, if a document with that id already exists
+     */
+    boolean insert(BsonDocument doc) {
+        RawBsonDocument raw = toRaw(doc);
+        return write(idOf(raw), before -> before == null ? raw : before) == raw;
+    }
+
+    /**
+     * Atomically replaces the document with id. change is given a mutable copy of the current document and
+     * returns the document to store, or null to leave it as it is, e.g. because a condition did not hold.
+     * @param id
+     * @param change
+     * @return the stored document, or null if there is no document with id or change returned null
+     */
+    RawBsonDocument update(int id, Function<BsonDocument, BsonDocument> change) {
+        RawBsonDocument[] result = new RawBsonDocument[1];
+        write(id, before -> {
+            if (before == null) {
+                return null;
+            }
+            BsonDocument changed = change.apply(mutableCopy(before));
+            if (changed == null) {
+                return before;
+            }
+            result[0] = toRaw(changed);
+            return result[0];
+        });
+        return result[0];
+    }
+
+    /**
+     * @param id
+     * @return true if a document was removed
+     */
+    boolean delete(int id) {
+        boolean[] existed = new boolean[1];
+        write(id, before -> {
+            existed[0] = before != null;
+            return null;
+        });
+        return existed[0];
+    }
+
+    /**
+     * Writes the whole store to the snapshot file and truncates the log
+     */
+    void checkpoint() {
+        if (snapshotFile == null) {
+            return;
+        }
+        checkpointLock.writeLock().lock();
+        try {
+            Path tmp = snapshotFile.resolveSibling(name + ".snapshot.tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (RawBsonDocument doc : documents.values()) {
+                    writeFully(out, doc);
+                }
+                out.force(true);
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                log.truncate(0);
+                log.force(true);
+            }
+            logRecords.set(0);
+            logger.info("Checkpointed " + documents.size() + " " + name + "\n");
+
+        } catch (IOException e) {
+            throw new DataSourceException("Unable to checkpoint the " + name + " store.", e);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (log == null) {
+            return;
+        }
+        checkpoint();
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new DataSourceException("Unable to close the " + name + " store.", e);
+        }
+    }
+
+    /**
+     * Reads the id field every stored document has
+     * @param doc
+     * @return
+     */
+    static int idOf(BsonDocument doc) {
+        return doc.getInt32("id").getValue();
+    }
+
+    /**
+     * Reads the version field, documents written before versioning have none and count as 0
+     * @param doc
+     * @return
+     */
+    static int versionOf(BsonDocument doc) {
+        BsonValue version = doc.get("version");
+        return version != null && version.isInt32() ? version.asInt32().getValue() : 0;
+    }
+
+    /**
+     * The int32 field of doc, or 0 if it is missing
+     * @param doc
+     * @param field
+     * @return
+     */
+    static int intOf(BsonDocument doc, String field) {
+        BsonValue value = doc.get(field);
+        return value != null && value.isInt32() ? value.asInt32().getValue() : 0;
+    }
+
+    /**
+     * The int64 field of doc, or 0 if it is missing
+     * @param doc
+     * @param field
+     * @return
+     */
+    static long longOf(BsonDocument doc, String field) {
+        BsonValue value = doc.get(field);
+        return value != null && value.isInt64() ? value.asInt64().getValue() : 0L;
+    }
+
+    /**
+     * The id fields of the documents in the array field of doc, e.g. the ids in students or classes
+     * @param doc
+     * @param field
+     * @return
+     */
+    static List<Integer> arrayIds(BsonDocument doc, String field) {
+        List<Integer> ids = new ArrayList<>();
+        BsonValue array = doc.get(field);
+        if (array != null && array.isArray()) {
+            for (BsonValue element : array.asArray()) {
+                if (element.isDocument() && element.asDocument().isInt32("id")) {
+                    ids.add(element.asDocument().getInt32("id").getValue());
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Appends element to the array field of doc, creating the array if it is missing, like $push
+     * @param doc
+     * @param field
+     * @param element
+     */
+    static void push(BsonDocument doc, String field, BsonDocument element) {
+        BsonValue array = doc.get(field);
+        if (array == null || !array.isArray()) {
+            doc.put(field, new BsonArray());
+        }
+        doc.getArray(field).add(element);
+    }
+
+    /**
+     * Removes every element with the given id from the array field of doc, like $pull
+     * @param doc
+     * @param field
+     * @param id
+     * @return true if anything was removed
+     */
+    static boolean pull(BsonDocument doc, String field, int id) {
+        BsonValue array = doc.get(field);
+        if (array == null || !array.isArray()) {
+            return false;
+        }
+        return array.asArray().removeIf(element -> element.isDocument()
+                && element.asDocument().isInt32("id")
+                && element.asDocument().getInt32("id").getValue() == id);
+    }
+
+    private static BsonDocument mutableCopy(RawBsonDocument doc) {
+        return doc.decode(DOCUMENT_CODEC);
+    }
+
+    private static RawBsonDocument toRaw(BsonDocument doc) {
+        return doc instanceof RawBsonDocument ? (RawBsonDocument) doc : new RawBsonDocument(doc, DOCUMENT_CODEC);
+    }
+
+    /**
+     * Applies change to the document with id inside compute, maintaining the indexes and the log.
+     * change returns the new document, null to delete, or the document it was given to leave it alone.
+     * @param id
+     * @param change
+     * @return the document now stored under id
+     */
+    private RawBsonDocument write(int id, Function<RawBsonDocument, RawBsonDocument> change) {
+        RawBsonDocument stored;
+        checkpointLock.readLock().lock();
+        try {
+            stored = documents.compute(id, (key, before) -> {
+                RawBsonDocument after = change.apply(before);
+                if (after == before) {
+                    return before;
+                }
+                applyIndexes(key, before, after);
+                try {
+                    append(key, after);
+                } catch (IOException e) {
+                    applyIndexes(key, after, before);
+                    throw new UncheckedIOException(e);
+                }
+                return after;
+            });
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+
+        if (log != null && logRecords.get() >= checkpointEvery && checkpointing.compareAndSet(false, true)) {
+            try {
+                checkpoint();
+            } finally {
+                checkpointing.set(false);
+            }
+        }
+        return stored;
+    }
+
+    private void applyIndexes(int id, RawBsonDocument before, RawBsonDocument after) {
+        for (SecondaryIndex<?> index : indexes) {
+            index.update(id, before, after);
+        }
+    }
+
+    private void append(int id, RawBsonDocument after) throws IOException {
+        if (log == null) {
+            return;
+        }
+        BsonDocument record = new BsonDocument("op", new BsonString(after == null ? "del" : "put"))
+                .append("id", new BsonInt32(id));
+        if (after != null) {
+            record.append("doc", after);
+        }
+        RawBsonDocument raw = toRaw(record);
+        synchronized (this) {
+            writeFully(log, raw);
+            if (syncWrites) {
+                log.force(false);
+            }
+        }
+        logRecords.incrementAndGet();
+    }
+
+    private void replay(RawBsonDocument record) {
+        int id = record.getInt32("id").getValue();
+        if ("put".equals(record.getString("op").getValue())) {
+            documents.put(id, toRaw(record.getDocument("doc")));
+        } else {
+            documents.remove(id);
+        }
+        logRecords.incrementAndGet();
+    }
+
+    private static void writeFully(FileChannel channel, RawBsonDocument doc) throws IOException {
+        ByteBuffer bytes = doc.getByteBuffer().asNIO();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Reads back to back BSON documents from file, stopping at the end of the file or at a torn document
+     * @param file
+     * @param consumer
+     * @return the length of the complete documents read
+     * @throws IOException
+     */
+    private static long readDocuments(Path file, Consumer<RawBsonDocument> consumer) throws IOException {
+        long length = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            byte[] header = new byte[4];
+            while (readFully(in, header, 0) == 4) {
+                int size = (header[0] & 0xff) | (header[1] & 0xff) << 8 | (header[2] & 0xff) << 16 | (header[3] & 0xff) << 24;
+                if (size < 5) {
+                    break;
+                }
+                byte[] bytes = new byte[size];
+                System.arraycopy(header, 0, bytes, 0, 4);
+                if (readFully(in, bytes, 4) != size) {
+                    break;
+                }
+                consumer.accept(new RawBsonDocument(bytes));
+                length += size;
+            }
+        }
+        return length;
+    }
+
+    private static int readFully(InputStream in, byte[] bytes, int offset) throws IOException {
+        while (offset < bytes.length) {
+            int read = in.read(bytes, offset, bytes.length - offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+        return offset;
+    }
+}
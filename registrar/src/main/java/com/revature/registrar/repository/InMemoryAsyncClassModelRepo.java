@@ -0,0 +1,84 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * AsyncClassModelRepo over an InMemoryClassModelRepo. The embedded engine never waits on the network, so each call
+ * runs on the calling thread and returns an already completed future.
+ */
+public class InMemoryAsyncClassModelRepo implements AsyncClassModelRepo {
+
+    private final InMemoryClassModelRepo classRepo;
+
+    public InMemoryAsyncClassModelRepo(InMemoryClassModelRepo classRepo) {
+        this.classRepo = classRepo;
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> findById(int id) {
+        return supply(() -> classRepo.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> save(ClassModel newResource) {
+        return supply(() -> classRepo.save(newResource));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(ClassModel updatedResource) {
+        return supply(() -> classRepo.update(updatedResource));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteById(int id) {
+        return supply(() -> classRepo.deleteById(id));
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<ClassModel>> findAllById(List<Integer> ids) {
+        return supply(() -> classRepo.findAllById(ids));
+    }
+
+    @Override
+    public CompletableFuture<Integer> streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        return supply(() -> classRepo.streamOpenClassSummaries(consumer));
+    }
+
+    @Override
+    public CompletableFuture<KeysetPage<ClassSummary>> findOpenClassSummaries(String cursor, int limit) {
+        return supply(() -> classRepo.findOpenClassSummaries(cursor, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<ClassSummary>> findSummariesByIds(List<Integer> ids) {
+        return supply(() -> classRepo.findSummariesByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> enroll(int classId, Student student) {
+        return supply(() -> classRepo.enroll(classId, student));
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> unenroll(int classId, Student student) {
+        return supply(() -> classRepo.unenroll(classId, student));
+    }
+
+    //Exceptions fail the future instead of escaping, like the driver's errors do on the Mongo repos
+    static <T> CompletableFuture<T> supply(Supplier<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(call.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
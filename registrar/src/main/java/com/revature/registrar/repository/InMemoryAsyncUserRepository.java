@@ -0,0 +1,79 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static com.revature.registrar.repository.InMemoryAsyncClassModelRepo.supply;
+
+/**
+ * AsyncUserRepository over an InMemoryUserRepository. Each call runs on the calling thread and returns an
+ * already completed future.
+ */
+public class InMemoryAsyncUserRepository implements AsyncUserRepository {
+
+    private final InMemoryUserRepository userRepo;
+
+    public InMemoryAsyncUserRepository(InMemoryUserRepository userRepo) {
+        this.userRepo = userRepo;
+    }
+
+    @Override
+    public CompletableFuture<User> findById(int id) {
+        return supply(() -> userRepo.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<User> save(User newResource) {
+        return supply(() -> userRepo.save(newResource));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(User updatedResource) {
+        return supply(() -> userRepo.update(updatedResource));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteById(int id) {
+        return supply(() -> userRepo.deleteById(id));
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<User>> findAllById(List<Integer> ids) {
+        return supply(() -> userRepo.findAllById(ids));
+    }
+
+    @Override
+    public CompletableFuture<Integer> streamAll(Consumer<User> consumer) {
+        return supply(() -> userRepo.streamAll(consumer));
+    }
+
+    @Override
+    public CompletableFuture<KeysetPage<User>> findAll(String cursor, int limit) {
+        return supply(() -> userRepo.findAll(cursor, limit));
+    }
+
+    @Override
+    public CompletableFuture<UserCredentials> findCredentialsByUsername(String username) {
+        return supply(() -> userRepo.findCredentialsByUsername(username));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replacePassword(int id, String expected, String replacement) {
+        return supply(() -> userRepo.replacePassword(id, expected, replacement));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> addClassRef(int userId, ClassModel classModel) {
+        return supply(() -> userRepo.addClassRef(userId, classModel));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> removeClassRef(int userId, int classId) {
+        return supply(() -> userRepo.removeClassRef(userId, classId));
+    }
+}
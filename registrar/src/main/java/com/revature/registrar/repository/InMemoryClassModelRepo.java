@@ -0,0 +1,438 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.exceptions.VersionConflictException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * ClassModelRepo on the embedded InMemoryEngine. Classes are stored in the same document layout as the MongoDB
+ * classes collection and every method mirrors the filter and update of its MongoClassModelRepo counterpart.
+ * The openWindow and closeWindow indexes answer the open-class queries without looking at closed classes.
+ * Sessions are ignored, each write is atomic on its own document and there is nothing to roll back.
+ */
+public class InMemoryClassModelRepo implements ClassModelRepo {
+    private static final Comparator<ClassSummary> BY_NAME_ID = Comparator
+            .comparing(ClassSummary::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(ClassSummary::getId);
+
+    private final Logger logger = LogManager.getLogger(InMemoryClassModelRepo.class);
+    private final DocumentStore store;
+    private final CodecRegistry registry;
+    private final Codec<ClassModel> codec;
+    private final Codec<ClassSummary> summaryCodec;
+    private final SecondaryIndex<Long> openWindowIndex;
+    private final SecondaryIndex<Long> closeWindowIndex;
+    private final Clock clock;
+
+    InMemoryClassModelRepo(DocumentStore store, CodecRegistry registry, Clock clock) {
+        this.store = store;
+        this.registry = registry;
+        this.clock = clock;
+        this.codec = registry.get(ClassModel.class);
+        this.summaryCodec = registry.get(ClassSummary.class);
+        this.openWindowIndex = store.addIndex(new SecondaryIndex<Long>("openWindow",
+                doc -> Collections.singleton(DocumentStore.longOf(doc, "openWindow")), false));
+        this.closeWindowIndex = store.addIndex(new SecondaryIndex<Long>("closeWindow",
+                doc -> Collections.singleton(DocumentStore.longOf(doc, "closeWindow")), false));
+    }
+
+    /**
+     * Returns the ClassModel with a matching ID, or null
+     * @param id
+     * @return
+     */
+    @Override
+    public ClassModel findById(int id) {
+        RawBsonDocument doc = store.get(id);
+        return doc == null ? null : doc.decode(codec);
+    }
+
+    /**
+     * Stores a ClassModel, newResource
+     * @param newResource
+     * @return
+     */
+    @Override
+    public ClassModel save(ClassModel newResource) {
+        try {
+            if (!store.insert(new RawBsonDocument(newResource, codec))) {
+                throw new ResourcePersistenceException("Duplicate key id: " + newResource.getId());
+            }
+            newResource.markPersisted();
+            logger.info("Created " + newResource + "\n");
+            return newResource;
+
+        } catch (ResourcePersistenceException rpe) {
+            logger.error(rpe.getMessage() + "\n");
+            throw rpe;
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Every class whose registration window contains the current time
+     * @return
+     */
+    @Override
+    public List<ClassModel> findOpenClasses() {
+        List<ClassModel> open = new ArrayList<>();
+        for (RawBsonDocument doc : findOpenDocuments()) {
+            open.add(doc.decode(codec));
+        }
+        return open;
+    }
+
+    /**
+     * Open classes as ClassSummaries, ordered by (name, id). The rosters are skipped while decoding.
+     * @return
+     */
+    @Override
+    public List<ClassSummary> findOpenClassSummaries() {
+        List<ClassSummary> open = new ArrayList<>();
+        for (RawBsonDocument doc : findOpenDocuments()) {
+            open.add(doc.decode(summaryCodec));
+        }
+        open.sort(BY_NAME_ID);
+        return open;
+    }
+
+    /**
+     * Keyset paginated open-class summaries, ordered by (name, id)
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    @Override
+    public KeysetPage<ClassSummary> findOpenClassSummaries(String cursor, int limit) {
+        List<ClassSummary> open = findOpenClassSummaries();
+        return KeysetPage.read((lastName, lastId) -> open.stream()
+                        .filter(summary -> lastId == null || isAfter(summary, lastName, lastId))
+                        .iterator(),
+                ClassSummary::getName, ClassSummary::getId, cursor, limit);
+    }
+
+    /**
+     * Hands every open-class summary to consumer, ordered by (name, id)
+     * @param consumer
+     * @return the number of summaries streamed
+     */
+    @Override
+    public int streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        List<ClassSummary> open = findOpenClassSummaries();
+        open.forEach(consumer);
+        return open.size();
+    }
+
+    @Override
+    public int streamAllClassSummaries(Consumer<ClassSummary> consumer) {
+        int count = 0;
+        for (RawBsonDocument doc : store.values()) {
+            consumer.accept(doc.decode(summaryCodec));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * ClassSummaries for every class whose id is in ids, in the order of ids
+     * @param ids
+     * @return
+     */
+    @Override
+    public List<ClassSummary> findSummariesByIds(List<Integer> ids) {
+        List<ClassSummary> found = new ArrayList<>();
+        for (Integer id : ids) {
+            RawBsonDocument doc = store.get(id);
+            if (doc != null) {
+                found.add(doc.decode(summaryCodec));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds a Student to the roster of an open class with a free seat, in one atomic write
+     * @param classId
+     * @param student
+     * @return the updated ClassModel, or null if the class is closed, full or the student is already enrolled
+     */
+    @Override
+    public ClassModel enroll(int classId, Student student) {
+        return enroll(null, classId, student);
+    }
+
+    @Override
+    public ClassModel enroll(Transaction tx, int classId, Student student) {
+        try {
+            long current = clock.millis();
+            BsonDocument snapshot = student.getSnapshotDoc().toBsonDocument(BsonDocument.class, registry);
+            RawBsonDocument result = store.update(classId, doc -> {
+                if (!isOpen(doc, current)
+                        || DocumentStore.arrayIds(doc, "students").contains(student.getId())
+                        || DocumentStore.intOf(doc, "enrolledCount") >= DocumentStore.intOf(doc, "capacity")) {
+                    return null;
+                }
+                DocumentStore.push(doc, "students", snapshot);
+                doc.put("enrolledCount", new BsonInt32(DocumentStore.intOf(doc, "enrolledCount") + 1));
+                return bumpVersion(doc);
+            });
+
+            if (result == null) {
+                return null;
+            }
+            logger.info("Enrolled " + student.getId() + " in " + classId + "\n");
+            return result.decode(codec);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Removes a Student from the roster of an open class, in one atomic write
+     * @param classId
+     * @param student
+     * @return the updated ClassModel, or null if the class is closed or the student was not enrolled
+     */
+    @Override
+    public ClassModel unenroll(int classId, Student student) {
+        return unenroll(null, classId, student);
+    }
+
+    @Override
+    public ClassModel unenroll(Transaction tx, int classId, Student student) {
+        try {
+            long current = clock.millis();
+            RawBsonDocument result = store.update(classId, doc -> {
+                if (!isOpen(doc, current) || !DocumentStore.pull(doc, "students", student.getId())) {
+                    return null;
+                }
+                doc.put("enrolledCount", new BsonInt32(DocumentStore.intOf(doc, "enrolledCount") - 1));
+                return bumpVersion(doc);
+            });
+
+            if (result == null) {
+                return null;
+            }
+            logger.info("Unenrolled " + student.getId() + " from " + classId + "\n");
+            return result.decode(codec);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Replaces the updatable fields of a class, provided the stored version still matches
+     * updatedResource.getVersion(). On success the version is bumped both in the store and on updatedResource.
+     * @param updatedResource
+     * @return false if no class with that id exists
+     * @throws VersionConflictException if the class was modified since updatedResource was read
+     */
+    @Override
+    public boolean update(ClassModel updatedResource) {
+        try {
+            if (!applyUpdate(updatedResource)) {
+                if (store.get(updatedResource.getId()) == null) {
+                    return false;
+                }
+                logger.info("Version conflict on class " + updatedResource.getId() + "\n");
+                throw new VersionConflictException("Class " + updatedResource.getName() + " was modified by someone else, refresh and try again");
+            }
+            updatedResource.setVersion(updatedResource.getVersion() + 1);
+            updatedResource.markPersisted();
+            return true;
+
+        } catch (VersionConflictException vce) {
+            throw vce;
+        } catch (Exception e) {
+            logger.error(e.getStackTrace());
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Retrieves every ClassModel whose id is in ids
+     * @param ids
+     * @return classes in the order of ids, plus the ids that did not match
+     */
+    @Override
+    public BatchResult<ClassModel> findAllById(List<Integer> ids) {
+        List<ClassModel> found = new ArrayList<>();
+        for (Integer id : ids) {
+            RawBsonDocument doc = store.get(id);
+            if (doc != null) {
+                found.add(doc.decode(codec));
+            }
+        }
+        return BatchResult.inOrder(ids, found, ClassModel::getId);
+    }
+
+    /**
+     * Stores every ClassModel in newResources, stopping at the first duplicate id like an ordered insertMany
+     * @param newResources
+     * @return
+     */
+    @Override
+    public List<ClassModel> saveAll(List<ClassModel> newResources) {
+        for (ClassModel classModel : newResources) {
+            save(classModel);
+        }
+        return newResources;
+    }
+
+    /**
+     * Updates every ClassModel in updatedResources, each conditional on its version. Like the unordered bulkWrite
+     * of MongoClassModelRepo, the writes that still match are applied and the others are reported as conflicting.
+     * @param updatedResources
+     * @return the updated classes in input order, plus the ids that did not exist and the ids modified by someone else
+     */
+    @Override
+    public BatchResult<ClassModel> updateAll(List<ClassModel> updatedResources) {
+        try {
+            List<ClassModel> updated = new ArrayList<>();
+            List<Integer> missing = new ArrayList<>();
+            List<Integer> conflicting = new ArrayList<>();
+            for (ClassModel classModel : updatedResources) {
+                if (store.get(classModel.getId()) == null) {
+                    missing.add(classModel.getId());
+                } else if (!applyUpdate(classModel)) {
+                    conflicting.add(classModel.getId());
+                } else {
+                    classModel.setVersion(classModel.getVersion() + 1);
+                    classModel.markPersisted();
+                    updated.add(classModel);
+                }
+            }
+            return new BatchResult<>(updated, missing, conflicting);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Deletes every class whose id is in ids
+     * @param ids
+     * @return the deleted ids in input order, plus the ids that did not exist
+     */
+    @Override
+    public BatchResult<Integer> deleteAllById(List<Integer> ids) {
+        try {
+            List<Integer> deleted = new ArrayList<>();
+            for (Integer id : ids) {
+                if (store.delete(id)) {
+                    deleted.add(id);
+                }
+            }
+            return BatchResult.inOrder(ids, deleted, id -> id);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Deletes the classModel with the corresponding id
+     * @param id
+     * @return
+     */
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            store.delete(id);
+            return true;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Intersects the classes which opened before now with those closing after now, then re-checks each document
+     * in case it changed after the indexes were read
+     * @return
+     */
+    private List<RawBsonDocument> findOpenDocuments() {
+        long current = clock.millis();
+
+        Set<Integer> closingLater = new HashSet<>();
+        for (NavigableSet<Integer> ids : closeWindowIndex.entries().tailMap(current, false).values()) {
+            closingLater.addAll(ids);
+        }
+
+        List<RawBsonDocument> open = new ArrayList<>();
+        for (NavigableSet<Integer> ids : openWindowIndex.entries().headMap(current, false).values()) {
+            for (Integer id : ids) {
+                if (!closingLater.contains(id)) {
+                    continue;
+                }
+                RawBsonDocument doc = store.get(id);
+                if (doc != null && isOpen(doc, current)) {
+                    open.add(doc);
+                }
+            }
+        }
+        return open;
+    }
+
+    /**
+     * $set of the same fields MongoClassModelRepo.getUpdates sets, if the version matches
+     * @param classModel
+     * @return false if the class is missing or its version did not match
+     */
+    private boolean applyUpdate(ClassModel classModel) {
+        RawBsonDocument changes = new RawBsonDocument(classModel, codec);
+        return store.update(classModel.getId(), doc -> {
+            if (DocumentStore.versionOf(doc) != classModel.getVersion()) {
+                return null;
+            }
+            for (String field : new String[]{"capacity", "description", "openWindow", "closeWindow", "students", "enrolledCount", "faculty"}) {
+                doc.put(field, changes.get(field));
+            }
+            return bumpVersion(doc);
+        }) != null;
+    }
+
+    private static BsonDocument bumpVersion(BsonDocument doc) {
+        doc.put("version", new BsonInt32(DocumentStore.versionOf(doc) + 1));
+        return doc;
+    }
+
+    private static boolean isOpen(BsonDocument doc, long current) {
+        return DocumentStore.longOf(doc, "openWindow") < current && DocumentStore.longOf(doc, "closeWindow") > current;
+    }
+
+    private static boolean isAfter(ClassSummary summary, String lastName, int lastId) {
+        String name = summary.getName() == null ? "" : summary.getName();
+        int compared = name.compareTo(lastName);
+        return compared > 0 || (compared == 0 && summary.getId() > lastId);
+    }
+}
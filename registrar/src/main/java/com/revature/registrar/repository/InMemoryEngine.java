@@ -0,0 +1,85 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+
+/**
+ * Embedded storage engine which needs no MongoDB, for local development, benchmarks and single node deployments.
+ * Holds the classes and users collections as DocumentStores and hands out the repositories over them.
+ * With a directory, each collection is persisted there as a snapshot file plus an append-only change log.
+ */
+public class InMemoryEngine implements Closeable {
+
+    private final DocumentStore classes;
+    private final DocumentStore users;
+    private final InMemoryClassModelRepo classRepo;
+    private final InMemoryUserRepository userRepo;
+
+    private InMemoryEngine(Path dir, boolean syncWrites, int checkpointEvery) {
+        CodecRegistry registry = RegistrarCodecProvider.getCodecRegistry();
+        this.classes = new DocumentStore("classes", dir, syncWrites, checkpointEvery);
+        this.users = new DocumentStore("users", dir, syncWrites, checkpointEvery);
+        //Repositories register their indexes, which open() then builds from the loaded documents
+        this.classRepo = new InMemoryClassModelRepo(classes, registry, Clock.systemUTC());
+        this.userRepo = new InMemoryUserRepository(users, registry);
+        classes.open();
+        users.open();
+    }
+
+    /**
+     * Opens an engine persisting to dir, which is created if needed
+     * @param dir null or empty for an engine which keeps nothing across restarts
+     * @return
+     */
+    public static InMemoryEngine open(String dir) {
+        return open(dir == null || dir.trim().isEmpty() ? null : Paths.get(dir), false, DocumentStore.DEFAULT_CHECKPOINT_EVERY);
+    }
+
+    /**
+     * @param dir null for an engine which keeps nothing across restarts
+     * @param syncWrites force every log append to disk before the write returns
+     * @param checkpointEvery number of logged writes per collection after which a snapshot is written
+     * @return
+     */
+    public static InMemoryEngine open(Path dir, boolean syncWrites, int checkpointEvery) {
+        return new InMemoryEngine(dir, syncWrites, checkpointEvery);
+    }
+
+    public ClassModelRepo getClassRepo() {
+        return classRepo;
+    }
+
+    public UserRepository getUserRepo() {
+        return userRepo;
+    }
+
+    public AsyncClassModelRepo getAsyncClassRepo() {
+        return new InMemoryAsyncClassModelRepo(classRepo);
+    }
+
+    public AsyncUserRepository getAsyncUserRepo() {
+        return new InMemoryAsyncUserRepository(userRepo);
+    }
+
+    /**
+     * Snapshots both collections and truncates their logs
+     */
+    public void checkpoint() {
+        classes.checkpoint();
+        users.checkpoint();
+    }
+
+    /**
+     * Checkpoints and releases the log files
+     */
+    @Override
+    public void close() {
+        classes.close();
+        users.close();
+    }
+}
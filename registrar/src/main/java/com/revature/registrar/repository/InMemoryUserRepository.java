@@ -0,0 +1,490 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.exceptions.VersionConflictException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * UserRepository on the embedded InMemoryEngine. Users are stored in the same document layout as the MongoDB
+ * users collection and every method mirrors the filter and update of its MongoUserRepository counterpart.
+ * The unique username index serves credential lookups and (username, id) ordered pages, the classes.id index finds the
+ * holders of a class. Sessions are ignored, each write is atomic on its own document.
+ */
+public class InMemoryUserRepository implements UserRepository {
+    private static final Comparator<User> BY_USERNAME_ID = Comparator
+            .comparing(InMemoryUserRepository::usernameKey)
+            .thenComparing(User::getId);
+
+    private final Logger logger = LogManager.getLogger(InMemoryUserRepository.class);
+    private final DocumentStore store;
+    private final CodecRegistry registry;
+    private final Codec<User> codec;
+    private final Codec<UserCredentials> credentialsCodec;
+    private final SecondaryIndex<String> usernameIndex;
+    private final SecondaryIndex<Integer> classIndex;
+
+    InMemoryUserRepository(DocumentStore store, CodecRegistry registry) {
+        this.store = store;
+        this.registry = registry;
+        this.codec = registry.get(User.class);
+        this.credentialsCodec = registry.get(UserCredentials.class);
+        this.usernameIndex = store.addIndex(new SecondaryIndex<String>("username",
+                doc -> Collections.singleton(usernameOf(doc)), true));
+        this.classIndex = store.addIndex(new SecondaryIndex<Integer>("classes.id",
+                doc -> DocumentStore.arrayIds(doc, "classes"), false));
+    }
+
+    /**
+     * Returns the User with a matching ID, or null
+     * @param id
+     * @return
+     */
+    @Override
+    public User findById(int id) {
+        RawBsonDocument doc = store.get(id);
+        return doc == null ? null : doc.decode(codec);
+    }
+
+    /**
+     * Every User, ordered by (username, id)
+     * @return
+     */
+    @Override
+    public List<User> findAll() {
+        List<User> users = new ArrayList<>(store.size());
+        usersAfter(null, null).forEachRemaining(users::add);
+        return users;
+    }
+
+    /**
+     * Keyset paginated Users, read straight off the username index
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    @Override
+    public KeysetPage<User> findAll(String cursor, int limit) {
+        return KeysetPage.read(this::usersAfter, User::getUsername, User::getId, cursor, limit);
+    }
+
+    /**
+     * Hands every User to consumer, ordered by (username, id)
+     * @param consumer
+     * @return the number of users streamed
+     */
+    @Override
+    public int streamAll(Consumer<User> consumer) {
+        int count = 0;
+        Iterator<User> users = usersAfter(null, null);
+        while (users.hasNext()) {
+            consumer.accept(users.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Stores a User, newResource. Fails if the id or the username is taken.
+     * @param newResource
+     * @return
+     */
+    @Override
+    public User save(User newResource) {
+        try {
+            if (!store.insert(new RawBsonDocument(newResource, codec))) {
+                throw new ResourcePersistenceException("Duplicate key id: " + newResource.getId());
+            }
+            newResource.markPersisted();
+            logger.info("Created " + newResource + "\n");
+            return newResource;
+
+        } catch (ResourcePersistenceException rpe) {
+            logger.error(rpe.getMessage() + "\n");
+            throw rpe;
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Replaces the updatable fields of a user, provided the stored version still matches
+     * updatedResource.getVersion(). On success the version is bumped both in the store and on updatedResource.
+     * @param updatedResource
+     * @return false if no user with that id exists
+     * @throws VersionConflictException if the user was modified since updatedResource was read
+     */
+    @Override
+    public boolean update(User updatedResource) {
+        try {
+            if (!applyUpdate(updatedResource)) {
+                if (store.get(updatedResource.getId()) == null) {
+                    return false;
+                }
+                logger.info("Version conflict on user " + updatedResource.getId() + "\n");
+                throw new VersionConflictException("User " + updatedResource.getUsername() + " was modified by someone else, refresh and try again");
+            }
+            updatedResource.setVersion(updatedResource.getVersion() + 1);
+            updatedResource.markPersisted();
+            logger.info("Updated " + updatedResource + "\n");
+            return true;
+
+        } catch (VersionConflictException vce) {
+            throw vce;
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Retrieves every User whose id is in ids
+     * @param ids
+     * @return users in the order of ids, plus the ids that did not match
+     */
+    @Override
+    public BatchResult<User> findAllById(List<Integer> ids) {
+        List<User> found = new ArrayList<>();
+        for (Integer id : ids) {
+            RawBsonDocument doc = store.get(id);
+            if (doc != null) {
+                found.add(doc.decode(codec));
+            }
+        }
+        return BatchResult.inOrder(ids, found, User::getId);
+    }
+
+    /**
+     * Stores every User in newResources, stopping at the first duplicate like an ordered insertMany
+     * @param newResources
+     * @return
+     */
+    @Override
+    public List<User> saveAll(List<User> newResources) {
+        for (User user : newResources) {
+            save(user);
+        }
+        return newResources;
+    }
+
+    /**
+     * Updates every User in updatedResources, each conditional on its version. The writes that still match are
+     * applied and the others are reported as conflicting.
+     * @param updatedResources
+     * @return the updated users in input order, plus the ids that did not exist and the ids modified by someone else
+     */
+    @Override
+    public BatchResult<User> updateAll(List<User> updatedResources) {
+        try {
+            List<User> updated = new ArrayList<>();
+            List<Integer> missing = new ArrayList<>();
+            List<Integer> conflicting = new ArrayList<>();
+            for (User user : updatedResources) {
+                if (store.get(user.getId()) == null) {
+                    missing.add(user.getId());
+                } else if (!applyUpdate(user)) {
+                    conflicting.add(user.getId());
+                } else {
+                    user.setVersion(user.getVersion() + 1);
+                    user.markPersisted();
+                    updated.add(user);
+                }
+            }
+            logger.info("Updated " + updated.size() + " users\n");
+            return new BatchResult<>(updated, missing, conflicting);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Every User who has the class with a given id in their classes, ordered by (username, id)
+     * @param id
+     * @return
+     */
+    @Override
+    public List<User> findWithClass(int id) {
+        List<User> users = new ArrayList<>();
+        for (Integer userId : classIndex.get(id)) {
+            RawBsonDocument doc = store.get(userId);
+            if (doc != null && DocumentStore.arrayIds(doc, "classes").contains(id)) {
+                users.add(doc.decode(codec));
+            }
+        }
+        users.sort(BY_USERNAME_ID);
+        logger.info("Retieved " + users.size() + " users with class " + id + "\n");
+        return users;
+    }
+
+    /**
+     * Keyset paginated Users who have the class with a given id, ordered by (username, id)
+     * @param id
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    @Override
+    public KeysetPage<User> findWithClass(int id, String cursor, int limit) {
+        List<User> users = findWithClass(id);
+        return KeysetPage.read((lastUsername, lastId) -> users.stream()
+                        .filter(user -> lastId == null || isAfter(user, lastUsername, lastId))
+                        .iterator(),
+                User::getUsername, User::getId, cursor, limit);
+    }
+
+    /**
+     * Hands every User who has the class with a given id to consumer, ordered by (username, id)
+     * @param id
+     * @param consumer
+     * @return the number of users streamed
+     */
+    @Override
+    public int streamWithClass(int id, Consumer<User> consumer) {
+        List<User> users = findWithClass(id);
+        users.forEach(consumer);
+        return users.size();
+    }
+
+    /**
+     * $pulls the class with the given id from every User the classes.id index lists as holding it
+     * @param classId
+     * @return the number of users modified
+     */
+    @Override
+    public long removeClassFromAll(int classId) {
+        try {
+            long modified = 0;
+            for (Integer userId : classIndex.get(classId)) {
+                if (store.update(userId, doc -> DocumentStore.pull(doc, "classes", classId) ? bumpVersion(doc) : null) != null) {
+                    modified++;
+                }
+            }
+            logger.info("Removed class " + classId + " from " + modified + " users\n");
+            return modified;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Adds the {id, name} snapshot of classModel to the classes of the user with userId, unless it is already there
+     * @param userId
+     * @param classModel
+     * @return true if the user was found and did not hold the class yet
+     */
+    @Override
+    public boolean addClassRef(int userId, ClassModel classModel) {
+        return addClassRef(null, userId, classModel);
+    }
+
+    @Override
+    public boolean addClassRef(Transaction tx, int userId, ClassModel classModel) {
+        try {
+            BsonDocument snapshot = classModel.getSnapshotDoc().toBsonDocument(BsonDocument.class, registry);
+            boolean added = store.update(userId, doc -> {
+                if (DocumentStore.arrayIds(doc, "classes").contains(classModel.getId())) {
+                    return null;
+                }
+                DocumentStore.push(doc, "classes", snapshot);
+                return bumpVersion(doc);
+            }) != null;
+            logger.info("Added class " + classModel.getId() + " to user " + userId + "\n");
+            return added;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Removes the class with classId from the classes of the user with userId
+     * @param userId
+     * @param classId
+     * @return true if the user held the class
+     */
+    @Override
+    public boolean removeClassRef(int userId, int classId) {
+        return removeClassRef(null, userId, classId);
+    }
+
+    @Override
+    public boolean removeClassRef(Transaction tx, int userId, int classId) {
+        try {
+            boolean removed = store.update(userId, doc -> DocumentStore.pull(doc, "classes", classId) ? bumpVersion(doc) : null) != null;
+            logger.info("Removed class " + classId + " from user " + userId + "\n");
+            return removed;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Not implemented, unnecessary
+     * @param id
+     * @return
+     */
+    @Override
+    public boolean deleteById(int id) {
+        return false;
+    }
+
+    /**
+     * Deletes every user whose id is in ids
+     * @param ids
+     * @return the deleted ids in input order, plus the ids that did not exist
+     */
+    @Override
+    public BatchResult<Integer> deleteAllById(List<Integer> ids) {
+        try {
+            List<Integer> deleted = new ArrayList<>();
+            for (Integer id : ids) {
+                if (store.delete(id)) {
+                    deleted.add(id);
+                }
+            }
+            return BatchResult.inOrder(ids, deleted, id -> id);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Looks the username up in the unique username index and decodes only the credential fields
+     * @param username
+     * @return
+     */
+    @Override
+    public UserCredentials findCredentialsByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        for (Integer id : usernameIndex.get(username)) {
+            RawBsonDocument doc = store.get(id);
+            if (doc != null && username.equals(usernameOf(doc))) {
+                return doc.decode(credentialsCodec);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the password of the User with id if the stored one still equals expected
+     * @param id
+     * @param expected
+     * @param replacement
+     * @return
+     */
+    @Override
+    public boolean replacePassword(int id, String expected, String replacement) {
+        try {
+            return store.update(id, doc -> {
+                BsonValue stored = doc.get("password");
+                if (stored == null || !stored.isString() || !stored.asString().getValue().equals(expected)) {
+                    return null;
+                }
+                doc.put("password", new BsonString(replacement));
+                return bumpVersion(doc);
+            }) != null;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Walks the username index from just after (lastUsername, lastId), decoding users as they are pulled
+     * @param lastUsername null for the first page
+     * @param lastId null for the first page
+     * @return
+     */
+    private Iterator<User> usersAfter(String lastUsername, Integer lastId) {
+        NavigableMap<String, NavigableSet<Integer>> entries = lastUsername == null
+                ? usernameIndex.entries()
+                : usernameIndex.entries().tailMap(lastUsername, true);
+        return entries.entrySet().stream()
+                .flatMap(entry -> idsAfter(entry, lastUsername, lastId))
+                .map(store::get)
+                .filter(Objects::nonNull)
+                .map(doc -> doc.decode(codec))
+                .iterator();
+    }
+
+    private static Stream<Integer> idsAfter(Map.Entry<String, NavigableSet<Integer>> entry, String lastUsername, Integer lastId) {
+        if (lastId != null && entry.getKey().equals(lastUsername)) {
+            return entry.getValue().tailSet(lastId, false).stream();
+        }
+        return entry.getValue().stream();
+    }
+
+    /**
+     * $set of the same fields MongoUserRepository.getUpdates sets, if the version matches
+     * @param user
+     * @return false if the user is missing or its version did not match
+     */
+    private boolean applyUpdate(User user) {
+        RawBsonDocument changes = new RawBsonDocument(user, codec);
+        return store.update(user.getId(), doc -> {
+            if (DocumentStore.versionOf(doc) != user.getVersion()) {
+                return null;
+            }
+            for (String field : new String[]{"firstName", "lastName", "password", "classes"}) {
+                doc.put(field, changes.get(field));
+            }
+            return bumpVersion(doc);
+        }) != null;
+    }
+
+    private static BsonDocument bumpVersion(BsonDocument doc) {
+        doc.put("version", new BsonInt32(DocumentStore.versionOf(doc) + 1));
+        return doc;
+    }
+
+    //Users without a username sort and page as "", the same as KeysetPage cursors encode them
+    private static String usernameOf(BsonDocument doc) {
+        BsonValue username = doc.get("username");
+        return username != null && username.isString() ? username.asString().getValue() : "";
+    }
+
+    private static String usernameKey(User user) {
+        return user.getUsername() == null ? "" : user.getUsername();
+    }
+
+    private static boolean isAfter(User user, String lastUsername, int lastId) {
+        int compared = usernameKey(user).compareTo(lastUsername);
+        return compared > 0 || (compared == 0 && user.getId() > lastId);
+    }
+}
@@ -0,0 +1,176 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.util.MongoClientFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declares the indexes the repositories rely on and creates them at startup.
+ * createIndex is a no-op when an identical index already exists, so running this on every deploy is safe.
+ */
+public class IndexManager {
+    private final Logger logger = LogManager.getLogger(IndexManager.class);
+
+    /**
+     * Creates every index used by ClassModelRepo and UserRepository if it does not already exist
+     */
+    public void ensureIndexes() {
+        try {
+            MongoDatabase db = getDatabase();
+            MongoCollection<Document> classes = db.getCollection("classes");
+            MongoCollection<Document> users = db.getCollection("users");
+
+            classes.createIndex(Indexes.ascending("id"), new IndexOptions().name("id_unique").unique(true));
+            //findOpenClasses: equality-free range on both windows, openWindow first
+            classes.createIndex(Indexes.ascending("openWindow", "closeWindow"), new IndexOptions().name("window"));
+            //keyset pagination order for class listings
+            classes.createIndex(Indexes.ascending("name", "id"), new IndexOptions().name("name_id"));
+
+            users.createIndex(Indexes.ascending("id"), new IndexOptions().name("id_unique").unique(true));
+            users.createIndex(Indexes.ascending("username"), new IndexOptions().name("username_unique").unique(true));
+            //multikey, classes is an array of embedded class documents
+            users.createIndex(Indexes.ascending("classes.id"), new IndexOptions().name("classes_id"));
+            //keyset pagination order for user listings, overall and per class
+            users.createIndex(Indexes.ascending("username", "id"), new IndexOptions().name("username_id"));
+            users.createIndex(Indexes.ascending("classes.id", "username", "id"), new IndexOptions().name("classes_id_username_id"));
+
+            logger.info("Indexes verified for classes and users\n");
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("Unable to create indexes.", e);
+        }
+    }
+
+    /**
+     * Runs explain() against every repository query, see getProbes, and throws if any winning plan
+     * falls back to a collection scan. Intended for test/staging deploys, enabled through web.xml.
+     */
+    public void verifyQueryPlans() {
+        List<String> collScans = new ArrayList<>();
+        try {
+            MongoDatabase db = getDatabase();
+            for (Map.Entry<String, Probe> entry : getProbes().entrySet()) {
+                Probe probe = entry.getValue();
+                FindIterable<Document> query = db.getCollection(probe.collection).find(probe.filter);
+                if (probe.sort != null) {
+                    query = query.sort(probe.sort);
+                }
+                Document explain = query.explain();
+                Document queryPlanner = explain.get("queryPlanner", Document.class);
+                if (queryPlanner == null || hasCollScan(queryPlanner.get("winningPlan"))) {
+                    collScans.add(entry.getKey());
+                }
+            }
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("Unable to explain repository queries.", e);
+        }
+
+        if (!collScans.isEmpty()) {
+            logger.error("COLLSCAN plans found for " + collScans + "\n");
+            throw new DataSourceException("Repository queries without index support: " + collScans);
+        }
+        logger.info("All repository queries are index backed\n");
+    }
+
+    /**
+     * The queries issued by the repositories, keyed by the method that issues them. Filters come from the
+     * repositories' own builders, so a changed query is probed as it is sent. Updates are probed as a find
+     * on their filter, which is planned the same way.
+     * Whole-collection reads (findAll, streamAllClassSummaries) and migrations scan by design and are left out.
+     * Values are placeholders, only the shape of the query matters to the planner.
+     * @return
+     */
+    Map<String, Probe> getProbes() {
+        long now = System.currentTimeMillis();
+        List<Integer> ids = Arrays.asList(0, 1);
+        String cursor = KeysetPage.encode(0, "");
+        Bson byName = Sorts.ascending("name", "id");
+        Bson byUsername = Sorts.ascending("username", "id");
+
+        Map<String, Probe> probes = new LinkedHashMap<>();
+        probes.put("ClassModelRepo.findById", new Probe("classes", MongoClassModelRepo.getIdFilter(0)));
+        probes.put("ClassModelRepo.findAllById", new Probe("classes", MongoClassModelRepo.getIdsFilter(ids)));
+        probes.put("ClassModelRepo.findOpenClasses", new Probe("classes", MongoClassModelRepo.getOpenFilter(now)));
+        probes.put("ClassModelRepo.findOpenClassSummaries(cursor)", new Probe("classes",
+                KeysetPage.after(MongoClassModelRepo.getOpenFilter(now), "name", cursor, 1), byName));
+        probes.put("ClassModelRepo.streamOpenClassSummaries", new Probe("classes", MongoClassModelRepo.getOpenFilter(now), byName));
+        probes.put("ClassModelRepo.enroll", new Probe("classes", MongoClassModelRepo.getEnrollFilter(0, 0, now)));
+        probes.put("ClassModelRepo.unenroll", new Probe("classes", MongoClassModelRepo.getUnenrollFilter(0, 0, now)));
+        probes.put("ClassModelRepo.update", new Probe("classes", MongoClassModelRepo.getVersionFilter(0, 1)));
+        probes.put("ClassModelRepo.update(unversioned)", new Probe("classes", MongoClassModelRepo.getVersionFilter(0, 0)));
+
+        probes.put("UserRepository.findById", new Probe("users", MongoUserRepository.getIdFilter(0)));
+        probes.put("UserRepository.findAllById", new Probe("users", MongoUserRepository.getIdsFilter(ids)));
+        probes.put("UserRepository.findAll(cursor)", new Probe("users",
+                KeysetPage.after(new Document(), "username", cursor, 1), byUsername));
+        probes.put("UserRepository.findWithClass", new Probe("users", MongoUserRepository.getWithClassFilter(0)));
+        probes.put("UserRepository.findWithClass(cursor)", new Probe("users",
+                KeysetPage.after(MongoUserRepository.getWithClassFilter(0), "username", cursor, 1), byUsername));
+        probes.put("UserRepository.findCredentialsByUsername", new Probe("users", MongoUserRepository.getUsernameFilter("")));
+        probes.put("UserRepository.update", new Probe("users", MongoUserRepository.getVersionFilter(0, 1)));
+        probes.put("UserRepository.replacePassword", new Probe("users", MongoUserRepository.getPasswordFilter(0, "")));
+        probes.put("UserRepository.addClassRef", new Probe("users", MongoUserRepository.getAddClassRefFilter(0, 0)));
+        probes.put("UserRepository.removeClassRef", new Probe("users", MongoUserRepository.getRemoveClassRefFilter(0, 0)));
+        probes.put("UserRepository.removeClassFromAll", new Probe("users", MongoUserRepository.getWithClassFilter(0)));
+        return probes;
+    }
+
+    /**
+     * Walks a (possibly nested) plan stage and returns true if any stage is a COLLSCAN
+     * @param stage
+     * @return
+     */
+    static boolean hasCollScan(Object stage) {
+        if (stage instanceof Document) {
+            Document doc = (Document) stage;
+            if ("COLLSCAN".equals(doc.get("stage"))) {
+                return true;
+            }
+            for (Object value : doc.values()) {
+                if (hasCollScan(value)) return true;
+            }
+        } else if (stage instanceof List) {
+            for (Object value : (List<?>) stage) {
+                if (hasCollScan(value)) return true;
+            }
+        }
+        return false;
+    }
+
+    private MongoDatabase getDatabase() {
+        return MongoClientFactory.getInstance().getDatabase();
+    }
+
+    static class Probe {
+        final String collection;
+        final Bson filter;
+        final Bson sort; //null when the query is unsorted
+
+        Probe(String collection, Bson filter) {
+            this(collection, filter, null);
+        }
+
+        Probe(String collection, Bson filter, Bson sort) {
+            this.collection = collection;
+            this.filter = filter;
+            this.sort = sort;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.revature.registrar.exceptions.InvalidRequestException;
+import org.bson.conversions.Bson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset paginated query, ordered by (sort key, id).
+ * nextCursor is an opaque token holding the last (sort key, id) pair, or null once the results are exhausted.
+ * Unlike skip/limit, every page is an index range scan starting right after the previous page.
+ * @param <T>
+ */
+public class KeysetPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns a page with the same cursor whose items have been converted, e.g. into DTOs
+     * @param mapper
+     * @param <R>
+     * @return
+     */
+    public <R> KeysetPage<R> map(Function<T, R> mapper) {
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            mapped.add(mapper.apply(item));
+        }
+        return new KeysetPage<>(mapped, nextCursor);
+    }
+
+    /**
+     * Runs a keyset query: the base filter, restricted to rows after the cursor, sorted by (sortKey, id),
+     * reading limit + 1 rows to learn whether another page exists.
+     * @param iterableFor builds the FindIterable for a complete filter
+     * @param baseFilter
+     * @param sortKey a String field, e.g. name or username
+     * @param keyOf reads the sort key back out of a result
+     * @param idOf reads the id back out of a result
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @param <T>
+     * @return
+     */
+    static <T> KeysetPage<T> query(Function<Bson, FindIterable<T>> iterableFor, Bson baseFilter, String sortKey,
+                                   Function<T, String> keyOf, Function<T, Integer> idOf, String cursor, int limit) {
+        Bson filter = after(baseFilter, sortKey, cursor, limit);
+
+        List<T> rows = new ArrayList<>(limit + 1);
+        try (MongoCursor<T> results = iterableFor.apply(filter)
+                .sort(Sorts.ascending(sortKey, "id"))
+                .limit(limit + 1)
+                .batchSize(limit + 1)
+                .iterator()) {
+            while (results.hasNext()) {
+                rows.add(results.next());
+            }
+        }
+        return of(rows, keyOf, idOf, limit);
+    }
+
+    /**
+     * Restricts baseFilter to the rows after the cursor. The query built on it must sort by (sortKey, id)
+     * and read limit + 1 rows.
+     * @param baseFilter
+     * @param sortKey
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    static Bson after(Bson baseFilter, String sortKey, String cursor, int limit) {
+        checkLimit(limit);
+        if (cursor == null) {
+            return baseFilter;
+        }
+        String[] parts = decode(cursor);
+        int lastId = Integer.parseInt(parts[0]);
+        String lastKey = parts[1];
+        return Filters.and(baseFilter, Filters.or(
+                Filters.gt(sortKey, lastKey),
+                Filters.and(Filters.eq(sortKey, lastKey), Filters.gt("id", lastId))));
+    }
+
+    /**
+     * Runs a keyset query against rows the caller can produce in (sort key, id) order, e.g. by walking a
+     * sorted in-memory index. rowsAfter is given the sort key and id the cursor points at, both null for the
+     * first page, and must return the rows strictly after them. At most limit + 1 rows are pulled from it.
+     * @param rowsAfter
+     * @param keyOf
+     * @param idOf
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @param <T>
+     * @return
+     */
+    static <T> KeysetPage<T> read(BiFunction<String, Integer, Iterator<T>> rowsAfter,
+                                  Function<T, String> keyOf, Function<T, Integer> idOf, String cursor, int limit) {
+        checkLimit(limit);
+        Iterator<T> results;
+        if (cursor == null) {
+            results = rowsAfter.apply(null, null);
+        } else {
+            String[] parts = decode(cursor);
+            results = rowsAfter.apply(parts[1], Integer.parseInt(parts[0]));
+        }
+
+        List<T> rows = new ArrayList<>(limit + 1);
+        while (rows.size() <= limit && results.hasNext()) {
+            rows.add(results.next());
+        }
+        return of(rows, keyOf, idOf, limit);
+    }
+
+    /**
+     * Builds the page from the up to limit + 1 rows read by a query on after(...)
+     * @param rows
+     * @param keyOf
+     * @param idOf
+     * @param limit
+     * @param <T>
+     * @return
+     */
+    static <T> KeysetPage<T> of(List<T> rows, Function<T, String> keyOf, Function<T, Integer> idOf, int limit) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        T last = items.get(limit - 1);
+        return new KeysetPage<>(items, encode(idOf.apply(last), keyOf.apply(last)));
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new InvalidRequestException("Page limit must be a positive integer");
+        }
+    }
+
+    static String encode(int id, String key) {
+        String raw = id + ":" + (key == null ? "" : key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.indexOf(':');
+            if (split < 0) throw new IllegalArgumentException("Missing separator");
+            Integer.parseInt(raw.substring(0, split));
+            return new String[]{raw.substring(0, split), raw.substring(split + 1)};
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid page cursor");
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.revature.registrar.exceptions.VersionConflictException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.repository.codecs.ClassSummaryCodec;
+import com.revature.registrar.util.MongoClientFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.reactivestreams.Publisher;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking version of ClassModelRepo on the reactive-streams driver.
+ * Filters and updates are shared with ClassModelRepo, so both write the same documents.
+ */
+public class MongoAsyncClassModelRepo implements AsyncClassModelRepo {
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final Logger logger = LogManager.getLogger(MongoAsyncClassModelRepo.class);
+    private final int batchSize;
+    private final Clock clock;
+
+    public MongoAsyncClassModelRepo() {
+        this(DEFAULT_BATCH_SIZE, Clock.systemUTC());
+    }
+
+    /**
+     * @param batchSize number of documents the driver pulls per getMore on list and stream queries
+     * @param clock decides which classes are open
+     */
+    public MongoAsyncClassModelRepo(int batchSize, Clock clock) {
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    private <T> MongoCollection<T> classes(Class<T> type) {
+        return MongoClientFactory.getInstance().getAsyncCollection("classes", type);
+    }
+
+    /**
+     * Retrieves the ClassModel with the given id, or null
+     * @param id
+     * @return
+     */
+    @Override
+    public CompletableFuture<ClassModel> findById(int id) {
+        return Publishers.first(classes(ClassModel.class).find(MongoClassModelRepo.getIdFilter(id)).first());
+    }
+
+    /**
+     * Stores a ClassModel, newResource, in the database
+     * @param newResource
+     * @return
+     */
+    @Override
+    public CompletableFuture<ClassModel> save(ClassModel newResource) {
+        return Publishers.first(classes(ClassModel.class).insertOne(newResource))
+                .thenApply(result -> {
+                    newResource.markPersisted();
+                    logger.info("Created " + newResource + "\n");
+                    return newResource;
+                });
+    }
+
+    /**
+     * Conditional on the version, like MongoClassModelRepo.update. Fails with a VersionConflictException
+     * if the class was modified since updatedResource was read.
+     * @param updatedResource
+     * @return false if no class with that id exists
+     */
+    @Override
+    public CompletableFuture<Boolean> update(ClassModel updatedResource) {
+        MongoCollection<Document> classCollection = classes(Document.class);
+        Bson query = MongoClassModelRepo.getVersionFilter(updatedResource.getId(), updatedResource.getVersion());
+
+        return Publishers.first(classCollection.updateOne(query, MongoClassModelRepo.getUpdates(updatedResource)))
+                .thenCompose(result -> {
+                    if (result.getMatchedCount() == 1) {
+                        updatedResource.setVersion(updatedResource.getVersion() + 1);
+                        updatedResource.markPersisted();
+                        return CompletableFuture.completedFuture(true);
+                    }
+                    return Publishers.first(classCollection.countDocuments(MongoClassModelRepo.getIdFilter(updatedResource.getId())))
+                            .thenApply(count -> {
+                                if (count == 0) {
+                                    return false;
+                                }
+                                logger.info("Version conflict on class " + updatedResource.getId() + "\n");
+                                throw new VersionConflictException("Class " + updatedResource.getName() + " was modified by someone else, refresh and try again");
+                            });
+                });
+    }
+
+    /**
+     * Deletes the classModel with the corresponding id from the database
+     * @param id
+     * @return
+     */
+    @Override
+    public CompletableFuture<Boolean> deleteById(int id) {
+        return Publishers.first(classes(Document.class).deleteOne(MongoClassModelRepo.getIdFilter(id)))
+                .thenApply(result -> result.getDeletedCount() == 1);
+    }
+
+    /**
+     * Retrieves every ClassModel whose id is in ids with a single $in query
+     * @param ids
+     * @return classes in the order of ids, plus the ids that did not match
+     */
+    @Override
+    public CompletableFuture<BatchResult<ClassModel>> findAllById(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchResult<>(new ArrayList<>(), new ArrayList<>()));
+        }
+        return Publishers.toList(classes(ClassModel.class).find(MongoClassModelRepo.getIdsFilter(ids)).batchSize(batchSize))
+                .thenApply(found -> BatchResult.inOrder(ids, found, ClassModel::getId));
+    }
+
+    /**
+     * Streams the summaries of every class open for enrollment, ordered by (name, id).
+     * Subscribers pull them in batchSize batches, so the catalog is never buffered.
+     * @return
+     */
+    public Publisher<ClassSummary> findOpenClassSummaries() {
+        return classes(ClassSummary.class).find(MongoClassModelRepo.getOpenFilter(clock.millis()))
+                .projection(ClassSummaryCodec.PROJECTION)
+                .sort(Sorts.ascending("name", "id"))
+                .batchSize(batchSize);
+    }
+
+    /**
+     * Streams the open-class summaries into consumer, ordered by (name, id)
+     * @param consumer called on a driver thread for each summary
+     * @return completes with the number of summaries streamed
+     */
+    @Override
+    public CompletableFuture<Integer> streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        return Publishers.forEach(findOpenClassSummaries(), consumer, batchSize);
+    }
+
+    /**
+     * Keyset paginated open-class summaries, ordered by (name, id)
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    @Override
+    public CompletableFuture<KeysetPage<ClassSummary>> findOpenClassSummaries(String cursor, int limit) {
+        Bson filter = KeysetPage.after(MongoClassModelRepo.getOpenFilter(clock.millis()), "name", cursor, limit);
+        return Publishers.toList(classes(ClassSummary.class).find(filter)
+                        .projection(ClassSummaryCodec.PROJECTION)
+                        .sort(Sorts.ascending("name", "id"))
+                        .limit(limit + 1)
+                        .batchSize(limit + 1))
+                .thenApply(rows -> KeysetPage.of(rows, ClassSummary::getName, ClassSummary::getId, limit));
+    }
+
+    /**
+     * Summaries for every class whose id is in ids, with a single $in query
+     * @param ids
+     * @return summaries in the order of ids, ids with no matching class are skipped
+     */
+    @Override
+    public CompletableFuture<List<ClassSummary>> findSummariesByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return Publishers.toList(classes(ClassSummary.class).find(MongoClassModelRepo.getIdsFilter(ids))
+                        .projection(ClassSummaryCodec.PROJECTION)
+                        .batchSize(batchSize))
+                .thenApply(found -> BatchResult.inOrder(ids, found, ClassSummary::getId).getResults());
+    }
+
+    /**
+     * Same conditional update as MongoClassModelRepo.enroll
+     * @param classId
+     * @param student
+     * @return the updated ClassModel, or null if the class is closed, full or the student is already enrolled
+     */
+    @Override
+    public CompletableFuture<ClassModel> enroll(int classId, Student student) {
+        return Publishers.first(classes(ClassModel.class).findOneAndUpdate(
+                        MongoClassModelRepo.getEnrollFilter(classId, student.getId(), clock.millis()),
+                        MongoClassModelRepo.getEnrollUpdates(student),
+                        new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)))
+                .thenApply(result -> {
+                    if (result != null) {
+                        logger.info("Enrolled " + student.getId() + " in " + classId + "\n");
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Same conditional update as MongoClassModelRepo.unenroll
+     * @param classId
+     * @param student
+     * @return the updated ClassModel, or null if the class is closed or the student was not enrolled
+     */
+    @Override
+    public CompletableFuture<ClassModel> unenroll(int classId, Student student) {
+        return Publishers.first(classes(ClassModel.class).findOneAndUpdate(
+                        MongoClassModelRepo.getUnenrollFilter(classId, student.getId(), clock.millis()),
+                        MongoClassModelRepo.getUnenrollUpdates(student),
+                        new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)))
+                .thenApply(result -> {
+                    if (result != null) {
+                        logger.info("Unenrolled " + student.getId() + " from " + classId + "\n");
+                    }
+                    return result;
+                });
+    }
+}
@@ -0,0 +1,223 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.revature.registrar.exceptions.VersionConflictException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+import com.revature.registrar.repository.codecs.UserCredentialsCodec;
+import com.revature.registrar.util.MongoClientFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking version of UserRepository on the reactive-streams driver.
+ * Updates are shared with UserRepository, so both write the same documents.
+ */
+public class MongoAsyncUserRepository implements AsyncUserRepository {
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final Logger logger = LogManager.getLogger(MongoAsyncUserRepository.class);
+    private final int batchSize;
+
+    public MongoAsyncUserRepository() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize number of documents the driver pulls per getMore on list and stream queries
+     */
+    public MongoAsyncUserRepository(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    private <T> MongoCollection<T> users(Class<T> type) {
+        return MongoClientFactory.getInstance().getAsyncCollection("users", type);
+    }
+
+    /**
+     * Retrieves the User with the given id, or null
+     * @param id
+     * @return
+     */
+    @Override
+    public CompletableFuture<User> findById(int id) {
+        return Publishers.first(users(User.class).find(MongoUserRepository.getIdFilter(id)).first());
+    }
+
+    /**
+     * Stores a User, newResource, in the database
+     * @param newResource
+     * @return
+     */
+    @Override
+    public CompletableFuture<User> save(User newResource) {
+        return Publishers.first(users(User.class).insertOne(newResource))
+                .thenApply(result -> {
+                    newResource.markPersisted();
+                    logger.info("Created " + newResource + "\n");
+                    return newResource;
+                });
+    }
+
+    /**
+     * Conditional on the version, like MongoUserRepository.update. Fails with a VersionConflictException
+     * if the user was modified since updatedResource was read.
+     * @param updatedResource
+     * @return false if no user with that id exists
+     */
+    @Override
+    public CompletableFuture<Boolean> update(User updatedResource) {
+        MongoCollection<Document> usersCollection = users(Document.class);
+        Bson query = MongoUserRepository.getVersionFilter(updatedResource.getId(), updatedResource.getVersion());
+
+        return Publishers.first(usersCollection.updateOne(query, MongoUserRepository.getUpdates(updatedResource)))
+                .thenCompose(result -> {
+                    if (result.getMatchedCount() == 1) {
+                        updatedResource.setVersion(updatedResource.getVersion() + 1);
+                        updatedResource.markPersisted();
+                        logger.info("Updated " + updatedResource + "\n");
+                        return CompletableFuture.completedFuture(true);
+                    }
+                    return Publishers.first(usersCollection.countDocuments(MongoUserRepository.getIdFilter(updatedResource.getId())))
+                            .thenApply(count -> {
+                                if (count == 0) {
+                                    return false;
+                                }
+                                logger.info("Version conflict on user " + updatedResource.getId() + "\n");
+                                throw new VersionConflictException("User " + updatedResource.getUsername() + " was modified by someone else, refresh and try again");
+                            });
+                });
+    }
+
+    /**
+     * Not implemented, unnecessary
+     * @param id
+     * @return
+     */
+    @Override
+    public CompletableFuture<Boolean> deleteById(int id) {
+        return CompletableFuture.completedFuture(false);
+    }
+
+    /**
+     * Retrieves every User whose id is in ids with a single $in query
+     * @param ids
+     * @return users in the order of ids, plus the ids that did not match
+     */
+    @Override
+    public CompletableFuture<BatchResult<User>> findAllById(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchResult<>(new ArrayList<>(), new ArrayList<>()));
+        }
+        return Publishers.toList(users(User.class).find(MongoUserRepository.getIdsFilter(ids)).batchSize(batchSize))
+                .thenApply(found -> BatchResult.inOrder(ids, found, User::getId));
+    }
+
+    /**
+     * Streams every User, ordered by (username, id), in batchSize batches
+     * @return
+     */
+    public Publisher<User> findAll() {
+        return users(User.class).find()
+                .sort(Sorts.ascending("username", "id"))
+                .batchSize(batchSize);
+    }
+
+    /**
+     * Streams every User into consumer, ordered by (username, id)
+     * @param consumer called on a driver thread for each user
+     * @return completes with the number of users streamed
+     */
+    @Override
+    public CompletableFuture<Integer> streamAll(Consumer<User> consumer) {
+        return Publishers.forEach(findAll(), consumer, batchSize);
+    }
+
+    /**
+     * Keyset paginated Users, ordered by (username, id)
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    @Override
+    public CompletableFuture<KeysetPage<User>> findAll(String cursor, int limit) {
+        Bson filter = KeysetPage.after(new Document(), "username", cursor, limit);
+        return Publishers.toList(users(User.class).find(filter)
+                        .sort(Sorts.ascending("username", "id"))
+                        .limit(limit + 1)
+                        .batchSize(limit + 1))
+                .thenApply(rows -> KeysetPage.of(rows, User::getUsername, User::getId, limit));
+    }
+
+    /**
+     * Same projected lookup as MongoUserRepository.findCredentialsByUsername
+     * @param username
+     * @return
+     */
+    @Override
+    public CompletableFuture<UserCredentials> findCredentialsByUsername(String username) {
+        return Publishers.first(users(UserCredentials.class).find(MongoUserRepository.getUsernameFilter(username))
+                .projection(UserCredentialsCodec.PROJECTION)
+                .first());
+    }
+
+    /**
+     * Same conditional update as MongoUserRepository.replacePassword
+     * @param id
+     * @param expected
+     * @param replacement
+     * @return
+     */
+    @Override
+    public CompletableFuture<Boolean> replacePassword(int id, String expected, String replacement) {
+        return Publishers.first(users(Document.class).updateOne(
+                        MongoUserRepository.getPasswordFilter(id, expected),
+                        Updates.combine(
+                                Updates.set("password", replacement),
+                                Updates.inc("version", 1))))
+                .thenApply(result -> result.getModifiedCount() == 1);
+    }
+
+    /**
+     * Same $addToSet as MongoUserRepository.addClassRef
+     * @param userId
+     * @param classModel
+     * @return true if the user was found
+     */
+    @Override
+    public CompletableFuture<Boolean> addClassRef(int userId, ClassModel classModel) {
+        return Publishers.first(users(Document.class).updateOne(
+                        MongoUserRepository.getAddClassRefFilter(userId, classModel.getId()),
+                        Updates.combine(
+                                Updates.addToSet("classes", classModel.getSnapshotDoc()),
+                                Updates.inc("version", 1))))
+                .thenApply(result -> result.getMatchedCount() == 1);
+    }
+
+    /**
+     * Same $pull as MongoUserRepository.removeClassRef
+     * @param userId
+     * @param classId
+     * @return true if the user held the class
+     */
+    @Override
+    public CompletableFuture<Boolean> removeClassRef(int userId, int classId) {
+        return Publishers.first(users(Document.class).updateOne(
+                        MongoUserRepository.getRemoveClassRefFilter(userId, classId),
+                        Updates.combine(
+                                Updates.pull("classes", new Document("id", classId)),
+                                Updates.inc("version", 1))))
+                .thenApply(result -> result.getModifiedCount() == 1);
+    }
+}
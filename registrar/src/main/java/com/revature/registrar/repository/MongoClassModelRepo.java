@@ -0,0 +1,752 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.exceptions.InvalidRequestException;
+import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.exceptions.VersionConflictException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.models.User;
+import com.revature.registrar.repository.codecs.ClassSummaryCodec;
+import com.revature.registrar.util.MongoClientFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.time.Clock;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Provides methods to communicate and interact with the MongoDB classes collection
+ */
+public class MongoClassModelRepo implements ClassModelRepo {
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final Logger logger = LogManager.getLogger(MongoClassModelRepo.class);
+    private final int batchSize;
+    private final Clock clock;
+
+    public MongoClassModelRepo() {
+        this(DEFAULT_BATCH_SIZE, Clock.systemUTC());
+    }
+
+    /**
+     * @param batchSize number of documents the driver pulls per getMore on list and stream queries
+     * @param clock decides which classes are open
+     */
+    public MongoClassModelRepo(int batchSize, Clock clock) {
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Searches the Database and returns a ClassModel with a matching ID
+     * @param id
+     * @return
+     */
+    @Override
+    public ClassModel findById(int id) {
+        try {
+            MongoCollection<ClassModel> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassModel.class);
+            return classCollection.find(getIdFilter(id)).first();
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Stores a ClassModel, newResource, in the database
+     * @param newResource
+     * @return
+     */
+    @Override
+    public ClassModel save(ClassModel newResource) {
+        try {
+            MongoCollection<ClassModel> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassModel.class);
+
+            classCollection.insertOne(newResource);
+            newResource.markPersisted();
+            logger.info("Created " + newResource + "\n");
+            return newResource;
+
+        } catch (Exception e) {
+            if (MongoErrors.isDuplicateKey(e)) {
+                logger.error("Duplicate id " + newResource.getId() + "\n");
+                throw new ResourcePersistenceException("Duplicate", e);
+            }
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Searches the database and returns a list of ClassModels where the current time falls between
+     * the openDate and closeDate. Returns an empty list if no classes are open.
+     * @return
+     */
+    @Override
+    public List<ClassModel> findOpenClasses() {
+        try {
+            MongoCollection<ClassModel> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassModel.class);
+
+            return classCollection.find(getOpenFilter(clock.millis()))
+                    .batchSize(batchSize)
+                    .into(new ArrayList<>());
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Same filter as findOpenClasses, but projected down to ClassSummary fields so neither roster
+     * is sent over the wire. Returns an empty list if no classes are open.
+     * @return
+     */
+    @Override
+    public List<ClassSummary> findOpenClassSummaries() {
+        try {
+            MongoCollection<ClassSummary> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassSummary.class);
+
+            return classCollection.find(getOpenFilter(clock.millis()))
+                    .projection(ClassSummaryCodec.PROJECTION)
+                    .batchSize(batchSize)
+                    .into(new ArrayList<>());
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Keyset paginated open-class summaries, ordered by (name, id)
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    @Override
+    public KeysetPage<ClassSummary> findOpenClassSummaries(String cursor, int limit) {
+        try {
+            MongoCollection<ClassSummary> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassSummary.class);
+
+            return KeysetPage.query(filter -> classCollection.find(filter).projection(ClassSummaryCodec.PROJECTION),
+                    getOpenFilter(clock.millis()), "name", ClassSummary::getName, ClassSummary::getId, cursor, limit);
+
+        } catch (InvalidRequestException ire) {
+            throw ire;
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Hands every open-class summary to consumer as it comes off the cursor, without collecting them.
+     * @param consumer
+     * @return the number of summaries streamed
+     */
+    @Override
+    public int streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        try {
+            MongoCollection<ClassSummary> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassSummary.class);
+
+            int count = 0;
+            try (MongoCursor<ClassSummary> cursor = classCollection.find(getOpenFilter(clock.millis()))
+                    .projection(ClassSummaryCodec.PROJECTION)
+                    .sort(Sorts.ascending("name", "id"))
+                    .batchSize(batchSize)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    consumer.accept(cursor.next());
+                    count++;
+                }
+            }
+            return count;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Hands the summary of every class to consumer as it comes off the cursor, in natural order
+     * @param consumer
+     * @return the number of summaries streamed
+     */
+    @Override
+    public int streamAllClassSummaries(Consumer<ClassSummary> consumer) {
+        try {
+            MongoCollection<ClassSummary> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassSummary.class);
+
+            int count = 0;
+            try (MongoCursor<ClassSummary> cursor = classCollection.find()
+                    .projection(ClassSummaryCodec.PROJECTION)
+                    .batchSize(batchSize)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    consumer.accept(cursor.next());
+                    count++;
+                }
+            }
+            return count;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Filter matching classes whose registration window contains now
+     * @param now epoch millis
+     * @return
+     */
+    static Bson getOpenFilter(long now) {
+        return new Document()
+                .append("openWindow", new Document("$lt", now))
+                .append("closeWindow", new Document("$gt", now));
+    }
+
+    /**
+     * Returns ClassSummaries for every class whose id is in ids, in a single $in query.
+     * Summaries follow the order of ids, ids with no matching class are skipped.
+     * @param ids
+     * @return
+     */
+    @Override
+    public List<ClassSummary> findSummariesByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            MongoCollection<ClassSummary> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassSummary.class);
+
+            List<ClassSummary> found = classCollection.find(getIdsFilter(ids))
+                    .projection(ClassSummaryCodec.PROJECTION)
+                    .batchSize(batchSize)
+                    .into(new ArrayList<>());
+            return BatchResult.inOrder(ids, found, ClassSummary::getId).getResults();
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Atomically adds a Student to the roster of an open class. The filter only matches while the
+     * registration window is open, the student is not already on the roster and a seat is left,
+     * so concurrent enrollments can neither overwrite each other nor oversell the class.
+     * Returns the updated ClassModel, or null if any of those conditions did not hold.
+     * @param classId
+     * @param student
+     * @return
+     */
+    @Override
+    public ClassModel enroll(int classId, Student student) {
+        return enroll(null, classId, student);
+    }
+
+    /**
+     * enroll(classId, student) as part of the transaction tx
+     * @param tx null to run outside of a transaction
+     * @param classId
+     * @param student
+     * @return
+     */
+    @Override
+    public ClassModel enroll(Transaction tx, int classId, Student student) {
+        try {
+            ClientSession session = MongoTransaction.sessionOf(tx);
+            MongoCollection<ClassModel> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassModel.class);
+
+            Bson query = getEnrollFilter(classId, student.getId(), clock.millis());
+            Bson updates = getEnrollUpdates(student);
+            FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+            ClassModel result = session == null
+                    ? classCollection.findOneAndUpdate(query, updates, options)
+                    : classCollection.findOneAndUpdate(session, query, updates, options);
+
+            if (result != null) {
+                logger.info("Enrolled " + student.getId() + " in " + classId + "\n");
+            }
+            return result;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Atomically removes a Student from the roster of an open class.
+     * Returns the updated ClassModel, or null if the class is closed or the student was not enrolled.
+     * @param classId
+     * @param student
+     * @return
+     */
+    @Override
+    public ClassModel unenroll(int classId, Student student) {
+        return unenroll(null, classId, student);
+    }
+
+    /**
+     * unenroll(classId, student) as part of the transaction tx
+     * @param tx null to run outside of a transaction
+     * @param classId
+     * @param student
+     * @return
+     */
+    @Override
+    public ClassModel unenroll(Transaction tx, int classId, Student student) {
+        try {
+            ClientSession session = MongoTransaction.sessionOf(tx);
+            MongoCollection<ClassModel> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassModel.class);
+
+            Bson query = getUnenrollFilter(classId, student.getId(), clock.millis());
+            Bson updates = getUnenrollUpdates(student);
+            FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER);
+            ClassModel result = session == null
+                    ? classCollection.findOneAndUpdate(query, updates, options)
+                    : classCollection.findOneAndUpdate(session, query, updates, options);
+
+            if (result != null) {
+                logger.info("Unenrolled " + student.getId() + " from " + classId + "\n");
+            }
+            return result;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Updates the fields of a database element with new data, provided the stored version still matches
+     * updatedResource.getVersion(). On success the version is bumped both in the database and on updatedResource.
+     * @param updatedResource
+     * @return false if no class with that id exists
+     * @throws VersionConflictException if the class was modified since updatedResource was read
+     */
+    @Override
+    public boolean update(ClassModel updatedResource) {
+        try {
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("classes");
+
+            Bson query = getVersionFilter(updatedResource.getId(), updatedResource.getVersion());
+            if (usersCollection.updateOne(query, getUpdates(updatedResource)).getMatchedCount() == 0) {
+                if (usersCollection.countDocuments(getIdFilter(updatedResource.getId())) == 0) {
+                    return false;
+                }
+                logger.info("Version conflict on class " + updatedResource.getId() + "\n");
+                throw new VersionConflictException("Class " + updatedResource.getName() + " was modified by someone else, refresh and try again");
+            }
+            updatedResource.setVersion(updatedResource.getVersion() + 1);
+            updatedResource.markPersisted();
+            return true;
+
+        } catch (VersionConflictException vce) {
+            throw vce;
+        } catch (Exception e) {
+            logger.error(e.getStackTrace());
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+
+    /**
+     * Matches an open class with a free seat which the student is not yet on the roster of
+     * @param classId
+     * @param studentId
+     * @param now epoch millis
+     * @return
+     */
+    static Bson getEnrollFilter(int classId, int studentId, long now) {
+        return Filters.and(
+                Filters.eq("id", classId),
+                Filters.lt("openWindow", now),
+                Filters.gt("closeWindow", now),
+                Filters.ne("students.id", studentId),
+                Filters.expr(new Document("$lt", Arrays.asList("$enrolledCount", "$capacity"))));
+    }
+
+    //students.id $ne in the filter guarantees the $addToSet adds, so the counter stays in step
+    static Bson getEnrollUpdates(Student student) {
+        return Updates.combine(
+                Updates.addToSet("students", student.getSnapshotDoc()),
+                Updates.inc("enrolledCount", 1),
+                Updates.inc("version", 1));
+    }
+
+    /**
+     * Matches an open class which the student is on the roster of
+     * @param classId
+     * @param studentId
+     * @param now epoch millis
+     * @return
+     */
+    static Bson getUnenrollFilter(int classId, int studentId, long now) {
+        return Filters.and(
+                Filters.eq("id", classId),
+                Filters.lt("openWindow", now),
+                Filters.gt("closeWindow", now),
+                Filters.eq("students.id", studentId));
+    }
+
+    static Bson getUnenrollUpdates(Student student) {
+        return Updates.combine(
+                Updates.pull("students", new Document("id", student.getId())),
+                Updates.inc("enrolledCount", -1),
+                Updates.inc("version", 1));
+    }
+
+    /**
+     * Matches the class with id
+     * @param id
+     * @return
+     */
+    static Bson getIdFilter(int id) {
+        return Filters.eq("id", id);
+    }
+
+    /**
+     * Matches every class whose id is in ids
+     * @param ids
+     * @return
+     */
+    static Bson getIdsFilter(Collection<Integer> ids) {
+        return Filters.in("id", ids);
+    }
+
+    /**
+     * Matches the class with id while it is still at version
+     * @param id
+     * @param version
+     * @return
+     */
+    static Bson getVersionFilter(int id, int version) {
+        return Filters.and(getIdFilter(id), versionIs(version));
+    }
+
+    /**
+     * Matches the expected version. Documents written before versioning have no version field and count as 0
+     * @param version
+     * @return
+     */
+    static Bson versionIs(int version) {
+        return version == 0 ? Filters.in("version", 0, null) : Filters.eq("version", version);
+    }
+
+    /**
+     * Helper method which returns Bson representing the changes to a given ClassModel.
+     * A class read from the database only sends the fields changed since, a class built elsewhere
+     * (e.g. from a request body) sends every updatable field.
+     * @param classModel
+     * @return
+     */
+    public static Bson getUpdates(ClassModel classModel) {
+        ClassModel.Persisted before = classModel.persistedState();
+        if (before != null) {
+            UpdateDiff diff = new UpdateDiff()
+                    .set("capacity", before.getCapacity(), classModel.getCapacity())
+                    .set("description", before.getDescription(), classModel.getDescription())
+                    .set("openWindow", before.getOpenWindow(), classModel.getOpenWindow())
+                    .set("closeWindow", before.getCloseWindow(), classModel.getCloseWindow());
+            if (diff.array("students", before.getStudentIds(), classModel.getStudents(), User::getId, User::getSnapshotDoc)) {
+                diff.set("enrolledCount", before.getStudentIds().size(), classModel.getStudents().size());
+            }
+            diff.array("faculty", before.getFacultyIds(), classModel.getFaculty(), User::getId, User::getSnapshotDoc);
+            return diff.build();
+        }
+        return Updates.combine(
+                Updates.set("capacity", classModel.getCapacity()),
+                Updates.set("description", classModel.getDescription()),
+                Updates.set("openWindow", classModel.getOpenWindow()),
+                Updates.set("closeWindow", classModel.getCloseWindow()),
+                Updates.set("students", classModel.getStudentsAsDoc()),
+                Updates.set("enrolledCount", classModel.getStudents().size()),
+                Updates.set("faculty", classModel.getFacultyAsDoc()),
+                Updates.inc("version", 1));
+    }
+
+    /**
+     * Retrieves every ClassModel whose id is in ids with a single $in query
+     * @param ids
+     * @return classes in the order of ids, plus the ids that did not match
+     */
+    @Override
+    public BatchResult<ClassModel> findAllById(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new BatchResult<>(new ArrayList<>(), new ArrayList<>());
+        }
+        try {
+            MongoCollection<ClassModel> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassModel.class);
+
+            List<ClassModel> found = classCollection.find(getIdsFilter(ids))
+                    .batchSize(batchSize)
+                    .into(new ArrayList<>());
+            return BatchResult.inOrder(ids, found, ClassModel::getId);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Stores every ClassModel in newResources with a single insertMany
+     * @param newResources
+     * @return
+     */
+    @Override
+    public List<ClassModel> saveAll(List<ClassModel> newResources) {
+        if (newResources.isEmpty()) {
+            return newResources;
+        }
+        try {
+            MongoCollection<ClassModel> classCollection = MongoClientFactory.getInstance().getCollection("classes", ClassModel.class);
+
+            classCollection.insertMany(newResources);
+            newResources.forEach(ClassModel::markPersisted);
+            logger.info("Created " + newResources.size() + " classes\n");
+            return newResources;
+
+        } catch (Exception e) {
+            if (MongoErrors.isDuplicateKey(e)) {
+                logger.error("Duplicate key in a batch of " + newResources.size() + "\n");
+                throw new ResourcePersistenceException("Duplicate", e);
+            }
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Updates every ClassModel in updatedResources with a single unordered bulkWrite.
+     * The stored versions are read with one query first, so that missing classes and stale ones are reported
+     * and only the classes still at their version are written.
+     * If someone else writes in between, the bulkWrite matches fewer and the versions are read once more,
+     * see unmatchedIds. The models written are bumped to their new version and marked persisted, the rest are left as they were.
+     * @param updatedResources
+     * @return the updated classes in input order, plus the ids that did not exist and the ids modified by someone else
+     */
+    @Override
+    public BatchResult<ClassModel> updateAll(List<ClassModel> updatedResources) {
+        if (updatedResources.isEmpty()) {
+            return new BatchResult<>(new ArrayList<>(), new ArrayList<>());
+        }
+        try {
+            MongoCollection<Document> classCollection = MongoClientFactory.getInstance().getCollection("classes");
+
+            List<Integer> ids = new ArrayList<>();
+            for (ClassModel classModel : updatedResources) {
+                ids.add(classModel.getId());
+            }
+            Map<Integer, Integer> stored = storedVersions(classCollection, ids);
+
+            Set<Integer> conflicts = new HashSet<>();
+            List<ClassModel> written = new ArrayList<>();
+            List<WriteModel<Document>> writes = new ArrayList<>();
+            for (ClassModel classModel : updatedResources) {
+                Integer version = stored.get(classModel.getId());
+                if (version == null) {
+                    continue;
+                }
+                if (version != classModel.getVersion()) {
+                    conflicts.add(classModel.getId());
+                    continue;
+                }
+                writes.add(new UpdateOneModel<>(
+                        getVersionFilter(classModel.getId(), classModel.getVersion()),
+                        getUpdates(classModel)));
+                written.add(classModel);
+            }
+
+            if (!writes.isEmpty()) {
+                int matched = classCollection.bulkWrite(writes, new BulkWriteOptions().ordered(false)).getMatchedCount();
+                if (matched < writes.size()) {
+                    conflicts.addAll(unmatchedIds(classCollection, written, writes.size() - matched));
+                }
+            }
+
+            List<ClassModel> updated = new ArrayList<>();
+            List<Integer> missing = new ArrayList<>();
+            List<Integer> conflicting = new ArrayList<>();
+            for (ClassModel classModel : updatedResources) {
+                if (!stored.containsKey(classModel.getId())) {
+                    missing.add(classModel.getId());
+                } else if (conflicts.contains(classModel.getId())) {
+                    conflicting.add(classModel.getId());
+                } else {
+                    classModel.setVersion(classModel.getVersion() + 1);
+                    classModel.markPersisted();
+                    updated.add(classModel);
+                }
+            }
+            if (!conflicting.isEmpty()) {
+                logger.info("Version conflict on classes " + conflicting + "\n");
+            }
+            return new BatchResult<>(updated, missing, conflicting);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Stored version of every classModel in ids, with a single query projected to id and version
+     * @param classCollection
+     * @param ids
+     * @return version by id, ids that do not exist are left out
+     */
+    private static Map<Integer, Integer> storedVersions(MongoCollection<Document> classCollection, Collection<Integer> ids) {
+        Map<Integer, Integer> versions = new HashMap<>();
+        for (Document doc : classCollection.find(getIdsFilter(ids))
+                .projection(Projections.fields(Projections.include("id", "version"), Projections.excludeId()))) {
+            versions.put(doc.getInteger("id"), doc.getInteger("version", 0));
+        }
+        return versions;
+    }
+
+    /**
+     * Which of written the bulkWrite did not match, after someone else wrote between the version read and the write.
+     * A classModel now at a version other than its own + 1 was certainly not written by the batch. When those do not
+     * account for every unmatched write, a classModel at its own + 1 may hold either write, so all of written are reported
+     * and the caller re-reads them rather than trust a version it may not have written.
+     * @param classCollection
+     * @param written
+     * @param unmatched how many writes the bulkWrite did not match
+     * @return
+     */
+    private static Set<Integer> unmatchedIds(MongoCollection<Document> classCollection, List<ClassModel> written, int unmatched) {
+        List<Integer> ids = new ArrayList<>();
+        for (ClassModel classModel : written) {
+            ids.add(classModel.getId());
+        }
+        Map<Integer, Integer> stored = storedVersions(classCollection, ids);
+        Set<Integer> unmatchedIds = new HashSet<>();
+        for (ClassModel classModel : written) {
+            Integer version = stored.get(classModel.getId());
+            if (version == null || version != classModel.getVersion() + 1) {
+                unmatchedIds.add(classModel.getId());
+            }
+        }
+        return unmatchedIds.size() == unmatched ? unmatchedIds : new HashSet<>(ids);
+    }
+
+    /**
+     * Deletes every class whose id is in ids with a single deleteMany
+     * @param ids
+     * @return the deleted ids in input order, plus the ids that did not exist
+     */
+    @Override
+    public BatchResult<Integer> deleteAllById(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new BatchResult<>(new ArrayList<>(), new ArrayList<>());
+        }
+        try {
+            MongoCollection<Document> classCollection = MongoClientFactory.getInstance().getCollection("classes");
+
+            List<Integer> existing = classCollection.distinct("id", getIdsFilter(ids), Integer.class).into(new ArrayList<>());
+            if (!existing.isEmpty()) {
+                classCollection.deleteMany(getIdsFilter(existing));
+            }
+            return BatchResult.inOrder(ids, existing, id -> id);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Rebuilds enrolledCount from the students array for every class, in a single server side
+     * pipeline update. Used to backfill documents written before the counter existed, or to repair drift.
+     * @return the number of class documents whose counter changed
+     */
+    public long recomputeEnrolledCounts() {
+        try {
+            MongoCollection<Document> classCollection = MongoClientFactory.getInstance().getCollection("classes");
+
+            Bson recount = new Document("$set", new Document("enrolledCount",
+                    new Document("$size", new Document("$ifNull", Arrays.asList("$students", Collections.emptyList())))));
+
+            long modified = classCollection.updateMany(new Document(), Collections.singletonList(recount)).getModifiedCount();
+            logger.info("Recomputed enrolledCount, " + modified + " classes changed\n");
+            return modified;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Rewrites the students and faculty arrays of every class down to {id, firstName, lastName} snapshots,
+     * in a single server side pipeline update. Used to migrate documents which still embed full users.
+     * @return the number of class documents rewritten
+     */
+    public long normalizeRosters() {
+        try {
+            MongoCollection<Document> classCollection = MongoClientFactory.getInstance().getCollection("classes");
+
+            Bson snapshot = new Document("$set", new Document("students", snapshotArray("$students"))
+                    .append("faculty", snapshotArray("$faculty")));
+
+            long modified = classCollection.updateMany(new Document(), Collections.singletonList(snapshot)).getModifiedCount();
+            logger.info("Normalized rosters, " + modified + " classes changed\n");
+            return modified;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    private Document snapshotArray(String field) {
+        return new Document("$map", new Document("input", new Document("$ifNull", Arrays.asList(field, Collections.emptyList())))
+                .append("in", new Document("id", "$$this.id")
+                        .append("firstName", "$$this.firstName")
+                        .append("lastName", "$$this.lastName")));
+    }
+
+    /**
+     * Deletes the classModel with the corresponding id from the database
+     * @param id
+     * @return
+     */
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("classes");
+            usersCollection.deleteOne(getIdFilter(id));
+            return true;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+
+    }
+}
@@ -0,0 +1,43 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.DuplicateKeyException;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+
+/**
+ * Classifies the driver exceptions the repositories translate into application exceptions
+ */
+final class MongoErrors {
+
+    private MongoErrors() {
+    }
+
+    /**
+     * True if t, or one of its causes, is a write rejected by a unique index.
+     * insertOne reports it as a MongoWriteException, insertMany as a MongoBulkWriteException
+     * and a failed write concern as a DuplicateKeyException.
+     * @param t
+     * @return
+     */
+    static boolean isDuplicateKey(Throwable t) {
+        for (Throwable e = t; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (e instanceof DuplicateKeyException) {
+                return true;
+            }
+            if (e instanceof MongoWriteException
+                    && ((MongoWriteException) e).getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                return true;
+            }
+            if (e instanceof MongoBulkWriteException) {
+                for (BulkWriteError error : ((MongoBulkWriteException) e).getWriteErrors()) {
+                    if (error.getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.client.ClientSession;
+
+/**
+ * Transaction on a MongoDB ClientSession, created by TransactionRunner and unwrapped by the Mongo repositories
+ */
+final class MongoTransaction implements Transaction {
+
+    private final ClientSession session;
+
+    MongoTransaction(ClientSession session) {
+        this.session = session;
+    }
+
+    /**
+     * @param tx
+     * @return the session tx runs on, or null to run outside of a transaction
+     * @throws IllegalArgumentException if tx was not opened by TransactionRunner
+     */
+    static ClientSession sessionOf(Transaction tx) {
+        if (tx == null) {
+            return null;
+        }
+        if (!(tx instanceof MongoTransaction)) {
+            throw new IllegalArgumentException("Not a MongoDB transaction: " + tx);
+        }
+        return ((MongoTransaction) tx).session;
+    }
+}
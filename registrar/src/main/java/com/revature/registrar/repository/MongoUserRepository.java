@@ -0,0 +1,782 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.exceptions.InvalidRequestException;
+import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.exceptions.VersionConflictException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+import com.revature.registrar.repository.codecs.UserCredentialsCodec;
+import com.revature.registrar.util.MongoClientFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Provides methods to communicate and interact with the MongoDB users collection
+ */
+public class MongoUserRepository implements UserRepository {
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final Logger logger = LogManager.getLogger(MongoUserRepository.class);
+    private final int batchSize;
+
+    public MongoUserRepository() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize number of documents the driver pulls per getMore on list and stream queries
+     */
+    public MongoUserRepository(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Searches the Database and returns a User with a matching ID
+     * @param id
+     * @return
+     */
+    @Override
+    public User findById(int id) {
+        try {
+            MongoCollection<User> usersCollection = MongoClientFactory.getInstance().getCollection("users", User.class);
+            User authUser = usersCollection.find(getIdFilter(id)).first();
+
+            if (authUser == null) {
+                return null;
+            }
+
+            logger.info("Retieved(" + (authUser.isFaculty() ? "F" : "S") + ") " + authUser + "\n");
+            return authUser;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Retrieves every User in the database
+     * @return
+     */
+    @Override
+    public List<User> findAll() {
+        try {
+            MongoCollection<User> usersCollection = MongoClientFactory.getInstance().getCollection("users", User.class);
+
+            return usersCollection.find().batchSize(batchSize).into(new ArrayList<>());
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Keyset paginated Users, ordered by (username, id)
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    @Override
+    public KeysetPage<User> findAll(String cursor, int limit) {
+        return findPage(new Document(), cursor, limit);
+    }
+
+    /**
+     * Hands every User to consumer as it comes off the cursor, without collecting them
+     * @param consumer
+     * @return the number of users streamed
+     */
+    @Override
+    public int streamAll(Consumer<User> consumer) {
+        return stream(new Document(), consumer);
+    }
+
+    /**
+     * Stores a User, newResource, in the database
+     * @param newResource
+     * @return
+     */
+    @Override
+    public User save(User newResource) {
+        try {
+            MongoCollection<User> usersCollection = MongoClientFactory.getInstance().getCollection("users", User.class);
+
+            usersCollection.insertOne(newResource);
+            newResource.markPersisted();
+            logger.info("Created " + newResource + "\n");
+
+            return newResource;
+
+        } catch (Exception e) {
+            if (MongoErrors.isDuplicateKey(e)) {
+                logger.error("Duplicate id " + newResource.getId() + "\n");
+                throw new ResourcePersistenceException("Duplicate", e);
+            }
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Private helper method which returns Bson representing a given Faculty
+     * @param fac
+     * @return
+     */
+    private static Bson getFacultyUpdates(Faculty fac) {
+        Bson updates = Updates.combine(
+                Updates.set("firstName", fac.getFirstName()),
+                Updates.set("lastName", fac.getLastName()),
+                Updates.set("password", fac.getPassword()),
+                Updates.set("classes", fac.getClassesAsDoc()),
+                Updates.inc("version", 1));
+
+        return updates;
+    }
+
+    /**
+     * Private helper method which returns a Document representing a given Student
+     * @param stu
+     * @return
+     */
+    private static Bson getStudentUpdates(Student stu) {
+        Bson updates = Updates.combine(
+                Updates.set("firstName", stu.getFirstName()),
+                Updates.set("lastName", stu.getLastName()),
+                Updates.set("password", stu.getPassword()),
+                Updates.set("classes", stu.getClassesAsDoc()),
+                Updates.inc("version", 1));
+
+        return updates;
+    }
+
+    /**
+     * Matches the expected version. Documents written before versioning have no version field and count as 0
+     * @param version
+     * @return
+     */
+    static Bson versionIs(int version) {
+        return version == 0 ? Filters.in("version", 0, null) : Filters.eq("version", version);
+    }
+
+    /**
+     * Matches the user with id
+     * @param id
+     * @return
+     */
+    static Bson getIdFilter(int id) {
+        return Filters.eq("id", id);
+    }
+
+    /**
+     * Matches every user whose id is in ids
+     * @param ids
+     * @return
+     */
+    static Bson getIdsFilter(Collection<Integer> ids) {
+        return Filters.in("id", ids);
+    }
+
+    /**
+     * Matches the user with id while it is still at version
+     * @param id
+     * @param version
+     * @return
+     */
+    static Bson getVersionFilter(int id, int version) {
+        return Filters.and(getIdFilter(id), versionIs(version));
+    }
+
+    /**
+     * Matches every user holding the class with classId
+     * @param classId
+     * @return
+     */
+    static Bson getWithClassFilter(int classId) {
+        return Filters.eq("classes.id", classId);
+    }
+
+    /**
+     * Matches the user with username
+     * @param username
+     * @return
+     */
+    static Bson getUsernameFilter(String username) {
+        return Filters.eq("username", username);
+    }
+
+    /**
+     * Matches the user with id while the password expected is stored
+     * @param id
+     * @param expected
+     * @return
+     */
+    static Bson getPasswordFilter(int id, String expected) {
+        return Filters.and(getIdFilter(id), Filters.eq("password", expected));
+    }
+
+    /**
+     * Matches the user with userId while it does not hold the class with classId
+     * @param userId
+     * @param classId
+     * @return
+     */
+    static Bson getAddClassRefFilter(int userId, int classId) {
+        return Filters.and(getIdFilter(userId), Filters.ne("classes.id", classId));
+    }
+
+    /**
+     * Matches the user with userId while it holds the class with classId
+     * @param userId
+     * @param classId
+     * @return
+     */
+    static Bson getRemoveClassRefFilter(int userId, int classId) {
+        return Filters.and(getIdFilter(userId), getWithClassFilter(classId));
+    }
+
+    /**
+     * Helper method which returns Bson representing the changes to a given User. A user read from the
+     * database only sends the fields changed since, otherwise the Faculty or Student updates set every field.
+     * @param user
+     * @return
+     */
+    public static Bson getUpdates(User user) {
+        User.Persisted before = user.persistedState();
+        if (before != null) {
+            Set<ClassModel> classes = user.isFaculty() ? ((Faculty) user).getClasses() : ((Student) user).getClasses();
+            UpdateDiff diff = new UpdateDiff()
+                    .set("firstName", before.getFirstName(), user.getFirstName())
+                    .set("lastName", before.getLastName(), user.getLastName())
+                    .set("password", before.getPassword(), user.getPassword());
+            diff.array("classes", before.getClassIds(), classes, ClassModel::getId, ClassModel::getSnapshotDoc);
+            return diff.build();
+        }
+        if(user.isFaculty()) {
+            return getFacultyUpdates((Faculty) user);
+        }
+        return getStudentUpdates((Student) user);
+    }
+
+    /**
+     * Updates the fields of a database element with new data, provided the stored version still matches
+     * updatedResource.getVersion(). On success the version is bumped both in the database and on updatedResource.
+     * @param updatedResource
+     * @return false if no user with that id exists
+     * @throws VersionConflictException if the user was modified since updatedResource was read
+     */
+    @Override
+    public boolean update(User updatedResource) {
+        Bson updates = getUpdates(updatedResource);
+
+        try {
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("users");
+
+            Bson query = getVersionFilter(updatedResource.getId(), updatedResource.getVersion());
+            if (usersCollection.updateOne(query, updates).getMatchedCount() == 0) {
+                if (usersCollection.countDocuments(getIdFilter(updatedResource.getId())) == 0) {
+                    return false;
+                }
+                logger.info("Version conflict on user " + updatedResource.getId() + "\n");
+                throw new VersionConflictException("User " + updatedResource.getUsername() + " was modified by someone else, refresh and try again");
+            }
+            updatedResource.setVersion(updatedResource.getVersion() + 1);
+            updatedResource.markPersisted();
+            logger.info("Updated " + updatedResource + "\n");
+
+            return true;
+
+        } catch (VersionConflictException vce) {
+            throw vce;
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+
+    }
+
+    /**
+     * Retrieves every User whose id is in ids with a single $in query
+     * @param ids
+     * @return users in the order of ids, plus the ids that did not match
+     */
+    @Override
+    public BatchResult<User> findAllById(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new BatchResult<>(new ArrayList<>(), new ArrayList<>());
+        }
+        try {
+            MongoCollection<User> usersCollection = MongoClientFactory.getInstance().getCollection("users", User.class);
+
+            List<User> found = usersCollection.find(getIdsFilter(ids))
+                    .batchSize(batchSize)
+                    .into(new ArrayList<>());
+            return BatchResult.inOrder(ids, found, User::getId);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Stores every User in newResources with a single insertMany
+     * @param newResources
+     * @return
+     */
+    @Override
+    public List<User> saveAll(List<User> newResources) {
+        if (newResources.isEmpty()) {
+            return newResources;
+        }
+        try {
+            MongoCollection<User> usersCollection = MongoClientFactory.getInstance().getCollection("users", User.class);
+
+            usersCollection.insertMany(newResources);
+            newResources.forEach(User::markPersisted);
+            logger.info("Created " + newResources.size() + " users\n");
+            return newResources;
+
+        } catch (Exception e) {
+            if (MongoErrors.isDuplicateKey(e)) {
+                logger.error("Duplicate key in a batch of " + newResources.size() + "\n");
+                throw new ResourcePersistenceException("Duplicate", e);
+            }
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Updates every User in updatedResources with a single unordered bulkWrite.
+     * The stored versions are read with one query first, so that missing users and stale ones are reported
+     * and only the users still at their version are written.
+     * If someone else writes in between, the bulkWrite matches fewer and the versions are read once more,
+     * see unmatchedIds. The models written are bumped to their new version and marked persisted, the rest are left as they were.
+     * @param updatedResources
+     * @return the updated users in input order, plus the ids that did not exist and the ids modified by someone else
+     */
+    @Override
+    public BatchResult<User> updateAll(List<User> updatedResources) {
+        if (updatedResources.isEmpty()) {
+            return new BatchResult<>(new ArrayList<>(), new ArrayList<>());
+        }
+        try {
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("users");
+
+            List<Integer> ids = new ArrayList<>();
+            for (User user : updatedResources) {
+                ids.add(user.getId());
+            }
+            Map<Integer, Integer> stored = storedVersions(usersCollection, ids);
+
+            Set<Integer> conflicts = new HashSet<>();
+            List<User> written = new ArrayList<>();
+            List<WriteModel<Document>> writes = new ArrayList<>();
+            for (User user : updatedResources) {
+                Integer version = stored.get(user.getId());
+                if (version == null) {
+                    continue;
+                }
+                if (version != user.getVersion()) {
+                    conflicts.add(user.getId());
+                    continue;
+                }
+                writes.add(new UpdateOneModel<>(
+                        getVersionFilter(user.getId(), user.getVersion()),
+                        getUpdates(user)));
+                written.add(user);
+            }
+
+            if (!writes.isEmpty()) {
+                int matched = usersCollection.bulkWrite(writes, new BulkWriteOptions().ordered(false)).getMatchedCount();
+                if (matched < writes.size()) {
+                    conflicts.addAll(unmatchedIds(usersCollection, written, writes.size() - matched));
+                }
+            }
+
+            List<User> updated = new ArrayList<>();
+            List<Integer> missing = new ArrayList<>();
+            List<Integer> conflicting = new ArrayList<>();
+            for (User user : updatedResources) {
+                if (!stored.containsKey(user.getId())) {
+                    missing.add(user.getId());
+                } else if (conflicts.contains(user.getId())) {
+                    conflicting.add(user.getId());
+                } else {
+                    user.setVersion(user.getVersion() + 1);
+                    user.markPersisted();
+                    updated.add(user);
+                }
+            }
+            if (!conflicting.isEmpty()) {
+                logger.info("Version conflict on users " + conflicting + "\n");
+            }
+            logger.info("Updated " + updated.size() + " users\n");
+            return new BatchResult<>(updated, missing, conflicting);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Stored version of every user in ids, with a single query projected to id and version
+     * @param usersCollection
+     * @param ids
+     * @return version by id, ids that do not exist are left out
+     */
+    private static Map<Integer, Integer> storedVersions(MongoCollection<Document> usersCollection, Collection<Integer> ids) {
+        Map<Integer, Integer> versions = new HashMap<>();
+        for (Document doc : usersCollection.find(getIdsFilter(ids))
+                .projection(Projections.fields(Projections.include("id", "version"), Projections.excludeId()))) {
+            versions.put(doc.getInteger("id"), doc.getInteger("version", 0));
+        }
+        return versions;
+    }
+
+    /**
+     * Which of written the bulkWrite did not match, after someone else wrote between the version read and the write.
+     * A user now at a version other than its own + 1 was certainly not written by the batch. When those do not
+     * account for every unmatched write, a user at its own + 1 may hold either write, so all of written are reported
+     * and the caller re-reads them rather than trust a version it may not have written.
+     * @param usersCollection
+     * @param written
+     * @param unmatched how many writes the bulkWrite did not match
+     * @return
+     */
+    private static Set<Integer> unmatchedIds(MongoCollection<Document> usersCollection, List<User> written, int unmatched) {
+        List<Integer> ids = new ArrayList<>();
+        for (User user : written) {
+            ids.add(user.getId());
+        }
+        Map<Integer, Integer> stored = storedVersions(usersCollection, ids);
+        Set<Integer> unmatchedIds = new HashSet<>();
+        for (User user : written) {
+            Integer version = stored.get(user.getId());
+            if (version == null || version != user.getVersion() + 1) {
+                unmatchedIds.add(user.getId());
+            }
+        }
+        return unmatchedIds.size() == unmatched ? unmatchedIds : new HashSet<>(ids);
+    }
+
+    /**
+     * Returns a list of Users who have the classModel with a given id in their classes.
+     * Returns an empty list if no user has the class.
+     * @param id
+     * @return
+     */
+    @Override
+    public List<User> findWithClass(int id) {
+        try {
+            MongoCollection<User> usersCollection = MongoClientFactory.getInstance().getCollection("users", User.class);
+
+            List<User> users = usersCollection.find(getWithClassFilter(id)).batchSize(batchSize).into(new ArrayList<>());
+
+            logger.info("Retieved " + users.size() + " users with class " + id + "\n");
+            return users;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Keyset paginated Users who have the classModel with a given id in their classes, ordered by (username, id)
+     * @param id
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    @Override
+    public KeysetPage<User> findWithClass(int id, String cursor, int limit) {
+        return findPage(getWithClassFilter(id), cursor, limit);
+    }
+
+    /**
+     * Hands every User who has the classModel with a given id to consumer as it comes off the cursor
+     * @param id
+     * @param consumer
+     * @return the number of users streamed
+     */
+    @Override
+    public int streamWithClass(int id, Consumer<User> consumer) {
+        return stream(getWithClassFilter(id), consumer);
+    }
+
+    private KeysetPage<User> findPage(Bson filter, String cursor, int limit) {
+        try {
+            MongoCollection<User> usersCollection = MongoClientFactory.getInstance().getCollection("users", User.class);
+
+            return KeysetPage.query(usersCollection::find, filter, "username", User::getUsername, User::getId, cursor, limit);
+
+        } catch (InvalidRequestException ire) {
+            throw ire;
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    private int stream(Bson filter, Consumer<User> consumer) {
+        try {
+            MongoCollection<User> usersCollection = MongoClientFactory.getInstance().getCollection("users", User.class);
+
+            int count = 0;
+            try (MongoCursor<User> cursor = usersCollection.find(filter)
+                    .sort(Sorts.ascending("username", "id"))
+                    .batchSize(batchSize)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    consumer.accept(cursor.next());
+                    count++;
+                }
+            }
+            return count;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Removes the class with the given id from the classes array of every User holding it,
+     * in a single updateMany. Users are never read back into the application.
+     * @param classId
+     * @return the number of users modified
+     */
+    @Override
+    public long removeClassFromAll(int classId) {
+        try {
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("users");
+
+            long modified = usersCollection.updateMany(
+                    getWithClassFilter(classId),
+                    Updates.combine(
+                            Updates.pull("classes", new Document("id", classId)),
+                            Updates.inc("version", 1))).getModifiedCount();
+            logger.info("Removed class " + classId + " from " + modified + " users\n");
+            return modified;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Adds the {id, name} snapshot of classModel to the classes of the user with userId, with a single $addToSet.
+     * The rest of the user document is left untouched.
+     * @param userId
+     * @param classModel
+     * @return true if the user was found
+     */
+    @Override
+    public boolean addClassRef(int userId, ClassModel classModel) {
+        return addClassRef(null, userId, classModel);
+    }
+
+    /**
+     * addClassRef(userId, classModel) as part of the transaction tx
+     * @param tx null to run outside of a transaction
+     * @param userId
+     * @param classModel
+     * @return
+     */
+    @Override
+    public boolean addClassRef(Transaction tx, int userId, ClassModel classModel) {
+        try {
+            ClientSession session = MongoTransaction.sessionOf(tx);
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("users");
+
+            Bson query = getAddClassRefFilter(userId, classModel.getId());
+            Bson updates = Updates.combine(
+                    Updates.addToSet("classes", classModel.getSnapshotDoc()),
+                    Updates.inc("version", 1));
+            long matched = (session == null
+                    ? usersCollection.updateOne(query, updates)
+                    : usersCollection.updateOne(session, query, updates)).getMatchedCount();
+            logger.info("Added class " + classModel.getId() + " to user " + userId + "\n");
+            return matched == 1;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Removes the class with classId from the classes of the user with userId, with a single $pull
+     * @param userId
+     * @param classId
+     * @return true if the user held the class
+     */
+    @Override
+    public boolean removeClassRef(int userId, int classId) {
+        return removeClassRef(null, userId, classId);
+    }
+
+    /**
+     * removeClassRef(userId, classId) as part of the transaction tx
+     * @param tx null to run outside of a transaction
+     * @param userId
+     * @param classId
+     * @return
+     */
+    @Override
+    public boolean removeClassRef(Transaction tx, int userId, int classId) {
+        try {
+            ClientSession session = MongoTransaction.sessionOf(tx);
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("users");
+
+            Bson query = getRemoveClassRefFilter(userId, classId);
+            Bson updates = Updates.combine(
+                    Updates.pull("classes", new Document("id", classId)),
+                    Updates.inc("version", 1));
+            long modified = (session == null
+                    ? usersCollection.updateOne(query, updates)
+                    : usersCollection.updateOne(session, query, updates)).getModifiedCount();
+            logger.info("Removed class " + classId + " from user " + userId + "\n");
+            return modified == 1;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Rewrites the classes array of every user down to {id, name} snapshots, in a single server side
+     * pipeline update. Used to migrate documents which still embed full classes.
+     * @return the number of user documents rewritten
+     */
+    public long normalizeClassRefs() {
+        try {
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("users");
+
+            Bson snapshot = new Document("$set", new Document("classes",
+                    new Document("$map", new Document("input", new Document("$ifNull", Arrays.asList("$classes", Collections.emptyList())))
+                            .append("in", new Document("id", "$$this.id").append("name", "$$this.name")))));
+
+            long modified = usersCollection.updateMany(new Document(), Collections.singletonList(snapshot)).getModifiedCount();
+            logger.info("Normalized class references, " + modified + " users changed\n");
+            return modified;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Not implemented, unnecessary
+     * @param id
+     * @return
+     */
+    @Override
+    public boolean deleteById(int id) {
+        return false;
+    }
+
+    /**
+     * Deletes every user whose id is in ids with a single deleteMany
+     * @param ids
+     * @return the deleted ids in input order, plus the ids that did not exist
+     */
+    @Override
+    public BatchResult<Integer> deleteAllById(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new BatchResult<>(new ArrayList<>(), new ArrayList<>());
+        }
+        try {
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("users");
+
+            List<Integer> existing = usersCollection.distinct("id", getIdsFilter(ids), Integer.class).into(new ArrayList<>());
+            if (!existing.isEmpty()) {
+                usersCollection.deleteMany(getIdsFilter(existing));
+                logger.info("Deleted " + existing.size() + " users\n");
+            }
+            return BatchResult.inOrder(ids, existing, id -> id);
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Retrieves the id, username and stored password of the User with a given username.
+     * Served by the username_unique index, the response carries only the three projected fields.
+     * @param username
+     * @return
+     */
+    @Override
+    public UserCredentials findCredentialsByUsername(String username) {
+        try {
+            MongoCollection<UserCredentials> usersCollection = MongoClientFactory.getInstance().getCollection("users", UserCredentials.class);
+
+            return usersCollection.find(getUsernameFilter(username))
+                    .projection(UserCredentialsCodec.PROJECTION)
+                    .first();
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+
+    /**
+     * Replaces the password of the User with id, conditional on the stored password still being expected
+     * @param id
+     * @param expected
+     * @param replacement
+     * @return
+     */
+    @Override
+    public boolean replacePassword(int id, String expected, String replacement) {
+        try {
+            MongoCollection<Document> usersCollection = MongoClientFactory.getInstance().getCollection("users");
+
+            return usersCollection.updateOne(
+                    getPasswordFilter(id, expected),
+                    Updates.combine(
+                            Updates.set("password", replacement),
+                            Updates.inc("version", 1))).getModifiedCount() == 1;
+
+        } catch (Exception e) {
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Keeps the set of classes open for enrollment in memory, so catalog reads no longer run a two-sided range query
+ * on openWindow and closeWindow. Every class window is loaded once, and each upcoming open and close becomes a
+ * transition in a priority queue. A single timer thread sleeps until the earliest one is due, applies every due
+ * transition and swaps in a new immutable open set, so readers only ever see a complete set.
+ *
+ * Writes must report window changes through classChanged and classRemoved, ScheduledClassModelRepo does so.
+ * Anything written around it, by a job or another instance, shows up at the next full reload.
+ * Shortly before a class opens it is handed to the warmer, e.g. to load it into the ClassModelCache ahead of the
+ * enrollment rush.
+ */
+public class OpenClassScheduler implements Closeable {
+
+    public static final long DEFAULT_WARM_LEAD_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    public static final long DEFAULT_RELOAD_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Comparator<OpenClass> CATALOG_ORDER =
+            Comparator.comparing((OpenClass c) -> c.name).thenComparingInt(c -> c.id);
+
+    private final Logger logger = LogManager.getLogger(OpenClassScheduler.class);
+    private final ClassModelRepo classRepo;
+    private final IntConsumer warmer;
+    private final long warmLeadMillis;
+    private final ScheduledExecutorService timer;
+    private final Clock clock;
+
+    //Guarded by this
+    private final Map<Integer, Window> windows = new HashMap<>();
+    private final PriorityQueue<Transition> transitions = new PriorityQueue<>(Comparator.comparingLong(t -> t.time));
+    private ScheduledFuture<?> wakeUp;
+    //Counts classChanged and classRemoved calls. Each id is stamped with the count of its last change, so a reload
+    //keeps whatever changed while it was streaming instead of the older stored window it read
+    private long modifications;
+    private final Map<Integer, Long> changedAt = new HashMap<>();
+
+    private volatile NavigableSet<OpenClass> open = Collections.unmodifiableNavigableSet(new TreeSet<>(CATALOG_ORDER));
+
+    /**
+     * @param classRepo where the windows are loaded from
+     * @param warmer called on the timer thread with the id of each class about to open
+     * @param warmLeadMillis how long before a class opens it is warmed
+     */
+    public OpenClassScheduler(ClassModelRepo classRepo, IntConsumer warmer, long warmLeadMillis) {
+        this(classRepo, warmer, warmLeadMillis, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "open-class-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        }), Clock.systemUTC());
+    }
+
+    /**
+     * @param timer null for a scheduler which only moves when advance is called
+     * @param clock
+     */
+    OpenClassScheduler(ClassModelRepo classRepo, IntConsumer warmer, long warmLeadMillis, ScheduledExecutorService timer, Clock clock) {
+        this.classRepo = classRepo;
+        this.warmer = warmer;
+        this.warmLeadMillis = warmLeadMillis;
+        this.timer = timer;
+        this.clock = clock;
+    }
+
+    /**
+     * Loads every window and reloads them all every reloadMillis
+     * @param reloadMillis
+     */
+    public void start(long reloadMillis) {
+        reload();
+        timer.scheduleWithFixedDelay(this::reload, reloadMillis, reloadMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replaces every known window with the ones currently stored. Classes changed or removed through
+     * classChanged and classRemoved after the load began keep their current window, or stay removed.
+     */
+    public void reload() {
+        try {
+            long started;
+            synchronized (this) {
+                started = modifications;
+            }
+            List<Window> loaded = new ArrayList<>();
+            classRepo.streamAllClassSummaries(summary -> loaded.add(Window.of(summary)));
+            long now = clock.millis();
+            synchronized (this) {
+                Map<Integer, Window> current = new HashMap<>(windows);
+                windows.clear();
+                transitions.clear();
+                for (Window window : loaded) {
+                    if (changedAt.getOrDefault(window.id, started) <= started) {
+                        windows.put(window.id, window);
+                    }
+                }
+                for (Map.Entry<Integer, Long> changed : changedAt.entrySet()) {
+                    Window window = current.get(changed.getKey());
+                    if (changed.getValue() > started && window != null) {
+                        windows.put(window.id, window);
+                    }
+                }
+                changedAt.values().removeIf(stamp -> stamp <= started);
+
+                NavigableSet<OpenClass> next = new TreeSet<>(CATALOG_ORDER);
+                for (Window window : windows.values()) {
+                    schedule(window, now);
+                    if (window.isOpenAt(now)) {
+                        next.add(window.entry);
+                    }
+                }
+                open = Collections.unmodifiableNavigableSet(next);
+                wakeUpForNext();
+            }
+            logger.info("Loaded " + loaded.size() + " class windows, " + open.size() + " open\n");
+        } catch (Exception e) {
+            //Keep serving the previous set, the next reload tries again
+            logger.error("Could not reload class windows: " + e + "\n");
+        }
+    }
+
+    /**
+     * Reschedules a class which was created or had its window changed
+     * @param classModel
+     */
+    public void classChanged(ClassModel classModel) {
+        classChanged(new Window(classModel.getId(), classModel.getName(),
+                classModel.getOpenWindow(), classModel.getCloseWindow()));
+    }
+
+    /**
+     * Forgets a deleted class
+     * @param id
+     */
+    public synchronized void classRemoved(int id) {
+        changedAt.put(id, ++modifications);
+        Window old = windows.remove(id);
+        if (old != null && open.contains(old.entry)) {
+            open = without(open, old.entry);
+        }
+    }
+
+    /**
+     * Ids of the classes open right now, in catalog order (name, id)
+     * @return
+     */
+    public List<Integer> openIds() {
+        NavigableSet<OpenClass> current = open;
+        List<Integer> ids = new ArrayList<>(current.size());
+        for (OpenClass openClass : current) {
+            ids.add(openClass.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Open classes strictly after (name, id) in catalog order, for keyset pages
+     * @param name null to start from the first open class
+     * @param id
+     * @return
+     */
+    public Iterator<OpenClass> openAfter(String name, Integer id) {
+        NavigableSet<OpenClass> current = open;
+        return name == null ? current.iterator() : current.tailSet(new OpenClass(id, name), false).iterator();
+    }
+
+    public int openCount() {
+        return open.size();
+    }
+
+    /**
+     * Applies every transition due at now. The timer calls this, tests call it directly.
+     * @param now
+     */
+    void advance(long now) {
+        List<Integer> toWarm = new ArrayList<>();
+        synchronized (this) {
+            NavigableSet<OpenClass> next = null;
+            while (!transitions.isEmpty() && transitions.peek().time <= now) {
+                Transition transition = transitions.poll();
+                if (windows.get(transition.window.id) != transition.window) {
+                    continue; //window changed or class deleted since this was scheduled
+                }
+                if (transition.kind == Transition.WARM) {
+                    toWarm.add(transition.window.id);
+                    continue;
+                }
+                if (next == null) {
+                    next = new TreeSet<>(open);
+                }
+                if (transition.kind == Transition.OPEN) {
+                    next.add(transition.window.entry);
+                } else {
+                    next.remove(transition.window.entry);
+                }
+            }
+            if (next != null) {
+                open = Collections.unmodifiableNavigableSet(next);
+            }
+            wakeUpForNext();
+        }
+
+        for (Integer id : toWarm) {
+            try {
+                warmer.accept(id);
+            } catch (Exception e) {
+                logger.error("Could not warm class " + id + ": " + e + "\n");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    private synchronized void classChanged(Window window) {
+        changedAt.put(window.id, ++modifications);
+        Window old = windows.put(window.id, window);
+        long now = clock.millis();
+        schedule(window, now);
+
+        boolean wasOpen = old != null && open.contains(old.entry);
+        if (wasOpen || window.isOpenAt(now)) {
+            NavigableSet<OpenClass> next = new TreeSet<>(open);
+            if (old != null) {
+                next.remove(old.entry);
+            }
+            if (window.isOpenAt(now)) {
+                next.add(window.entry);
+            }
+            open = Collections.unmodifiableNavigableSet(next);
+        }
+        wakeUpForNext();
+    }
+
+    //Queues the transitions of window still ahead of now. The window is open for open < t < close
+    private void schedule(Window window, long now) {
+        long opens = window.openMillis + 1;
+        if (now < opens - warmLeadMillis) {
+            transitions.add(new Transition(opens - warmLeadMillis, Transition.WARM, window));
+        }
+        if (now < opens) {
+            transitions.add(new Transition(opens, Transition.OPEN, window));
+        }
+        if (now < window.closeMillis) {
+            transitions.add(new Transition(window.closeMillis, Transition.CLOSE, window));
+        }
+    }
+
+    //Drops transitions for windows which were replaced, then sleeps until the earliest live one
+    private void wakeUpForNext() {
+        while (!transitions.isEmpty() && windows.get(transitions.peek().window.id) != transitions.peek().window) {
+            transitions.poll();
+        }
+        if (timer == null || transitions.isEmpty()) {
+            return;
+        }
+        long due = transitions.peek().time;
+        if (wakeUp != null && !wakeUp.isDone()) {
+            if (wakeUp.getDelay(TimeUnit.MILLISECONDS) <= due - clock.millis()) {
+                return;
+            }
+            wakeUp.cancel(false);
+        }
+        long delay = Math.max(0, due - clock.millis());
+        wakeUp = timer.schedule(this::onWakeUp, delay, TimeUnit.MILLISECONDS);
+    }
+
+    //Clears wakeUp first, so advance schedules the next one even if the clock says the head is not quite due yet
+    private void onWakeUp() {
+        synchronized (this) {
+            wakeUp = null;
+        }
+        advance(clock.millis());
+    }
+
+    private static NavigableSet<OpenClass> without(NavigableSet<OpenClass> set, OpenClass entry) {
+        NavigableSet<OpenClass> next = new TreeSet<>(set);
+        next.remove(entry);
+        return Collections.unmodifiableNavigableSet(next);
+    }
+
+    /**
+     * Catalog key of an open class
+     */
+    public static final class OpenClass {
+        private final int id;
+        private final String name;
+
+        OpenClass(int id, String name) {
+            this.id = id;
+            this.name = name == null ? "" : name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static final class Window {
+        final int id;
+        final long openMillis;
+        final long closeMillis;
+        final OpenClass entry;
+
+        Window(int id, String name, long openMillis, long closeMillis) {
+            this.id = id;
+            this.openMillis = openMillis;
+            this.closeMillis = closeMillis;
+            this.entry = new OpenClass(id, name);
+        }
+
+        static Window of(ClassSummary summary) {
+            return new Window(summary.getId(), summary.getName(), summary.getOpenWindow(), summary.getCloseWindow());
+        }
+
+        boolean isOpenAt(long now) {
+            return openMillis < now && closeMillis > now;
+        }
+    }
+
+    private static final class Transition {
+        static final byte WARM = 0;
+        static final byte OPEN = 1;
+        static final byte CLOSE = 2;
+
+        final long time;
+        final byte kind;
+        final Window window;
+
+        Transition(long time, byte kind, Window window) {
+            this.time = time;
+            this.kind = kind;
+            this.window = window;
+        }
+    }
+}
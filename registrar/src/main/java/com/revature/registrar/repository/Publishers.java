@@ -0,0 +1,156 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.exceptions.ResourcePersistenceException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Bridges reactive-streams Publishers from the async driver to CompletableFutures.
+ * Driver errors fail the future with a DataSourceException, or a ResourcePersistenceException when a unique index
+ * rejected the write, the same as the sync repositories throw.
+ * Callbacks run on the driver's threads, so nothing chained onto the futures may block.
+ */
+final class Publishers {
+
+    private static final Logger logger = LogManager.getLogger(Publishers.class);
+
+    private Publishers() {
+    }
+
+    /**
+     * Completes with the first element published, or null if there was none
+     * @param publisher
+     * @param <T>
+     * @return
+     */
+    static <T> CompletableFuture<T> first(Publisher<T> publisher) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        publisher.subscribe(new Subscriber<T>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(T t) {
+                future.complete(t);
+                subscription.cancel();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(future, t);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Completes with every element published, in order
+     * @param publisher
+     * @param <T>
+     * @return
+     */
+    static <T> CompletableFuture<List<T>> toList(Publisher<T> publisher) {
+        CompletableFuture<List<T>> future = new CompletableFuture<>();
+        publisher.subscribe(new Subscriber<T>() {
+            private final List<T> items = new ArrayList<>();
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T t) {
+                items.add(t);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(future, t);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(items);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Hands every element published to consumer, pulling batchSize at a time so a slow consumer
+     * holds back the cursor rather than buffering results
+     * @param publisher
+     * @param consumer
+     * @param batchSize
+     * @param <T>
+     * @return completes with the number of elements consumed
+     */
+    static <T> CompletableFuture<Integer> forEach(Publisher<T> publisher, Consumer<T> consumer, int batchSize) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        publisher.subscribe(new Subscriber<T>() {
+            private Subscription subscription;
+            private int count;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                s.request(batchSize);
+            }
+
+            @Override
+            public void onNext(T t) {
+                try {
+                    consumer.accept(t);
+                } catch (RuntimeException e) {
+                    subscription.cancel();
+                    future.completeExceptionally(e);
+                    return;
+                }
+                if (++count % batchSize == 0) {
+                    subscription.request(batchSize);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(future, t);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(count);
+            }
+        });
+        return future;
+    }
+
+    private static void fail(CompletableFuture<?> future, Throwable t) {
+        if (MongoErrors.isDuplicateKey(t)) {
+            logger.error("Duplicate key\n");
+            future.completeExceptionally(new ResourcePersistenceException("Duplicate", t));
+            return;
+        }
+        logger.error(t.getStackTrace() + "\n");
+        future.completeExceptionally(new DataSourceException("An unexpected exception occurred.", t));
+    }
+}
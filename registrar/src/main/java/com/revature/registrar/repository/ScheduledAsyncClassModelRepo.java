@@ -0,0 +1,112 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of ScheduledClassModelRepo
+ */
+public class ScheduledAsyncClassModelRepo implements AsyncClassModelRepo {
+
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final AsyncClassModelRepo classRepo;
+    private final OpenClassScheduler scheduler;
+
+    public ScheduledAsyncClassModelRepo(AsyncClassModelRepo classRepo, OpenClassScheduler scheduler) {
+        this.classRepo = classRepo;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public CompletableFuture<KeysetPage<ClassSummary>> findOpenClassSummaries(String cursor, int limit) {
+        KeysetPage<OpenClassScheduler.OpenClass> page;
+        try {
+            page = KeysetPage.read(scheduler::openAfter,
+                    OpenClassScheduler.OpenClass::getName, OpenClassScheduler.OpenClass::getId, cursor, limit);
+        } catch (RuntimeException e) {
+            CompletableFuture<KeysetPage<ClassSummary>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return classRepo.findSummariesByIds(ScheduledClassModelRepo.idsOf(page.getItems()))
+                .thenApply(summaries -> new KeysetPage<>(summaries, page.getNextCursor()));
+    }
+
+    /**
+     * Reads the open summaries STREAM_BATCH_SIZE ids at a time, one batch after the other
+     * @param consumer
+     * @return
+     */
+    @Override
+    public CompletableFuture<Integer> streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        return stream(scheduler.openIds(), 0, consumer, 0);
+    }
+
+    private CompletableFuture<Integer> stream(List<Integer> ids, int from, Consumer<ClassSummary> consumer, int count) {
+        if (from >= ids.size()) {
+            return CompletableFuture.completedFuture(count);
+        }
+        int to = Math.min(from + STREAM_BATCH_SIZE, ids.size());
+        return classRepo.findSummariesByIds(ids.subList(from, to)).thenCompose(batch -> {
+            batch.forEach(consumer);
+            return stream(ids, to, consumer, count + batch.size());
+        });
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> save(ClassModel newResource) {
+        return classRepo.save(newResource).thenApply(saved -> {
+            scheduler.classChanged(newResource);
+            return saved;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> update(ClassModel updatedResource) {
+        return classRepo.update(updatedResource).thenApply(updated -> {
+            if (updated) {
+                scheduler.classChanged(updatedResource);
+            }
+            return updated;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteById(int id) {
+        return classRepo.deleteById(id).thenApply(deleted -> {
+            scheduler.classRemoved(id);
+            return deleted;
+        });
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> findById(int id) {
+        return classRepo.findById(id);
+    }
+
+    @Override
+    public CompletableFuture<BatchResult<ClassModel>> findAllById(List<Integer> ids) {
+        return classRepo.findAllById(ids);
+    }
+
+    @Override
+    public CompletableFuture<List<ClassSummary>> findSummariesByIds(List<Integer> ids) {
+        return classRepo.findSummariesByIds(ids);
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> enroll(int classId, Student student) {
+        return classRepo.enroll(classId, student);
+    }
+
+    @Override
+    public CompletableFuture<ClassModel> unenroll(int classId, Student student) {
+        return classRepo.unenroll(classId, student);
+    }
+}
@@ -0,0 +1,154 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Serves the open-class queries of another ClassModelRepo from an OpenClassScheduler. The open ids come from memory
+ * and the classes themselves from a single query on the id index, in catalog order (name, id).
+ * Creates, updates and deletes going through this repo reschedule the windows they touch.
+ */
+public class ScheduledClassModelRepo implements ClassModelRepo {
+
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final ClassModelRepo classRepo;
+    private final OpenClassScheduler scheduler;
+
+    public ScheduledClassModelRepo(ClassModelRepo classRepo, OpenClassScheduler scheduler) {
+        this.classRepo = classRepo;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public List<ClassModel> findOpenClasses() {
+        return classRepo.findAllById(scheduler.openIds()).getResults();
+    }
+
+    @Override
+    public List<ClassSummary> findOpenClassSummaries() {
+        return classRepo.findSummariesByIds(scheduler.openIds());
+    }
+
+    @Override
+    public KeysetPage<ClassSummary> findOpenClassSummaries(String cursor, int limit) {
+        KeysetPage<OpenClassScheduler.OpenClass> page = KeysetPage.read(scheduler::openAfter,
+                OpenClassScheduler.OpenClass::getName, OpenClassScheduler.OpenClass::getId, cursor, limit);
+        List<ClassSummary> summaries = classRepo.findSummariesByIds(idsOf(page.getItems()));
+        return new KeysetPage<>(summaries, page.getNextCursor());
+    }
+
+    /**
+     * Reads the open summaries STREAM_BATCH_SIZE ids at a time, so they are never all held at once
+     * @param consumer
+     * @return
+     */
+    @Override
+    public int streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        List<Integer> ids = scheduler.openIds();
+        int count = 0;
+        for (int from = 0; from < ids.size(); from += STREAM_BATCH_SIZE) {
+            List<ClassSummary> batch = classRepo.findSummariesByIds(ids.subList(from, Math.min(from + STREAM_BATCH_SIZE, ids.size())));
+            batch.forEach(consumer);
+            count += batch.size();
+        }
+        return count;
+    }
+
+    @Override
+    public ClassModel save(ClassModel newResource) {
+        ClassModel saved = classRepo.save(newResource);
+        scheduler.classChanged(newResource);
+        return saved;
+    }
+
+    @Override
+    public List<ClassModel> saveAll(List<ClassModel> newResources) {
+        List<ClassModel> saved = classRepo.saveAll(newResources);
+        saved.forEach(scheduler::classChanged);
+        return saved;
+    }
+
+    @Override
+    public boolean update(ClassModel updatedResource) {
+        boolean updated = classRepo.update(updatedResource);
+        if (updated) {
+            scheduler.classChanged(updatedResource);
+        }
+        return updated;
+    }
+
+    @Override
+    public BatchResult<ClassModel> updateAll(List<ClassModel> updatedResources) {
+        BatchResult<ClassModel> result = classRepo.updateAll(updatedResources);
+        result.getResults().forEach(scheduler::classChanged);
+        return result;
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        boolean deleted = classRepo.deleteById(id);
+        scheduler.classRemoved(id);
+        return deleted;
+    }
+
+    @Override
+    public BatchResult<Integer> deleteAllById(List<Integer> ids) {
+        BatchResult<Integer> result = classRepo.deleteAllById(ids);
+        result.getResults().forEach(scheduler::classRemoved);
+        return result;
+    }
+
+    @Override
+    public ClassModel findById(int id) {
+        return classRepo.findById(id);
+    }
+
+    @Override
+    public BatchResult<ClassModel> findAllById(List<Integer> ids) {
+        return classRepo.findAllById(ids);
+    }
+
+    @Override
+    public int streamAllClassSummaries(Consumer<ClassSummary> consumer) {
+        return classRepo.streamAllClassSummaries(consumer);
+    }
+
+    @Override
+    public List<ClassSummary> findSummariesByIds(List<Integer> ids) {
+        return classRepo.findSummariesByIds(ids);
+    }
+
+    @Override
+    public ClassModel enroll(int classId, Student student) {
+        return classRepo.enroll(classId, student);
+    }
+
+    @Override
+    public ClassModel enroll(Transaction tx, int classId, Student student) {
+        return classRepo.enroll(tx, classId, student);
+    }
+
+    @Override
+    public ClassModel unenroll(int classId, Student student) {
+        return classRepo.unenroll(classId, student);
+    }
+
+    @Override
+    public ClassModel unenroll(Transaction tx, int classId, Student student) {
+        return classRepo.unenroll(tx, classId, student);
+    }
+
+    static List<Integer> idsOf(List<OpenClassScheduler.OpenClass> openClasses) {
+        List<Integer> ids = new ArrayList<>(openClasses.size());
+        for (OpenClassScheduler.OpenClass openClass : openClasses) {
+            ids.add(openClass.getId());
+        }
+        return ids;
+    }
+}
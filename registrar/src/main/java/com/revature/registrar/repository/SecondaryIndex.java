@@ -0,0 +1,113 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.exceptions.ResourcePersistenceException;
+import org.bson.BsonDocument;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index of a DocumentStore, mapping every key extracted from a document to the ids of the documents
+ * holding it. Keys and ids are both kept sorted, so range queries and keyset pages walk the index in order.
+ * Id sets are never modified in place, each change swaps in a new set, which keeps the skip list's
+ * compute-and-replace atomic without any locking.
+ * @param <K>
+ */
+final class SecondaryIndex<K extends Comparable<K>> {
+
+    private final String name;
+    private final Function<BsonDocument, Collection<K>> keysOf;
+    private final boolean unique;
+    private final ConcurrentSkipListMap<K, NavigableSet<Integer>> entries = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param name
+     * @param keysOf every key of a document, several for array fields and none if the field is missing
+     * @param unique rejects a key already held by another document, like a unique MongoDB index
+     */
+    SecondaryIndex(String name, Function<BsonDocument, Collection<K>> keysOf, boolean unique) {
+        this.name = name;
+        this.keysOf = keysOf;
+        this.unique = unique;
+    }
+
+    boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * Ids of the documents holding key, in ascending order
+     * @param key
+     * @return
+     */
+    NavigableSet<Integer> get(K key) {
+        NavigableSet<Integer> ids = entries.get(key);
+        return ids == null ? Collections.emptyNavigableSet() : ids;
+    }
+
+    /**
+     * Live, sorted view of the index for range scans
+     * @return
+     */
+    ConcurrentNavigableMap<K, NavigableSet<Integer>> entries() {
+        return entries;
+    }
+
+    /**
+     * Moves the document with id from the keys of before to the keys of after. Either may be null, on insert
+     * and delete. The store calls this while it holds the id, so calls for one id never interleave.
+     * @param id
+     * @param before
+     * @param after
+     * @throws ResourcePersistenceException if this index is unique and after holds a key another document already has
+     */
+    void update(int id, BsonDocument before, BsonDocument after) {
+        Collection<K> oldKeys = before == null ? Collections.emptySet() : keysOf.apply(before);
+        Collection<K> newKeys = after == null ? Collections.emptySet() : keysOf.apply(after);
+
+        for (K key : newKeys) {
+            if (!oldKeys.contains(key)) {
+                add(key, id);
+            }
+        }
+        for (K key : oldKeys) {
+            if (!newKeys.contains(key)) {
+                remove(key, id);
+            }
+        }
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    private void add(K key, int id) {
+        entries.compute(key, (k, ids) -> {
+            if (ids != null && unique && !ids.isEmpty() && !ids.contains(id)) {
+                throw new ResourcePersistenceException("Duplicate key " + name + ": " + key);
+            }
+            NavigableSet<Integer> copy = ids == null ? new TreeSet<>() : new TreeSet<>(ids);
+            copy.add(id);
+            return Collections.unmodifiableNavigableSet(copy);
+        });
+    }
+
+    private void remove(K key, int id) {
+        entries.computeIfPresent(key, (k, ids) -> {
+            if (!ids.contains(id)) {
+                return ids;
+            }
+            if (ids.size() == 1) {
+                return null;
+            }
+            NavigableSet<Integer> copy = new TreeSet<>(ids);
+            copy.remove(id);
+            return Collections.unmodifiableNavigableSet(copy);
+        });
+    }
+}
@@ -0,0 +1,9 @@
+package com.revature.registrar.repository;
+
+/**
+ * Handle on a transaction opened by TransactionRunner, passed to the repository methods taking part in it.
+ * It carries no driver type, so ClassModelRepo and UserRepository stay engine neutral: each engine's repositories
+ * unwrap the handles of their own runner, and the embedded engine, which applies every write at once, ignores it.
+ */
+public interface Transaction {
+}
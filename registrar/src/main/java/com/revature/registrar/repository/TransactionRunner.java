@@ -0,0 +1,92 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.MongoException;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+import com.mongodb.TransactionOptions;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.util.MongoClientFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Runs repository calls which take a Transaction inside a single multi-document transaction on a ClientSession.
+ * Requires a replica set (a single-node one is enough), standalone servers do not support transactions.
+ */
+public class TransactionRunner {
+
+    private static final TransactionOptions OPTIONS = TransactionOptions.builder()
+            .readPreference(ReadPreference.primary())
+            .readConcern(ReadConcern.SNAPSHOT)
+            .writeConcern(WriteConcern.MAJORITY)
+            .build();
+
+    //Actions waiting for the transaction running on this thread to finish, null outside of inTransaction
+    private static final ThreadLocal<List<Runnable>> AFTER_COMPLETION = new ThreadLocal<>();
+
+    private final Logger logger = LogManager.getLogger(TransactionRunner.class);
+
+    /**
+     * Defers action until the transaction running on the current thread has committed or aborted.
+     * Lets a cache drop what a transaction wrote once other readers can no longer see the old value.
+     * @param action
+     * @return false, without running action, if the current thread is not inside inTransaction
+     */
+    public static boolean runAfterCompletion(Runnable action) {
+        List<Runnable> actions = AFTER_COMPLETION.get();
+        if (actions == null) {
+            return false;
+        }
+        actions.add(action);
+        return true;
+    }
+
+    /**
+     * Runs body in a transaction and commits it. withTransaction retries the whole body on
+     * TransientTransactionError and the commit on UnknownTransactionCommitResult, for up to two minutes.
+     * Any other exception aborts the transaction and is rethrown unchanged.
+     * @param body
+     * @param <T>
+     * @return whatever body returned
+     */
+    public <T> T inTransaction(Function<Transaction, T> body) {
+        MongoClient mongoClient = MongoClientFactory.getInstance().getConnection();
+        List<Runnable> outer = AFTER_COMPLETION.get();
+        List<Runnable> actions = new ArrayList<>();
+        AFTER_COMPLETION.set(actions);
+        try (ClientSession session = mongoClient.startSession()) {
+            Transaction tx = new MongoTransaction(session);
+            return session.withTransaction(() -> {
+                try {
+                    return body.apply(tx);
+                } catch (DataSourceException dse) {
+                    //Repositories wrap driver errors, withTransaction needs the original to see its error labels
+                    if (dse.getCause() instanceof MongoException) {
+                        throw (MongoException) dse.getCause();
+                    }
+                    throw dse;
+                }
+            }, OPTIONS);
+        } catch (MongoException me) {
+            logger.error(me.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", me);
+        } finally {
+            if (outer == null) {
+                AFTER_COMPLETION.remove();
+            } else {
+                AFTER_COMPLETION.set(outer);
+            }
+            //Retried bodies register their actions again, which is harmless for idempotent ones like invalidations
+            for (Runnable action : actions) {
+                action.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Builds an update holding only the fields of a model that differ from its persisted state.
+ * Scalars become $set. Arrays of {id, ...} snapshots become a $push of the members that came or a $pull of those
+ * that went, or a $set of the whole array when both happened, since one update cannot $push and $pull the same path.
+ * Updates stay conditional on the version, so the persisted state they are diffed against is what is stored.
+ */
+final class UpdateDiff {
+
+    private final List<Bson> updates = new ArrayList<>();
+
+    UpdateDiff set(String field, Object before, Object after) {
+        if (!Objects.equals(before, after)) {
+            updates.add(Updates.set(field, after));
+        }
+        return this;
+    }
+
+    /**
+     * @param field
+     * @param beforeIds ids of the members stored
+     * @param after current members
+     * @param idOf
+     * @param snapshotOf the embedded form of a member
+     * @param <T>
+     * @return true if the members changed
+     */
+    <T> boolean array(String field, Set<Integer> beforeIds, Collection<T> after,
+                      Function<T, Integer> idOf, Function<T, Document> snapshotOf) {
+        Set<Integer> afterIds = new HashSet<>();
+        List<Document> added = new ArrayList<>();
+        for (T member : after) {
+            Integer id = idOf.apply(member);
+            if (afterIds.add(id) && !beforeIds.contains(id)) {
+                added.add(snapshotOf.apply(member));
+            }
+        }
+        List<Integer> removed = new ArrayList<>();
+        for (Integer id : beforeIds) {
+            if (!afterIds.contains(id)) {
+                removed.add(id);
+            }
+        }
+
+        if (added.isEmpty() && removed.isEmpty()) {
+            return false;
+        }
+        if (removed.isEmpty()) {
+            updates.add(Updates.pushEach(field, added));
+        } else if (added.isEmpty()) {
+            updates.add(Updates.pull(field, new Document("id", new Document("$in", removed))));
+        } else {
+            List<Document> all = new ArrayList<>(after.size());
+            for (T member : after) {
+                all.add(snapshotOf.apply(member));
+            }
+            updates.add(Updates.set(field, all));
+        }
+        return true;
+    }
+
+    /**
+     * The changed fields plus the version bump every update carries
+     * @return
+     */
+    Bson build() {
+        updates.add(Updates.inc("version", 1));
+        return Updates.combine(updates);
+    }
+}
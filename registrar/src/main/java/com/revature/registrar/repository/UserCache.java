@@ -0,0 +1,71 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.User;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import com.revature.registrar.util.BoundedCache;
+import com.revature.registrar.util.CacheStats;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Users by id for CachingAsyncUserRepository, so an authenticated request can have its whole User without a read.
+ * Like ClassModelCache, users are kept as the BSON the UserCodec writes, each caller decodes its own copy to modify,
+ * and the maximum weight is the number of bytes held.
+ */
+public class UserCache {
+
+    public static final long DEFAULT_MAXIMUM_BYTES = 8L * 1024 * 1024;
+    public static final long DEFAULT_TTL_SECONDS = 60;
+
+    private final BoundedCache<Integer, RawBsonDocument> cache;
+    private final Codec<User> codec = RegistrarCodecProvider.getCodecRegistry().get(User.class);
+
+    public UserCache() {
+        this(DEFAULT_MAXIMUM_BYTES, DEFAULT_TTL_SECONDS);
+    }
+
+    /**
+     * @param maximumBytes
+     * @param ttlSeconds bounds how long a write made around the cache, by the console app or another instance, stays unseen
+     */
+    public UserCache(long maximumBytes, long ttlSeconds) {
+        this.cache = new BoundedCache<>(maximumBytes, ttlSeconds, TimeUnit.SECONDS,
+                (id, doc) -> doc.getByteBuffer().remaining());
+    }
+
+    /**
+     * @param id
+     * @return a fresh copy of the cached user, or null on a miss
+     */
+    User get(int id) {
+        RawBsonDocument doc = cache.getIfPresent(id);
+        return doc == null ? null : doc.decode(codec);
+    }
+
+    long stamp(int id) {
+        return cache.stamp(id);
+    }
+
+    /**
+     * Caches user, loaded after stamp(id) was taken, unless id was invalidated since
+     * @param user
+     * @param stamp
+     */
+    void putIfCurrent(User user, long stamp) {
+        cache.putIfCurrent(user.getId(), new RawBsonDocument(user, codec), stamp);
+    }
+
+    public void invalidate(int id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
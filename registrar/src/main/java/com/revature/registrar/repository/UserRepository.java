@@ -1,291 +1,119 @@
 package com.revature.registrar.repository;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
-import com.mongodb.client.model.Updates;
-import com.revature.registrar.exceptions.DataSourceException;
-import com.revature.registrar.models.Faculty;
-import com.revature.registrar.models.Student;
+import com.revature.registrar.models.ClassModel;
 import com.revature.registrar.models.User;
-import com.revature.registrar.pages.RegisterPage;
-import com.revature.registrar.util.MongoClientFactory;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.bson.Document;
-import org.bson.conversions.Bson;
+import com.revature.registrar.models.UserCredentials;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
- * Provides methods to communicate and interact with the MongoDB users collection
+ * Storage for Users. MongoUserRepository keeps them in the MongoDB users collection,
+ * InMemoryUserRepository in the embedded InMemoryEngine.
  */
-public class UserRepository implements CrudRepository<User> {
-    private final Logger logger = LogManager.getLogger(UserRepository.class);
+public interface UserRepository extends CrudRepository<User> {
 
     /**
-     * Searches the Database and returns a User with a matching ID
-     * @param id
+     * Every User
      * @return
      */
-    @Override
-    public User findById(int id) {
-        try {
-            MongoClient mongoClient = MongoClientFactory.getInstance().getConnection();
-
-            MongoDatabase bookstoreDb = mongoClient.getDatabase("project0");
-            MongoCollection<Document> usersCollection = bookstoreDb.getCollection("users");
-            Document queryDoc = new Document("id", id);
-            Document authUserDoc = usersCollection.find(queryDoc).first();
-
-            if (authUserDoc == null) {
-                return null;
-            }
-
-            ObjectMapper mapper = new ObjectMapper();
-            if ((boolean)authUserDoc.get("isFaculty")) {
-                Faculty fac = mapper.readValue(authUserDoc.toJson(), Faculty.class);
-                fac.setFaculty(true);
-                logger.info("Retieved(F) " + fac + "\n");
-                return fac;
-            } else {
-                Student stu = mapper.readValue(authUserDoc.toJson(), Student.class);
-                logger.info("Retieved(S) " + stu + "\n");
-                return stu;
-            }
-
-        } catch (Exception e) {
-            logger.error(e.getStackTrace() + "\n");
-            throw new DataSourceException("An unexpected exception occurred.", e);
-        }
-    }
+    List<User> findAll();
 
     /**
-     * Stores a User, newResource, in the database
-     * @param newResource
+     * Keyset paginated Users, ordered by (username, id)
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
      * @return
      */
-    @Override
-    public User save(User newResource) {
-        Document newUserDoc;
-        if(newResource.isFaculty()) {
-            Faculty fac = (Faculty) newResource;
-            newUserDoc = getFacultyDoc(fac);
-        } else {
-            Student stu = (Student) newResource;
-            newUserDoc = getStudentDoc(stu);
-        }
-
-        try {
-            MongoClient mongoClient = MongoClientFactory.getInstance().getConnection();
-
-            MongoDatabase bookstoreDb = mongoClient.getDatabase("project0");
-            MongoCollection<Document> usersCollection = bookstoreDb.getCollection("users");
-
-            usersCollection.insertOne(newUserDoc);
-            //newResource.setId(newUserDoc.get("_id").toString());
-            logger.info("Created " + newResource + "\n");
-
-            return newResource;
-
-        } catch (Exception e) {
-            logger.error(e.getStackTrace() + "\n");
-            throw new DataSourceException("An unexpected exception occurred.", e);
-        }
-    }
+    KeysetPage<User> findAll(String cursor, int limit);
 
     /**
-     * Private helper method which returns a Document representing a given Student
-     * @param stu
-     * @return
+     * Hands every User to consumer, ordered by (username, id), without collecting them
+     * @param consumer
+     * @return the number of users streamed
      */
-    private Document getStudentDoc(Student stu) {
-        Document newUserDoc = new Document("firstName", stu.getFirstName())
-                .append("lastName", stu.getLastName())
-                .append("email", stu.getEmail())
-                .append("username", stu.getUsername())
-                .append("password", stu.getPassword())
-                .append("id", stu.getId())
-                .append("classes", stu.getClassesAsDoc())
-                .append("isFaculty", false);
-
-        return newUserDoc;
-    }
+    int streamAll(Consumer<User> consumer);
 
     /**
-     * Private helper method which returns a Document representing a given Faculty
-     * @param fac
+     * Every User who has the class with a given id in their classes
+     * @param id
      * @return
      */
-    private Document getFacultyDoc(Faculty fac) {
-        Document newUserDoc = new Document("firstName", fac.getFirstName())
-                .append("lastName", fac.getLastName())
-                .append("email", fac.getEmail())
-                .append("username", fac.getUsername())
-                .append("password", fac.getPassword())
-                .append("id", fac.getId())
-                .append("classes", fac.getClassesAsDoc())
-                .append("isFaculty", true);
-
-        return newUserDoc;
-    }
+    List<User> findWithClass(int id);
 
     /**
-     * Private helper method which returns Bson representing a given Faculty
-     * @param fac
+     * Keyset paginated Users who have the class with a given id, ordered by (username, id)
+     * @param id
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
      * @return
      */
-    private Bson getFacultyUpdates(Faculty fac) {
-        Bson updates = Updates.combine(
-                Updates.set("firstName", fac.getFirstName()),
-                Updates.set("lastName", fac.getLastName()),
-                Updates.set("password", fac.getPassword()),
-                Updates.set("classes", fac.getClassesAsDoc()));
-
-        return updates;
-    }
+    KeysetPage<User> findWithClass(int id, String cursor, int limit);
 
     /**
-     * Private helper method which returns a Document representing a given Student
-     * @param stu
-     * @return
+     * Hands every User who has the class with a given id to consumer, ordered by (username, id)
+     * @param id
+     * @param consumer
+     * @return the number of users streamed
      */
-    private Bson getStudentUpdates(Student stu) {
-        Bson updates = Updates.combine(
-                Updates.set("firstName", stu.getFirstName()),
-                Updates.set("lastName", stu.getLastName()),
-                Updates.set("password", stu.getPassword()),
-                Updates.set("classes", stu.getClassesAsDoc()));
-
-        return updates;
-    }
+    int streamWithClass(int id, Consumer<User> consumer);
 
     /**
-     * Updates the fields of a database element with new data
-     * @param updatedResource
-     * @return
+     * Removes the class with the given id from every User holding it
+     * @param classId
+     * @return the number of users modified
      */
-    @Override
-    public boolean update(User updatedResource) {
-        Bson updates;
-        if(updatedResource.isFaculty()) {
-            Faculty fac = (Faculty) updatedResource;
-            updates = getFacultyUpdates(fac);
-
-        } else {
-            Student stu = (Student) updatedResource;
-            updates = getStudentUpdates(stu);
-        }
+    long removeClassFromAll(int classId);
 
-        try {
-            MongoClient mongoClient = MongoClientFactory.getInstance().getConnection();
-
-            MongoDatabase bookstoreDb = mongoClient.getDatabase("project0");
-            MongoCollection<Document> usersCollection = bookstoreDb.getCollection("users");
-
-            Document query = new Document().append("id",  updatedResource.getId());
-            usersCollection.updateOne(query, updates);
-            logger.info("Updated " + updatedResource + "\n");
-            //newResource.setId(newUserDoc.get("_id").toString());
-
-            return true;
-
-        } catch (Exception e) {
-            logger.error(e.getStackTrace() + "\n");
-            throw new DataSourceException("An unexpected exception occurred.", e);
-        }
-
-    }
+    /**
+     * Adds the {id, name} snapshot of classModel to the classes of the user with userId
+     * @param userId
+     * @param classModel
+     * @return true if the user was found
+     */
+    boolean addClassRef(int userId, ClassModel classModel);
 
     /**
-     * Returns a list of Users who have the classModel with a given id in their classes
-     * @param id
+     * addClassRef(userId, classModel) as part of the transaction tx
+     * @param tx null to run outside of a transaction
+     * @param userId
+     * @param classModel
      * @return
      */
-    public List<User> findWithClass(int id) {
-        try {
-            MongoClient mongoClient = MongoClientFactory.getInstance().getConnection();
-
-            MongoDatabase bookstoreDb = mongoClient.getDatabase("project0");
-            MongoCollection<Document> usersCollection = bookstoreDb.getCollection("users");
-
-            Document queryDoc = new Document("classes.id", id);
-            List<Document> docs = new ArrayList<>();
-            docs = usersCollection.find(queryDoc).into(docs);
-            if (docs.size() == 0) {
-                return null;
-            }
-
-            ObjectMapper mapper = new ObjectMapper();
-            List<User> userDocs = new ArrayList<>();
-            for (Document d : docs) {
-                if ((boolean)d.get("isFaculty")) {
-                    Faculty fac = mapper.readValue(d.toJson(), Faculty.class);
-                    fac.setFaculty(true);
-                    userDocs.add(fac);
-                } else {
-                    Student stu = mapper.readValue(d.toJson(), Student.class);
-                    userDocs.add(stu);
-                }
-            }
-            logger.info("Retieved " + userDocs + "\n");
-            return userDocs;
+    boolean addClassRef(Transaction tx, int userId, ClassModel classModel);
 
-        } catch (Exception e) {
-            logger.error(e.getStackTrace() + "\n");
-            throw new DataSourceException("An unexpected exception occurred.", e);
-        }
-    }
+    /**
+     * Removes the class with classId from the classes of the user with userId
+     * @param userId
+     * @param classId
+     * @return true if the user held the class
+     */
+    boolean removeClassRef(int userId, int classId);
 
     /**
-     * Not implemented, unnecessary
-     * @param id
+     * removeClassRef(userId, classId) as part of the transaction tx
+     * @param tx null to run outside of a transaction
+     * @param userId
+     * @param classId
      * @return
      */
-    @Override
-    public boolean deleteById(int id) {
-        return false;
-    }
+    boolean removeClassRef(Transaction tx, int userId, int classId);
 
     /**
-     * Retrieves the User with a given username and password from the database
+     * The id, username and stored password of the User with a given username, or null.
+     * A single lookup on the unique username index, the rest of the user is not read.
      * @param username
-     * @param password
      * @return
      */
-    public User findUserByCredentials(String username, String password) {
-        try {
-            MongoClient mongoClient = MongoClientFactory.getInstance().getConnection();
-
-            MongoDatabase bookstoreDb = mongoClient.getDatabase("project0");
-            MongoCollection<Document> usersCollection = bookstoreDb.getCollection("users");
-            Document queryDoc = new Document("username", username)
-                    .append("password", password);
-
-            Document authUserDoc = usersCollection.find(queryDoc).first();
+    UserCredentials findCredentialsByUsername(String username);
 
-            if (authUserDoc == null) {
-                return null;
-            }
-
-            ObjectMapper mapper = new ObjectMapper();
-            if ((boolean)authUserDoc.get("isFaculty")) {
-                Faculty fac = mapper.readValue(authUserDoc.toJson(), Faculty.class);
-                fac.setFaculty(true);
-                logger.info("Retieved(F) " + fac + "\n");
-                return fac;
-            } else {
-                Student stu = mapper.readValue(authUserDoc.toJson(), Student.class);
-                logger.info("Retieved(S) " + stu + "\n");
-                return stu;
-            }
-
-        } catch (Exception e) {
-            logger.error(e.getStackTrace() + "\n");
-            throw new DataSourceException("An unexpected exception occurred.", e);
-        }
-    }
+    /**
+     * Replaces the stored password of the User with id if it still equals expected, and bumps the version
+     * so a User read before the change cannot write the old password back
+     * @param id
+     * @param expected the stored password the caller verified against
+     * @param replacement
+     * @return true if the password was replaced
+     */
+    boolean replacePassword(int id, String expected, String replacement);
 }
@@ -0,0 +1,190 @@
+package com.revature.registrar.repository.codecs;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.models.User;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Codec which maps documents in the classes collection directly to ClassModels.
+ * Embedded students and faculty are decoded with the UserCodec, and the stored millis are
+ * kept as they are, in place of the old Document -> JSON -> ObjectMapper round trip.
+ */
+public class ClassModelCodec implements Codec<ClassModel> {
+
+    private final CodecRegistry registry;
+
+    public ClassModelCodec(CodecRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Reads a class document. Embedded class documents (inside users) are {id, name} snapshots, in which case
+     * the rosters are left empty and the windows null. Use ClassService.refreshAll to hydrate them.
+     * @param reader
+     * @param decoderContext
+     * @return
+     */
+    @Override
+    public ClassModel decode(BsonReader reader, DecoderContext decoderContext) {
+        ClassModel classModel = new ClassModel();
+        Integer enrolledCount = null;
+        Set<Student> students = new HashSet<>();
+        Set<Faculty> faculty = new HashSet<>();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String field = reader.readName();
+            switch (field) {
+                case "id":
+                    classModel.setId(CodecHelper.readInt(reader));
+                    break;
+                case "name":
+                    classModel.setName(CodecHelper.readString(reader));
+                    break;
+                case "description":
+                    classModel.setDescription(CodecHelper.readString(reader));
+                    break;
+                case "capacity":
+                    classModel.setCapacity(CodecHelper.readInt(reader));
+                    break;
+                case "enrolledCount":
+                    enrolledCount = CodecHelper.readInt(reader);
+                    break;
+                case "version":
+                    classModel.setVersion(CodecHelper.readInt(reader));
+                    break;
+                case "openWindow":
+                    classModel.setOpenWindow(CodecHelper.readLong(reader));
+                    break;
+                case "closeWindow":
+                    classModel.setCloseWindow(CodecHelper.readLong(reader));
+                    break;
+                case "students":
+                    readRoster(reader, decoderContext, students, Student.class);
+                    break;
+                case "faculty":
+                    readRoster(reader, decoderContext, faculty, Faculty.class);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        classModel.setStudents(students);
+        classModel.setFaculty(faculty);
+        //Documents written before the counter existed fall back to the roster
+        classModel.setEnrolledCount(enrolledCount != null ? enrolledCount : students.size());
+        classModel.markPersisted();
+        return classModel;
+    }
+
+    private <T extends User> void readRoster(BsonReader reader, DecoderContext decoderContext, Set<T> roster, Class<T> type) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return;
+        }
+        Codec<User> userCodec = registry.get(User.class);
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            User user = userCodec.decode(reader, decoderContext);
+            //Roster membership decides the type, the same way the ObjectMapper path did
+            if (type.isInstance(user)) {
+                roster.add(type.cast(user));
+            } else if (type == Faculty.class) {
+                roster.add(type.cast(asFaculty(user)));
+            } else {
+                roster.add(type.cast(asStudent(user)));
+            }
+        }
+        reader.readEndArray();
+    }
+
+    //Roster snapshots carry no username, so the id is copied rather than derived
+    private static Faculty asFaculty(User user) {
+        Faculty fac = new Faculty();
+        copy(user, fac);
+        fac.setFaculty(true);
+        return fac;
+    }
+
+    private static Student asStudent(User user) {
+        Student stu = new Student();
+        copy(user, stu);
+        stu.setFaculty(false);
+        return stu;
+    }
+
+    private static void copy(User from, User to) {
+        to.setId(from.getId());
+        to.setFirstName(from.getFirstName());
+        to.setLastName(from.getLastName());
+        to.setEmail(from.getEmail());
+        to.setUsername(from.getUsername());
+        to.setPassword(from.getPassword());
+    }
+
+    /**
+     * Writes a full class document in the same layout the repository has always stored
+     * @param writer
+     * @param value
+     * @param encoderContext
+     */
+    @Override
+    public void encode(BsonWriter writer, ClassModel value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        CodecHelper.writeString(writer, "name", value.getName());
+        writer.writeInt32("capacity", value.getCapacity());
+        writer.writeInt32("enrolledCount", value.getStudents() == null ? 0 : value.getStudents().size());
+        writer.writeInt32("version", value.getVersion());
+        CodecHelper.writeString(writer, "description", value.getDescription());
+        writer.writeInt64("openWindow", value.getOpenWindow());
+        writer.writeInt64("closeWindow", value.getCloseWindow());
+        writer.writeInt32("id", value.getId());
+
+        writer.writeStartArray("students");
+        if (value.getStudents() != null) {
+            for (Student stu : value.getStudents()) {
+                UserCodec.encodeEmbedded(writer, stu);
+            }
+        }
+        writer.writeEndArray();
+
+        writer.writeStartArray("faculty");
+        if (value.getFaculty() != null) {
+            for (Faculty fac : value.getFaculty()) {
+                UserCodec.encodeEmbedded(writer, fac);
+            }
+        }
+        writer.writeEndArray();
+        writer.writeEndDocument();
+    }
+
+    /**
+     * Writes the class as it is embedded in a user (ClassModel.getSnapshotDoc layout)
+     * @param writer
+     * @param value
+     */
+    static void encodeEmbedded(BsonWriter writer, ClassModel value) {
+        writer.writeStartDocument();
+        writer.writeInt32("id", value.getId());
+        CodecHelper.writeString(writer, "name", value.getName());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<ClassModel> getEncoderClass() {
+        return ClassModel.class;
+    }
+}
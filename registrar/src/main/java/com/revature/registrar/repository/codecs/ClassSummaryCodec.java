@@ -0,0 +1,99 @@
+package com.revature.registrar.repository.codecs;
+
+import com.mongodb.client.model.Projections;
+import com.revature.registrar.models.ClassSummary;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decode-only codec for ClassSummary. Pair it with PROJECTION so the server only sends the listed fields.
+ */
+public class ClassSummaryCodec implements Codec<ClassSummary> {
+
+    /**
+     * The fields a ClassSummary is built from; both rosters are left on the server except faculty last names
+     */
+    public static final Bson PROJECTION = Projections.fields(
+            Projections.include("id", "name", "capacity", "enrolledCount", "openWindow", "closeWindow", "faculty.lastName"),
+            Projections.excludeId());
+
+    @Override
+    public ClassSummary decode(BsonReader reader, DecoderContext decoderContext) {
+        ClassSummary summary = new ClassSummary();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String field = reader.readName();
+            switch (field) {
+                case "id":
+                    summary.setId(CodecHelper.readInt(reader));
+                    break;
+                case "name":
+                    summary.setName(CodecHelper.readString(reader));
+                    break;
+                case "capacity":
+                    summary.setCapacity(CodecHelper.readInt(reader));
+                    break;
+                case "enrolledCount":
+                    summary.setEnrolledCount(CodecHelper.readInt(reader));
+                    break;
+                case "openWindow":
+                    summary.setOpenWindow(CodecHelper.readLong(reader));
+                    break;
+                case "closeWindow":
+                    summary.setCloseWindow(CodecHelper.readLong(reader));
+                    break;
+                case "faculty":
+                    summary.setFacultyLastNames(readLastNames(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return summary;
+    }
+
+    private Set<String> readLastNames(BsonReader reader) {
+        Set<String> lastNames = new HashSet<>();
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return lastNames;
+        }
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                if (reader.readName().equals("lastName")) {
+                    lastNames.add(CodecHelper.readString(reader));
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+        }
+        reader.readEndArray();
+        return lastNames;
+    }
+
+    /**
+     * Summaries are never written, the full ClassModel is the only persisted form
+     */
+    @Override
+    public void encode(BsonWriter writer, ClassSummary value, EncoderContext encoderContext) {
+        throw new UnsupportedOperationException("ClassSummary is read-only");
+    }
+
+    @Override
+    public Class<ClassSummary> getEncoderClass() {
+        return ClassSummary.class;
+    }
+}
@@ -0,0 +1,72 @@
+package com.revature.registrar.repository.codecs;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+
+/**
+ * Package private helpers shared by the registrar codecs. Numeric fields have been written as both
+ * int32 and int64 over time, so reads widen or narrow whatever BSON number type is actually stored.
+ */
+final class CodecHelper {
+
+    private CodecHelper() {
+        super();
+    }
+
+    static int readInt(BsonReader reader) {
+        BsonType type = reader.getCurrentBsonType();
+        switch (type) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return (int) reader.readInt64();
+            case DOUBLE:
+                return (int) reader.readDouble();
+            default:
+                reader.skipValue();
+                return 0;
+        }
+    }
+
+    static long readLong(BsonReader reader) {
+        BsonType type = reader.getCurrentBsonType();
+        switch (type) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            case DOUBLE:
+                return (long) reader.readDouble();
+            case DATE_TIME:
+                return reader.readDateTime();
+            default:
+                reader.skipValue();
+                return 0L;
+        }
+    }
+
+    static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        return reader.readString();
+    }
+
+    static boolean readBoolean(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.BOOLEAN) {
+            reader.skipValue();
+            return false;
+        }
+        return reader.readBoolean();
+    }
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeString(name, value);
+        }
+    }
+}
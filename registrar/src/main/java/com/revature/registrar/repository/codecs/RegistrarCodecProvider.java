@@ -0,0 +1,46 @@
+package com.revature.registrar.repository.codecs;
+
+import com.mongodb.MongoClientSettings;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Provides the ClassModel, ClassSummary, User and UserCredentials codecs. Student and Faculty resolve to the UserCodec, which
+ * picks the subtype from the isFaculty discriminator.
+ */
+public class RegistrarCodecProvider implements CodecProvider {
+
+    /**
+     * Returns the driver's default registry with the registrar codecs layered in front of it
+     * @return
+     */
+    public static CodecRegistry getCodecRegistry() {
+        return CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(new RegistrarCodecProvider()),
+                MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        if (ClassModel.class.isAssignableFrom(clazz)) {
+            return (Codec<T>) new ClassModelCodec(registry);
+        }
+        if (clazz == ClassSummary.class) {
+            return (Codec<T>) new ClassSummaryCodec();
+        }
+        if (clazz == UserCredentials.class) {
+            return (Codec<T>) new UserCredentialsCodec();
+        }
+        if (User.class.isAssignableFrom(clazz)) {
+            return (Codec<T>) new UserCodec(registry);
+        }
+        return null;
+    }
+}
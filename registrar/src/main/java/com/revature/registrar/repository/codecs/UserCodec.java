@@ -0,0 +1,172 @@
+package com.revature.registrar.repository.codecs;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.models.User;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Codec which maps documents in the users collection directly to Students and Faculty.
+ * The concrete type is chosen by the isFaculty discriminator, so no intermediate Document or JSON is built.
+ */
+public class UserCodec implements Codec<User> {
+
+    private final CodecRegistry registry;
+
+    public UserCodec(CodecRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Reads a full users document, including the embedded classes
+     * @param reader
+     * @param decoderContext
+     * @return
+     */
+    @Override
+    public User decode(BsonReader reader, DecoderContext decoderContext) {
+        int id = 0;
+        String firstName = null;
+        String lastName = null;
+        String email = null;
+        String username = null;
+        String password = null;
+        boolean isFaculty = false;
+        int version = 0;
+        Set<ClassModel> classes = new HashSet<>();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String field = reader.readName();
+            switch (field) {
+                case "id":
+                    id = CodecHelper.readInt(reader);
+                    break;
+                case "firstName":
+                    firstName = CodecHelper.readString(reader);
+                    break;
+                case "lastName":
+                    lastName = CodecHelper.readString(reader);
+                    break;
+                case "email":
+                    email = CodecHelper.readString(reader);
+                    break;
+                case "username":
+                    username = CodecHelper.readString(reader);
+                    break;
+                case "password":
+                    password = CodecHelper.readString(reader);
+                    break;
+                case "isFaculty":
+                    isFaculty = CodecHelper.readBoolean(reader);
+                    break;
+                case "version":
+                    version = CodecHelper.readInt(reader);
+                    break;
+                case "classes":
+                    readClasses(reader, decoderContext, classes);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        User user;
+        if (isFaculty) {
+            Faculty fac = new Faculty();
+            fac.setClasses(classes);
+            user = fac;
+        } else {
+            Student stu = new Student();
+            stu.setClasses(classes);
+            user = stu;
+        }
+        user.setId(id);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(email);
+        user.setUsername(username);
+        user.setPassword(password);
+        user.setFaculty(isFaculty);
+        user.setVersion(version);
+        user.markPersisted();
+        return user;
+    }
+
+    private void readClasses(BsonReader reader, DecoderContext decoderContext, Set<ClassModel> classes) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return;
+        }
+        Codec<ClassModel> classCodec = registry.get(ClassModel.class);
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            classes.add(classCodec.decode(reader, decoderContext));
+        }
+        reader.readEndArray();
+    }
+
+    /**
+     * Writes a full users document in the same layout the repository has always stored
+     * @param writer
+     * @param value
+     * @param encoderContext
+     */
+    @Override
+    public void encode(BsonWriter writer, User value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        CodecHelper.writeString(writer, "firstName", value.getFirstName());
+        CodecHelper.writeString(writer, "lastName", value.getLastName());
+        CodecHelper.writeString(writer, "email", value.getEmail());
+        CodecHelper.writeString(writer, "username", value.getUsername());
+        CodecHelper.writeString(writer, "password", value.getPassword());
+        writer.writeInt32("id", value.getId());
+
+        Set<ClassModel> classes = null;
+        if (value instanceof Student) {
+            classes = ((Student) value).getClasses();
+        } else if (value instanceof Faculty) {
+            classes = ((Faculty) value).getClasses();
+        }
+        writer.writeStartArray("classes");
+        if (classes != null) {
+            for (ClassModel classModel : classes) {
+                ClassModelCodec.encodeEmbedded(writer, classModel);
+            }
+        }
+        writer.writeEndArray();
+
+        writer.writeBoolean("isFaculty", value.isFaculty());
+        writer.writeInt32("version", value.getVersion());
+        writer.writeEndDocument();
+    }
+
+    /**
+     * Writes the user as it is embedded in a class roster (User.getSnapshotDoc layout)
+     * @param writer
+     * @param value
+     */
+    static void encodeEmbedded(BsonWriter writer, User value) {
+        writer.writeStartDocument();
+        writer.writeInt32("id", value.getId());
+        CodecHelper.writeString(writer, "firstName", value.getFirstName());
+        CodecHelper.writeString(writer, "lastName", value.getLastName());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<User> getEncoderClass() {
+        return User.class;
+    }
+}
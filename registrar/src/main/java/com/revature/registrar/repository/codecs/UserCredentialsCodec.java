@@ -0,0 +1,65 @@
+package com.revature.registrar.repository.codecs;
+
+import com.mongodb.client.model.Projections;
+import com.revature.registrar.models.UserCredentials;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.conversions.Bson;
+
+/**
+ * Decode-only codec for UserCredentials. Pair it with PROJECTION so the server only sends the listed fields.
+ */
+public class UserCredentialsCodec implements Codec<UserCredentials> {
+
+    /**
+     * The fields a login needs, the profile and classes array stay on the server
+     */
+    public static final Bson PROJECTION = Projections.fields(
+            Projections.include("id", "username", "password", "isFaculty"),
+            Projections.excludeId());
+
+    @Override
+    public UserCredentials decode(BsonReader reader, DecoderContext decoderContext) {
+        UserCredentials credentials = new UserCredentials();
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String field = reader.readName();
+            switch (field) {
+                case "id":
+                    credentials.setId(CodecHelper.readInt(reader));
+                    break;
+                case "username":
+                    credentials.setUsername(CodecHelper.readString(reader));
+                    break;
+                case "password":
+                    credentials.setPassword(CodecHelper.readString(reader));
+                    break;
+                case "isFaculty":
+                    credentials.setFaculty(CodecHelper.readBoolean(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return credentials;
+    }
+
+    /**
+     * Credentials are never written as a whole, passwords change through UserRepository.replacePassword
+     */
+    @Override
+    public void encode(BsonWriter writer, UserCredentials value, EncoderContext encoderContext) {
+        throw new UnsupportedOperationException("UserCredentials is read-only");
+    }
+
+    @Override
+    public Class<UserCredentials> getEncoderClass() {
+        return UserCredentials.class;
+    }
+}
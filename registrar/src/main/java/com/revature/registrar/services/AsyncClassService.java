@@ -0,0 +1,163 @@
+package com.revature.registrar.services;
+
+import com.revature.registrar.exceptions.CapacityReachedException;
+import com.revature.registrar.exceptions.InvalidRequestException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.repository.AsyncClassModelRepo;
+import com.revature.registrar.repository.AsyncUserRepository;
+import com.revature.registrar.repository.KeysetPage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Clock;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of ClassService for the web layer. Every method returns a future which
+ * completes on a driver thread, business errors fail it with the same exceptions ClassService throws.
+ */
+public class AsyncClassService {
+
+    private final AsyncClassModelRepo classRepo;
+    private final AsyncUserRepository userRepo;
+    private final Clock clock;
+    private final Logger logger = LogManager.getLogger(AsyncClassService.class);
+
+    public AsyncClassService(AsyncClassModelRepo classRepo, AsyncUserRepository userRepo) {
+        this(classRepo, userRepo, Clock.systemUTC());
+    }
+
+    public AsyncClassService(AsyncClassModelRepo classRepo, AsyncUserRepository userRepo, Clock clock) {
+        this.classRepo = classRepo;
+        this.userRepo = userRepo;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the class with a given id
+     * @param id
+     * @return fails with InvalidRequestException if there is no such class
+     */
+    public CompletableFuture<ClassModel> getClassWithId(int id) {
+        return classRepo.findById(id).thenApply(result -> {
+            if(result == null) {
+                logger.error("Invalid ID\n");
+                throw new InvalidRequestException("Invalid ID");
+            }
+            return result;
+        });
+    }
+
+    /**
+     * One keyset page of the classes open for enrollment as ClassSummaries, ordered by (name, id)
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    public CompletableFuture<KeysetPage<ClassSummary>> getOpenClassSummaries(String cursor, int limit) {
+        try {
+            return classRepo.findOpenClassSummaries(cursor, limit);
+        } catch (InvalidRequestException ire) {
+            return failed(ire);
+        }
+    }
+
+    /**
+     * Streams every class open for enrollment into consumer as ClassSummaries
+     * @param consumer called on a driver thread for each summary
+     * @return completes with the number of summaries streamed
+     */
+    public CompletableFuture<Integer> streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        return classRepo.streamOpenClassSummaries(consumer);
+    }
+
+    /**
+     * ClassService.enroll without blocking: one conditional update, re-reading the class only to report a failure
+     * @param classId
+     * @param student
+     * @return the updated classModel
+     */
+    public CompletableFuture<ClassModel> enroll(int classId, Student student) {
+        if(student == null) {
+            logger.error("Invalid student provided\n");
+            return failed(new InvalidRequestException("Invalid student provided"));
+        }
+
+        return classRepo.enroll(classId, student).thenCompose(result -> {
+            if(result != null) {
+                return CompletableFuture.completedFuture(result);
+            }
+            return getClassWithId(classId).thenApply(classModel -> {
+                if(!classModel.isOpenAt(clock.millis())) {
+                    logger.error("Cannot enroll in a class outside of the Registration Window\n");
+                    throw new InvalidRequestException("Cannot enroll in a class outside of the Registration Window");
+                }
+                if(classModel.isEnrolled(student)) {
+                    logger.error("Cannot enroll in a class that they are already enrolled in\n");
+                    throw new InvalidRequestException("Cannot enroll in a class that they are already enrolled in");
+                }
+                logger.error("Capacity Reached\n");
+                throw new CapacityReachedException("Class capacity for " + classModel.getName() + " is reached");
+            });
+        });
+    }
+
+    /**
+     * ClassService.unenroll without blocking
+     * @param classId
+     * @param student
+     * @return the updated classModel
+     */
+    public CompletableFuture<ClassModel> unenroll(int classId, Student student) {
+        if(student == null) {
+            logger.error("Invalid student provided\n");
+            return failed(new InvalidRequestException("Invalid student provided"));
+        }
+
+        return classRepo.unenroll(classId, student).thenCompose(result -> {
+            if(result != null) {
+                return CompletableFuture.completedFuture(result);
+            }
+            return getClassWithId(classId).thenApply(classModel -> {
+                if(!classModel.isOpenAt(clock.millis())) {
+                    logger.error("Cannot unenroll from a class outside of the Registration Window\n");
+                    throw new InvalidRequestException("Cannot unenroll from a class outside of the Registration Window");
+                }
+                logger.error("Cannot unenroll from a class that they are not enrolled in\n");
+                throw new InvalidRequestException("Cannot unenroll from a class that they are not enrolled in");
+            });
+        });
+    }
+
+    /**
+     * Enrolls the student and then records the class in the student's classes. The two writes are not
+     * transactional, use ClassService with a TransactionRunner where they must commit together.
+     * @param classId
+     * @param student
+     * @return the updated classModel
+     */
+    public CompletableFuture<ClassModel> enrollAndRecord(int classId, Student student) {
+        return enroll(classId, student).thenCompose(classModel ->
+                userRepo.addClassRef(student.getId(), classModel).thenApply(recorded -> classModel));
+    }
+
+    /**
+     * Unenrolls the student and then removes the class from the student's classes, without a transaction
+     * @param classId
+     * @param student
+     * @return the updated classModel
+     */
+    public CompletableFuture<ClassModel> unenrollAndRecord(int classId, Student student) {
+        return unenroll(classId, student).thenCompose(classModel ->
+                userRepo.removeClassRef(student.getId(), classId).thenApply(removed -> classModel));
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable t) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+}
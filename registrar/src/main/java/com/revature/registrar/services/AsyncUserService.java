@@ -0,0 +1,175 @@
+package com.revature.registrar.services;
+
+import com.revature.registrar.exceptions.InvalidRequestException;
+import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.models.Role;
+import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+import com.revature.registrar.repository.AsyncUserRepository;
+import com.revature.registrar.repository.KeysetPage;
+import com.revature.registrar.util.PasswordUtils;
+import com.revature.registrar.web.dtos.Principal;
+import com.revature.registrar.web.dtos.UserDTO;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of UserService for the web layer. It holds no current user, the servlets
+ * identify the caller from the verified token Principal AuthFilter puts on the request.
+ * Business errors fail the futures with the same exceptions UserService throws.
+ */
+public class AsyncUserService {
+
+    private final AsyncUserRepository userRepo;
+    private final PasswordUtils passUtil;
+    private final Set<String> admins;
+    private final Logger logger = LogManager.getLogger(AsyncUserService.class);
+
+    public AsyncUserService(AsyncUserRepository userRepo) {
+        this(userRepo, new PasswordUtils());
+    }
+
+    public AsyncUserService(AsyncUserRepository userRepo, PasswordUtils passUtil) {
+        this(userRepo, passUtil, Collections.emptySet());
+    }
+
+    /**
+     * @param userRepo
+     * @param passUtil
+     * @param admins usernames whose Principal gets Role.ADMIN at login, which is why register refuses them
+     */
+    public AsyncUserService(AsyncUserRepository userRepo, PasswordUtils passUtil, Set<String> admins) {
+        this.userRepo = userRepo;
+        this.passUtil = passUtil;
+        this.admins = admins;
+    }
+
+    /**
+     * Retrieves the user with the given id
+     * @param id
+     * @return fails with InvalidRequestException if there is no such user
+     */
+    public CompletableFuture<User> getUserWithId(int id) {
+        return userRepo.findById(id).thenApply(result -> {
+            if(result == null) {
+                logger.error("Invalid ID\n");
+                throw new InvalidRequestException("Invalid ID");
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Retrieves one keyset page of Users as UserDTOs
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    public CompletableFuture<KeysetPage<UserDTO>> findAll(String cursor, int limit) {
+        try {
+            return userRepo.findAll(cursor, limit).thenApply(page -> page.map(UserDTO::new));
+        } catch (InvalidRequestException ire) {
+            return failed(ire);
+        }
+    }
+
+    /**
+     * Streams every User into consumer as a UserDTO
+     * @param consumer called on a driver thread for each user
+     * @return completes with the number of users streamed
+     */
+    public CompletableFuture<Integer> streamAll(Consumer<UserDTO> consumer) {
+        return userRepo.streamAll(user -> consumer.accept(new UserDTO(user)));
+    }
+
+    /**
+     * Validates user input, hashes the password on the hashing pool and stores the user with a single insert
+     * @param user
+     * @return the stored user, fails with ResourcePersistenceException if the id or username is taken or is one
+     * of the admins, or ServiceUnavailableException if the hashing pool is saturated
+     */
+    public CompletableFuture<User> register(User user) {
+        if(!UserService.isValid(user)) {
+            logger.error("Invalid user data provided\n");
+            return failed(new InvalidRequestException("Invalid user data provided"));
+        }
+        if(admins.contains(user.getUsername())) {
+            //Whoever registered an admin username nobody holds yet would log in as ADMIN
+            logger.error("Reserved username provided\n");
+            return failed(new ResourcePersistenceException("Username is taken"));
+        }
+
+        return passUtil.generateSecurePasswordAsync(user.getPassword()).thenCompose(hash -> {
+            user.setPassword(hash);
+            return userRepo.save(user);
+        });
+    }
+
+    /**
+     * Updates an existing user, conditional on its version
+     * @param user
+     * @return false if the user no longer exists
+     */
+    public CompletableFuture<Boolean> update(User user) {
+        if(!UserService.isValid(user)) {
+            logger.error("Invalid user data provided\n");
+            return failed(new InvalidRequestException("Invalid user data provided"));
+        }
+        return userRepo.update(user);
+    }
+
+    /**
+     * Checks a username and password like UserService.login, without reading the rest of the user.
+     * The hash is checked on the hashing pool, never on a driver thread.
+     * @param username
+     * @param password
+     * @return completes with the Principal of the user, or null if the credentials are invalid,
+     * fails with ServiceUnavailableException if the hashing pool is saturated
+     */
+    public CompletableFuture<Principal> login(String username, String password) {
+        return userRepo.findCredentialsByUsername(username).thenCompose(credentials -> {
+            if(credentials == null) {
+                //As slow as a known username, so the response time does not reveal which usernames exist
+                return passUtil.verifyAsync(password, passUtil.getDummyHash()).thenApply(valid -> (Principal) null);
+            }
+            return passUtil.verifyAsync(password, credentials.getPassword()).thenApply(valid -> {
+                if(!valid) {
+                    return null;
+                }
+                if(passUtil.needsRehash(credentials.getPassword())) {
+                    rehash(credentials, password);
+                }
+                Role role = admins.contains(credentials.getUsername()) ? Role.ADMIN : Role.of(credentials.isFaculty());
+                return new Principal(credentials.getId(), credentials.getUsername(), role);
+            });
+        });
+    }
+
+    /**
+     * Swaps a verified legacy password for a current hash in the background, the login does not wait for it
+     * @param credentials
+     * @param password
+     */
+    private void rehash(UserCredentials credentials, String password) {
+        passUtil.generateSecurePasswordAsync(password)
+                .thenCompose(hash -> userRepo.replacePassword(credentials.getId(), credentials.getPassword(), hash))
+                .whenComplete((replaced, err) -> {
+                    if(err != null) {
+                        logger.error("Unable to rehash the password of user " + credentials.getId() + "\n");
+                    } else if(replaced) {
+                        logger.info("Rehashed the password of user " + credentials.getId() + "\n");
+                    }
+                });
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable t) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+}
@@ -1,30 +1,68 @@
 package com.revature.registrar.services;
 
+import com.revature.registrar.exceptions.CapacityReachedException;
 import com.revature.registrar.exceptions.InvalidRequestException;
 import com.revature.registrar.exceptions.OpenWindowException;
 import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.exceptions.VersionConflictException;
 import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
 import com.revature.registrar.models.User;
 import com.revature.registrar.pages.RegisterPage;
+import com.revature.registrar.repository.BatchResult;
 import com.revature.registrar.repository.ClassModelRepo;
+import com.revature.registrar.repository.KeysetPage;
+import com.revature.registrar.repository.Transaction;
+import com.revature.registrar.repository.TransactionRunner;
 import com.revature.registrar.repository.UserRepository;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Calendar;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Middle man between Page and Database logic. Handles general business logic and wrapper functions
  * to expose the ClassModelRepository
  */
 public class ClassService {
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final ClassModelRepo classRepo;
+    private final UserRepository userRepo;
+    private final TransactionRunner txRunner; //null when enrollment writes run without a transaction
+    private final Clock clock;
     private final Logger logger = LogManager.getLogger(ClassService.class);
 
-    public ClassService(ClassModelRepo classRepo) {
+    public ClassService(ClassModelRepo classRepo, UserRepository userRepo) {
+        this(classRepo, userRepo, null);
+    }
+
+    /**
+     * @param classRepo
+     * @param userRepo
+     * @param txRunner when not null, the class and user writes of enrollAndRecord/unenrollAndRecord commit together
+     */
+    public ClassService(ClassModelRepo classRepo, UserRepository userRepo, TransactionRunner txRunner) {
+        this(classRepo, userRepo, txRunner, Clock.systemUTC());
+    }
+
+    /**
+     * @param classRepo
+     * @param userRepo
+     * @param txRunner
+     * @param clock decides whether a registration window is open
+     */
+    public ClassService(ClassModelRepo classRepo, UserRepository userRepo, TransactionRunner txRunner, Clock clock) {
         this.classRepo = classRepo;
+        this.userRepo = userRepo;
+        this.txRunner = txRunner;
+        this.clock = clock;
     }
 
     /**
@@ -37,9 +75,8 @@ public class ClassService {
         if(result == null) {
             logger.error("Invalid ID\n");
             throw new InvalidRequestException("Invalid ID");
-        } else {
-            return classRepo.findById(id);
         }
+        return result;
     }
 
     /**
@@ -51,6 +88,42 @@ public class ClassService {
         return classRepo.findById(classModel.getId());
     }
 
+    /**
+     * Refreshes every classModel in classes with fresh data from the database in a single query.
+     * Classes which no longer exist are dropped from the result.
+     * @param classes
+     * @return
+     */
+    public List<ClassModel> refreshAll(Collection<ClassModel> classes) {
+        BatchResult<ClassModel> result = classRepo.findAllById(getIds(classes));
+        if(result.hasMissing()) {
+            logger.info("Classes no longer exist: " + result.getMissingIds() + "\n");
+        }
+        return result.getResults();
+    }
+
+    /**
+     * Hydrates the full Student records for the roster of classModel in a single query.
+     * Rosters only embed {id, firstName, lastName} snapshots.
+     * @param classModel
+     * @return
+     */
+    public List<User> getRoster(ClassModel classModel) {
+        List<Integer> ids = new ArrayList<>(classModel.getStudents().size());
+        for(Student stu : classModel.getStudents()) {
+            ids.add(stu.getId());
+        }
+        return userRepo.findAllById(ids).getResults();
+    }
+
+    private List<Integer> getIds(Collection<ClassModel> classes) {
+        List<Integer> ids = new ArrayList<>(classes.size());
+        for(ClassModel c : classes) {
+            ids.add(c.getId());
+        }
+        return ids;
+    }
+
     /**
      * Retrieves a list of classes where the current date lies between the openDate and closeDate
      * @return
@@ -59,6 +132,158 @@ public class ClassService {
         return classRepo.findOpenClasses();
     }
 
+    /**
+     * Retrieves lightweight summaries of the classes which are currently open for enrollment
+     * @return
+     */
+    public List<ClassSummary> getOpenClassSummaries() {
+        return classRepo.findOpenClassSummaries();
+    }
+
+    /**
+     * Retrieves one keyset page of open class summaries
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
+     * @return
+     */
+    public KeysetPage<ClassSummary> getOpenClassSummaries(String cursor, int limit) {
+        return classRepo.findOpenClassSummaries(cursor, limit);
+    }
+
+    /**
+     * Streams every open class summary to consumer straight off the database cursor
+     * @param consumer
+     * @return the number of summaries streamed
+     */
+    public int streamOpenClassSummaries(Consumer<ClassSummary> consumer) {
+        return classRepo.streamOpenClassSummaries(consumer);
+    }
+
+    /**
+     * Retrieves lightweight summaries of the given classes in a single query
+     * @param classes
+     * @return
+     */
+    public List<ClassSummary> getClassSummaries(Collection<ClassModel> classes) {
+        return classRepo.findSummariesByIds(getIds(classes));
+    }
+
+    /**
+     * Enrolls a Student in the class with the given id using a single conditional update.
+     * If the update does not apply, the class is re-read once to report why.
+     * @param classId
+     * @param student
+     * @return the updated classModel
+     */
+    public ClassModel enroll(int classId, Student student) {
+        return enroll(null, classId, student);
+    }
+
+    private ClassModel enroll(Transaction tx, int classId, Student student) {
+        if(student == null) {
+            logger.error("Invalid student provided\n");
+            throw new InvalidRequestException("Invalid student provided");
+        }
+
+        ClassModel result = tx == null ? classRepo.enroll(classId, student) : classRepo.enroll(tx, classId, student);
+        if(result != null) {
+            return result;
+        }
+
+        ClassModel classModel = getClassWithId(classId);
+        if(!classModel.isOpenAt(clock.millis())) {
+            logger.error("Cannot enroll in a class outside of the Registration Window\n");
+            throw new InvalidRequestException("Cannot enroll in a class outside of the Registration Window");
+        }
+        if(classModel.isEnrolled(student)) {
+            logger.error("Cannot enroll in a class that they are already enrolled in\n");
+            throw new InvalidRequestException("Cannot enroll in a class that they are already enrolled in");
+        }
+        logger.error("Capacity Reached\n");
+        throw new CapacityReachedException("Class capacity for " + classModel.getName() + " is reached");
+    }
+
+    /**
+     * Removes a Student from the class with the given id using a single conditional update
+     * @param classId
+     * @param student
+     * @return the updated classModel
+     */
+    public ClassModel unenroll(int classId, Student student) {
+        return unenroll(null, classId, student);
+    }
+
+    private ClassModel unenroll(Transaction tx, int classId, Student student) {
+        if(student == null) {
+            logger.error("Invalid student provided\n");
+            throw new InvalidRequestException("Invalid student provided");
+        }
+
+        ClassModel result = tx == null ? classRepo.unenroll(classId, student) : classRepo.unenroll(tx, classId, student);
+        if(result != null) {
+            return result;
+        }
+
+        ClassModel classModel = getClassWithId(classId);
+        if(!classModel.isOpenAt(clock.millis())) {
+            logger.error("Cannot unenroll from a class outside of the Registration Window\n");
+            throw new InvalidRequestException("Cannot unenroll from a class outside of the Registration Window");
+        }
+        logger.error("Cannot unenroll from a class that they are not enrolled in\n");
+        throw new InvalidRequestException("Cannot unenroll from a class that they are not enrolled in");
+    }
+
+    /**
+     * Enrolls a Student in the class with the given id and records the class in the student's classes.
+     * With a TransactionRunner both writes commit together, otherwise a failure between them leaves
+     * the roster and the student's classes disagreeing.
+     * @param classId
+     * @param student updated in place with the new class
+     * @return the updated classModel
+     */
+    public ClassModel enrollAndRecord(int classId, Student student) {
+        ClassModel classModel;
+        if(txRunner == null) {
+            classModel = enroll(classId, student);
+            userRepo.addClassRef(student.getId(), classModel);
+        } else {
+            classModel = txRunner.inTransaction(tx -> {
+                ClassModel result = enroll(tx, classId, student);
+                userRepo.addClassRef(tx, student.getId(), result);
+                return result;
+            });
+        }
+        student.addClass(classModel);
+        student.setVersion(student.getVersion() + 1);
+        student.markClassRefPersisted(classId, true);
+        return classModel;
+    }
+
+    /**
+     * Removes a Student from the class with the given id and the class from the student's classes,
+     * in one transaction when a TransactionRunner is configured
+     * @param classId
+     * @param student updated in place without the class
+     * @return the updated classModel
+     */
+    public ClassModel unenrollAndRecord(int classId, Student student) {
+        ClassModel classModel;
+        if(txRunner == null) {
+            classModel = unenroll(classId, student);
+            userRepo.removeClassRef(student.getId(), classId);
+        } else {
+            classModel = txRunner.inTransaction(tx -> {
+                ClassModel result = unenroll(tx, classId, student);
+                userRepo.removeClassRef(tx, student.getId(), classId);
+                return result;
+            });
+        }
+        student.removeClass(classModel);
+        student.setVersion(student.getVersion() + 1);
+        student.markClassRefPersisted(classId, false);
+        return classModel;
+    }
+
     /**
      * Deletes a classModel from the database if it exists
      * @param classModel
@@ -68,30 +293,69 @@ public class ClassService {
         return classRepo.deleteById(classModel.getId());
     }
 
+    /**
+     * Deletes a classModel and detaches it from every User that holds it.
+     * One deleteOne on classes followed by one updateMany $pull on users.
+     * @param classModel
+     * @return the number of Users the class was detached from
+     */
+    public long deleteAndDetach(ClassModel classModel) {
+        if(classModel == null) {
+            logger.error("Invalid classModel provided\n");
+            throw new InvalidRequestException("Invalid classModel provided");
+        }
+        classRepo.deleteById(classModel.getId());
+        return userRepo.removeClassFromAll(classModel.getId());
+    }
+
     /**
      * Updates the fields of a given classModel in the database with new fields
      * @param classModel
      * @return
      */
     public boolean update(ClassModel classModel) {
-        try {
-            if (!isValid(classModel)) {
-                logger.error("Invalid classModel data provided\n");
-                throw new InvalidRequestException("Invalid classModel data provided");
-            }
-        } catch (ResourcePersistenceException rpe) {
-            logger.info("Updating existing resource");
-        } catch (OpenWindowException owe) {
-            logger.info("Updating existing resource");
+        if (!hasValidFields(classModel)) {
+            logger.error("Invalid classModel data provided\n");
+            throw new InvalidRequestException("Invalid classModel data provided");
         }
         return classRepo.update(classModel);
     }
 
     /**
-     * Validates user input and stores the classModel in the database if it is valid
+     * Reads the class with the given id, applies changes to it and updates it. If someone else writes the class
+     * in between (an enrollment, another faculty edit), the class is read again and changes re-applied,
+     * up to MAX_UPDATE_ATTEMPTS times.
+     * @param id
+     * @param changes must only depend on the ClassModel it is given, as it may run more than once
+     * @return the updated classModel
+     * @throws VersionConflictException if every attempt conflicted
+     */
+    public ClassModel updateWithRetry(int id, Consumer<ClassModel> changes) {
+        for(int attempt = 1; ; attempt++) {
+            ClassModel classModel = getClassWithId(id);
+            changes.accept(classModel);
+            try {
+                if(!update(classModel)) {
+                    logger.error("Invalid ID\n");
+                    throw new InvalidRequestException("Invalid ID");
+                }
+                return classModel;
+            } catch (VersionConflictException vce) {
+                if(attempt >= MAX_UPDATE_ATTEMPTS) {
+                    logger.error("Gave up updating class " + id + " after " + attempt + " attempts\n");
+                    throw vce;
+                }
+                logger.info("Version conflict on class " + id + ", retrying\n");
+            }
+        }
+    }
+
+    /**
+     * Validates user input and stores the classModel in the database if it is valid.
+     * A taken id is rejected by the unique index on insert rather than looked up first.
      * @param classModel
      * @return
-     * @throws RuntimeException
+     * @throws ResourcePersistenceException if the id is taken
      */
     public ClassModel register(ClassModel classModel) throws RuntimeException{
         if(!isValid(classModel)) {
@@ -110,36 +374,42 @@ public class ClassService {
      * - Capacity must be a positive integer greater than the size of the students set
      * - Open and Close windows must be greater than the current time
      * - Open window must happen before the Close window
-     * - An element with this id must not exist in the db
+     * Only looks at the instance, uniqueness is left to the database
      * @param classModel
      * @return
+     * @throws OpenWindowException if the registration window has already opened
      */
     public boolean isValid(ClassModel classModel) {
+        if(!hasValidFields(classModel)) return false;
+        if(classModel.getOpenWindow() <= clock.millis()) throw new OpenWindowException("Window is open");
+
+        return true;
+    }
+
+    /**
+     * The checks of isValid that also hold for a class whose window is already open, used for updates
+     * @param classModel
+     * @return
+     */
+    public boolean hasValidFields(ClassModel classModel) {
         if(classModel == null) {
             return false;
         }
 
-        Calendar current = Calendar.getInstance();
+        long current = clock.millis();
         if(classModel.getName() == null || classModel.getName().trim().equals("")) return false;
         if(classModel.getDescription() == null || classModel.getDescription().trim().equals("")) return false;
         if(classModel.getCapacity() <= 0) return false;
-        if(classModel.getCapacity() < classModel.getStudents().size()) return false;
+        if(classModel.getCapacity() < classModel.getEnrolledCount()) return false;
         //Open/Close Windows cannot be before the current time
-        if(classModel.getOpenWindow() == null) return false;
-        if(classModel.getCloseWindow() == null || classModel.getCloseWindow().getTimeInMillis() <= current.getTimeInMillis() ) return false;
+        if(classModel.getOpenWindow() <= 0) return false;
+        if(classModel.getCloseWindow() <= current) return false;
         //Open has to be before the close
-        if(classModel.getCloseWindow().getTimeInMillis() <= classModel.getOpenWindow().getTimeInMillis() ) return false;
+        if(classModel.getCloseWindow() <= classModel.getOpenWindow()) return false;
 
         if(classModel.getStudents() == null) return false;
         if(classModel.getFaculty() == null) return false;
 
-        //if a duplicate already exists in the db, reject
-        if(classRepo.findById(classModel.getId()) != null) {
-            logger.error("Duplicate");
-            throw new ResourcePersistenceException("Duplicate");
-        }
-        if(classModel.getOpenWindow().getTimeInMillis() <= current.getTimeInMillis()) throw new OpenWindowException("Window is open");
-
         return true;
     }
 
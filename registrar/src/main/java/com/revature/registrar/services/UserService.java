@@ -1,36 +1,54 @@
 package com.revature.registrar.services;
 
+import com.revature.registrar.exceptions.DataSourceException;
 import com.revature.registrar.exceptions.InvalidRequestException;
 import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.exceptions.VersionConflictException;
 import com.revature.registrar.models.ClassModel;
 import com.revature.registrar.models.Faculty;
 import com.revature.registrar.models.Student;
 import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
 import com.revature.registrar.pages.RegisterPage;
+import com.revature.registrar.repository.KeysetPage;
 import com.revature.registrar.repository.UserRepository;
+import com.revature.registrar.util.AppConfig;
 import com.revature.registrar.util.PasswordUtils;
+import com.revature.registrar.web.dtos.UserDTO;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.Calendar;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Middle man between Page and Database logic. Handles general business logic and wrapper functions
  * to expose the UserRepository
  */
 public class UserService {
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final UserRepository userRepo;
     private final Logger logger = LogManager.getLogger(UserService.class);
     private final PasswordUtils passUtil;
+    private final Clock clock;
+    private final Set<String> reservedUsernames;
 
     private User currUser;
+    private Integer currUserId; //set by login, the User itself is read on the first getCurrUser
 
     /**
-     * Retrieves the current logged in User
+     * Retrieves the current logged in User. After a login the full user is read here, once, on first use.
      * @return
      */
     public User getCurrUser() {
+        if(currUser == null && currUserId != null) {
+            currUser = userRepo.findById(currUserId);
+        }
         return currUser;
     }
 
@@ -40,11 +58,37 @@ public class UserService {
      */
     public void setCurrUser(User currUser) {
         this.currUser = currUser;
+        this.currUserId = currUser == null ? null : currUser.getId();
+    }
+
+    public UserService(UserRepository userRepo) {
+        this(userRepo, AppConfig.load(AppConfig.DEFAULT_RESOURCE));
+    }
+
+    private UserService(UserRepository userRepo, AppConfig config) {
+        this(userRepo, new PasswordUtils(config), Clock.systemUTC(), new HashSet<>(config.getList("roles.admin")));
     }
 
     public UserService(UserRepository userRepo, PasswordUtils passUtil) {
+        this(userRepo, passUtil, Clock.systemUTC());
+    }
+
+    public UserService(UserRepository userRepo, PasswordUtils passUtil, Clock clock) {
+        this(userRepo, passUtil, clock, Collections.emptySet());
+    }
+
+    /**
+     * @param userRepo
+     * @param passUtil
+     * @param clock
+     * @param reservedUsernames usernames nobody may register, the roles.admin setting, since the web login
+     * grants ADMIN by username
+     */
+    public UserService(UserRepository userRepo, PasswordUtils passUtil, Clock clock, Set<String> reservedUsernames) {
         this.userRepo = userRepo;
         this.passUtil = passUtil;
+        this.clock = clock;
+        this.reservedUsernames = reservedUsernames;
     }
 
     /**
@@ -53,18 +97,43 @@ public class UserService {
      * @return
      */
     public boolean update(User user) {
-        try{
-            if(!isValid(user)) {
-                logger.error("Invalid user data provided\n");
-                throw new InvalidRequestException("Invalid user data provided");
-            }
-        } catch (ResourcePersistenceException rpe) {
-            logger.info("Updating existing resource");
+        if(!isValid(user)) {
+            logger.error("Invalid user data provided\n");
+            throw new InvalidRequestException("Invalid user data provided");
         }
         return userRepo.update(user);
     }
 
 
+    /**
+     * Reads the user with the given id, applies changes to it and updates it. If the user is written in between
+     * (an enrollment, a class being deleted), the user is read again and changes re-applied,
+     * up to MAX_UPDATE_ATTEMPTS times.
+     * @param id
+     * @param changes must only depend on the User it is given, as it may run more than once
+     * @return the updated user
+     * @throws VersionConflictException if every attempt conflicted
+     */
+    public User updateWithRetry(int id, Consumer<User> changes) {
+        for(int attempt = 1; ; attempt++) {
+            User user = getUserWithId(id);
+            changes.accept(user);
+            try {
+                if(!update(user)) {
+                    logger.error("Invalid ID\n");
+                    throw new InvalidRequestException("Invalid ID");
+                }
+                return user;
+            } catch (VersionConflictException vce) {
+                if(attempt >= MAX_UPDATE_ATTEMPTS) {
+                    logger.error("Gave up updating user " + id + " after " + attempt + " attempts\n");
+                    throw vce;
+                }
+                logger.info("Version conflict on user " + id + ", retrying\n");
+            }
+        }
+    }
+
     /**
      * Retieves the user with the given id
      * @param id
@@ -81,25 +150,32 @@ public class UserService {
     }
 
     /**
-     * Deletes a classModel from the classes field of all Users
-     * @param classModel
+     * Retrieves one keyset page of Users as UserDTOs
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param limit
      * @return
-     * @throws RuntimeException
      */
-    public boolean deleteClassFromAll(ClassModel classModel) throws RuntimeException {
-        List<User> users = userRepo.findWithClass(classModel.getId());
-        for(User user : users) {
-            if (user.isFaculty()) {
-                Faculty fac = (Faculty) user;
-                fac.removeClass(classModel);
-            } else {
-                Student stu = (Student) user;
-                stu.removeClass(classModel);
-            }
-            update(user);
-        }
+    public KeysetPage<UserDTO> findAll(String cursor, int limit) {
+        return userRepo.findAll(cursor, limit).map(UserDTO::new);
+    }
 
-        return true;
+    /**
+     * Streams every User as a UserDTO to consumer straight off the database cursor
+     * @param consumer
+     * @return the number of users streamed
+     */
+    public int streamAll(Consumer<UserDTO> consumer) {
+        return userRepo.streamAll(user -> consumer.accept(new UserDTO(user)));
+    }
+
+    /**
+     * Deletes a classModel from the classes field of all Users with a single bulk $pull
+     * @param classModel
+     * @return the number of Users the class was removed from
+     * @throws RuntimeException
+     */
+    public long deleteClassFromAll(ClassModel classModel) throws RuntimeException {
+        return userRepo.removeClassFromAll(classModel.getId());
     }
 
     /**
@@ -114,10 +190,11 @@ public class UserService {
 
     /**
      * Validates user input, and stores in the UserRepo if valid
-     * Returns stored User
+     * Returns stored User. There is no lookup beforehand, a taken id or username is rejected by the unique
+     * indexes on insert, so two concurrent registrations cannot both succeed.
      * @param user
      * @return
-     * @throws RuntimeException
+     * @throws ResourcePersistenceException if the id or username is taken, or the username is reserved
      */
     //Validate user input, store in UserRepo and return AppUser with repo_id
     public User register(User user) throws RuntimeException{
@@ -125,7 +202,12 @@ public class UserService {
             logger.error("Invalid user data provided\n");
             throw new InvalidRequestException("Invalid user data provided");
         }
+        if(reservedUsernames.contains(user.getUsername())) {
+            logger.error("Reserved username provided\n");
+            throw new ResourcePersistenceException("Username is taken");
+        }
 
+        user.setPassword(passUtil.generateSecurePassword(user.getPassword()));
         //pass validated user to UserRepository
         userRepo.save(user);
 
@@ -133,15 +215,47 @@ public class UserService {
     }
 
     /**
-     * Returns the User associated with a given username and password
+     * Checks a username and password and makes that user the current one.
+     * Only the stored credentials are fetched by username, the password is checked here. The rest of the user
+     * is not read until getCurrUser needs it.
+     * A plaintext or outdated hash is replaced by a current hash on the first successful login.
      * @param username
      * @param password
-     * @return
+     * @return the credentials of the user, without the password, or null if they do not match
      */
-    public User login(String username, String password) {
-        User user = userRepo.findUserByCredentials(username, password);
-        setCurrUser(user);
-        return user;
+    public UserCredentials login(String username, String password) {
+        UserCredentials credentials = userRepo.findCredentialsByUsername(username);
+        if(credentials == null) {
+            passUtil.verify(password, passUtil.getDummyHash()); //as slow as a known username, so it is not revealed
+            setCurrUser(null);
+            return null;
+        }
+        if(!passUtil.verify(password, credentials.getPassword())) {
+            setCurrUser(null);
+            return null;
+        }
+        if(passUtil.needsRehash(credentials.getPassword())) {
+            rehash(credentials, password);
+        }
+        currUser = null;
+        currUserId = credentials.getId();
+        credentials.setPassword(null);
+        return credentials;
+    }
+
+    /**
+     * Swaps a verified legacy password for a current hash. A failure only means the next login tries again.
+     * @param credentials
+     * @param password
+     */
+    private void rehash(UserCredentials credentials, String password) {
+        try {
+            if(userRepo.replacePassword(credentials.getId(), credentials.getPassword(), passUtil.generateSecurePassword(password))) {
+                logger.info("Rehashed the password of user " + credentials.getId() + "\n");
+            }
+        } catch (DataSourceException dse) {
+            logger.error("Unable to rehash the password of user " + credentials.getId() + "\n");
+        }
     }
 
     /**
@@ -164,13 +278,13 @@ public class UserService {
             throw new InvalidRequestException("Cannot unenroll from a class that they are not enrolled in");
         }
 
-        Calendar current = Calendar.getInstance();
-        boolean openOkay = classModel.getOpenWindow().getTimeInMillis() < current.getTimeInMillis();
-        boolean closeOkay = classModel.getCloseWindow().getTimeInMillis() > current.getTimeInMillis();
-        if(openOkay && closeOkay) {
+        if(classModel.isOpenAt(clock.millis())) {
             classModel.removeStudent(curr);
             curr.removeClass(classModel);
-            update(user);
+            if(userRepo.removeClassRef(curr.getId(), classModel.getId())) {
+                curr.setVersion(curr.getVersion() + 1);
+                curr.markClassRefPersisted(classModel.getId(), false);
+            }
             return classModel;
         } else {
             logger.error("Cannot unenroll from a class outside of the Registration Window\n");
@@ -182,11 +296,11 @@ public class UserService {
     /**
      * Returns true if a user instance is "valid".
      * - Must contain no empty string values
-     * - An element with this id must not exist in the db
+     * Only looks at the instance, uniqueness is left to the database
      * @param user
      * @return
      */
-    public boolean isValid(User user) {
+    public static boolean isValid(User user) {
         if(user == null) {
             return false;
         }
@@ -195,13 +309,6 @@ public class UserService {
         if(user.getPassword() == null || user.getPassword().trim().equals("")) return false;
         if(user.getEmail() == null || user.getEmail().trim().equals("")) return false;
         if(user.getUsername() == null || user.getUsername().trim().equals("")) return false;
-
-        //if a duplicate already exists in the db, reject
-        if(userRepo.findById(user.getId()) != null) {
-            logger.error("Duplicate");
-            throw new ResourcePersistenceException("Duplicate");
-        }
-
         return true;
     }
 
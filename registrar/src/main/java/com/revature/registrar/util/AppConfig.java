@@ -0,0 +1,146 @@
+package com.revature.registrar.util;
+
+import com.revature.registrar.exceptions.DataSourceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Application settings loaded from a properties file on the classpath, so they are found the same way whether the
+ * app runs from the project directory or from inside a deployed WAR (WEB-INF/classes).
+ * Any key can be overridden without rebuilding, in increasing order of precedence:
+ * an environment variable named REGISTRAR_ followed by the key in upper snake case
+ * (pool.maxSize becomes REGISTRAR_POOL_MAX_SIZE), then a -D system property with the key itself.
+ */
+public class AppConfig {
+
+    public static final String DEFAULT_RESOURCE = "application.properties";
+    static final String ENV_PREFIX = "REGISTRAR_";
+
+    private final Properties file;
+    private final Map<String, String> env;
+    private final Properties system;
+
+    AppConfig(Properties file, Map<String, String> env, Properties system) {
+        this.file = file;
+        this.env = env;
+        this.system = system;
+    }
+
+    /**
+     * Loads resource from the classpath, with the process environment and system properties as overrides
+     * @param resource
+     * @return
+     * @throws DataSourceException if the resource is missing or unreadable
+     */
+    public static AppConfig load(String resource) {
+        Properties file = new Properties();
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = AppConfig.class.getClassLoader();
+        }
+        try (InputStream in = loader.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new DataSourceException("Unable to find " + resource + " on the classpath.");
+            }
+            file.load(in);
+        } catch (IOException ioe) {
+            throw new DataSourceException("Unable to load " + resource + ".", ioe);
+        }
+        return new AppConfig(file, System.getenv(), System.getProperties());
+    }
+
+    /**
+     * @param key
+     * @return the value of key, or null if it is not set anywhere
+     */
+    public String get(String key) {
+        String value = system.getProperty(key);
+        if (value == null) {
+            value = env.get(envName(key));
+        }
+        if (value == null) {
+            value = file.getProperty(key);
+        }
+        return value == null ? null : value.trim();
+    }
+
+    public String get(String key, String defaultValue) {
+        String value = get(key);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    /**
+     * @param key
+     * @return the value of key
+     * @throws DataSourceException if key is not set anywhere
+     */
+    public String require(String key) {
+        String value = get(key);
+        if (value == null || value.isEmpty()) {
+            throw new DataSourceException("Missing required setting " + key + " (or " + envName(key) + ").");
+        }
+        return value;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException nfe) {
+            throw new DataSourceException("Setting " + key + " must be a number, was " + value + ".", nfe);
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * @param key
+     * @return the comma separated values of key, empty if it is not set
+     */
+    public List<String> getList(String key) {
+        String value = get(key, null);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.trim().isEmpty()) {
+                values.add(part.trim());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * pool.maxSize -> REGISTRAR_POOL_MAX_SIZE
+     * @param key
+     * @return
+     */
+    static String envName(String key) {
+        StringBuilder name = new StringBuilder(ENV_PREFIX);
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && Character.isLowerCase(key.charAt(i - 1))) {
+                name.append('_');
+            }
+            name.append(c == '.' || c == '-' ? '_' : Character.toUpperCase(c));
+        }
+        return name.toString();
+    }
+}
@@ -3,11 +3,17 @@ package com.revature.registrar.util;
 import com.revature.registrar.exceptions.InvalidRouteException;
 import com.revature.registrar.models.User;
 import com.revature.registrar.pages.*;
+import com.revature.registrar.repository.CachingClassModelRepo;
+import com.revature.registrar.repository.ClassModelCache;
 import com.revature.registrar.repository.ClassModelRepo;
+import com.revature.registrar.repository.MongoClassModelRepo;
+import com.revature.registrar.repository.MongoUserRepository;
+import com.revature.registrar.repository.OpenClassScheduler;
+import com.revature.registrar.repository.ScheduledClassModelRepo;
+import com.revature.registrar.repository.TransactionRunner;
 import com.revature.registrar.repository.UserRepository;
 import com.revature.registrar.services.ClassService;
 import com.revature.registrar.services.UserService;
-import sun.reflect.generics.repository.ClassRepository;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -25,10 +31,15 @@ public class AppState {
         this.alive = true;
         this.router = new PageRouter();
         BufferedReader consoleReader = new BufferedReader(new InputStreamReader(System.in));
-        UserRepository userRepo = new UserRepository();
-        ClassModelRepo classRepo = new ClassModelRepo();
+        UserRepository userRepo = new MongoUserRepository();
+        ClassModelRepo cachingRepo = new CachingClassModelRepo(new MongoClassModelRepo(), new ClassModelCache());
+        //Classes about to open are read once ahead of time, which leaves them in the cache
+        OpenClassScheduler scheduler = new OpenClassScheduler(cachingRepo, cachingRepo::findById, OpenClassScheduler.DEFAULT_WARM_LEAD_MILLIS);
+        scheduler.start(OpenClassScheduler.DEFAULT_RELOAD_MILLIS);
+        ClassModelRepo classRepo = new ScheduledClassModelRepo(cachingRepo, scheduler);
         UserService userService = new UserService(userRepo);
-        ClassService classService = new ClassService(classRepo);
+        TransactionRunner txRunner = MongoClientFactory.getInstance().useTransactions() ? new TransactionRunner() : null;
+        ClassService classService = new ClassService(classRepo, userRepo, txRunner);
 
         init(consoleReader, userService, classService);
     }
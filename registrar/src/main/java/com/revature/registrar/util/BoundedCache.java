@@ -0,0 +1,405 @@
+package com.revature.registrar.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Concurrent cache bounded by total weight, with W-TinyLFU eviction and a time to live per entry.
+ *
+ * New entries land in a small LRU window (1% of the weight). Entries pushed out of the window only make it into the
+ * main space by beating its least recently used probation entry on estimated access frequency, so a burst of
+ * one-off keys cannot flush the hot set. Main space entries read again are promoted to a protected segment
+ * (80% of main). Frequencies come from a FrequencySketch, which also remembers keys that are no longer cached.
+ *
+ * Reads never block: the entry comes straight out of a ConcurrentHashMap and the access is dropped in a lossy ring
+ * buffer, replayed against the eviction order whenever someone holds the eviction lock. Writes take that lock.
+ *
+ * Every key hashes to a stamp that invalidate bumps. A read-through caller takes the stamp before loading and passes
+ * it to putIfCurrent, which refuses the value if an invalidation happened in between, so a load racing a write
+ * cannot put the old value back.
+ * @param <K>
+ * @param <V>
+ */
+public class BoundedCache<K, V> {
+
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int DRAIN_MASK = 31; //replay the buffer every 32 reads
+    private static final int STAMP_STRIPES = 64;
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final long ttlNanos;
+    private final ToIntBiFunction<K, V> weigher;
+    private final LongSupplier ticker;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    private final AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readCount = new AtomicLong();
+
+    //Guarded by evictionLock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedSegment = new AccessOrder<>();
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long weightedSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maximumWeight upper bound on the summed weight of every entry
+     * @param ttl how long an entry may be served after it was put
+     * @param unit
+     * @param weigher weight of an entry, in whatever unit maximumWeight is in. An entry heavier than
+     *                maximumWeight is never cached.
+     */
+    public BoundedCache(long maximumWeight, long ttl, TimeUnit unit, ToIntBiFunction<K, V> weigher) {
+        this(maximumWeight, ttl, unit, weigher, System::nanoTime);
+    }
+
+    BoundedCache(long maximumWeight, long ttl, TimeUnit unit, ToIntBiFunction<K, V> weigher, LongSupplier ticker) {
+        if (maximumWeight <= 0 || ttl <= 0) {
+            throw new IllegalArgumentException("maximumWeight and ttl must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * 8 / 10;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.weigher = weigher;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Returns the cached value of key, or null if it is missing or expired
+     * @param key
+     * @return
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (ticker.getAsLong() - node.writeTime >= ttlNanos) {
+            misses.increment();
+            expire(node);
+            return null;
+        }
+        hits.increment();
+        recordRead(node);
+        return node.value;
+    }
+
+    /**
+     * Returns the cached value of key, loading and caching it on a miss. Concurrent misses on one key each load.
+     * @param key
+     * @param loader returns null if there is nothing to cache
+     * @return
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long stamp = stamp(key);
+        value = loader.apply(key);
+        if (value != null) {
+            putIfCurrent(key, value, stamp);
+        }
+        return value;
+    }
+
+    /**
+     * Invalidation stamp of key, to take before loading a value for putIfCurrent
+     * @param key
+     * @return
+     */
+    public long stamp(K key) {
+        return stamps.get(stripe(key));
+    }
+
+    /**
+     * Caches value unless key was invalidated since stamp was taken
+     * @param key
+     * @param value
+     * @param stamp
+     * @return true if value was cached
+     */
+    public boolean putIfCurrent(K key, V value, long stamp) {
+        evictionLock.lock();
+        try {
+            return stamps.get(stripe(key)) == stamp && doPut(key, value);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        evictionLock.lock();
+        try {
+            doPut(key, value);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Drops key, and makes any load of it already under way skip the cache
+     * @param key
+     */
+    public void invalidate(K key) {
+        stamps.incrementAndGet(stripe(key));
+        evictionLock.lock();
+        try {
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                remove(node);
+                invalidations.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            stamps.incrementAndGet(i);
+        }
+        evictionLock.lock();
+        try {
+            for (Node<K, V> node : data.values()) {
+                remove(node);
+                invalidations.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long size() {
+        return data.size();
+    }
+
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), invalidations.sum(),
+                data.size(), weightedSize);
+    }
+
+    private boolean doPut(K key, V value) {
+        drainReadBuffer();
+        Node<K, V> old = data.get(key);
+        if (old != null) {
+            remove(old);
+        }
+        int weight = weigher.applyAsInt(key, value);
+        if (weight > maximumWeight) {
+            return false;
+        }
+
+        Node<K, V> node = new Node<>(key, value, weight, ticker.getAsLong());
+        data.put(key, node);
+        sketch.ensureCapacity(data.size());
+        sketch.increment(key);
+        window.addLast(node);
+        windowWeight += weight;
+        weightedSize += weight;
+        evict();
+        return true;
+    }
+
+    //Moves the overflow of the window into probation, then lets each newcomer compete with the probation LRU
+    private void evict() {
+        int candidates = 0;
+        while (windowWeight > windowMaximum && window.first != null) {
+            Node<K, V> node = window.first;
+            window.remove(node);
+            windowWeight -= node.weight;
+            node.segment = PROBATION;
+            probation.addLast(node);
+            candidates++;
+        }
+
+        Node<K, V> candidate = candidates > 0 ? probation.last : null;
+        while (weightedSize > maximumWeight) {
+            Node<K, V> victim = probation.first;
+            if (victim == null) {
+                victim = protectedSegment.first != null ? protectedSegment.first : window.first;
+            }
+            if (victim == null) {
+                break;
+            }
+            if (candidate == null || candidates == 0 || candidate == victim) {
+                if (victim == candidate) {
+                    candidate = null;
+                }
+                remove(victim);
+                evictions.increment();
+                continue;
+            }
+
+            Node<K, V> nextCandidate = candidate.prev;
+            if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                remove(victim);
+            } else {
+                remove(candidate);
+                candidate = nextCandidate;
+                candidates--;
+            }
+            evictions.increment();
+        }
+    }
+
+    private void recordRead(Node<K, V> node) {
+        long count = readCount.getAndIncrement();
+        readBuffer.lazySet((int) (count & READ_BUFFER_MASK), node);
+        if ((count & DRAIN_MASK) == DRAIN_MASK && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            Node<K, V> node = readBuffer.getAndSet(i, null);
+            if (node != null && data.get(node.key) == node) {
+                onAccess(node);
+            }
+        }
+    }
+
+    private void onAccess(Node<K, V> node) {
+        sketch.increment(node.key);
+        if (node.segment == WINDOW) {
+            window.moveToBack(node);
+        } else if (node.segment == PROTECTED) {
+            protectedSegment.moveToBack(node);
+        } else {
+            probation.remove(node);
+            node.segment = PROTECTED;
+            protectedSegment.addLast(node);
+            protectedWeight += node.weight;
+            while (protectedWeight > protectedMaximum && protectedSegment.first != node) {
+                Node<K, V> demoted = protectedSegment.first;
+                protectedSegment.remove(demoted);
+                protectedWeight -= demoted.weight;
+                demoted.segment = PROBATION;
+                probation.addLast(demoted);
+            }
+        }
+    }
+
+    private void expire(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (data.get(node.key) == node) {
+                remove(node);
+                expirations.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void remove(Node<K, V> node) {
+        data.remove(node.key, node);
+        if (node.segment == WINDOW) {
+            window.remove(node);
+            windowWeight -= node.weight;
+        } else if (node.segment == PROTECTED) {
+            protectedSegment.remove(node);
+            protectedWeight -= node.weight;
+        } else {
+            probation.remove(node);
+        }
+        weightedSize -= node.weight;
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        final long writeTime;
+        byte segment = WINDOW;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, int weight, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = writeTime;
+        }
+    }
+
+    //Intrusive doubly linked list, least recently used first
+    private static final class AccessOrder<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+}
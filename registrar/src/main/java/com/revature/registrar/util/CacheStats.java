@@ -0,0 +1,84 @@
+package com.revature.registrar.util;
+
+/**
+ * Point in time counters of a BoundedCache
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+    private final long invalidationCount;
+    private final long size;
+    private final long weightedSize;
+
+    CacheStats(long hitCount, long missCount, long evictionCount, long expirationCount,
+               long invalidationCount, long size, long weightedSize) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+        this.invalidationCount = invalidationCount;
+        this.size = size;
+        this.weightedSize = weightedSize;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Entries dropped to stay under the maximum weight
+     * @return
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Entries dropped because they outlived the time to live
+     * @return
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Entries dropped by invalidate, after a write to what they cached
+     * @return
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getWeightedSize() {
+        return weightedSize;
+    }
+
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", expirationCount=" + expirationCount +
+                ", invalidationCount=" + invalidationCount +
+                ", size=" + size +
+                ", weightedSize=" + weightedSize +
+                '}';
+    }
+}
@@ -65,4 +65,14 @@ public class CalendarBuilder {
 
         return date;
     }
+
+    /**
+     * Same as build, as epoch millis, which is how ClassModel stores its windows
+     * @return 0 if the input was invalid
+     * @throws Exception
+     */
+    public long buildMillis() throws Exception {
+        Calendar date = build();
+        return date == null ? 0 : date.getTimeInMillis();
+    }
 }
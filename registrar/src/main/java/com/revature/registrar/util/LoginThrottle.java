@@ -0,0 +1,260 @@
+package com.revature.registrar.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limits login attempts per username and per client address, so a credential-stuffing burst is turned away
+ * before it costs a user lookup and a password hash.
+ *
+ * Every key has a token bucket: each attempt takes a token and tokens come back at a steady rate. An attempt that
+ * finds the bucket empty locks the key out, for lockout.baseSeconds the first time and twice as long every time
+ * after, up to lockout.maxSeconds. The count is forgiven once a key has gone a full maximum lockout without being
+ * locked again. A successful login resets its username and gives its address the token back, so only failures
+ * add up.
+ *
+ * Buckets swap immutable states with compareAndSet, an attempt takes no lock. They are held in two BoundedCaches of
+ * throttle.maxKeys entries each. Their frequency based eviction keeps the keys under attack and drops one-off ones,
+ * so a flood of random usernames cannot push a locked out key out of memory.
+ */
+public class LoginThrottle {
+
+    private final Limit usernameLimit;
+    private final Limit addressLimit;
+    private final long baseLockoutNanos;
+    private final long maxLockoutNanos;
+    private final LongSupplier ticker;
+    private final BoundedCache<String, Bucket> usernames;
+    private final BoundedCache<String, Bucket> addresses;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedByUsername = new LongAdder();
+    private final LongAdder rejectedByAddress = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+
+    public LoginThrottle(AppConfig config) {
+        this(new Limit(config.getInt("throttle.username.capacity", 5), config.getLong("throttle.username.refillSeconds", 60)),
+                new Limit(config.getInt("throttle.address.capacity", 50), config.getLong("throttle.address.refillSeconds", 60)),
+                config.getLong("throttle.lockout.baseSeconds", 5), config.getLong("throttle.lockout.maxSeconds", 900),
+                config.getInt("throttle.maxKeys", 100_000), System::nanoTime);
+    }
+
+    LoginThrottle(Limit usernameLimit, Limit addressLimit, long baseLockoutSeconds, long maxLockoutSeconds,
+                  int maxKeys, LongSupplier ticker) {
+        this.usernameLimit = usernameLimit;
+        this.addressLimit = addressLimit;
+        this.baseLockoutNanos = TimeUnit.SECONDS.toNanos(baseLockoutSeconds);
+        this.maxLockoutNanos = TimeUnit.SECONDS.toNanos(maxLockoutSeconds);
+        this.ticker = ticker;
+        //A bucket is idle long enough to be dropped once its lockouts are forgiven and it has refilled
+        long ttl = 2 * maxLockoutNanos + Math.max(usernameLimit.refillNanos, addressLimit.refillNanos);
+        this.usernames = new BoundedCache<>(maxKeys, ttl, TimeUnit.NANOSECONDS, (key, bucket) -> 1, ticker);
+        this.addresses = new BoundedCache<>(maxKeys, ttl, TimeUnit.NANOSECONDS, (key, bucket) -> 1, ticker);
+    }
+
+    /**
+     * Takes a token from the buckets of address and username, address first
+     * @param username
+     * @param address
+     * @return 0 if the attempt may go ahead, otherwise how many milliseconds to wait before trying again
+     */
+    public long tryAcquire(String username, String address) {
+        long now = ticker.getAsLong();
+        long wait = acquire(addresses, addressLimit, address == null ? "" : address, now);
+        if (wait > 0) {
+            rejectedByAddress.increment();
+            return TimeUnit.NANOSECONDS.toMillis(wait) + 1;
+        }
+        wait = acquire(usernames, usernameLimit, username == null ? "" : username, now);
+        if (wait > 0) {
+            rejectedByUsername.increment();
+            return TimeUnit.NANOSECONDS.toMillis(wait) + 1;
+        }
+        allowed.increment();
+        return 0;
+    }
+
+    /**
+     * Resets the bucket of username and gives address its token back
+     * @param username
+     * @param address
+     */
+    public void recordSuccess(String username, String address) {
+        long now = ticker.getAsLong();
+        Bucket user = usernames.getIfPresent(username == null ? "" : username);
+        if (user != null) {
+            user.reset(usernameLimit, now);
+        }
+        Bucket client = addresses.getIfPresent(address == null ? "" : address);
+        if (client != null) {
+            client.refund(addressLimit);
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(allowed.sum(), rejectedByUsername.sum(), rejectedByAddress.sum(), lockouts.sum(),
+                usernames.size(), addresses.size());
+    }
+
+    private long acquire(BoundedCache<String, Bucket> buckets, Limit limit, String key, long now) {
+        Bucket bucket = buckets.get(key, k -> new Bucket(limit, now));
+        long wait = bucket.acquire(limit, now, baseLockoutNanos, maxLockoutNanos);
+        if (wait < 0) {
+            //Newly locked out, re-put so the entry outlives the lockout
+            lockouts.increment();
+            buckets.put(key, bucket);
+            return -wait;
+        }
+        return wait;
+    }
+
+    /**
+     * Bucket size and how long an empty one takes to fill up again
+     */
+    static final class Limit {
+        final int capacity;
+        final long refillNanos;
+        final double tokensPerNano;
+
+        Limit(int capacity, long refillSeconds) {
+            if (capacity <= 0 || refillSeconds <= 0) {
+                throw new IllegalArgumentException("Throttle capacity and refillSeconds must be positive");
+            }
+            this.capacity = capacity;
+            this.refillNanos = TimeUnit.SECONDS.toNanos(refillSeconds);
+            this.tokensPerNano = (double) capacity / refillNanos;
+        }
+    }
+
+    static final class Bucket {
+        private final AtomicReference<State> state;
+
+        Bucket(Limit limit, long now) {
+            this.state = new AtomicReference<>(new State(limit.capacity, now, 0, now));
+        }
+
+        /**
+         * @return 0 if a token was taken, the remaining lockout if locked out, or minus the new lockout if this
+         * attempt emptied the bucket
+         */
+        long acquire(Limit limit, long now, long baseLockoutNanos, long maxLockoutNanos) {
+            while (true) {
+                State current = state.get();
+                if (now - current.lockedUntil < 0) {
+                    return current.lockedUntil - now;
+                }
+                //A racing thread may have read the clock later and already refilled up to its time
+                long refilledAt = Math.max(now, current.refilledAt);
+                double tokens = Math.min(limit.capacity, current.tokens + (refilledAt - current.refilledAt) * limit.tokensPerNano);
+                int strikes = now - current.lockedUntil > maxLockoutNanos ? 0 : current.strikes;
+                if (tokens >= 1) {
+                    if (state.compareAndSet(current, new State(tokens - 1, refilledAt, strikes, current.lockedUntil))) {
+                        return 0;
+                    }
+                    continue;
+                }
+                long lockout = Math.max(1, baseLockoutNanos);
+                for (int i = 0; i < strikes && lockout < maxLockoutNanos; i++) {
+                    lockout <<= 1;
+                }
+                lockout = Math.min(maxLockoutNanos, lockout);
+                if (state.compareAndSet(current, new State(tokens, refilledAt, strikes + 1, now + lockout))) {
+                    return -lockout;
+                }
+            }
+        }
+
+        void reset(Limit limit, long now) {
+            state.set(new State(limit.capacity, now, 0, now));
+        }
+
+        void refund(Limit limit) {
+            while (true) {
+                State current = state.get();
+                State next = new State(Math.min(limit.capacity, current.tokens + 1), current.refilledAt,
+                        current.strikes, current.lockedUntil);
+                if (state.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class State {
+        final double tokens;
+        final long refilledAt;
+        final int strikes;
+        final long lockedUntil;
+
+        State(double tokens, long refilledAt, int strikes, long lockedUntil) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+            this.strikes = strikes;
+            this.lockedUntil = lockedUntil;
+        }
+    }
+
+    /**
+     * Point in time counters of a LoginThrottle
+     */
+    public static final class Stats {
+        private final long allowed;
+        private final long rejectedByUsername;
+        private final long rejectedByAddress;
+        private final long lockouts;
+        private final long trackedUsernames;
+        private final long trackedAddresses;
+
+        Stats(long allowed, long rejectedByUsername, long rejectedByAddress, long lockouts,
+              long trackedUsernames, long trackedAddresses) {
+            this.allowed = allowed;
+            this.rejectedByUsername = rejectedByUsername;
+            this.rejectedByAddress = rejectedByAddress;
+            this.lockouts = lockouts;
+            this.trackedUsernames = trackedUsernames;
+            this.trackedAddresses = trackedAddresses;
+        }
+
+        public long getAllowed() {
+            return allowed;
+        }
+
+        public long getRejectedByUsername() {
+            return rejectedByUsername;
+        }
+
+        public long getRejectedByAddress() {
+            return rejectedByAddress;
+        }
+
+        /**
+         * Times a key was locked out, each is followed by rejections until the lockout ends
+         * @return
+         */
+        public long getLockouts() {
+            return lockouts;
+        }
+
+        public long getTrackedUsernames() {
+            return trackedUsernames;
+        }
+
+        public long getTrackedAddresses() {
+            return trackedAddresses;
+        }
+
+        @Override
+        public String toString() {
+            return "LoginThrottle.Stats{" +
+                    "allowed=" + allowed +
+                    ", rejectedByUsername=" + rejectedByUsername +
+                    ", rejectedByAddress=" + rejectedByAddress +
+                    ", lockouts=" + lockouts +
+                    ", trackedUsernames=" + trackedUsernames +
+                    ", trackedAddresses=" + trackedAddresses +
+                    '}';
+        }
+    }
+}
@@ -1,61 +1,196 @@
 package com.revature.registrar.util;
 
 import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
 import com.mongodb.MongoCredential;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
 import com.mongodb.ServerAddress;
+import com.mongodb.WriteConcern;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
 import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Singleton Factory which creates and manages the connection to our MongoDB
+ * Singleton Factory which creates and manages the connection to our MongoDB.
+ * Settings come from application.properties on the classpath, see AppConfig for overriding them per environment.
+ * Database and collection handles are created once here and shared by every repository.
+ * Both clients report to the same MongoMetrics.
  */
 public class MongoClientFactory {
 
+    private static final Logger logger = LogManager.getLogger(MongoClientFactory.class);
+
+    private final MongoClientSettings settings;
     private final MongoClient mongoClient;
+    private com.mongodb.reactivestreams.client.MongoClient asyncClient; //created on first use
+    private final String databaseName;
+    private final boolean transactions;
+    private final MongoMetrics metrics;
+    private final ConcurrentMap<String, MongoCollection<?>> collections = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, com.mongodb.reactivestreams.client.MongoCollection<?>> asyncCollections = new ConcurrentHashMap<>();
     private static final MongoClientFactory mongoClientFactory = new MongoClientFactory();
 
 
     private MongoClientFactory() {
+        try {
+            AppConfig config = AppConfig.load(AppConfig.DEFAULT_RESOURCE);
+            this.metrics = new MongoMetrics(config.getBoolean("metrics.callerTags", true));
+            this.settings = MongoClientSettings.builder(buildSettings(config))
+                    .addCommandListener(metrics)
+                    .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(metrics))
+                    .build();
+            this.databaseName = config.get("database", "project0");
+            this.mongoClient = MongoClients.create(settings);
+            //Multi-document transactions need a replica set, so they stay off unless configured
+            this.transactions = config.getBoolean("transactions", false);
 
-        Properties appProperties = new Properties();
+        } catch (DataSourceException dse) {
+            logger.error(dse.getMessage() + "\n");
+            throw dse;
+        } catch(Exception e){
+            logger.error(e.getStackTrace() + "\n");
+            throw new DataSourceException("An unexpected exception occurred.", e);
+        }
 
-        try {
-            appProperties.load(new FileReader("src/main/resources/application.properties"));
+    }
 
-            String ipAddress = appProperties.getProperty("ipAddress");
-            int port = Integer.parseInt(appProperties.getProperty("port"));
-            String dbName = appProperties.getProperty("dbName");
-            String username = appProperties.getProperty("username");
-            char[] password = appProperties.getProperty("password").toCharArray();
+    /**
+     * Builds the driver settings from config.
+     * Every tuning key is optional and falls back to the value the driver would use on its own,
+     * except the pool wait, which defaults to 2s so an exhausted pool fails fast instead of queueing for two minutes.
+     * @param config
+     * @return
+     */
+    static MongoClientSettings buildSettings(AppConfig config) {
+        List<ServerAddress> hosts = Collections.singletonList(
+                new ServerAddress(config.require("ipAddress"), config.getInt("port", ServerAddress.defaultPort())));
 
-            List<ServerAddress> hosts = Collections.singletonList(new ServerAddress(ipAddress, port));
-            MongoCredential credentials = MongoCredential.createScramSha1Credential(username, dbName, password);
-            MongoClientSettings settings = MongoClientSettings.builder()
-                                                              .applyToClusterSettings(builder -> builder.hosts(hosts))
-                                                              .credential(credentials)
-                                                              .build();
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyToClusterSettings(cluster -> cluster
+                        .hosts(hosts)
+                        .serverSelectionTimeout(config.getLong("serverSelectionTimeoutMillis", 30_000), TimeUnit.MILLISECONDS))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .minSize(config.getInt("pool.minSize", 0))
+                        .maxSize(config.getInt("pool.maxSize", 100))
+                        .maxWaitTime(config.getLong("pool.maxWaitMillis", 2_000), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(config.getLong("pool.maxIdleMillis", 0), TimeUnit.MILLISECONDS))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout((int) config.getLong("connectTimeoutMillis", 10_000), TimeUnit.MILLISECONDS)
+                        .readTimeout((int) config.getLong("socketTimeoutMillis", 0), TimeUnit.MILLISECONDS))
+                .compressorList(compressors(config.getList("compressors")))
+                .readPreference(ReadPreference.valueOf(config.get("readPreference", "primary")))
+                .writeConcern(writeConcern(config))
+                .codecRegistry(RegistrarCodecProvider.getCodecRegistry());
 
-            this.mongoClient = MongoClients.create(settings);
+        String readConcern = config.get("readConcern", null);
+        if (readConcern != null) {
+            builder.readConcern(new ReadConcern(ReadConcernLevel.fromString(readConcern)));
+        }
 
-        } catch (FileNotFoundException fnfe) {
-            fnfe.printStackTrace(); // TODO log this to a file
-            throw new DataSourceException("Unable to load database properties file.", fnfe);
-        } catch(Exception e){
-            e.printStackTrace(); // TODO log this to a file
-            throw new DataSourceException("An unexpected exception occurred.", e);
+        String username = config.get("username", null);
+        if (username != null) {
+            //dbName is the database the user is defined in, not the one the data lives in
+            builder.credential(MongoCredential.createScramSha1Credential(username, config.get("dbName", "admin"),
+                    config.require("password").toCharArray()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * The server picks the first compressor in the list it also supports.
+     * zstd and snappy need their native libraries on the classpath, a missing one is skipped with a warning.
+     * @param names
+     * @return
+     */
+    static List<MongoCompressor> compressors(List<String> names) {
+        List<MongoCompressor> compressors = new ArrayList<>();
+        for (String name : names) {
+            switch (name.toLowerCase()) {
+                case "zstd":
+                    if (onClasspath("com.github.luben.zstd.Zstd")) {
+                        compressors.add(MongoCompressor.createZstdCompressor());
+                    } else {
+                        logger.warn("zstd-jni is not on the classpath, skipping zstd compression\n");
+                    }
+                    break;
+                case "snappy":
+                    if (onClasspath("org.xerial.snappy.Snappy")) {
+                        compressors.add(MongoCompressor.createSnappyCompressor());
+                    } else {
+                        logger.warn("snappy-java is not on the classpath, skipping snappy compression\n");
+                    }
+                    break;
+                case "zlib":
+                    compressors.add(MongoCompressor.createZlibCompressor());
+                    break;
+                default:
+                    throw new DataSourceException("Unknown compressor " + name + ", expected zstd, snappy or zlib.");
+            }
         }
+        return compressors;
+    }
 
+    /**
+     * writeConcern is majority or a number of members, writeConcern.journal and writeConcern.timeoutMillis refine it
+     * @param config
+     * @return
+     */
+    static WriteConcern writeConcern(AppConfig config) {
+        String w = config.get("writeConcern", null);
+        WriteConcern writeConcern;
+        if (w == null) {
+            writeConcern = WriteConcern.ACKNOWLEDGED;
+        } else if ("majority".equalsIgnoreCase(w)) {
+            writeConcern = WriteConcern.MAJORITY;
+        } else {
+            try {
+                writeConcern = new WriteConcern(Integer.parseInt(w));
+            } catch (NumberFormatException nfe) {
+                throw new DataSourceException("Setting writeConcern must be majority or a number, was " + w + ".", nfe);
+            }
+        }
+        String journal = config.get("writeConcern.journal", null);
+        if (journal != null) {
+            writeConcern = writeConcern.withJournal(Boolean.parseBoolean(journal));
+        }
+        long timeout = config.getLong("writeConcern.timeoutMillis", 0);
+        if (timeout > 0) {
+            writeConcern = writeConcern.withWTimeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        return writeConcern;
+    }
+
+    private static boolean onClasspath(String className) {
+        try {
+            Class.forName(className, false, MongoClientFactory.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException cnfe) {
+            return false;
+        }
     }
 
     public void cleanUp(){
         mongoClient.close();
+        synchronized (this) {
+            if (asyncClient != null) {
+                asyncClient.close();
+            }
+        }
     }
 
     public static MongoClientFactory getInstance(){
@@ -66,4 +201,72 @@ public class MongoClientFactory {
         return mongoClient;
     }
 
+    /**
+     * The configured database, "project0" unless the database setting says otherwise
+     * @return
+     */
+    public MongoDatabase getDatabase(){
+        return mongoClient.getDatabase(databaseName);
+    }
+
+    /**
+     * Shared handle of the named collection
+     * @param name
+     * @return
+     */
+    public MongoCollection<Document> getCollection(String name){
+        return getCollection(name, Document.class);
+    }
+
+    /**
+     * Shared handle of the named collection decoding to type. Handles are immutable and thread safe,
+     * so one per (name, type) serves every repository.
+     * @param name
+     * @param type
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> MongoCollection<T> getCollection(String name, Class<T> type){
+        return (MongoCollection<T>) collections.computeIfAbsent(name + "/" + type.getName(),
+                key -> getDatabase().getCollection(name, type));
+    }
+
+    /**
+     * Returns the reactive-streams client, sharing the settings of the sync one.
+     * It has its own connection pool, so it is only created once something asks for it.
+     * @return
+     */
+    public synchronized com.mongodb.reactivestreams.client.MongoClient getAsyncConnection(){
+        if (asyncClient == null) {
+            asyncClient = com.mongodb.reactivestreams.client.MongoClients.create(settings);
+        }
+        return asyncClient;
+    }
+
+    /**
+     * Shared reactive-streams handle of the named collection decoding to type
+     * @param name
+     * @param type
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> com.mongodb.reactivestreams.client.MongoCollection<T> getAsyncCollection(String name, Class<T> type){
+        return (com.mongodb.reactivestreams.client.MongoCollection<T>) asyncCollections.computeIfAbsent(name + "/" + type.getName(),
+                key -> getAsyncConnection().getDatabase(databaseName).getCollection(name, type));
+    }
+
+    /**
+     * Command latency and connection pool metrics of both clients
+     * @return
+     */
+    public MongoMetrics getMetrics(){
+        return metrics;
+    }
+
+    public boolean useTransactions(){
+        return transactions;
+    }
+
 }
@@ -0,0 +1,332 @@
+package com.revature.registrar.util;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClearedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Driver listener recording how long each command takes, per collection, command and the repository method that
+ * issued it, and how the connection pool is doing: open, in-use and available connections, threads waiting for one,
+ * how long they waited and why checkouts failed.
+ * MongoClientFactory registers one instance on both clients, read it with MongoClientFactory.getInstance().getMetrics()
+ * or through the /metrics endpoint.
+ *
+ * The issuing method is found by walking the stack when a command starts, which costs a few microseconds against
+ * commands that take hundreds. Commands started on a driver thread, as the reactive client does once it had to wait
+ * for a connection, have no repository frame and are tagged "driver".
+ */
+public class MongoMetrics implements CommandListener, ConnectionPoolListener {
+
+    static final String APP_PACKAGE = "com.revature.registrar.";
+    static final String REPOSITORY_PACKAGE = APP_PACKAGE + "repository.";
+
+    private final boolean callerTags;
+    private final ConcurrentMap<Integer, CommandStats> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CommandStats> commands = new ConcurrentHashMap<>();
+
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+    private final LongAdder checkOutsStarted = new LongAdder();
+    private final LongAdder checkedOut = new LongAdder();
+    private final LongAdder checkedIn = new LongAdder();
+    private final LongAdder poolCleared = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> checkOutFailures = new ConcurrentHashMap<>();
+    private final LatencyHistogram checkOutWait = new LatencyHistogram();
+    //Checkout events carry no id in this driver, so the wait is timed on the thread that asked for the connection
+    private final ThreadLocal<long[]> checkOutStart = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * @param callerTags false to skip the stack walk and tag every command "unknown"
+     */
+    public MongoMetrics(boolean callerTags) {
+        this.callerTags = callerTags;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String collection = collectionOf(event.getCommandName(), event.getCommand());
+        String caller = callerTags ? callerOf(new Throwable().getStackTrace()) : "unknown";
+        String key = collection + '|' + event.getCommandName() + '|' + caller;
+        CommandStats stats = commands.computeIfAbsent(key, k -> new CommandStats(collection, event.getCommandName(), caller));
+        inFlight.put(event.getRequestId(), stats);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        CommandStats stats = inFlight.remove(event.getRequestId());
+        if (stats != null) {
+            stats.latency.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        CommandStats stats = inFlight.remove(event.getRequestId());
+        if (stats != null) {
+            stats.latency.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            stats.failures.increment();
+        }
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        connectionsCreated.increment();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        connectionsClosed.increment();
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        checkOutsStarted.increment();
+        checkOutStart.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        checkedOut.increment();
+        recordWait();
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        checkOutFailures.computeIfAbsent(event.getReason().name(), reason -> new LongAdder()).increment();
+        recordWait();
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        checkedIn.increment();
+    }
+
+    @Override
+    public void connectionPoolCleared(ConnectionPoolClearedEvent event) {
+        poolCleared.increment();
+    }
+
+    /**
+     * Latency of every (collection, command, caller) seen so far, slowest p99 first
+     * @return
+     */
+    public List<CommandMetrics> commandMetrics() {
+        List<CommandMetrics> result = new ArrayList<>(commands.size());
+        for (CommandStats stats : commands.values()) {
+            result.add(new CommandMetrics(stats.collection, stats.command, stats.caller,
+                    stats.failures.sum(), stats.latency.snapshot()));
+        }
+        result.sort(Comparator.comparingLong((CommandMetrics m) -> m.getLatency().getP99Micros()).reversed());
+        return result;
+    }
+
+    public PoolMetrics poolMetrics() {
+        Map<String, Long> failures = new TreeMap<>();
+        long failed = 0;
+        for (Map.Entry<String, LongAdder> entry : checkOutFailures.entrySet()) {
+            failures.put(entry.getKey(), entry.getValue().sum());
+            failed += entry.getValue().sum();
+        }
+        long open = connectionsCreated.sum() - connectionsClosed.sum();
+        long inUse = checkedOut.sum() - checkedIn.sum();
+        long waiting = checkOutsStarted.sum() - checkedOut.sum() - failed;
+        return new PoolMetrics(open, Math.max(0, inUse), Math.max(0, open - inUse), Math.max(0, waiting),
+                checkedOut.sum(), failed, failures, poolCleared.sum(), checkOutWait.snapshot());
+    }
+
+    private void recordWait() {
+        long[] start = checkOutStart.get();
+        if (start[0] != 0) {
+            checkOutWait.record(System.nanoTime() - start[0], TimeUnit.NANOSECONDS);
+            start[0] = 0;
+        }
+    }
+
+    /**
+     * CRUD commands name their collection as the value of the command name, getMore under "collection".
+     * Anything else, e.g. commitTransaction, is tagged with its database.
+     * @param commandName
+     * @param command
+     * @return
+     */
+    static String collectionOf(String commandName, BsonDocument command) {
+        BsonValue value = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+        return value != null && value.isString() ? value.asString().getValue() : "-";
+    }
+
+    /**
+     * First repository frame as SimpleClassName.method, or the first application frame when no repository is on
+     * the stack. Lambdas report the method they were written in.
+     * @param stack
+     * @return
+     */
+    static String callerOf(StackTraceElement[] stack) {
+        StackTraceElement app = null;
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (!className.startsWith(APP_PACKAGE) || className.equals(MongoMetrics.class.getName())) {
+                continue;
+            }
+            if (className.startsWith(REPOSITORY_PACKAGE)) {
+                return nameOf(frame);
+            }
+            if (app == null) {
+                app = frame;
+            }
+        }
+        return app == null ? "driver" : nameOf(app);
+    }
+
+    private static String nameOf(StackTraceElement frame) {
+        String className = frame.getClassName();
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simpleName.indexOf('$');
+        if (nested > 0) {
+            simpleName = simpleName.substring(0, nested);
+        }
+        String method = frame.getMethodName();
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', "lambda$".length());
+            method = method.substring("lambda$".length(), end > 0 ? end : method.length());
+        }
+        return simpleName + "." + method;
+    }
+
+    private static final class CommandStats {
+        final String collection;
+        final String command;
+        final String caller;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+
+        CommandStats(String collection, String command, String caller) {
+            this.collection = collection;
+            this.command = command;
+            this.caller = caller;
+        }
+    }
+
+    /**
+     * Latency of one command issued by one repository method against one collection
+     */
+    public static final class CommandMetrics {
+        private final String collection;
+        private final String command;
+        private final String caller;
+        private final long failures;
+        private final LatencyHistogram.Snapshot latency;
+
+        CommandMetrics(String collection, String command, String caller, long failures, LatencyHistogram.Snapshot latency) {
+            this.collection = collection;
+            this.command = command;
+            this.caller = caller;
+            this.failures = failures;
+            this.latency = latency;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public String getCaller() {
+            return caller;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Connection pool state summed over every server and both clients
+     */
+    public static final class PoolMetrics {
+        private final long open;
+        private final long inUse;
+        private final long available;
+        private final long waiting;
+        private final long checkOuts;
+        private final long checkOutFailures;
+        private final Map<String, Long> checkOutFailuresByReason;
+        private final long cleared;
+        private final LatencyHistogram.Snapshot checkOutWait;
+
+        PoolMetrics(long open, long inUse, long available, long waiting, long checkOuts, long checkOutFailures,
+                    Map<String, Long> checkOutFailuresByReason, long cleared, LatencyHistogram.Snapshot checkOutWait) {
+            this.open = open;
+            this.inUse = inUse;
+            this.available = available;
+            this.waiting = waiting;
+            this.checkOuts = checkOuts;
+            this.checkOutFailures = checkOutFailures;
+            this.checkOutFailuresByReason = checkOutFailuresByReason;
+            this.cleared = cleared;
+            this.checkOutWait = checkOutWait;
+        }
+
+        public long getOpen() {
+            return open;
+        }
+
+        public long getInUse() {
+            return inUse;
+        }
+
+        public long getAvailable() {
+            return available;
+        }
+
+        public long getWaiting() {
+            return waiting;
+        }
+
+        public long getCheckOuts() {
+            return checkOuts;
+        }
+
+        public long getCheckOutFailures() {
+            return checkOutFailures;
+        }
+
+        public Map<String, Long> getCheckOutFailuresByReason() {
+            return checkOutFailuresByReason;
+        }
+
+        public long getCleared() {
+            return cleared;
+        }
+
+        public LatencyHistogram.Snapshot getCheckOutWait() {
+            return checkOutWait;
+        }
+    }
+}
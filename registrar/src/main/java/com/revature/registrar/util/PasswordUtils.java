@@ -1,70 +1,289 @@
 package com.revature.registrar.util;
 
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
-import java.security.NoSuchAlgorithmException;
+import com.revature.registrar.exceptions.ServiceUnavailableException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
 import java.util.Arrays;
 import java.util.Base64;
-import java.util.Properties;
-import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * The PasswordUtils class provides methods to generate encrypted passwords from plaintext, and to compare plaintext
  * passwords to encrypted passwords with their hash keys.
  *
+ * Hashes are PBKDF2-HMAC-SHA256 with a random salt per password, stored as pbkdf2-sha256$iterations$salt$hash
+ * (Base64 salt and hash), so each one can be verified on its own even after the iteration count is raised.
+ * Two older forms still verify, and needsRehash reports them so a login can replace them:
+ * pbkdf2$hash (PBKDF2-HMAC-SHA1, 10,000 iterations, the global salt setting) and plaintext.
+ *
+ * PBKDF2 runs on a Mac kept per thread, so a hash costs no provider lookup and no allocation per iteration.
+ * The async methods run it on a fixed pool with a bounded queue. When the queue is full they fail fast with
+ * ServiceUnavailableException, so a burst of logins cannot take every request thread.
+ * Iterations, pool size and queue length come from the password.* settings. Tune the iterations with PasswordHashBenchmark.
+ *
  * Code provided by: Java T Point
  * Topic: "How to Encrypt Password in Java?"; Section: "Password-Based Encryption using Salt and Base64"
  * URL: https://www.javatpoint.com/how-to-encrypt-password-in-java
  *
  * Date: 06 August 2021
  */
-public class PasswordUtils {
+public class PasswordUtils implements AutoCloseable {
+
+    static final String ALGORITHM = "pbkdf2-sha256";
+    static final String LEGACY_PREFIX = "pbkdf2$";
+    static final int DEFAULT_ITERATIONS = 210_000;
+    private static final int LEGACY_ITERATIONS = 10_000;
+    private static final int MAX_ITERATIONS = 10_000_000; //bounds the work a corrupt stored hash can ask for
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BYTES = 32;
 
-    private String salt;
-    private final Random random = new SecureRandom();
+    private static final ThreadLocal<Mac> HMAC_SHA256 = ThreadLocal.withInitial(() -> newMac("HmacSHA256"));
+    private static final ThreadLocal<Mac> HMAC_SHA1 = ThreadLocal.withInitial(() -> newMac("HmacSHA1"));
 
+    private final Logger logger = LogManager.getLogger(PasswordUtils.class);
+    private final int iterations;
+    private final String legacySalt; //null when there are no pbkdf2$ hashes to verify
+    private final int threads;
+    private final int queueCapacity;
+    private final SecureRandom random = new SecureRandom();
+    private final String dummyHash;
+    private ThreadPoolExecutor executor; //created on first async call
 
     public PasswordUtils() {
-        Properties appProperties = new Properties();
-        try {
-            ClassLoader loader = Thread.currentThread().getContextClassLoader();
-            appProperties.load(loader.getResourceAsStream("application.properties"));
-            this.salt = appProperties.getProperty("salt");
-            if (salt == null) throw new IllegalStateException("No salt found for password encryption.");
-        } catch(Exception e) {
-            e.printStackTrace();
-        }
+        this(AppConfig.load(AppConfig.DEFAULT_RESOURCE));
+    }
+
+    public PasswordUtils(AppConfig config) {
+        this(config.getInt("password.iterations", DEFAULT_ITERATIONS), config.get("salt", null),
+                config.getInt("password.threads", Runtime.getRuntime().availableProcessors()),
+                config.getInt("password.queue", 16));
     }
 
     /**
-     * The generateSecurePassword method fully encrypts a plaintext password via hash and Base64 encoding.
+     * @param iterations PBKDF2 iterations of new hashes
+     * @param legacySalt the global salt of pbkdf2$ hashes, or null
+     * @param threads size of the hashing pool
+     * @param queueCapacity hashes allowed to wait for a pool thread before the async methods reject
+     */
+    public PasswordUtils(int iterations, String legacySalt, int threads, int queueCapacity) {
+        this.iterations = iterations;
+        this.legacySalt = legacySalt;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.dummyHash = randomHash();
+    }
+
+    /**
+     * A hash in the current format and iteration count which no password matches. Verifying against it when a
+     * username is unknown costs as much as a real check, so the response time does not reveal which usernames exist.
+     * @return
+     */
+    public String getDummyHash() {
+        return dummyHash;
+    }
+
+    //Random salt and key, built without running PBKDF2 so constructing a PasswordUtils stays cheap
+    private String randomHash() {
+        byte[] salt = new byte[SALT_BYTES];
+        byte[] hash = new byte[KEY_BYTES];
+        random.nextBytes(salt);
+        random.nextBytes(hash);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return ALGORITHM + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    /**
+     * The generateSecurePassword method hashes a plaintext password with a fresh salt.
      * @param password - plaintext password to be encrypted.
-     * @return - final encrypted password.
+     * @return - the hash in the pbkdf2-sha256$iterations$salt$hash format.
      */
     public String generateSecurePassword(String password) {
-        byte[] securePassword = hash(password.toCharArray(), salt.getBytes());
-        return Base64.getEncoder().encodeToString(securePassword);
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(HMAC_SHA256.get(), password, salt, iterations, KEY_BYTES);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return ALGORITHM + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
     }
 
     /**
-     * The hash method hashes the plaintext password as a byte[] using the Salt value as a byte[].
-     * @param password - plaintext password in char array.
-     * @param salt - the hash key in byte array.
-     * @return - hashed password as a byte array.
+     * Checks a plaintext password against a stored one in any of the supported forms.
+     * The final comparison takes the same time wherever the first differing byte is.
+     * @param password - plaintext password from the login attempt.
+     * @param stored - the stored password.
+     * @return - true if they match, false also for a stored value that cannot be parsed.
      */
-    private byte[] hash(char[] password, byte[] salt) {
-        PBEKeySpec spec = new PBEKeySpec(password, salt, 10000, 256);
-        Arrays.fill(password, Character.MIN_VALUE);
+    public boolean verify(String password, String stored) {
+        if (password == null || password.isEmpty() || stored == null) {
+            return false;
+        }
         try {
-            SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-            return skf.generateSecret(spec).getEncoded();
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            if (stored.startsWith(ALGORITHM + "$")) {
+                String[] parts = stored.split("\\$");
+                if (parts.length != 4) {
+                    return false;
+                }
+                int storedIterations = Integer.parseInt(parts[1]);
+                if (storedIterations <= 0 || storedIterations > MAX_ITERATIONS) {
+                    return false;
+                }
+                byte[] salt = Base64.getDecoder().decode(parts[2]);
+                byte[] expected = Base64.getDecoder().decode(parts[3]);
+                return MessageDigest.isEqual(pbkdf2(HMAC_SHA256.get(), password, salt, storedIterations, expected.length), expected);
+            }
+            if (stored.startsWith(LEGACY_PREFIX)) {
+                if (legacySalt == null) {
+                    logger.error("A pbkdf2$ hash needs the salt setting to be verified\n");
+                    return false;
+                }
+                byte[] expected = Base64.getDecoder().decode(stored.substring(LEGACY_PREFIX.length()));
+                return MessageDigest.isEqual(pbkdf2(HMAC_SHA1.get(), password, legacySalt.getBytes(StandardCharsets.UTF_8),
+                        LEGACY_ITERATIONS, KEY_BYTES), expected);
+            }
+        } catch (IllegalArgumentException iae) { //also covers NumberFormatException
+            return false;
+        }
+        return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param stored - a stored password.
+     * @return - true unless it is a pbkdf2-sha256 hash with the configured iteration count; a login that verified
+     * against it should store generateSecurePassword of the password instead.
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(ALGORITHM + "$")) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !parts[1].equals(String.valueOf(iterations));
+    }
+
+    /**
+     * generateSecurePassword on the hashing pool
+     * @param password
+     * @return fails with ServiceUnavailableException if the pool queue is full
+     */
+    public CompletableFuture<String> generateSecurePasswordAsync(String password) {
+        return submit(() -> generateSecurePassword(password));
+    }
+
+    /**
+     * verify on the hashing pool
+     * @param password
+     * @param stored
+     * @return fails with ServiceUnavailableException if the pool queue is full
+     */
+    public CompletableFuture<Boolean> verifyAsync(String password, String stored) {
+        return submit(() -> verify(password, stored));
+    }
+
+    /**
+     * Stops the hashing pool, hashes already queued still complete
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor().execute(() -> {
+                try {
+                    future.complete(work.get());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            logger.error("Password hashing queue is full\n");
+            future.completeExceptionally(new ServiceUnavailableException("Too many logins in progress, please try again shortly"));
+        }
+        return future;
+    }
+
+    private synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            AtomicInteger count = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return executor;
+    }
+
+    /**
+     * PBKDF2 (RFC 8018) with mac as the PRF. The password is the HMAC key, UTF-8 encoded like SecretKeyFactory does.
+     * @param mac - a thread-confined Mac, re-keyed here.
+     * @param password - plaintext password.
+     * @param salt - the salt in byte array.
+     * @param iterations - the iteration count.
+     * @param keyLength - bytes of output.
+     * @return - the derived key.
+     */
+    static byte[] pbkdf2(Mac mac, String password, byte[] salt, int iterations, int keyLength) {
+        byte[] key = password.getBytes(StandardCharsets.UTF_8);
+        try {
+            mac.init(new SecretKeySpec(key, mac.getAlgorithm()));
+        } catch (InvalidKeyException e) {
             throw new AssertionError("Error while hashing a password: " + e.getMessage(), e);
         } finally {
-            spec.clearPassword();
+            Arrays.fill(key, (byte) 0);
         }
+
+        int macLength = mac.getMacLength();
+        byte[] result = new byte[keyLength];
+        byte[] u = new byte[macLength];
+        byte[] t = new byte[macLength];
+        try {
+            for (int block = 1, offset = 0; offset < keyLength; block++, offset += macLength) {
+                mac.update(salt);
+                mac.update((byte) (block >>> 24));
+                mac.update((byte) (block >>> 16));
+                mac.update((byte) (block >>> 8));
+                mac.update((byte) block);
+                mac.doFinal(u, 0);
+                System.arraycopy(u, 0, t, 0, macLength);
+                for (int i = 1; i < iterations; i++) {
+                    mac.update(u);
+                    mac.doFinal(u, 0);
+                    for (int j = 0; j < macLength; j++) {
+                        t[j] ^= u[j];
+                    }
+                }
+                System.arraycopy(t, 0, result, offset, Math.min(macLength, keyLength - offset));
+            }
+        } catch (ShortBufferException e) {
+            throw new AssertionError("Error while hashing a password: " + e.getMessage(), e);
+        }
+        return result;
     }
 
+    private static Mac newMac(String algorithm) {
+        try {
+            return Mac.getInstance(algorithm);
+        } catch (GeneralSecurityException e) {
+            throw new AssertionError("Missing " + algorithm + ": " + e.getMessage(), e);
+        }
+    }
 }
@@ -5,7 +5,6 @@ import com.revature.registrar.models.Faculty;
 import com.revature.registrar.models.Student;
 import com.revature.registrar.models.User;
 
-import java.util.Calendar;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -13,9 +12,10 @@ public class ClassModelDTO {
     private int id;
     private String name;
     private int capacity;
+    private int enrolledCount;
     private String description;
-    private Calendar openWindow;
-    private Calendar closeWindow;
+    private long openWindow; //epoch millis
+    private long closeWindow; //epoch millis
 
     private Set<UserDTO> students = new HashSet<>();
     private Set<UserDTO> faculty = new HashSet<>(); //Could have multiple faculty members per class
@@ -24,6 +24,7 @@ public class ClassModelDTO {
         this.id = subject.getId();
         this.name = subject.getName();
         this.capacity = subject.getCapacity();
+        this.enrolledCount = subject.getEnrolledCount();
         this.description = subject.getDescription();
         this.openWindow = subject.getOpenWindow();
         this.closeWindow = subject.getCloseWindow();
@@ -1,5 +1,6 @@
 package com.revature.registrar.web.dtos;
 
+import com.revature.registrar.models.Role;
 import com.revature.registrar.models.User;
 
 import java.util.Objects;
@@ -8,14 +9,21 @@ public class Principal {
 
     private int id;
     private String username;
+    private Role role;
+    private long expiresAt; //epoch millis the token carrying this principal stops being accepted, 0 if none was issued
 
     public Principal() {
         super();
     }
 
     public Principal(User subject) {
-        this.id = subject.getId();
-        this.username = subject.getUsername();
+        this(subject.getId(), subject.getUsername(), Role.of(subject.isFaculty()));
+    }
+
+    public Principal(int id, String username, Role role) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
     }
 
     public int getId() {
@@ -34,17 +42,33 @@ public class Principal {
         this.username = username;
     }
 
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Principal principal = (Principal) o;
-        return Objects.equals(id, principal.id) && Objects.equals(username, principal.username);
+        return Objects.equals(id, principal.id) && Objects.equals(username, principal.username) && role == principal.role;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, username);
+        return Objects.hash(id, username, role);
     }
 
     @Override
@@ -52,6 +76,8 @@ public class Principal {
         return "Principal{" +
                 "id='" + id + '\'' +
                 ", username='" + username + '\'' +
+                ", role=" + role +
+                ", expiresAt=" + expiresAt +
                 '}';
     }
 
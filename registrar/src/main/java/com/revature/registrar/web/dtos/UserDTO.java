@@ -1,10 +1,12 @@
 package com.revature.registrar.web.dtos;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.revature.registrar.models.User;
 
 
 import java.util.Objects;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class UserDTO {
 
     private int id;
@@ -13,6 +15,11 @@ public class UserDTO {
     private String email;
     private String username;
     private boolean isFaculty;
+    private int version;
+
+    public UserDTO() {
+        super();
+    }
 
     public UserDTO(User subject) {
         this.id = subject.getId();
@@ -21,6 +28,7 @@ public class UserDTO {
         this.email = subject.getEmail();
         this.username = subject.getUsername();
         this.isFaculty = subject.isFaculty();
+        this.version = subject.getVersion();
     }
 
     public int getId() {
@@ -55,6 +63,14 @@ public class UserDTO {
         this.email = email;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public String getUsername() {
         return username;
     }
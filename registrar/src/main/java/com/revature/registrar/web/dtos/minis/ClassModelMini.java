@@ -5,7 +5,6 @@ import com.revature.registrar.models.Faculty;
 import com.revature.registrar.models.Student;
 import com.revature.registrar.models.User;
 
-import java.util.Calendar;
 import java.util.Set;
 
 //ClassModelDTO without reference to Users
@@ -14,15 +13,17 @@ public class ClassModelMini {
     private int id;
     private String name;
     private int capacity;
+    private int enrolledCount;
     private String description;
-    private Calendar openWindow;
-    private Calendar closeWindow;
+    private long openWindow; //epoch millis
+    private long closeWindow; //epoch millis
 
 
     public ClassModelMini(ClassModel subject) {
         this.id = subject.getId();
         this.name = subject.getName();
         this.capacity = subject.getCapacity();
+        this.enrolledCount = subject.getEnrolledCount();
         this.description = subject.getDescription();
         this.openWindow = subject.getOpenWindow();
         this.closeWindow = subject.getCloseWindow();
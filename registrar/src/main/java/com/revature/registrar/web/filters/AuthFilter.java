@@ -0,0 +1,181 @@
+package com.revature.registrar.web.filters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.registrar.models.Role;
+import com.revature.registrar.web.dtos.ErrorResponse;
+import com.revature.registrar.web.dtos.Principal;
+import com.revature.registrar.web.util.PrincipalTokens;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Resolves the caller once per request and enforces who may call what, so servlets only read the result.
+ *
+ * The bearer token is verified and its Principal put on the request as "auth-user", see principalOf.
+ * A token that is present but forged, expired or revoked is answered with 401 right here.
+ * Access rules are declared when the filter is built, e.g. requireRole("GET", "/users", Role.ADMIN), and matched
+ * by method and path, the path covering everything below it. The first matching rule wins. A request matching
+ * none is open to anyone. Without a login a protected request gets 401, with the wrong role 403.
+ * The path is the servlet path plus path info, which the container has already decoded and normalized the same way
+ * it did to pick the servlet, so /users;x=1, /%75sers and //users are all matched as /users.
+ * Servlets still check their caller with requirePrincipal, in case a rule is missing.
+ * Registered by ContextLoaderListener, since it needs the PrincipalTokens of the application.
+ */
+public class AuthFilter extends HttpFilter {
+
+    public static final String PRINCIPAL_ATTRIBUTE = "auth-user";
+
+    private final Logger logger = LoggerFactory.getLogger(AuthFilter.class);
+    private final PrincipalTokens tokens;
+    private final ObjectMapper mapper;
+    private final List<Rule> rules = new ArrayList<>();
+
+    public AuthFilter(PrincipalTokens tokens, ObjectMapper mapper) {
+        this.tokens = tokens;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Requests of method to path, or below it, need a login
+     * @param method
+     * @param path
+     * @return this filter
+     */
+    public AuthFilter requireLogin(String method, String path) {
+        rules.add(new Rule(method, path, EnumSet.allOf(Role.class)));
+        return this;
+    }
+
+    /**
+     * Requests of method to path, or below it, need a login with one of roles
+     * @param method
+     * @param path
+     * @param roles
+     * @return this filter
+     */
+    public AuthFilter requireRole(String method, String path, Role... roles) {
+        rules.add(new Rule(method, path, EnumSet.copyOf(Arrays.asList(roles))));
+        return this;
+    }
+
+    /**
+     * The Principal this filter resolved for req
+     * @param req
+     * @return null if the request carries no token
+     */
+    public static Principal principalOf(HttpServletRequest req) {
+        return (Principal) req.getAttribute(PRINCIPAL_ATTRIBUTE);
+    }
+
+    /**
+     * The Principal this filter resolved for req, provided it has one of roles, or any role if none are given.
+     * Otherwise answers 401 without a login and 403 with the wrong role.
+     * @param req
+     * @param resp
+     * @param mapper
+     * @param roles
+     * @return null if the error has been written
+     */
+    public static Principal requirePrincipal(HttpServletRequest req, HttpServletResponse resp, ObjectMapper mapper, Role... roles) throws IOException {
+        Principal principal = principalOf(req);
+        if (principal == null) {
+            writeError(resp, mapper, 401, "No token found, please login.");
+            return null;
+        }
+        if (roles.length > 0 && !Arrays.asList(roles).contains(principal.getRole())) {
+            writeError(resp, mapper, 403, "Unauthorized attempt to access endpoint made by: " + principal.getUsername());
+            return null;
+        }
+        return principal;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest req, HttpServletResponse resp, FilterChain chain) throws IOException, ServletException {
+        Principal principal = null;
+        String header = req.getHeader("Authorization");
+        if (header != null && header.startsWith(PrincipalTokens.SCHEME)) {
+            principal = tokens.verify(header.substring(PrincipalTokens.SCHEME.length()));
+            if (principal == null) {
+                writeError(resp, mapper, 401, "Invalid or expired token, please login.");
+                return;
+            }
+            req.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        }
+
+        Set<Role> allowed = allowedRoles(req.getMethod(), pathOf(req));
+        if (allowed != null) {
+            if (principal == null) {
+                writeError(resp, mapper, 401, "No token found, please login.");
+                return;
+            }
+            if (!allowed.contains(principal.getRole())) {
+                String msg = "Unauthorized attempt to access endpoint made by: " + principal.getUsername();
+                logger.info(msg);
+                writeError(resp, mapper, 403, msg);
+                return;
+            }
+        }
+        chain.doFilter(req, resp);
+    }
+
+    /**
+     * The decoded and normalized path of req below the context path, the same one the container mapped to a servlet.
+     * The raw request URI is not used, it still carries ;parameters, percent-encoding and repeated slashes.
+     * @param req
+     * @return
+     */
+    static String pathOf(HttpServletRequest req) {
+        String pathInfo = req.getPathInfo();
+        return req.getServletPath() + (pathInfo == null ? "" : pathInfo);
+    }
+
+    /**
+     * @param method
+     * @param path decoded and normalized request path without the context path, see pathOf
+     * @return the roles of the first rule matching, or null if the request is open to anyone
+     */
+    Set<Role> allowedRoles(String method, String path) {
+        for (Rule rule : rules) {
+            if (rule.matches(method, path)) {
+                return rule.roles;
+            }
+        }
+        return null;
+    }
+
+    private static void writeError(HttpServletResponse resp, ObjectMapper mapper, int status, String msg) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType("application/json");
+        resp.getWriter().write(mapper.writeValueAsString(new ErrorResponse(status, msg)));
+    }
+
+    private static final class Rule {
+        final String method;
+        final String path;
+        final Set<Role> roles;
+
+        Rule(String method, String path, Set<Role> roles) {
+            this.method = method;
+            this.path = path;
+            this.roles = Collections.unmodifiableSet(roles);
+        }
+
+        boolean matches(String requestMethod, String requestPath) {
+            return method.equalsIgnoreCase(requestMethod)
+                    && (requestPath.equals(path) || requestPath.startsWith(path + "/"));
+        }
+    }
+}
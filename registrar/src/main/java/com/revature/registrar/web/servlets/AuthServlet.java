@@ -1,30 +1,46 @@
 package com.revature.registrar.web.servlets;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.revature.registrar.services.UserService;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.revature.registrar.services.AsyncUserService;
+import com.revature.registrar.util.LoginThrottle;
 import com.revature.registrar.exceptions.AuthenticationException;
+import com.revature.registrar.exceptions.ServiceUnavailableException;
 import com.revature.registrar.web.dtos.Credentials;
 import com.revature.registrar.web.dtos.ErrorResponse;
 import com.revature.registrar.web.dtos.Principal;
+import com.revature.registrar.web.util.AsyncResponses;
+import com.revature.registrar.web.util.PrincipalTokens;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.concurrent.CompletableFuture;
 
 public class AuthServlet extends HttpServlet {
 
-    private final UserService userService;
+    private final AsyncUserService userService;
+    private final LoginThrottle throttle;
+    private final PrincipalTokens tokens;
     private final ObjectMapper mapper;
 
-    public AuthServlet(UserService userService, ObjectMapper mapper) {
+    public AuthServlet(AsyncUserService userService, LoginThrottle throttle, PrincipalTokens tokens, ObjectMapper mapper) {
         this.userService = userService;
+        this.throttle = throttle;
+        this.tokens = tokens;
         this.mapper = mapper;
     }
 
+    /**
+     * Logs in, answering with the Principal and its signed token in the Authorization header
+     * @param req
+     * @param resp
+     * @throws ServletException
+     * @throws IOException
+     */
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
@@ -32,26 +48,67 @@ public class AuthServlet extends HttpServlet {
         PrintWriter respWriter = resp.getWriter();
         resp.setContentType("application/json");
 
+        Credentials creds;
         try {
-
-            Credentials creds = mapper.readValue(req.getInputStream(), Credentials.class);
-            Principal principal = userService.login(creds.getUsername(), creds.getPassword());
-            String payload = mapper.writeValueAsString(principal);
-            respWriter.write(payload);
-
-            HttpSession session = req.getSession();
-            session.setAttribute("auth-user", principal);
-
-        } catch (AuthenticationException ae) {
-            resp.setStatus(401); // server's fault
-            ErrorResponse errResp = new ErrorResponse(401, ae.getMessage());
+            creds = mapper.readValue(req.getInputStream(), Credentials.class);
+        } catch (MismatchedInputException e) {
+            resp.setStatus(400); // client's fault
+            ErrorResponse errResp = new ErrorResponse(400, e.getMessage());
             respWriter.write(mapper.writeValueAsString(errResp));
-        }  catch (Exception e) {
-            e.printStackTrace();
-            resp.setStatus(500); // server's fault
-            ErrorResponse errResp = new ErrorResponse(500, "The server experienced an issue, please try again later.");
+            return;
+        }
+
+        //Throttled before the user lookup and the password hash, the remote address is the peer, proxies are not trusted
+        String address = req.getRemoteAddr();
+        long retryMillis = throttle.tryAcquire(creds.getUsername(), address);
+        if (retryMillis > 0) {
+            resp.setStatus(429);
+            resp.setHeader("Retry-After", String.valueOf((retryMillis + 999) / 1000));
+            ErrorResponse errResp = new ErrorResponse(429, "Too many login attempts, please try again later.");
             respWriter.write(mapper.writeValueAsString(errResp));
+            return;
         }
 
+        CompletableFuture<?> work = userService.login(creds.getUsername(), creds.getPassword())
+                .thenAccept(principal -> {
+                    if (principal == null) {
+                        throw new AuthenticationException("Invalid credentials provided!");
+                    }
+                    throttle.recordSuccess(creds.getUsername(), address);
+                    resp.setHeader("Authorization", PrincipalTokens.SCHEME + tokens.issue(principal));
+                    AsyncResponses.writeJson(mapper, resp, principal);
+                });
+
+        AsyncResponses.complete(req, work, (err, asyncResp) -> {
+            if (err instanceof AuthenticationException) {
+                AsyncResponses.writeError(mapper, asyncResp, 401, err.getMessage());
+            } else if (err instanceof ServiceUnavailableException) {
+                asyncResp.setHeader("Retry-After", "1");
+                AsyncResponses.writeError(mapper, asyncResp, 503, err.getMessage()); // hashing pool saturated
+            } else {
+                err.printStackTrace();
+                AsyncResponses.writeError(mapper, asyncResp, 500, "The server experienced an issue, please try again later."); // server's fault
+            }
+        });
+    }
+
+    /**
+     * Logs out by revoking the bearer token of the request
+     * @param req
+     * @param resp
+     * @throws ServletException
+     * @throws IOException
+     */
+    @Override
+    protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String header = req.getHeader("Authorization");
+        if (header == null || !header.startsWith(PrincipalTokens.SCHEME)) {
+            resp.setContentType("application/json");
+            resp.setStatus(401);
+            resp.getWriter().write(mapper.writeValueAsString(new ErrorResponse(401, "No token found, please login.")));
+            return;
+        }
+        tokens.revoke(header.substring(PrincipalTokens.SCHEME.length()));
+        resp.setStatus(204);
     }
 }
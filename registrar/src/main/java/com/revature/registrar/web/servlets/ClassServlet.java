@@ -0,0 +1,81 @@
+package com.revature.registrar.web.servlets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.registrar.exceptions.InvalidRequestException;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.services.AsyncClassService;
+import com.revature.registrar.web.filters.AuthFilter;
+import com.revature.registrar.web.util.AsyncResponses;
+import com.revature.registrar.web.util.JsonArrayWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+
+public class ClassServlet extends HttpServlet {
+
+    private final Logger logger = LoggerFactory.getLogger(ClassServlet.class);
+    private final AsyncClassService classService;
+    private final ObjectMapper mapper;
+
+    public ClassServlet(AsyncClassService classService, ObjectMapper mapper) {
+        this.classService = classService;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Lists the classes open for enrollment as ClassSummaries.
+     * With ?limit=n[&cursor=nextCursor] returns one keyset page, otherwise streams the whole catalog.
+     * Needs a login, which AuthFilter checks and this checks again. The response is completed asynchronously once the database answers.
+     */
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        PrintWriter respWriter = resp.getWriter();
+        resp.setContentType("application/json");
+
+        if (AuthFilter.requirePrincipal(req, resp, mapper) == null) {
+            return;
+        }
+
+        String limitParam = req.getParameter("limit");
+
+        CompletableFuture<?> work;
+        try {
+
+            if (limitParam != null) {
+                work = classService.getOpenClassSummaries(req.getParameter("cursor"), Integer.parseInt(limitParam))
+                        .thenAccept(page -> AsyncResponses.writeJson(mapper, resp, page));
+            } else {
+                // Each batch is written as it arrives from the driver, the container thread is not held meanwhile
+                JsonArrayWriter<ClassSummary> classes = new JsonArrayWriter<>(mapper, respWriter);
+                work = classService.streamOpenClassSummaries(classes)
+                        .thenAccept(count -> {
+                            try {
+                                classes.close();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+            }
+
+        } catch (NumberFormatException e) {
+            work = AsyncResponses.failed(e);
+        }
+
+        AsyncResponses.complete(req, work, (err, asyncResp) -> {
+            if (err instanceof InvalidRequestException || err instanceof NumberFormatException) {
+                AsyncResponses.writeError(mapper, asyncResp, 400, err.getMessage()); // client's fault
+            } else {
+                logger.error("Unable to list classes", err);
+                AsyncResponses.writeError(mapper, asyncResp, 500, "The server experienced an issue, please try again later."); // server's fault
+            }
+        });
+    }
+}
@@ -1,16 +1,41 @@
 package com.revature.registrar.web.servlets;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.registrar.repository.ClassModelCache;
+import com.revature.registrar.repository.UserCache;
+
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class HealthCheckServlet extends HttpServlet {
 
+    private final ClassModelCache classCache; //null when the class cache is off
+    private final UserCache userCache; //null when the user cache is off
+    private final ObjectMapper mapper;
+
+    public HealthCheckServlet(ClassModelCache classCache, UserCache userCache, ObjectMapper mapper) {
+        this.classCache = classCache;
+        this.userCache = userCache;
+        this.mapper = mapper;
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
-        resp.getWriter().write("{ \"status\": \"UP\" }");
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", "UP");
+        if (classCache != null) {
+            health.put("classCache", classCache.stats());
+        }
+        if (userCache != null) {
+            health.put("userCache", userCache.stats());
+        }
+        resp.setContentType("application/json");
+        mapper.writeValue(resp.getWriter(), health);
     }
 
 }
@@ -0,0 +1,57 @@
+package com.revature.registrar.web.servlets;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.registrar.models.Role;
+import com.revature.registrar.util.LoginThrottle;
+import com.revature.registrar.util.MongoMetrics;
+import com.revature.registrar.web.filters.AuthFilter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Exports MongoMetrics as JSON: command latency per collection, command and repository method, plus the
+ * connection pool state, along with the LoginThrottle counters. ?collection=users narrows the commands to one collection.
+ */
+public class MetricsServlet extends HttpServlet {
+
+    private final MongoMetrics metrics;
+    private final LoginThrottle throttle;
+    private final ObjectMapper mapper;
+
+    public MetricsServlet(MongoMetrics metrics, LoginThrottle throttle, ObjectMapper mapper) {
+        this.metrics = metrics;
+        this.throttle = throttle;
+        this.mapper = mapper;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        // AuthFilter lets only admins through, checked again in case its rule is missed
+        if (AuthFilter.requirePrincipal(req, resp, mapper, Role.ADMIN) == null) {
+            return;
+        }
+        List<MongoMetrics.CommandMetrics> commands = metrics.commandMetrics();
+        String collection = req.getParameter("collection");
+        if (collection != null) {
+            commands = commands.stream()
+                    .filter(command -> command.getCollection().equals(collection))
+                    .collect(Collectors.toList());
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("pool", metrics.poolMetrics());
+        body.put("commands", commands);
+        body.put("loginThrottle", throttle.stats());
+        resp.setContentType("application/json");
+        mapper.writeValue(resp.getWriter(), body);
+    }
+
+}
@@ -2,14 +2,20 @@ package com.revature.registrar.web.servlets;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.revature.registrar.models.Role;
 import com.revature.registrar.models.User;
-import com.revature.registrar.services.UserService;
+import com.revature.registrar.services.AsyncUserService;
 import com.revature.registrar.exceptions.InvalidRequestException;
 import com.revature.registrar.exceptions.ResourceNotFoundException;
 import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.exceptions.ServiceUnavailableException;
+import com.revature.registrar.exceptions.VersionConflictException;
 import com.revature.registrar.web.dtos.UserDTO;
 import com.revature.registrar.web.dtos.ErrorResponse;
 import com.revature.registrar.web.dtos.Principal;
+import com.revature.registrar.web.filters.AuthFilter;
+import com.revature.registrar.web.util.AsyncResponses;
+import com.revature.registrar.web.util.JsonArrayWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,18 +23,18 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
 
 public class UserServlet extends HttpServlet {
 
     private final Logger logger = LoggerFactory.getLogger(UserServlet.class);
-    private final UserService userService;
+    private final AsyncUserService userService;
     private final ObjectMapper mapper;
 
-    public UserServlet(UserService userService, ObjectMapper mapper) {
+    public UserServlet(AsyncUserService userService, ObjectMapper mapper) {
         this.userService = userService;
         this.mapper = mapper;
     }
@@ -39,53 +45,51 @@ public class UserServlet extends HttpServlet {
         PrintWriter respWriter = resp.getWriter();
         resp.setContentType("application/json");
 
-        // Get the session from the request, if it exists (do not create one)
-        HttpSession session = req.getSession(false);
-
-        // If the session is not null, then grab the auth-user attribute from it
-        Principal requestingUser = (session == null) ? null : (Principal) session.getAttribute("auth-user");
-
-        // Check to see if there was a valid auth-user attribute
-        if (requestingUser == null) {
-            String msg = "No session found, please login.";
-            logger.info(msg);
-            resp.setStatus(401);
-            ErrorResponse errResp = new ErrorResponse(401, msg);
-            respWriter.write(mapper.writeValueAsString(errResp));
-            return;
-        } else if (!requestingUser.getUsername().equals("wsingleton")) {
-            String msg = "Unauthorized attempt to access endpoint made by: " + requestingUser.getUsername();
-            logger.info(msg);
-            resp.setStatus(403);
-            ErrorResponse errResp = new ErrorResponse(403, msg);
-            respWriter.write(mapper.writeValueAsString(errResp));
+        // AuthFilter lets only admins through, checked again in case its rule is missed
+        if (AuthFilter.requirePrincipal(req, resp, mapper, Role.ADMIN) == null) {
             return;
         }
 
         String userIdParam = req.getParameter("id");
 
+        CompletableFuture<?> work;
         try {
 
-            if (userIdParam == null) {
-                List<UserDTO> users = userService.findAll();
-                respWriter.write(mapper.writeValueAsString(users));
+            if (userIdParam == null && req.getParameter("limit") != null) {
+                // Keyset paginated: ?limit=n[&cursor=nextCursor]
+                int limit = Integer.parseInt(req.getParameter("limit"));
+                work = userService.findAll(req.getParameter("cursor"), limit)
+                        .thenAccept(page -> AsyncResponses.writeJson(mapper, resp, page));
+            } else if (userIdParam == null) {
+                // Streamed straight off the cursor, never buffered as a list
+                JsonArrayWriter<UserDTO> users = new JsonArrayWriter<>(mapper, respWriter);
+                work = userService.streamAll(users)
+                        .thenAccept(count -> {
+                            try {
+                                users.close();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
             } else {
-                UserDTO user = userService.getUserWithId(Integer.parseInt(userIdParam));
-                respWriter.write(mapper.writeValueAsString(user));
+                work = userService.getUserWithId(Integer.parseInt(userIdParam))
+                        .thenAccept(user -> AsyncResponses.writeJson(mapper, resp, new UserDTO(user)));
             }
 
-        } catch (ResourceNotFoundException rnfe) {
-            resp.setStatus(404);
-            ErrorResponse errResp = new ErrorResponse(404, rnfe.getMessage());
-            respWriter.write(mapper.writeValueAsString(errResp));
-        } catch (Exception e) {
-            e.printStackTrace();
-            resp.setStatus(500); // server's fault
-            ErrorResponse errResp = new ErrorResponse(500, "The server experienced an issue, please try again later.");
-            respWriter.write(mapper.writeValueAsString(errResp));
+        } catch (NumberFormatException e) {
+            work = AsyncResponses.failed(e);
         }
 
-
+        AsyncResponses.complete(req, work, (err, asyncResp) -> {
+            if (err instanceof InvalidRequestException || err instanceof NumberFormatException) {
+                AsyncResponses.writeError(mapper, asyncResp, 400, err.getMessage()); // client's fault
+            } else if (err instanceof ResourceNotFoundException) {
+                AsyncResponses.writeError(mapper, asyncResp, 404, err.getMessage());
+            } else {
+                logger.error("Unable to read users", err);
+                AsyncResponses.writeError(mapper, asyncResp, 500, "The server experienced an issue, please try again later."); // server's fault
+            }
+        });
     }
 
     @Override
@@ -95,28 +99,90 @@ public class UserServlet extends HttpServlet {
         PrintWriter respWriter = resp.getWriter();
         resp.setContentType("application/json");
 
+        User newUser;
         try {
+            newUser = mapper.readValue(req.getInputStream(), User.class);
+        } catch (MismatchedInputException e) {
+            resp.setStatus(400); // client's fault
+            ErrorResponse errResp = new ErrorResponse(400, e.getMessage());
+            respWriter.write(mapper.writeValueAsString(errResp));
+            return;
+        }
 
-            User newUser = mapper.readValue(req.getInputStream(), User.class);
-            Principal principal = new Principal(userService.register(newUser)); // after this, the newUser should have a new id
-            String payload = mapper.writeValueAsString(principal);
-            respWriter.write(payload);
-            resp.setStatus(201);
+        CompletableFuture<?> work = userService.register(newUser)
+                .thenAccept(user -> {
+                    resp.setStatus(201);
+                    AsyncResponses.writeJson(mapper, resp, new Principal(user));
+                });
+
+        AsyncResponses.complete(req, work, (err, asyncResp) -> {
+            if (err instanceof InvalidRequestException) {
+                AsyncResponses.writeError(mapper, asyncResp, 400, err.getMessage()); // client's fault
+            } else if (err instanceof ResourcePersistenceException) {
+                AsyncResponses.writeError(mapper, asyncResp, 409, err.getMessage());
+            } else if (err instanceof ServiceUnavailableException) {
+                asyncResp.setHeader("Retry-After", "1");
+                AsyncResponses.writeError(mapper, asyncResp, 503, err.getMessage()); // hashing pool saturated
+            } else {
+                logger.error("Unable to register user", err);
+                asyncResp.setStatus(500); // server's fault
+            }
+        });
+    }
+
+    /**
+     * Updates the first and last name of the logged in user. The body must carry the version the client read,
+     * a stale version is rejected with 409 rather than overwriting someone else's change.
+     * @param req
+     * @param resp
+     * @throws ServletException
+     * @throws IOException
+     */
+    @Override
+    protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        PrintWriter respWriter = resp.getWriter();
+        resp.setContentType("application/json");
+
+        // AuthFilter rejects a request without a login, checked again in case its rule is missed
+        Principal requestingUser = AuthFilter.requirePrincipal(req, resp, mapper);
+        if (requestingUser == null) {
+            return;
+        }
 
-        } catch (InvalidRequestException | MismatchedInputException e) {
-            e.printStackTrace();
+        UserDTO changes;
+        try {
+            changes = mapper.readValue(req.getInputStream(), UserDTO.class);
+        } catch (MismatchedInputException e) {
             resp.setStatus(400); // client's fault
             ErrorResponse errResp = new ErrorResponse(400, e.getMessage());
             respWriter.write(mapper.writeValueAsString(errResp));
-        } catch (ResourcePersistenceException rpe) {
-            resp.setStatus(409);
-            ErrorResponse errResp = new ErrorResponse(409, rpe.getMessage());
-            respWriter.write(mapper.writeValueAsString(errResp));
-        } catch (Exception e) {
-            e.printStackTrace();
-            resp.setStatus(500); // server's fault
+            return;
         }
 
-
+        CompletableFuture<?> work = userService.getUserWithId(requestingUser.getId())
+                .thenCompose(user -> {
+                    user.setFirstName(changes.getFirstName());
+                    user.setLastName(changes.getLastName());
+                    user.setVersion(changes.getVersion());
+                    return userService.update(user).thenAccept(updated -> {
+                        if (!updated) {
+                            throw new ResourceNotFoundException();
+                        }
+                        AsyncResponses.writeJson(mapper, resp, new UserDTO(user));
+                    });
+                });
+
+        AsyncResponses.complete(req, work, (err, asyncResp) -> {
+            if (err instanceof InvalidRequestException) {
+                AsyncResponses.writeError(mapper, asyncResp, 400, err.getMessage()); // client's fault
+            } else if (err instanceof ResourceNotFoundException) {
+                AsyncResponses.writeError(mapper, asyncResp, 404, err.getMessage());
+            } else if (err instanceof VersionConflictException) {
+                AsyncResponses.writeError(mapper, asyncResp, 409, err.getMessage()); // stale version, client should re-read and retry
+            } else {
+                logger.error("Unable to update user", err);
+                AsyncResponses.writeError(mapper, asyncResp, 500, "The server experienced an issue, please try again later."); // server's fault
+            }
+        });
     }
 }
@@ -0,0 +1,89 @@
+package com.revature.registrar.web.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.registrar.web.dtos.ErrorResponse;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Helpers for servlets which answer from a CompletableFuture. The request is put in async mode, the
+ * container thread goes back to the pool, and the response is written and completed on whichever
+ * thread completes the future.
+ */
+public final class AsyncResponses {
+
+    private AsyncResponses() {
+    }
+
+    /**
+     * Starts async mode on req and completes it once work completes. onError is given the unwrapped cause
+     * of a failed future and writes the error response.
+     * @param req
+     * @param work
+     * @param onError
+     */
+    public static void complete(HttpServletRequest req, CompletableFuture<?> work, BiConsumer<Throwable, HttpServletResponse> onError) {
+        AsyncContext async = req.startAsync();
+        work.whenComplete((ignored, err) -> {
+            try {
+                if (err != null) {
+                    onError.accept(unwrap(err), (HttpServletResponse) async.getResponse());
+                }
+            } finally {
+                async.complete();
+            }
+        });
+    }
+
+    /**
+     * Writes value as the JSON body of resp
+     * @param mapper
+     * @param resp
+     * @param value
+     */
+    public static void writeJson(ObjectMapper mapper, HttpServletResponse resp, Object value) {
+        try {
+            resp.getWriter().write(mapper.writeValueAsString(value));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sets the status and writes an ErrorResponse body
+     * @param mapper
+     * @param resp
+     * @param status
+     * @param msg
+     */
+    public static void writeError(ObjectMapper mapper, HttpServletResponse resp, int status, String msg) {
+        resp.setStatus(status);
+        writeJson(mapper, resp, new ErrorResponse(status, msg));
+    }
+
+    /**
+     * Returns a future already failed with t, for errors raised before any database call
+     * @param t
+     * @param <T>
+     * @return
+     */
+    public static <T> CompletableFuture<T> failed(Throwable t) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+}
@@ -5,42 +5,130 @@ import ch.qos.logback.classic.joran.JoranConfigurator;
 import ch.qos.logback.core.joran.spi.JoranException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mongodb.client.MongoClient;
-import com.revature.registrar.repository.UserRepository;
+import com.revature.registrar.models.Role;
+import com.revature.registrar.repository.AsyncClassModelRepo;
+import com.revature.registrar.repository.AsyncUserRepository;
+import com.revature.registrar.repository.CachingAsyncClassModelRepo;
+import com.revature.registrar.repository.CachingAsyncUserRepository;
+import com.revature.registrar.repository.ClassModelCache;
+import com.revature.registrar.repository.ClassModelRepo;
+import com.revature.registrar.repository.InMemoryEngine;
+import com.revature.registrar.repository.IndexManager;
+import com.revature.registrar.repository.MongoAsyncClassModelRepo;
+import com.revature.registrar.repository.MongoAsyncUserRepository;
+import com.revature.registrar.repository.MongoClassModelRepo;
+import com.revature.registrar.repository.OpenClassScheduler;
+import com.revature.registrar.repository.ScheduledAsyncClassModelRepo;
+import com.revature.registrar.repository.UserCache;
+import com.revature.registrar.util.AppConfig;
+import com.revature.registrar.util.LoginThrottle;
 import com.revature.registrar.util.MongoClientFactory;
-import com.revature.registrar.services.UserService;
 import com.revature.registrar.util.PasswordUtils;
+import com.revature.registrar.services.AsyncClassService;
+import com.revature.registrar.services.AsyncUserService;
+import com.revature.registrar.web.filters.AuthFilter;
 import com.revature.registrar.web.servlets.AuthServlet;
+import com.revature.registrar.web.servlets.ClassServlet;
 import com.revature.registrar.web.servlets.HealthCheckServlet;
+import com.revature.registrar.web.servlets.MetricsServlet;
 import com.revature.registrar.web.servlets.UserServlet;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.FilterRegistration;
+import javax.servlet.Servlet;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
+import javax.servlet.ServletRegistration;
 import java.io.File;
+import java.util.HashSet;
 
 public class ContextLoaderListener implements ServletContextListener {
 
+    private InMemoryEngine engine; //null when running on MongoDB
+    private ClassModelCache classCache; //null when classCache.maxBytes is 0
+    private UserCache userCache; //null when userCache.maxBytes is 0
+    private OpenClassScheduler scheduler;
+    private PasswordUtils passUtil;
+    private LoginThrottle throttle;
+
     @Override
     public void contextInitialized(ServletContextEvent sce) {
 
         System.out.println("It's aliiiiive!!!");
 
         //MongoClient mongoClient = MongoClientFactory.getInstance().getConnection();
-        PasswordUtils passwordUtils = new PasswordUtils();
         ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
 
-        UserRepository userRepo = new UserRepository();
-        UserService userService = new UserService(userRepo, passwordUtils);
+        ServletContext servletContext = sce.getServletContext();
 
-        HealthCheckServlet healthCheckServlet = new HealthCheckServlet();
+        //Servlets answer through the reactive driver, no container thread is held while a query runs
+        AsyncUserRepository userRepo;
+        AsyncClassModelRepo classRepo;
+        ClassModelRepo windowSource; //blocking repo the scheduler loads class windows from
+        if ("memory".equalsIgnoreCase(servletContext.getInitParameter("storage-engine"))) {
+            //Embedded engine, no MongoDB needed. Persists to storage-dir when one is given
+            engine = InMemoryEngine.open(servletContext.getInitParameter("storage-dir"));
+            userRepo = engine.getAsyncUserRepo();
+            classRepo = engine.getAsyncClassRepo();
+            windowSource = engine.getClassRepo();
+        } else {
+            IndexManager indexManager = new IndexManager();
+            indexManager.ensureIndexes();
+            if (Boolean.parseBoolean(servletContext.getInitParameter("verify-query-plans"))) {
+                indexManager.verifyQueryPlans();
+            }
+            userRepo = new MongoAsyncUserRepository();
+            classRepo = new MongoAsyncClassModelRepo();
+            windowSource = new MongoClassModelRepo();
+        }
+        AppConfig config = AppConfig.load(AppConfig.DEFAULT_RESOURCE);
+        long classCacheBytes = config.getLong("classCache.maxBytes", 33554432);
+        if (classCacheBytes > 0) {
+            classCache = new ClassModelCache(classCacheBytes, config.getLong("classCache.ttlSeconds", 300));
+            classRepo = new CachingAsyncClassModelRepo(classRepo, classCache);
+        }
+        long userCacheBytes = config.getLong("userCache.maxBytes", 8388608);
+        if (userCacheBytes > 0) {
+            //Users hydrated for authenticated requests, every write through userRepo invalidates its user
+            userCache = new UserCache(userCacheBytes, config.getLong("userCache.ttlSeconds", 60));
+            userRepo = new CachingAsyncUserRepository(userRepo, userCache);
+        }
+        //Catalog reads come from the in-memory open set, classes about to open are read once to warm the cache
+        AsyncClassModelRepo warmingRepo = classRepo;
+        scheduler = new OpenClassScheduler(windowSource, warmingRepo::findById, OpenClassScheduler.DEFAULT_WARM_LEAD_MILLIS);
+        scheduler.start(OpenClassScheduler.DEFAULT_RELOAD_MILLIS);
+        classRepo = new ScheduledAsyncClassModelRepo(classRepo, scheduler);
+        passUtil = new PasswordUtils(config);
+        AsyncUserService userService = new AsyncUserService(userRepo, passUtil, new HashSet<>(config.getList("roles.admin")));
+        AsyncClassService classService = new AsyncClassService(classRepo, userRepo);
+
+        HealthCheckServlet healthCheckServlet = new HealthCheckServlet(classCache, userCache, mapper);
         UserServlet userServlet = new UserServlet(userService, mapper);
-        AuthServlet authServlet = new AuthServlet(userService, mapper);
-
-        ServletContext servletContext = sce.getServletContext();
-        servletContext.addServlet("UserServlet", userServlet).addMapping("/users/*");
-        servletContext.addServlet("AuthServlet", authServlet).addMapping("/auth");
+        throttle = new LoginThrottle(config);
+        PrincipalTokens tokens = new PrincipalTokens(config);
+        AuthServlet authServlet = new AuthServlet(userService, throttle, tokens, mapper);
+        ClassServlet classServlet = new ClassServlet(classService, mapper);
+
+        //Identifies the caller from the bearer token on every request, no HttpSession is created.
+        //Anything not listed is open to anyone, e.g. POST /auth and POST /users
+        AuthFilter accessRules = new AuthFilter(tokens, mapper)
+                .requireRole("GET", "/users", Role.ADMIN)
+                .requireLogin("PUT", "/users")
+                .requireLogin("GET", "/classes")
+                .requireRole("GET", "/metrics", Role.ADMIN);
+        FilterRegistration.Dynamic authFilter = servletContext.addFilter("AuthFilter", accessRules);
+        authFilter.setAsyncSupported(true);
+        authFilter.addMappingForUrlPatterns(null, true, "/*");
+
+        addAsyncServlet(servletContext, "UserServlet", userServlet, "/users/*");
+        addAsyncServlet(servletContext, "AuthServlet", authServlet, "/auth");
+        addAsyncServlet(servletContext, "ClassServlet", classServlet, "/classes/*");
         servletContext.addServlet("HealthCheckServlet", healthCheckServlet).addMapping("/health");
+        if (engine == null) {
+            MetricsServlet metricsServlet = new MetricsServlet(MongoClientFactory.getInstance().getMetrics(), throttle, mapper);
+            servletContext.addServlet("MetricsServlet", metricsServlet).addMapping("/metrics");
+        }
 
         configureLogback(servletContext);
     }
@@ -48,7 +136,27 @@ public class ContextLoaderListener implements ServletContextListener {
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
         System.out.println("Goodbye, cruel world!!!");
-        MongoClientFactory.getInstance().cleanUp();
+        scheduler.close();
+        passUtil.close();
+        System.out.println("Login throttle: " + throttle.stats());
+        if (classCache != null) {
+            System.out.println("Class cache: " + classCache.stats());
+        }
+        if (userCache != null) {
+            System.out.println("User cache: " + userCache.stats());
+        }
+        if (engine != null) {
+            engine.close();
+        } else {
+            System.out.println("Mongo checkout wait: " + MongoClientFactory.getInstance().getMetrics().poolMetrics().getCheckOutWait());
+            MongoClientFactory.getInstance().cleanUp();
+        }
+    }
+
+    private void addAsyncServlet(ServletContext servletContext, String name, Servlet servlet, String mapping) {
+        ServletRegistration.Dynamic registration = servletContext.addServlet(name, servlet);
+        registration.setAsyncSupported(true);
+        registration.addMapping(mapping);
     }
 
     private void configureLogback(ServletContext servletContext) {
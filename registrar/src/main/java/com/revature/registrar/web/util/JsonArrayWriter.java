@@ -0,0 +1,46 @@
+package com.revature.registrar.web.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Writes a JSON array one element at a time, so list endpoints can serialize results as they come
+ * off a database cursor. The servlet container flushes its response buffer as it fills, so the full
+ * result is never held in memory. close() ends the array but leaves the underlying writer open.
+ * @param <T>
+ */
+public class JsonArrayWriter<T> implements Consumer<T>, Closeable {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter writer;
+
+    public JsonArrayWriter(ObjectMapper mapper, Writer out) throws IOException {
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = mapper.getFactory().createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.writeStartArray();
+    }
+
+    @Override
+    public void accept(T element) {
+        try {
+            writer.writeValue(generator, element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+}
@@ -0,0 +1,205 @@
+package com.revature.registrar.web.util;
+
+import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.models.Role;
+import com.revature.registrar.util.AppConfig;
+import com.revature.registrar.web.dtos.Principal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues and verifies the signed tokens that carry a Principal between requests, so no node keeps a session.
+ *
+ * A token is payload.signature, both Base64url without padding. The payload is id:role:expiresAt:tokenId:username
+ * in UTF-8, username last since it may contain colons. The signature is HMAC-SHA256 of the encoded payload under
+ * token.secret. Every thread keeps a Mac already keyed with the secret, so checking a token is one HMAC over
+ * about 60 bytes plus the parsing, with no database or session store involved.
+ *
+ * Logging out puts the token id on a deny list until the token would have expired anyway. The list is in memory,
+ * so a revocation only holds on the node that received it, every other node accepts the token until it expires.
+ * Keep token.ttlSeconds short for that reason.
+ */
+public class PrincipalTokens {
+
+    public static final String SCHEME = "Bearer ";
+    public static final int MIN_SECRET_BYTES = 32;
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger logger = LoggerFactory.getLogger(PrincipalTokens.class);
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Long> denied = new ConcurrentHashMap<>(); //token id -> expiresAt
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    /**
+     * No secret is shipped with the application, token.secret must come from the environment as
+     * REGISTRAR_TOKEN_SECRET (or -Dtoken.secret), since anyone holding it can sign a token for any role.
+     * @param config
+     * @throws DataSourceException if token.secret is missing or shorter than MIN_SECRET_BYTES
+     */
+    public PrincipalTokens(AppConfig config) {
+        this(config.require("token.secret"), config.getLong("token.ttlSeconds", 3600), Clock.systemUTC());
+    }
+
+    /**
+     * @param secret Base64 HMAC key shared by every node, of at least MIN_SECRET_BYTES,
+     * or null for a random one that only this process knows
+     * @param ttlSeconds how long an issued token is accepted
+     * @param clock
+     */
+    public PrincipalTokens(String secret, long ttlSeconds, Clock clock) {
+        byte[] keyBytes;
+        if (secret == null) {
+            logger.warn("No token.secret set, tokens will not be accepted by other nodes or after a restart");
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+        } else {
+            keyBytes = decodeSecret(secret);
+        }
+        this.key = new SecretKeySpec(keyBytes, "HmacSHA256");
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.clock = clock;
+    }
+
+    private static byte[] decodeSecret(String secret) {
+        byte[] keyBytes;
+        try {
+            keyBytes = Base64.getDecoder().decode(secret);
+        } catch (IllegalArgumentException iae) {
+            throw new DataSourceException("token.secret must be Base64.", iae);
+        }
+        if (keyBytes.length < MIN_SECRET_BYTES) {
+            throw new DataSourceException("token.secret must be at least " + MIN_SECRET_BYTES + " bytes, was " + keyBytes.length + ".");
+        }
+        return keyBytes;
+    }
+
+    /**
+     * Signs a token for principal and sets its expiresAt
+     * @param principal
+     * @return the token, without the Bearer scheme
+     */
+    public String issue(Principal principal) {
+        long expiresAt = clock.millis() + ttlMillis;
+        principal.setExpiresAt(expiresAt);
+        byte[] tokenId = new byte[12];
+        random.nextBytes(tokenId);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = principal.getId() + ":" + principal.getRole() + ":" + expiresAt + ":"
+                + encoder.encodeToString(tokenId) + ":" + principal.getUsername();
+        String encoded = encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + encoder.encodeToString(sign(encoded));
+    }
+
+    /**
+     * @param token a token from issue, without the Bearer scheme
+     * @return its Principal, or null if the token is malformed, forged, expired or revoked
+     */
+    public Principal verify(String token) {
+        String[] fields = verifiedFields(token);
+        if (fields == null || denied.containsKey(fields[3])) {
+            return null;
+        }
+        try {
+            Principal principal = new Principal(Integer.parseInt(fields[0]), fields[4], Role.valueOf(fields[1]));
+            principal.setExpiresAt(Long.parseLong(fields[2]));
+            return principal;
+        } catch (IllegalArgumentException iae) { //also covers NumberFormatException
+            return null;
+        }
+    }
+
+    /**
+     * Rejects token from now on. Tokens that do not verify are ignored, so the list only ever holds ids this
+     * node signed, each until the expiry it was signed with.
+     * @param token
+     * @return true if token was valid and is now revoked
+     */
+    public boolean revoke(String token) {
+        String[] fields = verifiedFields(token);
+        if (fields == null) {
+            return false;
+        }
+        purgeExpired();
+        return denied.putIfAbsent(fields[3], Long.parseLong(fields[2])) == null;
+    }
+
+    /**
+     * Token ids currently on the deny list
+     * @return
+     */
+    public int deniedCount() {
+        return denied.size();
+    }
+
+    //The five payload fields of a token with a valid signature that has not expired, otherwise null
+    private String[] verifiedFields(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String encoded = token.substring(0, dot);
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(encoded), signature)) {
+                return null;
+            }
+            String[] fields = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split(":", 5);
+            if (fields.length != 5 || Long.parseLong(fields[2]) <= clock.millis()) {
+                return null;
+            }
+            return fields;
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String encoded) {
+        return mac.get().doFinal(encoded.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    //Drops revocations of tokens that have expired anyway, at most once a minute
+    private void purgeExpired() {
+        long now = clock.millis();
+        long due = nextPurge.get();
+        if (now < due || !nextPurge.compareAndSet(due, now + PURGE_INTERVAL_MILLIS)) {
+            return;
+        }
+        for (Iterator<Long> expiries = denied.values().iterator(); expiries.hasNext(); ) {
+            if (expiries.next() <= now) {
+                expiries.remove();
+            }
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac hmac = Mac.getInstance("HmacSHA256");
+            hmac.init(key);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize HmacSHA256: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.revature.registrar.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.repository.codecs.ClassSummaryCodec;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import org.bson.BsonBinaryReader;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bytes allocated by one catalog request: decoding a page of ClassSummaries and writing it as JSON, the way
+ * ClassServlet answers GET /classes. The Calendar run adds what the codecs used to do per class before the windows
+ * became epoch millis, two Calendar.Builder().setInstant(millis).build() calls, and keeps those Calendars alive
+ * for the length of the request like the old summaries did. The JSON is the same in both runs.
+ * Allocation is read from the thread allocation counter, so the numbers are exact for this thread.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=com.revature.registrar.benchmarks.CatalogAllocationBenchmark -Dexec.classpathScope=test
+ */
+public class CatalogAllocationBenchmark {
+
+    private static final int CLASSES = 200;
+    private static final int WARMUP = 2_000;
+    private static final int REQUESTS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        CodecRegistry registry = RegistrarCodecProvider.getCodecRegistry();
+        Codec<ClassModel> classCodec = registry.get(ClassModel.class);
+        Codec<ClassSummary> summaryCodec = new ClassSummaryCodec();
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+        List<RawBsonDocument> page = new ArrayList<>();
+        for (int i = 0; i < CLASSES; i++) {
+            page.add(new RawBsonDocument(buildClass(i), classCodec));
+        }
+
+        for (int i = 0; i < WARMUP; i++) {
+            request(page, summaryCodec, mapper, false);
+            request(page, summaryCodec, mapper, true);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        long sink = 0;
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < REQUESTS; i++) {
+            sink += request(page, summaryCodec, mapper, true);
+        }
+        long calendarBytes = (threads.getThreadAllocatedBytes(thread) - before) / REQUESTS;
+
+        before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < REQUESTS; i++) {
+            sink += request(page, summaryCodec, mapper, false);
+        }
+        long millisBytes = (threads.getThreadAllocatedBytes(thread) - before) / REQUESTS;
+
+        System.out.printf("Catalog page of %d classes (%d)%n", CLASSES, sink % 10);
+        System.out.printf("Calendar windows:    %,d bytes/request%n", calendarBytes);
+        System.out.printf("Epoch millis:        %,d bytes/request%n", millisBytes);
+        System.out.printf("Saved per request:   %,d bytes (%.1f%%)%n", calendarBytes - millisBytes,
+                100.0 * (calendarBytes - millisBytes) / calendarBytes);
+    }
+
+    private static int request(List<RawBsonDocument> page, Codec<ClassSummary> codec, ObjectMapper mapper,
+                               boolean calendars) throws Exception {
+        List<ClassSummary> summaries = new ArrayList<>(page.size());
+        Calendar[] windows = calendars ? new Calendar[page.size() * 2] : null;
+        for (RawBsonDocument doc : page) {
+            ClassSummary summary = codec.decode(new BsonBinaryReader(doc.getByteBuffer().asNIO()), DecoderContext.builder().build());
+            if (calendars) {
+                windows[summaries.size() * 2] = new Calendar.Builder().setInstant(summary.getOpenWindow()).build();
+                windows[summaries.size() * 2 + 1] = new Calendar.Builder().setInstant(summary.getCloseWindow()).build();
+            }
+            summaries.add(summary);
+        }
+        return mapper.writeValueAsBytes(summaries).length + (windows == null ? 0 : windows.length);
+    }
+
+    private static ClassModel buildClass(int n) {
+        long open = System.currentTimeMillis();
+        long close = open + 100000;
+        Set<Faculty> faculty = new HashSet<>();
+        faculty.add(new Faculty("Grace", "Hopper" + n, "ghopper" + n + "@revature.net", "ghopper" + n, "password"));
+        return new ClassModel("Class " + n, "Description of class number " + n, 30, open, close, faculty);
+    }
+}
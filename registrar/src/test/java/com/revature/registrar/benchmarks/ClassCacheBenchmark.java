@@ -0,0 +1,166 @@
+package com.revature.registrar.benchmarks;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.repository.CachingClassModelRepo;
+import com.revature.registrar.repository.ClassModelCache;
+import com.revature.registrar.repository.ClassModelRepo;
+import com.revature.registrar.repository.InMemoryEngine;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import com.revature.registrar.util.CacheStats;
+import org.bson.RawBsonDocument;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures findById latency under a Zipfian access pattern (s = 0.99, the YCSB default) over CLASSES classes,
+ * without a cache and with caches holding 1% and 10% of the data set. The classes live in the embedded engine behind
+ * a proxy which adds ROUND_TRIP to every call, standing in for the network hop to MongoDB, so no server is needed.
+ * A small fraction of operations enroll, which invalidates the class they hit.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=com.revature.registrar.benchmarks.ClassCacheBenchmark -Dexec.classpathScope=test
+ */
+public class ClassCacheBenchmark {
+
+    private static final int CLASSES = 10_000;
+    private static final int STUDENTS_PER_CLASS = 20;
+    private static final double SKEW = 0.99;
+    private static final long ROUND_TRIP = TimeUnit.MICROSECONDS.toNanos(250);
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 25_000;
+    private static final int ENROLL_EVERY = 200;
+
+    public static void main(String[] args) throws Exception {
+        try (InMemoryEngine engine = InMemoryEngine.open((String) null)) {
+            ClassModelRepo remote = withRoundTrip(engine.getClassRepo());
+            int[] ids = seed(engine.getClassRepo());
+            double[] cdf = zipfCdf(CLASSES, SKEW);
+            long classBytes = new RawBsonDocument(engine.getClassRepo().findById(ids[0]),
+                    RegistrarCodecProvider.getCodecRegistry().get(ClassModel.class)).getByteBuffer().remaining();
+            System.out.println(CLASSES + " classes, roughly " + classBytes + " bytes each, " + THREADS + " threads");
+
+            run("No cache     ", remote, null, ids, cdf);
+            run("Cache 1% set ", remote, CLASSES / 100 * classBytes, ids, cdf);
+            run("Cache 10% set", remote, CLASSES / 10 * classBytes, ids, cdf);
+        }
+    }
+
+    private static void run(String label, ClassModelRepo remote, Long maximumBytes, int[] ids, double[] cdf) throws Exception {
+        ClassModelCache cache = maximumBytes == null ? null : new ClassModelCache(maximumBytes, 300);
+        ClassModelRepo classRepo = cache == null ? remote : new CachingClassModelRepo(remote, cache);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                long[] latencies = new long[OPERATIONS_PER_THREAD];
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int id = ids[sample(cdf, random.nextDouble())];
+                    long begin = System.nanoTime();
+                    if (i % ENROLL_EVERY == 0) {
+                        Student stu = new Student("Bench", "Student", "bench@revature.net", "cachebench" + thread + "-" + i, "password");
+                        classRepo.enroll(id, stu);
+                        classRepo.unenroll(id, stu);
+                    } else {
+                        classRepo.findById(id);
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+        long[] all = new long[THREADS * OPERATIONS_PER_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            System.arraycopy(results.get(t).get(), 0, all, t * OPERATIONS_PER_THREAD, OPERATIONS_PER_THREAD);
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        Arrays.sort(all);
+        System.out.printf("%s: %,8.0f ops/s  p50 %,7d ns  p99 %,7d ns  p99.9 %,7d ns%s%n", label,
+                all.length / (elapsed / 1e9), all[all.length / 2], all[(int) (all.length * 0.99)],
+                all[(int) (all.length * 0.999)], cache == null ? "" : "  " + describe(cache.stats()));
+    }
+
+    private static String describe(CacheStats stats) {
+        return String.format("hit rate %.1f%%, %,d evictions, %,d invalidations",
+                stats.getHitRate() * 100, stats.getEvictionCount(), stats.getInvalidationCount());
+    }
+
+    //Every call parks for ROUND_TRIP before reaching the embedded engine
+    private static ClassModelRepo withRoundTrip(ClassModelRepo classRepo) {
+        return (ClassModelRepo) Proxy.newProxyInstance(ClassModelRepo.class.getClassLoader(),
+                new Class<?>[]{ClassModelRepo.class}, (proxy, method, methodArgs) -> {
+                    LockSupport.parkNanos(ROUND_TRIP);
+                    try {
+                        return method.invoke(classRepo, methodArgs);
+                    } catch (InvocationTargetException ite) {
+                        throw ite.getCause();
+                    }
+                });
+    }
+
+    private static int[] seed(ClassModelRepo classRepo) {
+        long open = System.currentTimeMillis() - 10000;
+        long close = System.currentTimeMillis() + 3_600_000;
+        Set<Faculty> faculty = new HashSet<>();
+        faculty.add(new Faculty("Grace", "Hopper", "ghopper@revature.net", "ghopper", "password"));
+        List<ClassModel> classes = new ArrayList<>(CLASSES);
+        for (int i = 0; i < CLASSES; i++) {
+            ClassModel classModel = new ClassModel("cachebench" + i, "Benchmark class", STUDENTS_PER_CLASS + THREADS, open, close, faculty);
+            for (int s = 0; s < STUDENTS_PER_CLASS; s++) {
+                classModel.addStudent(new Student("First" + s, "Last" + s, "student" + s + "@revature.net", "student" + s, "password"));
+            }
+            classes.add(classModel);
+        }
+        classRepo.saveAll(classes);
+
+        //Shuffled so the hottest ranks are not also the lowest ids
+        int[] ids = new int[CLASSES];
+        for (int i = 0; i < CLASSES; i++) {
+            ids[i] = classes.get(i).getId();
+        }
+        for (int i = CLASSES - 1; i > 0; i--) {
+            int j = ThreadLocalRandom.current().nextInt(i + 1);
+            int tmp = ids[i];
+            ids[i] = ids[j];
+            ids[j] = tmp;
+        }
+        return ids;
+    }
+
+    //Cumulative probability of ranks 0..n-1, rank k drawn with weight 1 / (k + 1)^skew
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, skew);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, double u) {
+        int i = Arrays.binarySearch(cdf, u);
+        return Math.min(i >= 0 ? i : -i - 1, cdf.length - 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.revature.registrar.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.nio.ByteBuffer;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compares the old Document -> toJson -> ObjectMapper decode path against the ClassModelCodec
+ * for a class document with 500 embedded students. Both paths start from the same raw BSON bytes,
+ * which is what the driver hands to the decoder.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=com.revature.registrar.benchmarks.ClassModelDecodeBenchmark -Dexec.classpathScope=test
+ */
+public class ClassModelDecodeBenchmark {
+
+    private static final int STUDENTS = 500;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        CodecRegistry registry = RegistrarCodecProvider.getCodecRegistry();
+        RawBsonDocument raw = new RawBsonDocument(buildClass(), registry.get(ClassModel.class));
+        System.out.println("Document size: " + raw.getByteBuffer().remaining() + " bytes, " + STUDENTS + " students");
+
+        DocumentCodec documentCodec = new DocumentCodec(registry);
+        Codec<ClassModel> classCodec = registry.get(ClassModel.class);
+
+        for (int i = 0; i < WARMUP; i++) {
+            decodeOld(raw, documentCodec);
+            decodeNew(raw, classCodec);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decodeOld(raw, documentCodec);
+        }
+        long oldNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decodeNew(raw, classCodec);
+        }
+        long newNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        System.out.printf("Document/JSON/ObjectMapper: %,d ns/op%n", oldNanos);
+        System.out.printf("ClassModelCodec:            %,d ns/op%n", newNanos);
+        System.out.printf("Speedup:                    %.1fx%n", (double) oldNanos / newNanos);
+    }
+
+    //Mirrors the pre-codec ClassModelRepo.findById body
+    private static ClassModel decodeOld(RawBsonDocument raw, DocumentCodec documentCodec) throws Exception {
+        Document doc = documentCodec.decode(reader(raw), DecoderContext.builder().build());
+        Calendar openDate = new Calendar.Builder().setInstant(new Date((long) doc.get("openWindow"))).build();
+        Calendar closeDate = new Calendar.Builder().setInstant(new Date((long) doc.get("closeWindow"))).build();
+        doc.remove("openWindow");
+        doc.remove("closeWindow");
+        ObjectMapper mapper = new ObjectMapper();
+        ClassModel classModel = mapper.readValue(doc.toJson(), ClassModel.class);
+        classModel.setOpenWindow(openDate.getTimeInMillis());
+        classModel.setCloseWindow(closeDate.getTimeInMillis());
+        return classModel;
+    }
+
+    private static ClassModel decodeNew(RawBsonDocument raw, Codec<ClassModel> classCodec) {
+        return classCodec.decode(reader(raw), DecoderContext.builder().build());
+    }
+
+    private static BsonBinaryReader reader(RawBsonDocument raw) {
+        ByteBuffer buffer = raw.getByteBuffer().asNIO();
+        return new BsonBinaryReader(buffer);
+    }
+
+    private static ClassModel buildClass() {
+        long open = System.currentTimeMillis();
+        long close = open + 100000;
+        Set<Faculty> faculty = new HashSet<>();
+        faculty.add(new Faculty("Grace", "Hopper", "ghopper@revature.net", "ghopper", "password"));
+        ClassModel classModel = new ClassModel("Compilers", "Benchmark class", STUDENTS, open, close, faculty);
+        for (int i = 0; i < STUDENTS; i++) {
+            classModel.addStudent(new Student("First" + i, "Last" + i, "student" + i + "@revature.net", "student" + i, "password" + i));
+        }
+        return classModel;
+    }
+}
@@ -0,0 +1,109 @@
+package com.revature.registrar.benchmarks;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import org.bson.BsonArray;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the payload of a 5,000 class catalog fetched as full ClassModels against the
+ * ClassSummary projection, and the client side decode time of each. The projection is applied
+ * locally with the same field list as ClassSummaryCodec.PROJECTION, so this measures bytes on the
+ * wire and decode cost, not server or network latency.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=com.revature.registrar.benchmarks.ClassSummaryBenchmark -Dexec.classpathScope=test
+ */
+public class ClassSummaryBenchmark {
+
+    private static final int CLASSES = 5_000;
+    private static final int STUDENTS_PER_CLASS = 30;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        CodecRegistry registry = RegistrarCodecProvider.getCodecRegistry();
+        Codec<ClassModel> classCodec = registry.get(ClassModel.class);
+        Codec<ClassSummary> summaryCodec = registry.get(ClassSummary.class);
+
+        List<RawBsonDocument> full = new ArrayList<>();
+        List<RawBsonDocument> projected = new ArrayList<>();
+        long fullBytes = 0;
+        long projectedBytes = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            RawBsonDocument doc = new RawBsonDocument(buildClass(i), classCodec);
+            RawBsonDocument summary = new RawBsonDocument(project(doc), new BsonDocumentCodec());
+            full.add(doc);
+            projected.add(summary);
+            fullBytes += doc.getByteBuffer().remaining();
+            projectedBytes += summary.getByteBuffer().remaining();
+        }
+
+        for (int i = 0; i < 3; i++) {
+            decodeAll(full, classCodec);
+            decodeAll(projected, summaryCodec);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            decodeAll(full, classCodec);
+        }
+        long fullMillis = (System.nanoTime() - start) / ROUNDS / 1_000_000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            decodeAll(projected, summaryCodec);
+        }
+        long projectedMillis = (System.nanoTime() - start) / ROUNDS / 1_000_000;
+
+        System.out.printf("Catalog of %,d classes, %d students each%n", CLASSES, STUDENTS_PER_CLASS);
+        System.out.printf("Full ClassModel payload:   %,d bytes, decode %d ms%n", fullBytes, fullMillis);
+        System.out.printf("ClassSummary payload:      %,d bytes, decode %d ms%n", projectedBytes, projectedMillis);
+        System.out.printf("Payload reduction:         %.1fx%n", (double) fullBytes / projectedBytes);
+    }
+
+    private static <T> void decodeAll(List<RawBsonDocument> docs, Codec<T> codec) {
+        for (RawBsonDocument doc : docs) {
+            codec.decode(new BsonBinaryReader(doc.getByteBuffer().asNIO()), DecoderContext.builder().build());
+        }
+    }
+
+    //Mirrors ClassSummaryCodec.PROJECTION
+    private static BsonDocument project(RawBsonDocument doc) {
+        BsonDocument result = new BsonDocument();
+        for (String field : new String[]{"id", "name", "capacity", "enrolledCount", "openWindow", "closeWindow"}) {
+            result.put(field, doc.get(field));
+        }
+        List<BsonValue> faculty = new ArrayList<>();
+        for (BsonValue fac : doc.getArray("faculty")) {
+            faculty.add(new BsonDocument("lastName", fac.asDocument().get("lastName")));
+        }
+        result.put("faculty", new BsonArray(faculty));
+        return result;
+    }
+
+    private static ClassModel buildClass(int n) {
+        long open = System.currentTimeMillis();
+        long close = open + 100000;
+        Set<Faculty> faculty = new HashSet<>();
+        faculty.add(new Faculty("Grace", "Hopper" + n, "ghopper" + n + "@revature.net", "ghopper" + n, "password"));
+        ClassModel classModel = new ClassModel("Class " + n, "Description of class number " + n, STUDENTS_PER_CLASS, open, close, faculty);
+        for (int i = 0; i < STUDENTS_PER_CLASS; i++) {
+            classModel.addStudent(new Student("First" + i, "Last" + i, "student" + i + "@revature.net", "student" + i, "password" + i));
+        }
+        return classModel;
+    }
+}
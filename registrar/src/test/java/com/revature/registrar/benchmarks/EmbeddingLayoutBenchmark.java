@@ -0,0 +1,108 @@
+package com.revature.registrar.benchmarks;
+
+import com.mongodb.client.model.Updates;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.models.User;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares the old layout, where class rosters embed full user documents (passwords included), against the
+ * {id, firstName, lastName} snapshot layout for a class with 1,000 students.
+ * Reports the stored document size and the size and encode time of the update sent per enrollment:
+ * the old full-roster $set against the $addToSet of a single snapshot.
+ * Without a live server the encode time stands in for client side update latency, and the document size
+ * for the server side rewrite cost, since WiredTiger rewrites the whole document on every update.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=com.revature.registrar.benchmarks.EmbeddingLayoutBenchmark -Dexec.classpathScope=test
+ */
+public class EmbeddingLayoutBenchmark {
+
+    private static final int STUDENTS = 1_000;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+
+    public static void main(String[] args) {
+        CodecRegistry registry = RegistrarCodecProvider.getCodecRegistry();
+        DocumentCodec documentCodec = new DocumentCodec(registry);
+        ClassModel classModel = buildClass();
+        Student newcomer = new Student("New", "Student", "new@revature.net", "newstudent", "password");
+
+        Document oldLayout = classModel.getAsDoc()
+                .append("enrolledCount", classModel.getEnrolledCount())
+                .append("students", fullDocs(classModel.getStudents()))
+                .append("faculty", fullDocs(classModel.getFaculty()));
+        int oldSize = new RawBsonDocument(oldLayout, documentCodec).getByteBuffer().remaining();
+        int newSize = new RawBsonDocument(classModel, registry.get(ClassModel.class)).getByteBuffer().remaining();
+
+        List<Document> roster = fullDocs(classModel.getStudents());
+        roster.add(newcomer.getAsDoc());
+        Bson oldUpdate = Updates.combine(
+                Updates.set("students", roster),
+                Updates.set("enrolledCount", roster.size()));
+        Bson newUpdate = Updates.combine(
+                Updates.addToSet("students", newcomer.getSnapshotDoc()),
+                Updates.inc("enrolledCount", 1));
+
+        for (int i = 0; i < WARMUP; i++) {
+            encode(oldUpdate, registry);
+            encode(newUpdate, registry);
+        }
+
+        long start = System.nanoTime();
+        int oldUpdateSize = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            oldUpdateSize = encode(oldUpdate, registry);
+        }
+        long oldNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        int newUpdateSize = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            newUpdateSize = encode(newUpdate, registry);
+        }
+        long newNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        System.out.printf("Class document, full users:   %,d bytes%n", oldSize);
+        System.out.printf("Class document, snapshots:    %,d bytes (%.1fx smaller)%n", newSize, (double) oldSize / newSize);
+        System.out.printf("Enroll update, full $set:     %,d bytes, %,d ns/op%n", oldUpdateSize, oldNanos);
+        System.out.printf("Enroll update, $addToSet:     %,d bytes, %,d ns/op%n", newUpdateSize, newNanos);
+    }
+
+    private static int encode(Bson update, CodecRegistry registry) {
+        BsonDocument doc = update.toBsonDocument(BsonDocument.class, registry);
+        return new RawBsonDocument(doc, registry.get(BsonDocument.class)).getByteBuffer().remaining();
+    }
+
+    private static List<Document> fullDocs(Set<? extends User> users) {
+        List<Document> docs = new ArrayList<>();
+        for (User user : users) {
+            docs.add(user.getAsDoc());
+        }
+        return docs;
+    }
+
+    private static ClassModel buildClass() {
+        long open = System.currentTimeMillis();
+        long close = open + 100000;
+        Set<Faculty> faculty = new HashSet<>();
+        faculty.add(new Faculty("Grace", "Hopper", "ghopper@revature.net", "ghopper", "password"));
+        ClassModel classModel = new ClassModel("Compilers", "Benchmark class", STUDENTS + 1, open, close, faculty);
+        for (int i = 0; i < STUDENTS; i++) {
+            classModel.addStudent(new Student("First" + i, "Last" + i, "student" + i + "@revature.net", "student" + i, "password" + i));
+        }
+        return classModel;
+    }
+}
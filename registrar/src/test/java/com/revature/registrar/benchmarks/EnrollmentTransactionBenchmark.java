@@ -0,0 +1,96 @@
+package com.revature.registrar.benchmarks;
+
+import com.mongodb.client.model.Filters;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.models.User;
+import com.revature.registrar.repository.ClassModelRepo;
+import com.revature.registrar.repository.MongoClassModelRepo;
+import com.revature.registrar.repository.MongoUserRepository;
+import com.revature.registrar.repository.TransactionRunner;
+import com.revature.registrar.repository.UserRepository;
+import com.revature.registrar.services.ClassService;
+import com.revature.registrar.util.MongoClientFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Measures enrollAndRecord throughput with the class and user writes committed independently against
+ * committed together in one transaction. Each mode enrolls and then unenrolls STUDENTS students in a fresh class
+ * from THREADS threads.
+ *
+ * Needs a live server that supports transactions. A local single-node replica set is enough:
+ *   mongod --replSet rs0 --dbpath /tmp/rs0 && mongosh --eval 'rs.initiate()'
+ * then point application.properties at it. Benchmark documents are prefixed with "txbench" and removed afterwards.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=com.revature.registrar.benchmarks.EnrollmentTransactionBenchmark -Dexec.classpathScope=test
+ */
+public class EnrollmentTransactionBenchmark {
+
+    private static final int STUDENTS = 2_000;
+    private static final int THREADS = 8;
+
+    public static void main(String[] args) throws Exception {
+        UserRepository userRepo = new MongoUserRepository();
+        ClassModelRepo classRepo = new MongoClassModelRepo();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(new Student("First" + i, "Last" + i, "txbench" + i + "@revature.net", "txbench" + i, "password"));
+        }
+
+        try {
+            userRepo.saveAll(new ArrayList<User>(students));
+
+            run("Independent writes", new ClassService(classRepo, userRepo), classRepo, students);
+            run("Transaction       ", new ClassService(classRepo, userRepo, new TransactionRunner()), classRepo, students);
+        } finally {
+            MongoClientFactory.getInstance().getCollection("users")
+                    .deleteMany(Filters.regex("username", "^txbench"));
+            MongoClientFactory.getInstance().getCollection("classes")
+                    .deleteMany(Filters.regex("name", "^txbench"));
+            MongoClientFactory.getInstance().cleanUp();
+        }
+    }
+
+    private static void run(String label, ClassService classService, ClassModelRepo classRepo, List<Student> students) throws Exception {
+        ClassModel classModel = openClass(label.trim());
+        classRepo.save(classModel);
+        int classId = classModel.getId();
+
+        double enrollRate = measure(students, stu -> classService.enrollAndRecord(classId, stu));
+        double unenrollRate = measure(students, stu -> classService.unenrollAndRecord(classId, stu));
+
+        System.out.printf("%s enroll: %,8.0f ops/s   unenroll: %,8.0f ops/s%n", label, enrollRate, unenrollRate);
+    }
+
+    private static double measure(List<Student> students, Consumer<Student> op) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (Student stu : students) {
+            futures.add(pool.submit(() -> op.accept(stu)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long nanos = System.nanoTime() - start;
+        pool.shutdown();
+        return students.size() / (nanos / 1_000_000_000.0);
+    }
+
+    private static ClassModel openClass(String label) {
+        long open = System.currentTimeMillis() - 60_000;
+        long close = System.currentTimeMillis() + 3_600_000;
+        Set<Faculty> faculty = new HashSet<>();
+        faculty.add(new Faculty("Grace", "Hopper", "txbench-faculty@revature.net", "txbench-faculty", "password"));
+        return new ClassModel("txbench " + label, "Benchmark class", STUDENTS, open, close, faculty);
+    }
+}
@@ -0,0 +1,116 @@
+package com.revature.registrar.benchmarks;
+
+import com.revature.registrar.exceptions.ServiceUnavailableException;
+import com.revature.registrar.util.LatencyHistogram;
+import com.revature.registrar.util.PasswordUtils;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Three measurements for tuning PasswordUtils:
+ * 1. one hash through SecretKeyFactory.getInstance per call, the way PasswordUtils used to, against the
+ *    thread-local Mac PBKDF2 it uses now, same algorithm and iteration count;
+ * 2. milliseconds per hash for a range of iteration counts, recommending the largest one within the target latency;
+ * 3. a burst of logins against the bounded hashing pool: how many were turned away and the latency of the rest.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=com.revature.registrar.benchmarks.PasswordHashBenchmark -Dexec.classpathScope=test
+ * -Dexec.args="targetMillis threads queue burst", defaults 100 4 16 500
+ */
+public class PasswordHashBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final int[] ITERATIONS = {50_000, 100_000, 210_000, 310_000, 600_000};
+    private static final int COMPARE_ITERATIONS = 100_000;
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws Exception {
+        long targetMillis = args.length > 0 ? Long.parseLong(args[0]) : 100;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int queue = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int burst = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+
+        PasswordUtils compare = new PasswordUtils(COMPARE_ITERATIONS, null, 1, 1);
+        byte[] salt = new byte[16];
+        for (int i = 0; i < 5; i++) {
+            factoryHash(salt);
+            compare.generateSecurePassword(PASSWORD);
+        }
+        double factoryMillis = 0;
+        double macMillis = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            factoryHash(salt);
+            factoryMillis += (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            compare.generateSecurePassword(PASSWORD);
+            macMillis += (System.nanoTime() - start) / 1e6;
+        }
+        System.out.printf("PBKDF2-HMAC-SHA256, %,d iterations%n", COMPARE_ITERATIONS);
+        System.out.printf("  SecretKeyFactory per call: %7.2f ms/hash%n", factoryMillis / RUNS);
+        System.out.printf("  thread-local Mac:          %7.2f ms/hash%n", macMillis / RUNS);
+
+        System.out.printf("Iterations against a %d ms target%n", targetMillis);
+        int recommended = 0;
+        for (int iterations : ITERATIONS) {
+            PasswordUtils passUtil = new PasswordUtils(iterations, null, 1, 1);
+            passUtil.generateSecurePassword(PASSWORD);
+            long start = System.nanoTime();
+            for (int i = 0; i < RUNS / 2; i++) {
+                passUtil.generateSecurePassword(PASSWORD);
+            }
+            double millis = (System.nanoTime() - start) / 1e6 / (RUNS / 2);
+            System.out.printf("  %,9d iterations: %7.2f ms/hash%n", iterations, millis);
+            if (millis <= targetMillis) {
+                recommended = iterations;
+            }
+        }
+        System.out.println(recommended == 0 ? "  no candidate fits the target, lower the iterations"
+                : String.format("  recommended password.iterations=%d", recommended));
+
+        int iterations = recommended == 0 ? ITERATIONS[0] : recommended;
+        PasswordUtils pool = new PasswordUtils(iterations, null, threads, queue);
+        String stored = pool.generateSecurePassword(PASSWORD);
+        LatencyHistogram accepted = new LatencyHistogram();
+        List<CompletableFuture<Boolean>> logins = new ArrayList<>(burst);
+        int rejected = 0;
+        long burstStart = System.nanoTime();
+        for (int i = 0; i < burst; i++) {
+            long start = System.nanoTime();
+            CompletableFuture<Boolean> login = pool.verifyAsync(PASSWORD, stored);
+            if (login.isCompletedExceptionally()) {
+                rejected++;
+                continue;
+            }
+            logins.add(login.whenComplete((valid, err) -> accepted.record(System.nanoTime() - start, TimeUnit.NANOSECONDS)));
+        }
+        for (CompletableFuture<Boolean> login : logins) {
+            try {
+                login.join();
+            } catch (CompletionException ce) {
+                if (!(ce.getCause() instanceof ServiceUnavailableException)) {
+                    throw ce;
+                }
+            }
+        }
+        long burstMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - burstStart);
+        pool.close();
+        System.out.printf("Burst of %d logins, %d threads, queue %d, %,d iterations%n", burst, threads, queue, iterations);
+        System.out.printf("  verified %d in %d ms, rejected with 503: %d%n", logins.size(), burstMillis, rejected);
+        System.out.printf("  accepted latency: %s%n", accepted.snapshot());
+    }
+
+    private static byte[] factoryHash(byte[] salt) throws Exception {
+        PBEKeySpec spec = new PBEKeySpec(PASSWORD.toCharArray(), salt, COMPARE_ITERATIONS, 256);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
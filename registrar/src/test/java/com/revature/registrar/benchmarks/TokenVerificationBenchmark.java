@@ -0,0 +1,87 @@
+package com.revature.registrar.benchmarks;
+
+import com.revature.registrar.models.Role;
+import com.revature.registrar.web.dtos.Principal;
+import com.revature.registrar.web.util.PrincipalTokens;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Base64;
+
+/**
+ * Cost per request of checking a login token: what AuthFilter does with PrincipalTokens.verify, then the signature
+ * check alone with a Mac keyed once, as PrincipalTokens caches it per thread, and with a Mac looked up and keyed on
+ * every call. Reports nanoseconds and bytes allocated per verification, allocation from the thread allocation counter.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=com.revature.registrar.benchmarks.TokenVerificationBenchmark -Dexec.classpathScope=test
+ */
+public class TokenVerificationBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int VERIFICATIONS = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        byte[] secret = new byte[32];
+        String encodedSecret = Base64.getEncoder().encodeToString(secret);
+        PrincipalTokens tokens = new PrincipalTokens(encodedSecret, 3600, Clock.systemUTC());
+        String token = tokens.issue(new Principal(-1_394_812_433, "wsingleton", Role.FACULTY));
+        SecretKeySpec key = new SecretKeySpec(secret, "HmacSHA256");
+
+        Mac cached = Mac.getInstance("HmacSHA256");
+        cached.init(key);
+
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += tokens.verify(token).getId();
+            sink += signature(cached, token);
+            sink += uncachedKey(key, token);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < VERIFICATIONS; i++) {
+            sink += tokens.verify(token).getId();
+        }
+        long cachedNanos = (System.nanoTime() - start) / VERIFICATIONS;
+        long cachedBytes = (threads.getThreadAllocatedBytes(thread) - bytes) / VERIFICATIONS;
+
+        bytes = threads.getThreadAllocatedBytes(thread);
+        start = System.nanoTime();
+        for (int i = 0; i < VERIFICATIONS; i++) {
+            sink += signature(cached, token);
+        }
+        long signatureNanos = (System.nanoTime() - start) / VERIFICATIONS;
+        long signatureBytes = (threads.getThreadAllocatedBytes(thread) - bytes) / VERIFICATIONS;
+
+        bytes = threads.getThreadAllocatedBytes(thread);
+        start = System.nanoTime();
+        for (int i = 0; i < VERIFICATIONS; i++) {
+            sink += uncachedKey(key, token);
+        }
+        long uncachedNanos = (System.nanoTime() - start) / VERIFICATIONS;
+        long uncachedBytes = (threads.getThreadAllocatedBytes(thread) - bytes) / VERIFICATIONS;
+
+        System.out.printf("Token of %d bytes (%d)%n", token.length(), sink % 10);
+        System.out.printf("verify:                        %,6d ns  %,6d bytes%n", cachedNanos, cachedBytes);
+        System.out.printf("signature only, cached Mac:    %,6d ns  %,6d bytes%n", signatureNanos, signatureBytes);
+        System.out.printf("signature only, Mac per call:  %,6d ns  %,6d bytes%n", uncachedNanos, uncachedBytes);
+    }
+
+    private static int signature(Mac mac, String token) {
+        int dot = token.indexOf('.');
+        return mac.doFinal(token.substring(0, dot).getBytes(StandardCharsets.US_ASCII))[0];
+    }
+
+    //The same, plus the provider lookup and key schedule the cached Mac saves
+    private static int uncachedKey(SecretKeySpec key, String token) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(key);
+        return signature(mac, token);
+    }
+}
@@ -0,0 +1,112 @@
+package com.revature.registrar.benchmarks;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Faculty;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.repository.MongoClassModelRepo;
+import com.revature.registrar.repository.MongoUserRepository;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Compares the update sent for a model with no persisted state, which $sets every field, against the one sent
+ * for a model read from the database, which only carries what changed since:
+ * a description edit and an enrollment on a class with 500 students, and a rename of a student in 8 classes.
+ * Reports the encoded size of each update and the time to build and encode it.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.mainClass=com.revature.registrar.benchmarks.UpdateSizeBenchmark -Dexec.classpathScope=test
+ */
+public class UpdateSizeBenchmark {
+
+    private static final int STUDENTS = 500;
+    private static final int CLASSES = 8;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+
+    public static void main(String[] args) {
+        CodecRegistry registry = RegistrarCodecProvider.getCodecRegistry();
+
+        ClassModel untracked = buildClass();
+        ClassModel tracked = buildClass();
+        tracked.markPersisted();
+        untracked.setDescription("Edited description");
+        tracked.setDescription("Edited description");
+        report("Class description edit", registry,
+                () -> MongoClassModelRepo.getUpdates(untracked), () -> MongoClassModelRepo.getUpdates(tracked));
+
+        untracked.setDescription("Benchmark class");
+        tracked.setDescription("Benchmark class");
+        Student newcomer = new Student("New", "Student", "new@revature.net", "newstudent", "password");
+        untracked.addStudent(newcomer);
+        tracked.addStudent(newcomer);
+        report("Class enrollment", registry,
+                () -> MongoClassModelRepo.getUpdates(untracked), () -> MongoClassModelRepo.getUpdates(tracked));
+
+        Student untrackedStudent = buildStudent();
+        Student trackedStudent = buildStudent();
+        trackedStudent.markPersisted();
+        untrackedStudent.setFirstName("Renamed");
+        trackedStudent.setFirstName("Renamed");
+        report("Student rename", registry,
+                () -> MongoUserRepository.getUpdates(untrackedStudent), () -> MongoUserRepository.getUpdates(trackedStudent));
+    }
+
+    private static void report(String name, CodecRegistry registry, Supplier<Bson> full, Supplier<Bson> tracked) {
+        for (int i = 0; i < WARMUP; i++) {
+            encode(full.get(), registry);
+            encode(tracked.get(), registry);
+        }
+
+        long start = System.nanoTime();
+        int fullSize = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            fullSize = encode(full.get(), registry);
+        }
+        long fullNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        int trackedSize = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            trackedSize = encode(tracked.get(), registry);
+        }
+        long trackedNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        System.out.printf("%s, full $set:  %,d bytes, %,d ns/op%n", name, fullSize, fullNanos);
+        System.out.printf("%s, tracked:    %,d bytes, %,d ns/op (%.1fx smaller)%n",
+                name, trackedSize, trackedNanos, (double) fullSize / trackedSize);
+    }
+
+    private static int encode(Bson update, CodecRegistry registry) {
+        BsonDocument doc = update.toBsonDocument(BsonDocument.class, registry);
+        return new RawBsonDocument(doc, registry.get(BsonDocument.class)).getByteBuffer().remaining();
+    }
+
+    private static ClassModel buildClass() {
+        long open = System.currentTimeMillis();
+        long close = open + 100000;
+        Set<Faculty> faculty = new HashSet<>();
+        faculty.add(new Faculty("Grace", "Hopper", "ghopper@revature.net", "ghopper", "password"));
+        ClassModel classModel = new ClassModel("Compilers", "Benchmark class", STUDENTS + 1, open, close, faculty);
+        for (int i = 0; i < STUDENTS; i++) {
+            classModel.addStudent(new Student("First" + i, "Last" + i, "student" + i + "@revature.net", "student" + i, "password" + i));
+        }
+        return classModel;
+    }
+
+    private static Student buildStudent() {
+        long open = System.currentTimeMillis();
+        long close = open + 100000;
+        Student student = new Student("Ada", "Lovelace", "alovelace@revature.net", "alovelace", "password");
+        for (int i = 0; i < CLASSES; i++) {
+            student.addClass(new ClassModel("Class" + i, "Benchmark class", 30, open, close, new HashSet<>()));
+        }
+        return student;
+    }
+}
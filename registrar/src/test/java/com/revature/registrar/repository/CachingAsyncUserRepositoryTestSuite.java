@@ -0,0 +1,74 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.User;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CachingAsyncUserRepositoryTestSuite {
+    CachingAsyncUserRepository sut; //SUT = System Under Test
+    AsyncUserRepository mockUserRepo;
+    UserCache cache;
+    User user;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        mockUserRepo = Mockito.mock(AsyncUserRepository.class);
+        cache = new UserCache();
+        sut = new CachingAsyncUserRepository(mockUserRepo, cache);
+
+        user = new User("valid", "valid", "valid@valid.com", "valid", "valid", false);
+        when(mockUserRepo.findById(user.getId())).thenReturn(CompletableFuture.completedFuture(user));
+    }
+
+    @Test
+    public void findById_readsDelegateOnce_andReturnsCopies() {
+        // Act
+        User first = sut.findById(user.getId()).join();
+        User second = sut.findById(user.getId()).join();
+        second.setFirstName("changed");
+
+        // Assert
+        verify(mockUserRepo, times(1)).findById(user.getId());
+        Assert.assertEquals("valid", sut.findById(user.getId()).join().getFirstName());
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(2, cache.stats().getHitCount());
+    }
+
+    @Test
+    public void update_invalidatesUser() {
+        // Arrange
+        sut.findById(user.getId()).join();
+        when(mockUserRepo.update(any())).thenReturn(CompletableFuture.completedFuture(true));
+
+        // Act
+        sut.update(user).join();
+        sut.findById(user.getId()).join();
+
+        // Assert
+        verify(mockUserRepo, times(2)).findById(user.getId());
+        Assert.assertEquals(1, cache.stats().getInvalidationCount());
+    }
+
+    @Test
+    public void addClassRef_invalidatesUser_evenWhenWriteFails() {
+        // Arrange
+        sut.findById(user.getId()).join();
+        CompletableFuture<Boolean> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("write failed"));
+        when(mockUserRepo.addClassRef(eq(user.getId()), any())).thenReturn(failed);
+
+        // Act
+        Assert.assertTrue(sut.addClassRef(user.getId(), null).isCompletedExceptionally());
+        sut.findById(user.getId()).join();
+
+        // Assert
+        verify(mockUserRepo, times(2)).findById(user.getId());
+    }
+}
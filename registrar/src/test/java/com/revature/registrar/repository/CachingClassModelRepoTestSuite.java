@@ -0,0 +1,98 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.exceptions.VersionConflictException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Student;
+import org.junit.*;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class CachingClassModelRepoTestSuite {
+    CachingClassModelRepo sut; //SUT = System Under Test
+    ClassModelRepo mockClassRepo;
+    ClassModelCache cache;
+    ClassModel classModel;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        mockClassRepo = Mockito.mock(ClassModelRepo.class);
+        cache = new ClassModelCache();
+        sut = new CachingClassModelRepo(mockClassRepo, cache);
+
+        long curr = System.currentTimeMillis();
+        long open = curr - 10000;
+        long close = curr + 100000;
+        classModel = new ClassModel("valid", "valid", 2, open, close, new HashSet<>());
+        when(mockClassRepo.findById(classModel.getId())).thenReturn(classModel);
+    }
+
+    @Test
+    public void findById_readsDelegateOnce_andReturnsCopies() {
+        // Act
+        ClassModel first = sut.findById(classModel.getId());
+        ClassModel second = sut.findById(classModel.getId());
+        second.setDescription("changed");
+
+        // Assert
+        verify(mockClassRepo, times(1)).findById(classModel.getId());
+        Assert.assertEquals("valid", sut.findById(classModel.getId()).getDescription());
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(2, cache.stats().getHitCount());
+    }
+
+    @Test
+    public void enroll_invalidatesClass() {
+        // Arrange
+        sut.findById(classModel.getId());
+
+        // Act
+        sut.enroll(classModel.getId(), new Student("valid", "valid", "valid", "valid", "valid"));
+        sut.findById(classModel.getId());
+
+        // Assert
+        verify(mockClassRepo, times(2)).findById(classModel.getId());
+    }
+
+    @Test
+    public void update_invalidatesClass_evenOnVersionConflict() {
+        // Arrange
+        sut.findById(classModel.getId());
+        when(mockClassRepo.update(any())).thenThrow(new VersionConflictException("conflict"));
+
+        // Act
+        try {
+            sut.update(classModel);
+            Assert.fail();
+        } catch (VersionConflictException vce) {
+            sut.findById(classModel.getId());
+        }
+
+        // Assert
+        verify(mockClassRepo, times(2)).findById(classModel.getId());
+        Assert.assertEquals(1, cache.stats().getInvalidationCount());
+    }
+
+    @Test
+    public void findAllById_fetchesOnlyUncachedIds_inInputOrder() {
+        // Arrange
+        ClassModel other = new ClassModel("other", "valid", 2, classModel.getOpenWindow(), classModel.getCloseWindow(), new HashSet<>());
+        sut.findById(classModel.getId());
+        when(mockClassRepo.findAllById(anyList()))
+                .thenReturn(new BatchResult<>(Arrays.asList(other), Collections.emptyList()));
+
+        // Act
+        BatchResult<ClassModel> actual = sut.findAllById(Arrays.asList(other.getId(), classModel.getId()));
+
+        // Assert
+        verify(mockClassRepo, times(1)).findAllById(Arrays.asList(other.getId()));
+        Assert.assertEquals(other.getId(), actual.getResults().get(0).getId());
+        Assert.assertEquals(classModel.getId(), actual.getResults().get(1).getId());
+    }
+}
@@ -0,0 +1,199 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.exceptions.VersionConflictException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Runs the repository contract against the embedded engine. The service suites run against it too, see Backend.
+ */
+public class InMemoryEngineTestSuite {
+    InMemoryEngine engine;
+    ClassModelRepo classRepo;
+    UserRepository userRepo;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        engine = InMemoryEngine.open((String) null);
+        classRepo = engine.getClassRepo();
+        userRepo = engine.getUserRepo();
+    }
+
+    @After // runs after each test case
+    public void afterEachTest() {
+        engine.close();
+    }
+
+    private static ClassModel openClass(String name, int capacity) {
+        long curr = System.currentTimeMillis();
+        long open = curr - 10000;
+        long close = curr + 100000;
+        return new ClassModel(name, "valid", capacity, open, close, new HashSet<>());
+    }
+
+    @Test (expected = VersionConflictException.class)
+    public void update_throwsVersionConflictException_givenStaleVersion() {
+        // Arrange
+        ClassModel stored = classRepo.save(openClass("valid", 2));
+        ClassModel stale = classRepo.findById(stored.getId());
+        classRepo.enroll(stored.getId(), new Student("valid", "valid", "valid", "valid", "valid"));
+
+        // Act
+        stale.setDescription("changed");
+        classRepo.update(stale);
+    }
+
+    @Test
+    public void updateAll_writesFreshClasses_andReportsStaleOneInTheMiddle() {
+        // Arrange
+        ClassModel first = classRepo.save(openClass("a", 2));
+        ClassModel stale = classRepo.save(openClass("b", 2));
+        ClassModel last = classRepo.save(openClass("c", 2));
+        ClassModel fresh = classRepo.findById(stale.getId());
+        fresh.setDescription("theirs");
+        classRepo.update(fresh);
+        first.setDescription("mine");
+        stale.setDescription("mine");
+        last.setDescription("mine");
+
+        // Act
+        BatchResult<ClassModel> actual = classRepo.updateAll(Arrays.asList(first, stale, last, openClass("missing", 2)));
+
+        // Assert
+        Assert.assertEquals(Arrays.asList(first, last), actual.getResults());
+        Assert.assertEquals(Arrays.asList(stale.getId()), actual.getConflictingIds());
+        Assert.assertEquals(1, actual.getMissingIds().size());
+        Assert.assertEquals(1, first.getVersion());
+        Assert.assertEquals(0, stale.getVersion());
+        Assert.assertEquals("mine", classRepo.findById(first.getId()).getDescription());
+        Assert.assertEquals("theirs", classRepo.findById(stale.getId()).getDescription());
+        Assert.assertEquals("mine", classRepo.findById(last.getId()).getDescription());
+
+        last.setDescription("again"); //only sends the fields changed since the batch marked it persisted
+        Assert.assertTrue(classRepo.update(last));
+    }
+
+    @Test (expected = ResourcePersistenceException.class)
+    public void save_throwsResourcePersistenceException_givenTakenUsername() {
+        // Arrange
+        Student first = new Student("first", "first", "first", "taken", "first");
+        Student second = new Student("second", "second", "second", "other", "second");
+        second.setUsername("taken");
+        userRepo.save(first);
+
+        // Act
+        userRepo.save(second);
+    }
+
+    @Test
+    public void findCredentialsByUsername_returnsStoredPassword() {
+        // Arrange
+        Student student = new Student("valid", "valid", "valid", "valid", "secret");
+        userRepo.save(student);
+
+        // Act
+        UserCredentials actual = userRepo.findCredentialsByUsername("valid");
+
+        // Assert
+        Assert.assertEquals(student.getId(), actual.getId());
+        Assert.assertEquals("secret", actual.getPassword());
+        Assert.assertNull(userRepo.findCredentialsByUsername("missing"));
+    }
+
+    @Test
+    public void replacePassword_appliesOnlyWhileExpectedPasswordIsStored() {
+        // Arrange
+        Student student = new Student("valid", "valid", "valid", "valid", "secret");
+        userRepo.save(student);
+
+        // Act
+        boolean replaced = userRepo.replacePassword(student.getId(), "secret", "hashed");
+        boolean replacedAgain = userRepo.replacePassword(student.getId(), "secret", "other");
+
+        // Assert
+        Assert.assertTrue(replaced);
+        Assert.assertFalse(replacedAgain);
+        Assert.assertEquals("hashed", userRepo.findById(student.getId()).getPassword());
+        Assert.assertEquals(student.getVersion() + 1, userRepo.findById(student.getId()).getVersion());
+    }
+
+    @Test
+    public void deleteAllById_deletesUsers_andReportsMissingIds() {
+        // Arrange
+        Student first = new Student("valid", "valid", "valid", "first", "valid");
+        Student second = new Student("valid", "valid", "valid", "second", "valid");
+        userRepo.save(first);
+        userRepo.save(second);
+
+        // Act
+        BatchResult<Integer> actual = userRepo.deleteAllById(Arrays.asList(second.getId(), -1, first.getId()));
+
+        // Assert
+        Assert.assertEquals(Arrays.asList(second.getId(), first.getId()), actual.getResults());
+        Assert.assertEquals(Arrays.asList(-1), actual.getMissingIds());
+        Assert.assertNull(userRepo.findById(first.getId()));
+        Assert.assertNull(userRepo.findCredentialsByUsername("second"));
+    }
+
+    @Test
+    public void findAll_pagesInUsernameOrder() {
+        // Arrange
+        for (String username : Arrays.asList("d", "a", "c", "b", "e")) {
+            userRepo.save(new Student("valid", "valid", "valid", username, "valid"));
+        }
+
+        // Act
+        KeysetPage<User> first = userRepo.findAll(null, 2);
+        KeysetPage<User> second = userRepo.findAll(first.getNextCursor(), 2);
+        KeysetPage<User> last = userRepo.findAll(second.getNextCursor(), 2);
+
+        // Assert
+        Assert.assertEquals("a", first.getItems().get(0).getUsername());
+        Assert.assertEquals("c", second.getItems().get(0).getUsername());
+        Assert.assertEquals(1, last.getItems().size());
+        Assert.assertNull(last.getNextCursor());
+    }
+
+    @Test
+    public void open_restoresEveryWrite_fromSnapshotAndLog() throws Exception {
+        // Arrange
+        Path dir = folder.getRoot().toPath();
+        InMemoryEngine persistent = InMemoryEngine.open(dir, false, 3); //checkpoints part way through
+        Student stu = new Student("valid", "valid", "valid", "valid", "valid");
+        ClassModel classModel = persistent.getClassRepo().save(openClass("valid", 2));
+        for (String name : Arrays.asList("a", "b", "c", "d")) {
+            persistent.getClassRepo().save(openClass(name, 2));
+        }
+        persistent.getClassRepo().deleteById(openClass("d", 2).getId());
+        persistent.getClassRepo().enroll(classModel.getId(), stu);
+
+        // Act, without closing first as if the process had died, and with a torn record at the end of the log
+        Files.write(dir.resolve("classes.log"), new byte[]{42, 0, 0}, StandardOpenOption.APPEND);
+        InMemoryEngine reopened = InMemoryEngine.open(dir, false, 3);
+
+        // Assert
+        List<ClassSummary> open = reopened.getClassRepo().findOpenClassSummaries();
+        Assert.assertEquals(4, open.size());
+        Assert.assertEquals("a", open.get(0).getName());
+        Assert.assertTrue(reopened.getClassRepo().findById(classModel.getId()).isEnrolled(stu));
+        Assert.assertNull(reopened.getClassRepo().findById(openClass("d", 2).getId()));
+        persistent.close();
+        reopened.close();
+    }
+}
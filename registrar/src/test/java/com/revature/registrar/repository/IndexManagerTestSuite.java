@@ -0,0 +1,59 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+
+public class IndexManagerTestSuite {
+
+    @Test
+    public void hasCollScan_returnsFalse_givenIndexScanPlan() {
+        // Arrange
+        Document plan = new Document("stage", "FETCH")
+                .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "id_unique"));
+
+        // Act
+        boolean actual = IndexManager.hasCollScan(plan);
+
+        // Assert
+        Assert.assertFalse(actual);
+    }
+
+    @Test
+    public void hasCollScan_returnsTrue_givenTopLevelCollScan() {
+        Document plan = new Document("stage", "COLLSCAN");
+
+        Assert.assertTrue(IndexManager.hasCollScan(plan));
+    }
+
+    @Test
+    public void hasCollScan_returnsTrue_givenCollScanNestedInInputStages() {
+        Document plan = new Document("stage", "OR")
+                .append("inputStages", Arrays.asList(
+                        new Document("stage", "IXSCAN"),
+                        new Document("stage", "COLLSCAN")));
+
+        Assert.assertTrue(IndexManager.hasCollScan(plan));
+    }
+
+    @Test
+    public void getProbes_coversConditionalWritesAndPageQueries() {
+        // Act
+        Map<String, IndexManager.Probe> actual = new IndexManager().getProbes();
+
+        // Assert
+        Assert.assertTrue(actual.keySet().containsAll(Arrays.asList("ClassModelRepo.enroll", "ClassModelRepo.unenroll",
+                "ClassModelRepo.update", "ClassModelRepo.findOpenClassSummaries(cursor)", "UserRepository.findWithClass(cursor)",
+                "UserRepository.addClassRef", "UserRepository.removeClassRef", "UserRepository.removeClassFromAll")));
+        BsonDocument enroll = actual.get("ClassModelRepo.enroll").filter
+                .toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+        Assert.assertTrue(enroll.toJson().contains("$expr"));
+        Assert.assertNotNull(actual.get("UserRepository.findWithClass(cursor)").sort);
+    }
+}
@@ -0,0 +1,35 @@
+package com.revature.registrar.repository;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import com.revature.registrar.exceptions.DataSourceException;
+import org.bson.BsonDocument;
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class MongoErrorsTestSuite {
+
+    @Test
+    public void isDuplicateKey_returnsTrue_givenWrappedDuplicateKeyWriteError() {
+        // Arrange
+        MongoWriteException duplicate = new MongoWriteException(
+                new WriteError(11000, "E11000 duplicate key error", new BsonDocument()), new ServerAddress());
+        DataSourceException wrapped = new DataSourceException("An unexpected exception occurred.", duplicate);
+
+        // Act
+        boolean actual = MongoErrors.isDuplicateKey(wrapped);
+
+        // Assert
+        Assert.assertTrue(actual);
+    }
+
+    @Test
+    public void isDuplicateKey_returnsFalse_givenOtherWriteError() {
+        MongoWriteException other = new MongoWriteException(
+                new WriteError(121, "Document failed validation", new BsonDocument()), new ServerAddress());
+
+        Assert.assertFalse(MongoErrors.isDuplicateKey(other));
+    }
+}
@@ -0,0 +1,153 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.ClassSummary;
+import org.junit.*;
+import org.mockito.Mockito;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+public class OpenClassSchedulerTestSuite {
+    OpenClassScheduler sut; //SUT = System Under Test
+    InMemoryEngine engine;
+    ClassModelRepo classRepo;
+    List<Integer> warmed;
+    long now;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        engine = InMemoryEngine.open((String) null);
+        warmed = new ArrayList<>();
+        now = System.currentTimeMillis();
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC);
+        sut = new OpenClassScheduler(engine.getClassRepo(), warmed::add, 5_000, null, clock);
+        classRepo = new ScheduledClassModelRepo(engine.getClassRepo(), sut);
+    }
+
+    @After // runs after each test case
+    public void afterEachTest() {
+        engine.close();
+    }
+
+    private ClassModel classWithWindow(String name, long openOffset, long closeOffset) {
+        long open = now + openOffset;
+        long close = now + closeOffset;
+        return new ClassModel(name, "valid", 2, open, close, new HashSet<>());
+    }
+
+    @Test
+    public void reload_loadsOnlyOpenClasses_inCatalogOrder() {
+        // Arrange
+        engine.getClassRepo().save(classWithWindow("b", -10_000, 100_000));
+        engine.getClassRepo().save(classWithWindow("a", -10_000, 100_000));
+        engine.getClassRepo().save(classWithWindow("later", 50_000, 100_000));
+        engine.getClassRepo().save(classWithWindow("over", -100_000, -50_000));
+
+        // Act
+        sut.reload();
+
+        // Assert
+        List<ClassSummary> actual = classRepo.findOpenClassSummaries();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals("a", actual.get(0).getName());
+        Assert.assertEquals("b", actual.get(1).getName());
+    }
+
+    @Test
+    public void reload_keepsChangesReported_whileItWasStreaming() {
+        // Arrange
+        ClassModel stays = engine.getClassRepo().save(classWithWindow("stays", -10_000, 100_000));
+        ClassModel moved = engine.getClassRepo().save(classWithWindow("moved", -10_000, 100_000));
+        ClassModel deleted = engine.getClassRepo().save(classWithWindow("deleted", -10_000, 100_000));
+        ClassModelRepo streaming = Mockito.spy(engine.getClassRepo());
+        sut = new OpenClassScheduler(streaming, warmed::add, 5_000, null, Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+        classRepo = new ScheduledClassModelRepo(engine.getClassRepo(), sut);
+        doAnswer(inv -> {
+            Object streamed = inv.callRealMethod();
+            ClassModel stored = engine.getClassRepo().findById(moved.getId());
+            stored.setOpenWindow(now + 30_000);
+            stored.setCloseWindow(now + 40_000);
+            classRepo.update(stored);
+            classRepo.deleteById(deleted.getId());
+            classRepo.save(classWithWindow("added", -10_000, 100_000));
+            return streamed;
+        }).doCallRealMethod().when(streaming).streamAllClassSummaries(any());
+
+        // Act
+        sut.reload();
+
+        // Assert
+        List<Integer> expected = Arrays.asList(classWithWindow("added", 0, 0).getId(), stays.getId());
+        Assert.assertEquals(expected, sut.openIds());
+        sut.advance(now + 30_001);
+        Assert.assertEquals(3, sut.openCount());
+        sut.reload(); //nothing changes while this one streams, so it takes the stored windows as of the clock
+        Assert.assertEquals(expected, sut.openIds());
+    }
+
+    @Test
+    public void advance_warmsThenOpensThenCloses_atEachBoundary() {
+        // Arrange
+        ClassModel classModel = classRepo.save(classWithWindow("valid", 10_000, 20_000));
+        Assert.assertEquals(0, sut.openCount());
+
+        // Act + Assert
+        sut.advance(now + 6_000);
+        Assert.assertEquals(Arrays.asList(classModel.getId()), warmed);
+        Assert.assertEquals(0, sut.openCount());
+
+        sut.advance(now + 10_001);
+        Assert.assertEquals(Arrays.asList(classModel.getId()), sut.openIds());
+
+        sut.advance(now + 20_000);
+        Assert.assertEquals(0, sut.openCount());
+    }
+
+    @Test
+    public void update_reschedules_andDropsTransitionsOfTheOldWindow() {
+        // Arrange
+        ClassModel classModel = classRepo.save(classWithWindow("valid", -10_000, 20_000));
+        Assert.assertEquals(1, sut.openCount());
+
+        // Act
+        classModel.setOpenWindow(now + 30_000);
+        classModel.setCloseWindow(now + 40_000);
+        classRepo.update(classModel);
+
+        // Assert
+        Assert.assertEquals(0, sut.openCount());
+        sut.advance(now + 20_000);
+        Assert.assertEquals(0, sut.openCount());
+        sut.advance(now + 30_001);
+        Assert.assertEquals(1, sut.openCount());
+    }
+
+    @Test
+    public void findOpenClassSummaries_pagesTheOpenSet_andSkipsDeletedClasses() {
+        // Arrange
+        for (String name : Arrays.asList("c", "a", "d", "b")) {
+            classRepo.save(classWithWindow(name, -10_000, 100_000));
+        }
+        classRepo.deleteById(classWithWindow("c", 0, 0).getId());
+
+        // Act
+        KeysetPage<ClassSummary> first = classRepo.findOpenClassSummaries(null, 2);
+        KeysetPage<ClassSummary> second = classRepo.findOpenClassSummaries(first.getNextCursor(), 2);
+
+        // Assert
+        Assert.assertEquals("a", first.getItems().get(0).getName());
+        Assert.assertEquals("b", first.getItems().get(1).getName());
+        Assert.assertEquals(1, second.getItems().size());
+        Assert.assertEquals("d", second.getItems().get(0).getName());
+        Assert.assertNull(second.getNextCursor());
+    }
+}
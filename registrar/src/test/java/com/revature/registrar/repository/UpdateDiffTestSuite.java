@@ -0,0 +1,77 @@
+package com.revature.registrar.repository;
+
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.repository.codecs.RegistrarCodecProvider;
+import org.bson.BsonDocument;
+import org.junit.*;
+
+import java.util.HashSet;
+
+public class UpdateDiffTestSuite {
+    ClassModel classModel;
+    Student student;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        long curr = System.currentTimeMillis();
+        long open = curr - 10000;
+        long close = curr + 100000;
+        classModel = new ClassModel("valid", "valid", 2, open, close, new HashSet<>());
+        student = new Student("valid", "valid", "valid", "valid", "valid");
+        classModel.addStudent(student);
+    }
+
+    private static BsonDocument render(org.bson.conversions.Bson update) {
+        return update.toBsonDocument(BsonDocument.class, RegistrarCodecProvider.getCodecRegistry());
+    }
+
+    @Test
+    public void getUpdates_setsOnlyChangedFields_ofPersistedClass() {
+        // Arrange
+        classModel.markPersisted();
+        classModel.setDescription("changed");
+
+        // Act
+        BsonDocument actual = render(MongoClassModelRepo.getUpdates(classModel));
+
+        // Assert
+        Assert.assertEquals(1, actual.getDocument("$set").size());
+        Assert.assertEquals("changed", actual.getDocument("$set").getString("description").getValue());
+        Assert.assertEquals(1, actual.getDocument("$inc").getInt32("version").getValue());
+        Assert.assertFalse(actual.containsKey("$push"));
+    }
+
+    @Test
+    public void getUpdates_pushesAndPullsRosterChanges() {
+        // Arrange
+        classModel.markPersisted();
+        Student newcomer = new Student("new", "new", "new", "new", "new");
+        classModel.addStudent(newcomer);
+
+        // Act
+        BsonDocument pushed = render(MongoClassModelRepo.getUpdates(classModel));
+        classModel.markPersisted();
+        classModel.removeStudent(student);
+        BsonDocument pulled = render(MongoClassModelRepo.getUpdates(classModel));
+
+        // Assert
+        Assert.assertEquals(1, pushed.getDocument("$push").getDocument("students").getArray("$each").size());
+        Assert.assertEquals(2, pushed.getDocument("$set").getInt32("enrolledCount").getValue());
+        Assert.assertEquals(student.getId(), pulled.getDocument("$pull").getDocument("students")
+                .getDocument("id").getArray("$in").get(0).asInt32().getValue());
+        Assert.assertEquals(1, pulled.getDocument("$set").getInt32("enrolledCount").getValue());
+    }
+
+    @Test
+    public void getUpdates_setsEveryField_withoutPersistedState() {
+        // Act
+        BsonDocument classUpdate = render(MongoClassModelRepo.getUpdates(classModel));
+        BsonDocument userUpdate = render(MongoUserRepository.getUpdates(student));
+
+        // Assert
+        Assert.assertTrue(classUpdate.getDocument("$set").containsKey("students"));
+        Assert.assertTrue(classUpdate.getDocument("$set").containsKey("description"));
+        Assert.assertTrue(userUpdate.getDocument("$set").containsKey("classes"));
+    }
+}
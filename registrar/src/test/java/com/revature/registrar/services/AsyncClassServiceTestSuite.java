@@ -0,0 +1,82 @@
+package com.revature.registrar.services;
+
+import com.revature.registrar.exceptions.CapacityReachedException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Student;
+import com.revature.registrar.repository.AsyncClassModelRepo;
+import com.revature.registrar.repository.AsyncUserRepository;
+import org.junit.*;
+import org.mockito.Mockito;
+
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class AsyncClassServiceTestSuite {
+    AsyncClassService sut; //SUT = System Under Test
+    AsyncClassModelRepo mockClassRepo;
+    AsyncUserRepository mockUserRepo;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        mockClassRepo = Mockito.mock(AsyncClassModelRepo.class);
+        mockUserRepo = Mockito.mock(AsyncUserRepository.class);
+        sut = new AsyncClassService(mockClassRepo, mockUserRepo);
+    }
+
+    @After // runs after each test case
+    public void afterEachTest() {
+        sut = null;
+    }
+
+    @Test
+    public void enrollAndRecord_recordsClassOnStudent_whenConditionalUpdateApplies() {
+        // Arrange
+        long curr = System.currentTimeMillis();
+        long open = curr - 10000;
+        long close = curr + 100000;
+        Student stu = new Student("valid", "valid", "valid", "valid", "valid");
+        ClassModel expected = new ClassModel("valid", "valid", 2, open, close, new HashSet<>());
+        expected.addStudent(stu);
+
+        when(mockClassRepo.enroll(expected.getId(), stu)).thenReturn(CompletableFuture.completedFuture(expected));
+        when(mockUserRepo.addClassRef(stu.getId(), expected)).thenReturn(CompletableFuture.completedFuture(true));
+
+        // Act
+        ClassModel actual = sut.enrollAndRecord(expected.getId(), stu).join();
+
+        // Assert
+        Assert.assertEquals(expected, actual);
+        verify(mockUserRepo, times(1)).addClassRef(stu.getId(), expected);
+        verify(mockClassRepo, times(0)).findById(anyInt());
+    }
+
+    @Test
+    public void enrollAndRecord_failsWithCapacityReached_andRecordsNothing_whenClassIsFull() {
+        // Arrange
+        long curr = System.currentTimeMillis();
+        long open = curr - 10000;
+        long close = curr + 100000;
+        Student enrolled = new Student("first", "last", "email", "enrolled", "pass");
+        Student stu = new Student("valid", "valid", "valid", "valid", "valid");
+        ClassModel full = new ClassModel("valid", "valid", 1, open, close, new HashSet<>());
+        full.addStudent(enrolled);
+
+        when(mockClassRepo.enroll(full.getId(), stu)).thenReturn(CompletableFuture.completedFuture(null));
+        when(mockClassRepo.findById(full.getId())).thenReturn(CompletableFuture.completedFuture(full));
+
+        // Act
+        try {
+            sut.enrollAndRecord(full.getId(), stu).join();
+            Assert.fail("Expected the enrollment to fail");
+        } catch (CompletionException e) {
+            // Assert
+            Assert.assertTrue(e.getCause() instanceof CapacityReachedException);
+        }
+        verify(mockUserRepo, times(0)).addClassRef(anyInt(), any());
+    }
+}
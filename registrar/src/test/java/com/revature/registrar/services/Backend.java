@@ -0,0 +1,16 @@
+package com.revature.registrar.services;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Repositories a service suite runs against. MOCK stubs every answer per test, IN_MEMORY runs the real
+ * InMemoryEngine repositories behind Mockito spies, so the same verify() calls hold for both.
+ */
+enum Backend {
+    MOCK, IN_MEMORY;
+
+    static Collection<Object[]> all() {
+        return Arrays.asList(new Object[][]{{MOCK}, {IN_MEMORY}});
+    }
+}
@@ -1,28 +1,55 @@
 package com.revature.registrar.services;
 
 import com.revature.registrar.App;
+import com.revature.registrar.exceptions.CapacityReachedException;
 import com.revature.registrar.exceptions.InvalidRequestException;
 import com.revature.registrar.exceptions.OpenWindowException;
 import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.exceptions.VersionConflictException;
 import com.revature.registrar.models.ClassModel;
 import com.revature.registrar.models.Faculty;
 import com.revature.registrar.models.Student;
 import com.revature.registrar.models.User;
+import com.revature.registrar.repository.BatchResult;
 import com.revature.registrar.repository.ClassModelRepo;
+import com.revature.registrar.repository.InMemoryEngine;
+import com.revature.registrar.repository.Transaction;
+import com.revature.registrar.repository.TransactionRunner;
 import com.revature.registrar.repository.UserRepository;
 import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
+@RunWith(Parameterized.class)
 public class ClassServiceTestSuite {
     ClassService sut; //SUT = System Under Test
     ClassModelRepo mockClassRepo;
+    UserRepository mockUserRepo;
+    InMemoryEngine engine;
+
+    @Parameterized.Parameter
+    public Backend backend;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Backend.all();
+    }
 
     /*
     common junit4 annotations
@@ -46,24 +73,67 @@ public class ClassServiceTestSuite {
 
     @Before // runs before each test case
     public void beforeEachTest() {
-        mockClassRepo = Mockito.mock(ClassModelRepo.class);
-        sut = new ClassService(mockClassRepo);
+        if (backend == Backend.MOCK) {
+            mockClassRepo = Mockito.mock(ClassModelRepo.class);
+            mockUserRepo = Mockito.mock(UserRepository.class);
+        } else {
+            engine = InMemoryEngine.open((String) null);
+            mockClassRepo = Mockito.spy(engine.getClassRepo());
+            mockUserRepo = Mockito.spy(engine.getUserRepo());
+        }
+        sut = new ClassService(mockClassRepo, mockUserRepo);
     }
 
     @After // runs after each test case
     public void afterEachTest() {
         sut = null;
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    /**
+     * Makes classModel readable through mockClassRepo, stubbed for MOCK and stored for IN_MEMORY
+     * @param classModel
+     */
+    private void stored(ClassModel classModel) {
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.findById(classModel.getId())).thenReturn(classModel);
+        } else {
+            engine.getClassRepo().save(classModel);
+        }
+    }
+
+    /**
+     * Makes the first times updates conflict. MOCK throws, IN_MEMORY lets a competing write land first
+     * so the real repository detects the stale version.
+     * @param times
+     */
+    private void conflictOnFirstUpdates(int times) {
+        AtomicInteger conflicts = new AtomicInteger(times);
+        doAnswer(inv -> {
+            boolean conflict = conflicts.getAndDecrement() > 0;
+            if (backend == Backend.MOCK) {
+                if (conflict) {
+                    throw new VersionConflictException("conflict");
+                }
+                return true;
+            }
+            if (conflict) {
+                ClassModel competing = engine.getClassRepo().findById(((ClassModel) inv.getArgument(0)).getId());
+                competing.setCapacity(competing.getCapacity() + 1);
+                engine.getClassRepo().update(competing);
+            }
+            return inv.callRealMethod();
+        }).when(mockClassRepo).update(any());
     }
 
     @Test (expected = OpenWindowException.class)
     public void isValid_throwsOpenWindowException_givenValidUser() {
         ///AAA - Arrange, Act, Assert
 
-        Calendar open = Calendar.getInstance();
-        Date d = new Date(open.getTimeInMillis() + 100000);
-        Calendar close = new Calendar.Builder()
-                .setInstant(d)
-                .build();
+        long open = System.currentTimeMillis();
+        long close = open + 100000;
         Set<Faculty> fac = new HashSet<>();
         Set<Student> stu = new HashSet<>();
 
@@ -82,15 +152,9 @@ public class ClassServiceTestSuite {
     @Test
     public void register_returnsSuccessfully_whenGivenValidUser() {
         // Arrange
-        Calendar curr = Calendar.getInstance();
-        Date d = new Date(curr.getTimeInMillis() + 10000);
-        Calendar open = new Calendar.Builder()
-                .setInstant(d)
-                .build();
-        d = new Date(curr.getTimeInMillis() + 100000);
-        Calendar close = new Calendar.Builder()
-                .setInstant(d)
-                .build();
+        long curr = System.currentTimeMillis();
+        long open = curr + 10000;
+        long close = curr + 100000;
         Set<Faculty> fac = new HashSet<>();
         Set<Student> stu = new HashSet<>();
 
@@ -98,7 +162,9 @@ public class ClassServiceTestSuite {
         ClassModel valid = new ClassModel("valid", "valid", 2, open, close, fac);
 
 
-        when(mockClassRepo.save(any())).thenReturn(expected);
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.save(any())).thenReturn(expected);
+        }
 
         // Act
         ClassModel actual = sut.register(valid);
@@ -111,22 +177,18 @@ public class ClassServiceTestSuite {
     @Test (expected = InvalidRequestException.class)
     public void register_throwsInvalidRequestException_whenGivenInvalidClassModel() {
         // Arrange
-        Calendar curr = Calendar.getInstance();
-        Date d = new Date(curr.getTimeInMillis() + 10000);
-        Calendar open = new Calendar.Builder()
-                .setInstant(d)
-                .build();
-        d = new Date(curr.getTimeInMillis() + 100000);
-        Calendar close = new Calendar.Builder()
-                .setInstant(d)
-                .build();
+        long curr = System.currentTimeMillis();
+        long open = curr + 10000;
+        long close = curr + 100000;
         Set<Faculty> fac = new HashSet<>();
         Set<Student> stu = new HashSet<>();
 
         ClassModel invalid = new ClassModel("", "valid", 2, open, close, fac);
 
 
-        when(mockClassRepo.save(any())).thenReturn(invalid);
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.save(any())).thenReturn(invalid);
+        }
 
         // Act
         ClassModel actual = sut.register(invalid);
@@ -134,4 +196,250 @@ public class ClassServiceTestSuite {
         // Assert
         verify(mockClassRepo, times(0)).save(any());
     }
+
+    @Test
+    public void enroll_returnsUpdatedClass_whenConditionalUpdateApplies() {
+        // Arrange
+        long curr = System.currentTimeMillis();
+        long open = curr - 10000;
+        long close = curr + 100000;
+        Student stu = new Student("valid", "valid", "valid", "valid", "valid");
+        ClassModel expected = new ClassModel("valid", "valid", 2, open, close, new HashSet<>());
+
+        if (backend == Backend.MOCK) {
+            expected.addStudent(stu);
+            when(mockClassRepo.enroll(expected.getId(), stu)).thenReturn(expected);
+        } else {
+            engine.getClassRepo().save(expected);
+        }
+
+        // Act
+        ClassModel actual = sut.enroll(expected.getId(), stu);
+
+        // Assert
+        Assert.assertEquals(expected.getId(), actual.getId());
+        Assert.assertTrue(actual.isEnrolled(stu));
+        verify(mockClassRepo, times(1)).enroll(expected.getId(), stu);
+        verify(mockClassRepo, times(0)).update(any());
+        verify(mockClassRepo, times(0)).findById(anyInt());
+    }
+
+    @Test (expected = CapacityReachedException.class)
+    public void enroll_throwsCapacityReachedException_whenClassIsFull() {
+        // Arrange
+        long curr = System.currentTimeMillis();
+        long open = curr - 10000;
+        long close = curr + 100000;
+        Student enrolled = new Student("first", "last", "email", "enrolled", "pass");
+        Student stu = new Student("valid", "valid", "valid", "valid", "valid");
+        ClassModel full = new ClassModel("valid", "valid", 1, open, close, new HashSet<>());
+        full.addStudent(enrolled);
+
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.enroll(full.getId(), stu)).thenReturn(null);
+        }
+        stored(full);
+
+        // Act
+        sut.enroll(full.getId(), stu);
+    }
+
+    @Test (expected = InvalidRequestException.class)
+    public void enroll_throwsInvalidRequestException_whenAlreadyEnrolled() {
+        // Arrange
+        long curr = System.currentTimeMillis();
+        long open = curr - 10000;
+        long close = curr + 100000;
+        Student stu = new Student("valid", "valid", "valid", "valid", "valid");
+        ClassModel classModel = new ClassModel("valid", "valid", 2, open, close, new HashSet<>());
+        classModel.addStudent(stu);
+
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.enroll(classModel.getId(), stu)).thenReturn(null);
+        }
+        stored(classModel);
+
+        // Act
+        sut.enroll(classModel.getId(), stu);
+    }
+
+    @Test
+    public void update_skipsDuplicateLookup_givenClassWithOpenWindow() {
+        // Arrange
+        long curr = System.currentTimeMillis();
+        ClassModel classModel = new ClassModel("valid", "valid", 2, curr - 10000, curr + 100000, new HashSet<>());
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.update(classModel)).thenReturn(true);
+        } else {
+            engine.getClassRepo().save(classModel);
+        }
+
+        // Act
+        boolean actual = sut.update(classModel);
+
+        // Assert
+        Assert.assertTrue(actual);
+        verify(mockClassRepo, times(0)).findById(anyInt());
+    }
+
+    @Test (expected = InvalidRequestException.class)
+    public void enroll_reportsClosedWindow_againstInjectedClock() {
+        // Arrange
+        Clock afterClose = Clock.fixed(Instant.ofEpochMilli(2_500), ZoneOffset.UTC);
+        sut = new ClassService(mockClassRepo, null, null, afterClose);
+        Student enrolled = new Student("first", "last", "email", "enrolled", "pass");
+        Student stu = new Student("valid", "valid", "valid", "valid", "valid");
+        ClassModel full = new ClassModel("valid", "valid", 1, 1_000, 2_000, new HashSet<>());
+        full.addStudent(enrolled);
+
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.enroll(full.getId(), stu)).thenReturn(null);
+        }
+        stored(full);
+
+        // Act
+        sut.enroll(full.getId(), stu);
+    }
+
+    @Test
+    public void refreshAll_issuesSingleBatchLookup_andDropsMissingClasses() {
+        // Arrange
+        long open = System.currentTimeMillis();
+        long close = System.currentTimeMillis();
+        ClassModel first = new ClassModel("first", "valid", 2, open, close, new HashSet<>());
+        ClassModel gone = new ClassModel("gone", "valid", 2, open, close, new HashSet<>());
+        List<Integer> ids = Arrays.asList(first.getId(), gone.getId());
+
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.findAllById(ids)).thenReturn(
+                    new BatchResult<>(Collections.singletonList(first), Collections.singletonList(gone.getId())));
+        } else {
+            engine.getClassRepo().save(first);
+        }
+
+        // Act
+        List<ClassModel> result = sut.refreshAll(Arrays.asList(first, gone));
+
+        // Assert
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(first.getId(), result.get(0).getId());
+        verify(mockClassRepo, times(1)).findAllById(ids);
+        verify(mockClassRepo, never()).findById(anyInt());
+    }
+
+    @Test
+    public void updateWithRetry_rereadsAndReappliesChanges_afterVersionConflict() {
+        // Arrange
+        long curr = System.currentTimeMillis();
+        long open = curr + 10000;
+        long close = curr + 100000;
+        ClassModel stale = new ClassModel("valid", "valid", 2, open, close, new HashSet<>());
+        ClassModel fresh = new ClassModel("valid", "valid", 2, open, close, new HashSet<>());
+        fresh.setVersion(1);
+
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.findById(stale.getId())).thenReturn(stale, fresh);
+        } else {
+            engine.getClassRepo().save(stale);
+        }
+        conflictOnFirstUpdates(1);
+
+        // Act
+        ClassModel result = sut.updateWithRetry(stale.getId(), c -> c.setDescription("changed"));
+
+        // Assert
+        Assert.assertEquals("changed", result.getDescription());
+        Assert.assertEquals("changed", sut.getClassWithId(stale.getId()).getDescription());
+        verify(mockClassRepo, times(2)).update(any());
+    }
+
+    @Test (expected = VersionConflictException.class)
+    public void updateWithRetry_throwsVersionConflictException_whenEveryAttemptConflicts() {
+        // Arrange
+        long curr = System.currentTimeMillis();
+        long open = curr + 10000;
+        long close = curr + 100000;
+        ClassModel classModel = new ClassModel("valid", "valid", 2, open, close, new HashSet<>());
+
+        stored(classModel);
+        conflictOnFirstUpdates(Integer.MAX_VALUE);
+
+        // Act
+        sut.updateWithRetry(classModel.getId(), c -> c.setDescription("changed"));
+    }
+
+    @Test
+    public void enrollAndRecord_writesClassAndUser_withoutTransaction() {
+        // Arrange
+        sut = new ClassService(mockClassRepo, mockUserRepo);
+        Student stu = new Student("valid", "valid", "valid", "valid", "valid");
+        ClassModel classModel = openClass();
+
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.enroll(classModel.getId(), stu)).thenReturn(classModel);
+            when(mockUserRepo.addClassRef(stu.getId(), classModel)).thenReturn(true);
+        } else {
+            storeBoth(classModel, stu);
+        }
+
+        // Act
+        sut.enrollAndRecord(classModel.getId(), stu);
+
+        // Assert
+        Assert.assertTrue(stu.isInClasses(classModel));
+        verify(mockUserRepo, times(1)).addClassRef(eq(stu.getId()), argThat(c -> c.getId() == classModel.getId()));
+        verify(mockUserRepo, times(0)).update(any());
+        assertRecorded(classModel, stu);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void enrollAndRecord_runsBothWritesOnTheSameSession_withTransaction() {
+        // Arrange
+        TransactionRunner mockTxRunner = Mockito.mock(TransactionRunner.class);
+        Transaction mockTx = Mockito.mock(Transaction.class);
+        sut = new ClassService(mockClassRepo, mockUserRepo, mockTxRunner);
+        Student stu = new Student("valid", "valid", "valid", "valid", "valid");
+        ClassModel classModel = openClass();
+
+        when(mockTxRunner.inTransaction(any())).thenAnswer(inv -> ((Function<Transaction, Object>) inv.getArgument(0)).apply(mockTx));
+        if (backend == Backend.MOCK) {
+            when(mockClassRepo.enroll(mockTx, classModel.getId(), stu)).thenReturn(classModel);
+            when(mockUserRepo.addClassRef(mockTx, stu.getId(), classModel)).thenReturn(true);
+        } else {
+            storeBoth(classModel, stu);
+        }
+
+        // Act
+        sut.enrollAndRecord(classModel.getId(), stu);
+
+        // Assert
+        Assert.assertTrue(stu.isInClasses(classModel));
+        verify(mockClassRepo, times(1)).enroll(mockTx, classModel.getId(), stu);
+        verify(mockUserRepo, times(1)).addClassRef(eq(mockTx), eq(stu.getId()), argThat(c -> c.getId() == classModel.getId()));
+        verify(mockClassRepo, times(0)).enroll(anyInt(), any());
+        assertRecorded(classModel, stu);
+    }
+
+    private static ClassModel openClass() {
+        long curr = System.currentTimeMillis();
+        return new ClassModel("valid", "valid", 2, curr - 10000, curr + 100000, new HashSet<>());
+    }
+
+    private void storeBoth(ClassModel classModel, Student stu) {
+        engine.getClassRepo().save(classModel);
+        engine.getUserRepo().save(stu);
+    }
+
+    /**
+     * On IN_MEMORY, checks that enrollAndRecord reached the stored roster and the stored student
+     * @param classModel
+     * @param stu
+     */
+    private void assertRecorded(ClassModel classModel, Student stu) {
+        if (backend == Backend.IN_MEMORY) {
+            Assert.assertTrue(engine.getClassRepo().findById(classModel.getId()).isEnrolled(stu));
+            Assert.assertTrue(((Student) engine.getUserRepo().findById(stu.getId())).isInClasses(classModel));
+        }
+    }
 }
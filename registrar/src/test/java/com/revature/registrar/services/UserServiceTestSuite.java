@@ -3,19 +3,45 @@ package com.revature.registrar.services;
 import com.revature.registrar.App;
 import com.revature.registrar.exceptions.InvalidRequestException;
 import com.revature.registrar.exceptions.ResourcePersistenceException;
+import com.revature.registrar.models.ClassModel;
+import com.revature.registrar.models.Student;
 import com.revature.registrar.models.User;
+import com.revature.registrar.models.UserCredentials;
+import com.revature.registrar.repository.InMemoryEngine;
 import com.revature.registrar.repository.UserRepository;
+import com.revature.registrar.util.PasswordUtils;
 import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
+@RunWith(Parameterized.class)
 public class UserServiceTestSuite {
     UserService sut; //SUT = System Under Test
     UserRepository mockUserRepo;
+    PasswordUtils passUtil;
+    InMemoryEngine engine;
+
+    @Parameterized.Parameter
+    public Backend backend;
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> backends() {
+        return Backend.all();
+    }
 
     /*
     common junit4 annotations
@@ -39,13 +65,37 @@ public class UserServiceTestSuite {
 
     @Before // runs before each test case
     public void beforeEachTest() {
-        mockUserRepo = Mockito.mock(UserRepository.class);
-        sut = new UserService(mockUserRepo);
+        if (backend == Backend.MOCK) {
+            mockUserRepo = Mockito.mock(UserRepository.class);
+        } else {
+            engine = InMemoryEngine.open((String) null);
+            mockUserRepo = Mockito.spy(engine.getUserRepo());
+        }
+        passUtil = new PasswordUtils();
+        sut = new UserService(mockUserRepo, passUtil);
     }
 
     @After // runs after each test case
     public void afterEachTest() {
         sut = null;
+        if (engine != null) {
+            engine.close();
+        }
+    }
+
+    /**
+     * Makes user, with storedPassword, readable through mockUserRepo, stubbed for MOCK and stored for IN_MEMORY
+     * @param user
+     * @param storedPassword
+     */
+    private void stored(User user, String storedPassword) {
+        user.setPassword(storedPassword);
+        if (backend == Backend.MOCK) {
+            when(mockUserRepo.findCredentialsByUsername(user.getUsername())).thenReturn(credentialsOf(user, storedPassword));
+            when(mockUserRepo.findById(user.getId())).thenReturn(user);
+        } else {
+            engine.getUserRepo().save(user);
+        }
     }
 
     @Test
@@ -57,7 +107,7 @@ public class UserServiceTestSuite {
         User valid = new User("valid", "valid", "valid", "valid", "valid", false);
 
         // Act
-        boolean actual = sut.isValid(valid); //This method is private... need to mock
+        boolean actual = UserService.isValid(valid);
 
         //Assert
         Assert.assertEquals("Expected user to be considered valid", expected, actual);
@@ -68,7 +118,7 @@ public class UserServiceTestSuite {
         boolean expected = false;
         User invalid = new User("", "valid", "valid", "valid", "valid", false);
 
-        boolean actual = sut.isValid(invalid); //This method is private... need
+        boolean actual = UserService.isValid(invalid);
 
         Assert.assertEquals("Expected user to be considered valid", expected, actual);
     }
@@ -79,13 +129,17 @@ public class UserServiceTestSuite {
         User expected = new User("valid", "valid", "valid","valid","valid", false);
         User validUser = new User("valid", "valid", "valid","valid","valid", false);
 
-        when(mockUserRepo.save(any())).thenReturn(expected);
+        if (backend == Backend.MOCK) {
+            when(mockUserRepo.save(any())).thenReturn(expected);
+        }
 
         // Act
         User actual = sut.register(validUser);
 
         // Assert
-        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(expected.getId(), actual.getId());
+        Assert.assertFalse(passUtil.needsRehash(actual.getPassword()));
+        Assert.assertTrue(passUtil.verify("valid", actual.getPassword()));
         verify(mockUserRepo, times(1)).save(any());
     }
 
@@ -107,42 +161,117 @@ public class UserServiceTestSuite {
     @Test (expected = ResourcePersistenceException.class)
     public void register_throwsException_whenGivenUserWithDuplicateUsername() {
         // Arrange
-        User existing = new User("first", "last", "email", "duplicate", "pass", false);
         User duplicate = new User("first", "last", "email", "duplicate", "pass", false);
-        when(mockUserRepo.findById(duplicate.getId())).thenReturn(existing);
+        if (backend == Backend.MOCK) {
+            when(mockUserRepo.save(duplicate)).thenThrow(new ResourcePersistenceException("Duplicate"));
+        } else {
+            engine.getUserRepo().save(new Student("other", "other", "other", "duplicate", "other"));
+        }
 
         // Act
         try {
             sut.register(duplicate);
         } finally {
             // Assert
-            verify(mockUserRepo, times(1)).findById(duplicate.getId());
-            verify(mockUserRepo, times(0)).save(duplicate);
+            verify(mockUserRepo, times(0)).findById(anyInt());
+            verify(mockUserRepo, times(1)).save(duplicate);
+        }
+    }
+
+    @Test (expected = ResourcePersistenceException.class)
+    public void register_throwsException_givenAdminUsername() {
+        // Arrange
+        sut = new UserService(mockUserRepo, passUtil, Clock.systemUTC(), Collections.singleton("wsingleton"));
+        User admin = new User("first", "last", "email", "wsingleton", "pass", false);
+
+        // Act
+        try {
+            sut.register(admin);
+        } finally {
+            // Assert
+            verify(mockUserRepo, never()).save(any());
         }
     }
 
     @Test
-    public void login_returnsSuccessfully_whenGivenValidCredentials() {
+    public void login_readsOnlyCredentials_andHydratesCurrUserOnFirstUse() {
         // Arrange
-        User expected = new User("valid", "valid", "valid","valid","valid", false);
-        User validUser = new User("valid", "valid", "valid","valid","valid", false);
+        User expected = new Student("valid", "valid", "valid","username","valid");
+        stored(expected, passUtil.generateSecurePassword("password"));
 
-        when(mockUserRepo.findUserByCredentials(any(), any())).thenReturn(expected);
+        // Act
+        UserCredentials actual = sut.login("username", "password");
+
+        // Assert
+        Assert.assertEquals(expected.getId(), actual.getId());
+        Assert.assertNull(actual.getPassword());
+        verify(mockUserRepo, times(1)).findCredentialsByUsername("username");
+        verify(mockUserRepo, never()).findById(anyInt());
+        verify(mockUserRepo, never()).replacePassword(anyInt(), any(), any());
+        Assert.assertEquals(expected, sut.getCurrUser());
+        Assert.assertEquals(expected, sut.getCurrUser());
+        verify(mockUserRepo, times(1)).findById(expected.getId());
+    }
+
+    @Test
+    public void login_returnsNull_whenGivenWrongPassword() {
+        // Arrange
+        stored(new Student("valid", "valid", "valid","username","valid"), passUtil.generateSecurePassword("password"));
 
         // Act
-        User actual = sut.login("username", "password");
+        UserCredentials actual = sut.login("username", "wrong");
 
         // Assert
-        Assert.assertEquals(expected, actual);
-        verify(mockUserRepo, times(1)).findUserByCredentials(any(), any());
+        Assert.assertNull(actual);
+        Assert.assertNull(sut.getCurrUser());
+        verify(mockUserRepo, never()).findById(anyInt());
     }
 
     @Test
-    public void getUserWithId_returnsSuccessfully_whenGivenValidId() {
+    public void login_verifiesAgainstDummyHash_givenUnknownUsername() {
         // Arrange
-        User expected = new User("valid", "valid", "valid","valid","valid", false);
+        passUtil = Mockito.spy(passUtil);
+        sut = new UserService(mockUserRepo, passUtil);
 
-        when(mockUserRepo.findById(expected.getId())).thenReturn(expected);
+        // Act
+        UserCredentials actual = sut.login("unknown", "password");
+
+        // Assert
+        Assert.assertNull(actual);
+        Assert.assertNull(sut.getCurrUser());
+        verify(passUtil, times(1)).verify("password", passUtil.getDummyHash());
+    }
+
+    @Test
+    public void login_replacesLegacyPlaintextWithHash_onSuccess() {
+        // Arrange
+        User expected = new Student("valid", "valid", "valid","username","password");
+        stored(expected, "password");
+
+        // Act
+        UserCredentials actual = sut.login("username", "password");
+
+        // Assert
+        Assert.assertEquals(expected.getId(), actual.getId());
+        ArgumentCaptor<String> replacement = ArgumentCaptor.forClass(String.class);
+        verify(mockUserRepo, times(1)).replacePassword(eq(expected.getId()), eq("password"), replacement.capture());
+        Assert.assertFalse(passUtil.needsRehash(replacement.getValue()));
+        Assert.assertTrue(passUtil.verify("password", replacement.getValue()));
+    }
+
+    private static UserCredentials credentialsOf(User user, String storedPassword) {
+        UserCredentials credentials = new UserCredentials();
+        credentials.setId(user.getId());
+        credentials.setUsername(user.getUsername());
+        credentials.setPassword(storedPassword);
+        return credentials;
+    }
+
+    @Test
+    public void getUserWithId_returnsSuccessfully_whenGivenValidId() {
+        // Arrange
+        User expected = new Student("valid", "valid", "valid","valid","valid");
+        stored(expected, "valid");
 
         // Act
         User actual = sut.getUserWithId(expected.getId());
@@ -157,7 +286,9 @@ public class UserServiceTestSuite {
         // Arrange
         User expected = new User("valid", "valid", "valid","valid","valid", false);
 
-        when(mockUserRepo.findById(expected.getId())).thenReturn(null);
+        if (backend == Backend.MOCK) {
+            when(mockUserRepo.findById(expected.getId())).thenReturn(null);
+        }
 
         // Act
         User actual = sut.getUserWithId(expected.getId());
@@ -171,7 +302,11 @@ public class UserServiceTestSuite {
         // Arrange
         User valid = new User("valid", "valid", "valid","valid","valid", false);
         boolean expected = true;
-        when(mockUserRepo.update(valid)).thenReturn(true);
+        if (backend == Backend.MOCK) {
+            when(mockUserRepo.update(valid)).thenReturn(true);
+        } else {
+            engine.getUserRepo().save(new Student("valid", "valid", "valid","valid","valid"));
+        }
 
         // Act
         boolean actual = sut.update(valid);
@@ -186,7 +321,9 @@ public class UserServiceTestSuite {
         // Arrange
         User invalid = new User("", "valid", "valid","valid","valid", false);
 
-        when(mockUserRepo.update(invalid)).thenReturn(true);
+        if (backend == Backend.MOCK) {
+            when(mockUserRepo.update(invalid)).thenReturn(true);
+        }
         boolean expected = false;
 
         // Act
@@ -196,5 +333,28 @@ public class UserServiceTestSuite {
         verify(mockUserRepo, times(0)).update(invalid);
     }
 
-}
+    @Test
+    public void deleteClassFromAll_issuesSingleBulkPull_andReturnsModifiedCount() {
+        // Arrange
+        ClassModel classModel = new ClassModel("valid", "valid", 2, System.currentTimeMillis(), System.currentTimeMillis(), new HashSet<>());
+        if (backend == Backend.MOCK) {
+            when(mockUserRepo.removeClassFromAll(classModel.getId())).thenReturn(3L);
+        } else {
+            for (String username : new String[]{"a", "b", "c"}) {
+                Student stu = new Student("valid", "valid", "valid", username, "valid");
+                engine.getUserRepo().save(stu);
+                engine.getUserRepo().addClassRef(stu.getId(), classModel);
+            }
+        }
+
+        // Act
+        long actual = sut.deleteClassFromAll(classModel);
 
+        // Assert
+        Assert.assertEquals(3L, actual);
+        verify(mockUserRepo, times(1)).removeClassFromAll(classModel.getId());
+        verify(mockUserRepo, times(0)).findWithClass(anyInt());
+        verify(mockUserRepo, times(0)).update(any());
+    }
+
+}
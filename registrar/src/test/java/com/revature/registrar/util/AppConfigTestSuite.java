@@ -0,0 +1,78 @@
+package com.revature.registrar.util;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.WriteConcern;
+import com.revature.registrar.exceptions.DataSourceException;
+import org.junit.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+public class AppConfigTestSuite {
+    AppConfig sut; //SUT = System Under Test
+    Properties file;
+    Map<String, String> env;
+    Properties system;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        file = new Properties();
+        env = new HashMap<>();
+        system = new Properties();
+        sut = new AppConfig(file, env, system);
+
+        file.setProperty("ipAddress", "localhost");
+        file.setProperty("port", "27017");
+    }
+
+    @Test
+    public void get_prefersSystemProperty_thenEnvironment_thenFile() {
+        // Arrange
+        file.setProperty("pool.maxSize", "10");
+        env.put("REGISTRAR_POOL_MAX_SIZE", "20");
+
+        // Act
+        int fromEnv = sut.getInt("pool.maxSize", 0);
+        system.setProperty("pool.maxSize", "30");
+        int fromSystem = sut.getInt("pool.maxSize", 0);
+
+        // Assert
+        Assert.assertEquals(20, fromEnv);
+        Assert.assertEquals(30, fromSystem);
+        Assert.assertEquals(7, sut.getInt("pool.minSize", 7));
+    }
+
+    @Test
+    public void buildSettings_appliesPoolTimeoutsAndConcerns() {
+        // Arrange
+        file.setProperty("pool.maxSize", "25");
+        file.setProperty("pool.maxWaitMillis", "500");
+        file.setProperty("connectTimeoutMillis", "1000");
+        file.setProperty("compressors", "zstd,zlib");
+        file.setProperty("writeConcern", "majority");
+        file.setProperty("writeConcern.timeoutMillis", "3000");
+
+        // Act
+        MongoClientSettings actual = MongoClientFactory.buildSettings(sut);
+
+        // Assert
+        Assert.assertEquals(25, actual.getConnectionPoolSettings().getMaxSize());
+        Assert.assertEquals(500, actual.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1000, actual.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS));
+        Assert.assertEquals("zstd", actual.getCompressorList().get(0).getName());
+        Assert.assertEquals("zlib", actual.getCompressorList().get(1).getName());
+        Assert.assertEquals(WriteConcern.MAJORITY.withWTimeout(3000, TimeUnit.MILLISECONDS), actual.getWriteConcern());
+        Assert.assertNull(actual.getCredential());
+    }
+
+    @Test(expected = DataSourceException.class)
+    public void buildSettings_throwsDataSourceException_givenUnknownCompressor() {
+        // Arrange
+        file.setProperty("compressors", "lz4");
+
+        // Act
+        MongoClientFactory.buildSettings(sut);
+    }
+}
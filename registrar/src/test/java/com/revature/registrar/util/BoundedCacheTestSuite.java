@@ -0,0 +1,110 @@
+package com.revature.registrar.util;
+
+import org.junit.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BoundedCacheTestSuite {
+    BoundedCache<Integer, String> sut; //SUT = System Under Test
+    AtomicLong now;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        now = new AtomicLong();
+        sut = new BoundedCache<>(100, 10, TimeUnit.SECONDS, (key, value) -> value.length(), now::get);
+    }
+
+    @Test
+    public void put_keepsWeightedSizeUnderMaximum() {
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            sut.put(i, "0123456789");
+        }
+
+        // Assert
+        Assert.assertTrue(sut.weightedSize() <= 100);
+        Assert.assertEquals(sut.weightedSize(), sut.size() * 10);
+        Assert.assertEquals(990, sut.stats().getEvictionCount());
+    }
+
+    @Test
+    public void put_keepsFrequentlyReadKeys_throughAScanOfNewKeys() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            sut.put(i, "0123456789");
+        }
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 5; i++) {
+                sut.getIfPresent(i);
+            }
+        }
+
+        // Act
+        for (int i = 100; i < 1100; i++) {
+            sut.put(i, "0123456789");
+        }
+
+        // Assert
+        for (int i = 0; i < 5; i++) {
+            Assert.assertNotNull(sut.getIfPresent(i));
+        }
+    }
+
+    @Test
+    public void put_skipsEntryHeavierThanMaximum() {
+        // Act
+        sut.put(1, new String(new char[101]));
+
+        // Assert
+        Assert.assertNull(sut.getIfPresent(1));
+        Assert.assertEquals(0, sut.weightedSize());
+    }
+
+    @Test
+    public void getIfPresent_returnsNull_onceTtlHasPassed() {
+        // Arrange
+        sut.put(1, "valid");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        Assert.assertEquals("valid", sut.getIfPresent(1));
+
+        // Act
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        // Assert
+        Assert.assertNull(sut.getIfPresent(1));
+        Assert.assertEquals(1, sut.stats().getExpirationCount());
+        Assert.assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void putIfCurrent_refusesValue_loadedBeforeAnInvalidation() {
+        // Arrange
+        long stamp = sut.stamp(1);
+        sut.invalidate(1);
+
+        // Act
+        boolean cached = sut.putIfCurrent(1, "stale", stamp);
+
+        // Assert
+        Assert.assertFalse(cached);
+        Assert.assertNull(sut.getIfPresent(1));
+        Assert.assertTrue(sut.putIfCurrent(1, "fresh", sut.stamp(1)));
+    }
+
+    @Test
+    public void get_loadsOnMissOnly_andCountsHitsAndMisses() {
+        // Arrange
+        AtomicLong loads = new AtomicLong();
+
+        // Act
+        sut.get(1, key -> "valid" + loads.incrementAndGet());
+        String actual = sut.get(1, key -> "valid" + loads.incrementAndGet());
+
+        // Assert
+        Assert.assertEquals("valid1", actual);
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, sut.stats().getHitCount());
+        Assert.assertEquals(1, sut.stats().getMissCount());
+    }
+}
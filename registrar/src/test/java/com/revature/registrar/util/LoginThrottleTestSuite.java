@@ -0,0 +1,91 @@
+package com.revature.registrar.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LoginThrottleTestSuite {
+
+    LoginThrottle sut;
+    AtomicLong clock;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        //3 attempts per username refilled in 60s, 10 per address, lockouts of 5s doubling up to 40s
+        sut = new LoginThrottle(new LoginThrottle.Limit(3, 60), new LoginThrottle.Limit(10, 60), 5, 40, 100, clock::get);
+    }
+
+    @Test
+    public void tryAcquire_locksOutUsername_onceBucketIsEmpty() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, sut.tryAcquire("jsmith", "10.0.0.1"));
+        }
+
+        // Act
+        long retryMillis = sut.tryAcquire("jsmith", "10.0.0.2");
+
+        // Assert
+        Assert.assertEquals(5001, retryMillis);
+        Assert.assertEquals(0, sut.tryAcquire("other", "10.0.0.1"));
+        Assert.assertEquals(1, sut.stats().getLockouts());
+        Assert.assertEquals(1, sut.stats().getRejectedByUsername());
+    }
+
+    @Test
+    public void tryAcquire_doublesLockout_onRepeatedExhaustion() {
+        for (int i = 0; i < 3; i++) {
+            sut.tryAcquire("jsmith", "10.0.0." + i);
+        }
+        Assert.assertEquals(5001, sut.tryAcquire("jsmith", "10.0.1.1"));
+        Assert.assertEquals(TimeUnit.SECONDS.toMillis(3) + 1, advanceSeconds(2).tryAcquire("jsmith", "10.0.1.1"));
+
+        //5s gave back a quarter token, so the next attempt locks out again for twice as long
+        Assert.assertEquals(10_001, advanceSeconds(3).tryAcquire("jsmith", "10.0.1.1"));
+        Assert.assertEquals(20_001, advanceSeconds(10).tryAcquire("jsmith", "10.0.1.1"));
+        Assert.assertEquals(3, sut.stats().getLockouts());
+    }
+
+    @Test
+    public void tryAcquire_rejectsByAddress_acrossUsernames() {
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(0, sut.tryAcquire("user" + i, "10.0.0.1"));
+        }
+
+        Assert.assertTrue(sut.tryAcquire("user10", "10.0.0.1") > 0);
+        Assert.assertEquals(1, sut.stats().getRejectedByAddress());
+        Assert.assertEquals(0, sut.tryAcquire("user10", "10.0.0.2"));
+    }
+
+    @Test
+    public void recordSuccess_resetsUsername() {
+        for (int i = 0; i < 3; i++) {
+            sut.tryAcquire("jsmith", "10.0.0.1");
+        }
+
+        sut.recordSuccess("jsmith", "10.0.0.1");
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(0, sut.tryAcquire("jsmith", "10.0.0.1"));
+        }
+    }
+
+    @Test
+    public void stats_tracksBoundedNumberOfKeys() {
+        for (int i = 0; i < 1_000; i++) {
+            sut.tryAcquire("user" + i, "10.0." + (i / 256) + "." + (i % 256));
+        }
+
+        Assert.assertTrue(sut.stats().getTrackedUsernames() <= 100);
+        Assert.assertTrue(sut.stats().getTrackedAddresses() <= 100);
+    }
+
+    private LoginThrottle advanceSeconds(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+        return sut;
+    }
+}
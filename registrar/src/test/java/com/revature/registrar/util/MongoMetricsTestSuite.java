@@ -0,0 +1,103 @@
+package com.revature.registrar.util;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class MongoMetricsTestSuite {
+    MongoMetrics sut; //SUT = System Under Test
+    ServerId serverId;
+    ConnectionDescription connection;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        sut = new MongoMetrics(true);
+        serverId = new ServerId(new ClusterId(), new ServerAddress());
+        connection = new ConnectionDescription(serverId);
+    }
+
+    @Test
+    public void commandMetrics_tagsByCollectionAndCaller_andCountsFailures() {
+        // Arrange
+        BsonDocument find = new BsonDocument("find", new BsonString("classes"));
+        BsonDocument insert = new BsonDocument("insert", new BsonString("users"));
+
+        // Act
+        sut.commandStarted(new CommandStartedEvent(1, connection, "project0", "find", find));
+        sut.commandSucceeded(new CommandSucceededEvent(1, connection, "find", new BsonDocument(), TimeUnit.MILLISECONDS.toNanos(3)));
+        sut.commandStarted(new CommandStartedEvent(2, connection, "project0", "insert", insert));
+        sut.commandFailed(new CommandFailedEvent(2, connection, "insert", TimeUnit.MILLISECONDS.toNanos(1), new RuntimeException()));
+
+        // Assert
+        List<MongoMetrics.CommandMetrics> actual = sut.commandMetrics();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals("classes", actual.get(0).getCollection());
+        Assert.assertEquals("MongoMetricsTestSuite.commandMetrics_tagsByCollectionAndCaller_andCountsFailures", actual.get(0).getCaller());
+        Assert.assertTrue(actual.get(0).getLatency().getP50Micros() >= 3000);
+        Assert.assertEquals("users", actual.get(1).getCollection());
+        Assert.assertEquals(1, actual.get(1).getFailures());
+    }
+
+    @Test
+    public void callerOf_prefersRepositoryFrame_andNamesLambdasByTheirMethod() {
+        // Arrange
+        StackTraceElement[] stack = {
+                new StackTraceElement("com.mongodb.internal.Driver", "execute", null, 1),
+                new StackTraceElement("com.revature.registrar.repository.MongoAsyncClassModelRepo", "lambda$update$3", null, 2),
+                new StackTraceElement("com.revature.registrar.services.ClassService", "update", null, 3)
+        };
+
+        // Act
+        String actual = MongoMetrics.callerOf(stack);
+
+        // Assert
+        Assert.assertEquals("MongoAsyncClassModelRepo.update", actual);
+        Assert.assertEquals("driver", MongoMetrics.callerOf(new StackTraceElement[]{stack[0]}));
+        Assert.assertEquals("classes", MongoMetrics.collectionOf("getMore",
+                new BsonDocument("getMore", new BsonInt32(1)).append("collection", new BsonString("classes"))));
+    }
+
+    @Test
+    public void poolMetrics_tracksInUseAvailableAndFailures() {
+        // Arrange
+        ConnectionId first = new ConnectionId(serverId, 1, null);
+        ConnectionId second = new ConnectionId(serverId, 2, null);
+        sut.connectionCreated(new ConnectionCreatedEvent(first));
+        sut.connectionCreated(new ConnectionCreatedEvent(second));
+
+        // Act
+        sut.connectionCheckOutStarted(new ConnectionCheckOutStartedEvent(serverId));
+        sut.connectionCheckedOut(new ConnectionCheckedOutEvent(first));
+        sut.connectionCheckOutStarted(new ConnectionCheckOutStartedEvent(serverId));
+        sut.connectionCheckedOut(new ConnectionCheckedOutEvent(second));
+        sut.connectionCheckedIn(new ConnectionCheckedInEvent(second));
+        sut.connectionCheckOutStarted(new ConnectionCheckOutStartedEvent(serverId));
+        sut.connectionCheckOutFailed(new ConnectionCheckOutFailedEvent(serverId, ConnectionCheckOutFailedEvent.Reason.TIMEOUT));
+
+        // Assert
+        MongoMetrics.PoolMetrics actual = sut.poolMetrics();
+        Assert.assertEquals(2, actual.getOpen());
+        Assert.assertEquals(1, actual.getInUse());
+        Assert.assertEquals(1, actual.getAvailable());
+        Assert.assertEquals(0, actual.getWaiting());
+        Assert.assertEquals(Long.valueOf(1), actual.getCheckOutFailuresByReason().get("TIMEOUT"));
+        Assert.assertEquals(3, actual.getCheckOutWait().getCount());
+    }
+}
@@ -0,0 +1,115 @@
+package com.revature.registrar.util;
+
+import com.revature.registrar.exceptions.ServiceUnavailableException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class PasswordUtilsTestSuite {
+
+    PasswordUtils sut;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        sut = new PasswordUtils(1_000, "legacy-salt", 1, 1);
+    }
+
+    @After
+    public void afterEachTest() {
+        sut.close();
+    }
+
+    @Test
+    public void getDummyHash_hasCurrentFormat_andMatchesNoPassword() {
+        Assert.assertFalse(sut.needsRehash(sut.getDummyHash()));
+        Assert.assertFalse(sut.verify("password", sut.getDummyHash()));
+        Assert.assertFalse(sut.verify("", sut.getDummyHash()));
+    }
+
+    @Test
+    public void pbkdf2_matchesSecretKeyFactory() throws Exception {
+        // Arrange
+        byte[] salt = "sixteen byte slt".getBytes(StandardCharsets.UTF_8);
+        PBEKeySpec spec = new PBEKeySpec("p\u00e4ssword".toCharArray(), salt, 1_000, 320);
+        byte[] expected = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+
+        // Act
+        byte[] actual = PasswordUtils.pbkdf2(Mac.getInstance("HmacSHA256"), "p\u00e4ssword", salt, 1_000, 40);
+
+        // Assert
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void generateSecurePassword_usesFreshSaltPerHash() {
+        String first = sut.generateSecurePassword("password");
+        String second = sut.generateSecurePassword("password");
+
+        Assert.assertTrue(first.startsWith("pbkdf2-sha256$1000$"));
+        Assert.assertNotEquals(first, second);
+        Assert.assertTrue(sut.verify("password", first));
+        Assert.assertTrue(sut.verify("password", second));
+        Assert.assertFalse(sut.verify("wrong", first));
+    }
+
+    @Test
+    public void verify_acceptsLegacyForms_andNeedsRehash() throws Exception {
+        // Arrange
+        PBEKeySpec spec = new PBEKeySpec("password".toCharArray(), "legacy-salt".getBytes(StandardCharsets.UTF_8), 10_000, 256);
+        String legacy = PasswordUtils.LEGACY_PREFIX + Base64.getEncoder().encodeToString(
+                SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(spec).getEncoded());
+
+        // Act & Assert
+        Assert.assertTrue(sut.verify("password", legacy));
+        Assert.assertTrue(sut.verify("password", "password"));
+        Assert.assertTrue(sut.needsRehash(legacy));
+        Assert.assertTrue(sut.needsRehash("password"));
+        Assert.assertFalse(sut.needsRehash(sut.generateSecurePassword("password")));
+    }
+
+    @Test
+    public void needsRehash_returnsTrue_givenOtherIterationCount() {
+        String stored = new PasswordUtils(500, null, 1, 1).generateSecurePassword("password");
+
+        Assert.assertTrue(sut.verify("password", stored));
+        Assert.assertTrue(sut.needsRehash(stored));
+    }
+
+    @Test
+    public void verify_returnsFalse_givenMalformedHash() {
+        Assert.assertFalse(sut.verify("password", "pbkdf2-sha256$abc$c2FsdA==$aGFzaA=="));
+        Assert.assertFalse(sut.verify("password", "pbkdf2-sha256$1000$not base64$aGFzaA=="));
+        Assert.assertFalse(sut.verify("password", "pbkdf2-sha256$2000000000$c2FsdA==$aGFzaA=="));
+        Assert.assertFalse(sut.verify("", ""));
+    }
+
+    @Test
+    public void verifyAsync_failsFast_whenQueueIsFull() {
+        // Arrange
+        String slow = "pbkdf2-sha256$1000000$c2FsdA==$aGFzaA=="; //keeps the one hashing thread busy
+        CompletableFuture<Boolean> running = sut.verifyAsync("password", slow);
+        CompletableFuture<Boolean> queued = sut.verifyAsync("password", slow);
+
+        // Act
+        CompletableFuture<Boolean> rejected = sut.verifyAsync("password", slow);
+
+        // Assert
+        try {
+            rejected.join();
+            Assert.fail("Expected the saturated pool to reject the login");
+        } catch (CompletionException ce) {
+            Assert.assertTrue(ce.getCause() instanceof ServiceUnavailableException);
+        }
+        Assert.assertFalse(running.join());
+        Assert.assertFalse(queued.join());
+    }
+}
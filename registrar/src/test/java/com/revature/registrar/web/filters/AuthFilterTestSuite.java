@@ -0,0 +1,129 @@
+package com.revature.registrar.web.filters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.registrar.models.Role;
+import com.revature.registrar.web.dtos.Principal;
+import com.revature.registrar.web.util.PrincipalTokens;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Clock;
+
+import static org.mockito.Mockito.*;
+
+public class AuthFilterTestSuite {
+    AuthFilter sut; //SUT = System Under Test
+    PrincipalTokens tokens;
+    HttpServletRequest mockReq;
+    HttpServletResponse mockResp;
+    FilterChain mockChain;
+
+    @Before // runs before each test case
+    public void beforeEachTest() throws Exception {
+        tokens = new PrincipalTokens(null, 3600, Clock.systemUTC());
+        sut = new AuthFilter(tokens, new ObjectMapper())
+                .requireRole("GET", "/users", Role.ADMIN)
+                .requireLogin("PUT", "/users");
+        mockReq = Mockito.mock(HttpServletRequest.class);
+        mockResp = Mockito.mock(HttpServletResponse.class);
+        mockChain = Mockito.mock(FilterChain.class);
+        when(mockReq.getContextPath()).thenReturn("/registrar");
+        when(mockResp.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+    }
+
+    @Test
+    public void doFilter_rejectsWith401_givenProtectedPathWithoutToken() throws Exception {
+        // Arrange
+        request("GET", "/registrar/users", "/users", null, null);
+
+        // Act
+        sut.doFilter(mockReq, mockResp, mockChain);
+
+        // Assert
+        verify(mockResp).setStatus(401);
+        verify(mockChain, never()).doFilter(mockReq, mockResp);
+    }
+
+    @Test
+    public void doFilter_rejectsWith403_givenRoleNotAllowed() throws Exception {
+        request("GET", "/registrar/users/42", "/users", "/42", new Principal(42, "jsmith", Role.FACULTY));
+
+        sut.doFilter(mockReq, mockResp, mockChain);
+
+        verify(mockResp).setStatus(403);
+        verify(mockChain, never()).doFilter(mockReq, mockResp);
+    }
+
+    @Test
+    public void doFilter_putsPrincipalOnRequest_givenAllowedRole() throws Exception {
+        // Arrange
+        Principal admin = new Principal(7, "wsingleton", Role.ADMIN);
+        request("GET", "/registrar/users", "/users", null, admin);
+
+        // Act
+        sut.doFilter(mockReq, mockResp, mockChain);
+
+        // Assert
+        verify(mockReq).setAttribute(AuthFilter.PRINCIPAL_ATTRIBUTE, admin);
+        verify(mockChain).doFilter(mockReq, mockResp);
+    }
+
+    @Test
+    public void allowedRoles_matchesMethodAndPathPrefixOnly() {
+        Assert.assertNull(sut.allowedRoles("POST", "/users"));
+        Assert.assertNull(sut.allowedRoles("GET", "/usersearch"));
+        Assert.assertEquals(1, sut.allowedRoles("get", "/users/42").size());
+        Assert.assertEquals(Role.values().length, sut.allowedRoles("PUT", "/users").size());
+    }
+
+    @Test
+    public void doFilter_rejectsWith401_givenUnnormalizedFormsOfProtectedPath() throws Exception {
+        // The container maps each of these to UserServlet, with the servlet path it decoded and normalized
+        for (String uri : new String[]{"/registrar/users;x=1", "/registrar/%75sers", "/registrar//users"}) {
+            // Arrange
+            Mockito.reset(mockResp, mockChain);
+            when(mockResp.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+            request("GET", uri, "/users", null, null);
+
+            // Act
+            sut.doFilter(mockReq, mockResp, mockChain);
+
+            // Assert
+            verify(mockResp).setStatus(401);
+            verify(mockChain, never()).doFilter(mockReq, mockResp);
+        }
+    }
+
+    @Test
+    public void requirePrincipal_answers401_whenNoRuleCheckedTheCaller() throws Exception {
+        Assert.assertNull(AuthFilter.requirePrincipal(mockReq, mockResp, new ObjectMapper()));
+
+        verify(mockResp).setStatus(401);
+    }
+
+    @Test
+    public void requirePrincipal_answers403_givenRoleNotAllowed() throws Exception {
+        when(mockReq.getAttribute(AuthFilter.PRINCIPAL_ATTRIBUTE)).thenReturn(new Principal(42, "jsmith", Role.STUDENT));
+
+        Assert.assertNull(AuthFilter.requirePrincipal(mockReq, mockResp, new ObjectMapper(), Role.ADMIN));
+
+        verify(mockResp).setStatus(403);
+    }
+
+    private void request(String method, String uri, String servletPath, String pathInfo, Principal principal) {
+        when(mockReq.getMethod()).thenReturn(method);
+        when(mockReq.getRequestURI()).thenReturn(uri);
+        when(mockReq.getServletPath()).thenReturn(servletPath);
+        when(mockReq.getPathInfo()).thenReturn(pathInfo);
+        if (principal != null) {
+            when(mockReq.getHeader("Authorization")).thenReturn(PrincipalTokens.SCHEME + tokens.issue(principal));
+        }
+    }
+}
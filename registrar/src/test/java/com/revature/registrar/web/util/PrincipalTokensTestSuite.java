@@ -0,0 +1,85 @@
+package com.revature.registrar.web.util;
+
+import com.revature.registrar.exceptions.DataSourceException;
+import com.revature.registrar.models.Role;
+import com.revature.registrar.web.dtos.Principal;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+public class PrincipalTokensTestSuite {
+
+    static final String SECRET = "c2VjcmV0LWtleS1vZi10aGUtcmVnaXN0cmFyLXRlc3Q=";
+
+    PrincipalTokens sut;
+    Clock clock;
+
+    @Before // runs before each test case
+    public void beforeEachTest() {
+        clock = Clock.fixed(Instant.parse("2021-08-06T12:00:00Z"), ZoneOffset.UTC);
+        sut = new PrincipalTokens(SECRET, 3600, clock);
+    }
+
+    @Test
+    public void verify_returnsIssuedPrincipal() {
+        // Arrange
+        Principal principal = new Principal(42, "user:with:colons", Role.FACULTY);
+        String token = sut.issue(principal);
+
+        // Act
+        Principal actual = sut.verify(token);
+
+        // Assert
+        Assert.assertEquals(principal, actual);
+        Assert.assertEquals(clock.millis() + 3_600_000, actual.getExpiresAt());
+    }
+
+    @Test
+    public void verify_returnsNull_givenTamperedOrForeignToken() {
+        String token = sut.issue(new Principal(42, "jsmith", Role.STUDENT));
+        String payload = token.substring(0, token.indexOf('.'));
+        String forged = new PrincipalTokens(SECRET, 3600, clock).issue(new Principal(7, "wsingleton", Role.FACULTY));
+
+        Assert.assertNull(sut.verify(forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'))));
+        Assert.assertNull(sut.verify(payload + ".AAAA"));
+        Assert.assertNull(new PrincipalTokens(null, 3600, clock).verify(token));
+        Assert.assertNull(sut.verify("not a token"));
+        Assert.assertNotNull(sut.verify(forged)); //same secret, so another node's token is accepted
+    }
+
+    @Test(expected = DataSourceException.class)
+    public void constructor_throwsDataSourceException_givenSecretShorterThan32Bytes() {
+        new PrincipalTokens("c2hvcnQtc2VjcmV0", 3600, clock);
+    }
+
+    @Test
+    public void verify_returnsNull_afterExpiry() {
+        String token = sut.issue(new Principal(42, "jsmith", Role.STUDENT));
+
+        PrincipalTokens later = new PrincipalTokens(SECRET, 3600, Clock.offset(clock, Duration.ofHours(1)));
+
+        Assert.assertNull(later.verify(token));
+    }
+
+    @Test
+    public void revoke_deniesTokenUntilItExpires() {
+        // Arrange
+        String token = sut.issue(new Principal(42, "jsmith", Role.STUDENT));
+        String other = sut.issue(new Principal(42, "jsmith", Role.STUDENT));
+
+        // Act
+        boolean revoked = sut.revoke(token);
+
+        // Assert
+        Assert.assertTrue(revoked);
+        Assert.assertNull(sut.verify(token));
+        Assert.assertNotNull(sut.verify(other));
+        Assert.assertFalse(sut.revoke("not a token"));
+        Assert.assertEquals(1, sut.deniedCount());
+    }
+}